@@ -42,6 +42,52 @@ public abstract class AbstractSensinactCommand<T> {
     protected abstract Promise<T> call(SensinactDigitalTwin twin, SensinactModelManager modelMgr,
             PromiseFactory promiseFactory);
 
+    /**
+     * Returns the name of the only provider read or updated by this command.
+     *
+     * A command returning a non-null key must not access any other provider, nor
+     * change any model. The gateway may then run it concurrently with commands
+     * having a different key, while commands sharing a key are always run in the
+     * order they were submitted.
+     *
+     * @return the provider name, or <code>null</code> (the default) if the command
+     *         must be run with exclusive access to the gateway
+     */
+    public String getPartitionKey() {
+        return null;
+    }
+
+    /**
+     * Indicates if this command only updates the value or metadata of resources
+     * which already exist.
+     *
+     * When overloaded, the gateway may discard such a command, failing it with a
+     * {@link GatewayOverloadedException}. Commands which would create a provider,
+     * a service or a resource are never discarded.
+     *
+     * @param existing the resources known by the gateway, which can be checked
+     *                 from any thread
+     * @return true if the command can be discarded, false by default
+     */
+    public boolean updatesExistingResources(ExistingResources existing) {
+        return false;
+    }
+
+    /**
+     * Checks if a resource exists, without accessing the providers
+     */
+    @FunctionalInterface
+    public interface ExistingResources {
+
+        /**
+         * @param provider provider name
+         * @param service  service name
+         * @param resource resource name
+         * @return true if the resource exists and already holds a value
+         */
+        boolean contains(String provider, String service, String resource);
+    }
+
     protected static <R> Promise<R> safeCall(AbstractSensinactCommand<R> command, SensinactDigitalTwin twin,
             SensinactModelManager modelMgr, PromiseFactory pf) {
         try {
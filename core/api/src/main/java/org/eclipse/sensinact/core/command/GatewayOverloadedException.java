@@ -0,0 +1,29 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.command;
+
+/**
+ * Failure of a command which was not accepted, or was discarded, by the
+ * {@link GatewayThread} because its work queue was full.
+ *
+ * Callers receiving this exception should slow down, e.g. by pausing reading
+ * from their data source, before trying again.
+ */
+public class GatewayOverloadedException extends IllegalStateException {
+
+    private static final long serialVersionUID = -1406487358925064839L;
+
+    public GatewayOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -19,6 +19,15 @@ public interface GatewayThread {
 
     public PromiseFactory getPromiseFactory();
 
+    /**
+     * Queues the given command to be run by the gateway.
+     *
+     * @param <T>     Command result type
+     * @param command Command to run
+     * @return the promise of the command result. The promise fails with a
+     *         {@link GatewayOverloadedException} if the gateway could not accept
+     *         the command.
+     */
     public <T> Promise<T> execute(AbstractSensinactCommand<T> command);
 
     public static GatewayThread getGatewayThread() {
@@ -44,6 +44,25 @@ public class IndependentCommands<T> extends AbstractSensinactCommand<List<T>> {
         commands = List.copyOf(command);
     }
 
+    @Override
+    public String getPartitionKey() {
+        // The commands can only be partitioned if they all target the same provider
+        String key = null;
+        for (AbstractSensinactCommand<? extends T> command : commands) {
+            String commandKey = command.getPartitionKey();
+            if (commandKey == null || (key != null && !key.equals(commandKey))) {
+                return null;
+            }
+            key = commandKey;
+        }
+        return key;
+    }
+
+    @Override
+    public boolean updatesExistingResources(ExistingResources existing) {
+        return !commands.isEmpty() && commands.stream().allMatch(c -> c.updatesExistingResources(existing));
+    }
+
     @Override
     protected Promise<List<T>> call(SensinactDigitalTwin twin, SensinactModelManager modelMgr,
             PromiseFactory promiseFactory) {
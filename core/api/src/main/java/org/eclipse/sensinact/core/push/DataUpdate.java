@@ -24,6 +24,10 @@ public interface DataUpdate {
      * all complete normally. If any updates fail then the promise
      * will fail with a {@link FailedUpdatesException} indicating
      * which update(s) failed.</p>
+     * <p>If the gateway is overloaded, the promise fails with a
+     * {@link org.eclipse.sensinact.core.command.GatewayOverloadedException}.
+     * Callers should then slow down, e.g. by pausing reading from
+     * their data source.</p>
      * <p><strong>N.B.</strong> A failed promise does not indicate
      * that no updates were successfully processed, only that
      * at least one update failed to be applied.</p>
@@ -65,6 +65,21 @@ public interface ICriterion {
      */
     ResourceValueFilter getResourceValueFilter();
 
+    /**
+     * Structured description of the providers this criterion can accept, letting
+     * the snapshot pick its candidates from the gateway indexes rather than
+     * testing every provider.
+     * <p>
+     * The scope must include every provider accepted by the filters of this
+     * criterion. Its bounding box, if any, must be enforced by the location
+     * filter.
+     *
+     * @return the provider scope, <code>null</code> if it is not constrained
+     */
+    default ProviderScope getProviderScope() {
+        return null;
+    }
+
     /**
      * Combine this filter with another filter as a logical AND
      *
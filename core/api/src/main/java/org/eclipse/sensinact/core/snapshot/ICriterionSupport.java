@@ -15,9 +15,11 @@ package org.eclipse.sensinact.core.snapshot;
 import static java.util.stream.Collectors.toList;
 
 import java.time.Instant;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -258,6 +260,11 @@ class AndCriterion extends CombinationCriterion {
         return and(ICriterion::getLocationFilter);
     }
 
+    @Override
+    public ProviderScope getProviderScope() {
+        return ProviderScope.and(a.getProviderScope(), b.getProviderScope());
+    }
+
     @Override
     public List<String> dataTopics() {
         // TODO deduplicate further using wildcard matching and model/provider overlap
@@ -309,6 +316,11 @@ class OrCriterion extends CombinationCriterion {
         return or(ICriterion::getLocationFilter);
     }
 
+    @Override
+    public ProviderScope getProviderScope() {
+        return ProviderScope.or(a.getProviderScope(), b.getProviderScope());
+    }
+
     @Override
     public List<String> dataTopics() {
         // TODO deduplicate further using wildcard matching
@@ -352,3 +364,120 @@ class ResourceDataFilter implements Predicate<ResourceDataNotification> {
                 && nullSafeFilter(criterion.getResourceValueFilter(), ps, List.of(ps.service.resource));
     }
 }
+
+class ProviderScopeImpl implements ProviderScope {
+
+    private final Set<String> packageUris;
+    private final Set<String> models;
+    private final Set<String> providerNames;
+    private final double[] bbox;
+
+    public ProviderScopeImpl(Set<String> packageUris, Set<String> models, Set<String> providerNames,
+            double[] bbox) {
+        this.packageUris = packageUris == null ? null : Set.copyOf(packageUris);
+        this.models = models == null ? null : Set.copyOf(models);
+        this.providerNames = providerNames == null ? null : Set.copyOf(providerNames);
+        this.bbox = bbox == null ? null : bbox.clone();
+    }
+
+    static Set<String> intersect(Set<String> a, Set<String> b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+        Set<String> result = new HashSet<>(a);
+        result.retainAll(b);
+        return result;
+    }
+
+    static Set<String> union(Set<String> a, Set<String> b) {
+        if (a == null || b == null) {
+            return null;
+        }
+        Set<String> result = new HashSet<>(a);
+        result.addAll(b);
+        return result;
+    }
+
+    @Override
+    public Set<String> getModelPackageUris() {
+        return packageUris;
+    }
+
+    @Override
+    public Set<String> getModels() {
+        return models;
+    }
+
+    @Override
+    public Set<String> getProviderNames() {
+        return providerNames;
+    }
+
+    @Override
+    public double[] getBoundingBox() {
+        return bbox == null ? null : bbox.clone();
+    }
+}
+
+class ScopedProviderFilter implements Predicate<ProviderSnapshot>, ProviderScope {
+
+    private final ProviderScope scope;
+
+    private final Predicate<ProviderSnapshot> filter;
+
+    public ScopedProviderFilter(ProviderScope scope, Predicate<ProviderSnapshot> filter) {
+        this.scope = scope;
+        this.filter = filter;
+    }
+
+    private static boolean accepts(Set<String> values, String value) {
+        return values == null || values.contains(value);
+    }
+
+    @Override
+    public boolean test(ProviderSnapshot provider) {
+        return accepts(scope.getModelPackageUris(), provider.getModelPackageUri())
+                && accepts(scope.getModels(), provider.getModelName())
+                && accepts(scope.getProviderNames(), provider.getName())
+                && (filter == null || filter.test(provider));
+    }
+
+    @Override
+    public Set<String> getModelPackageUris() {
+        return scope.getModelPackageUris();
+    }
+
+    @Override
+    public Set<String> getModels() {
+        return scope.getModels();
+    }
+
+    @Override
+    public Set<String> getProviderNames() {
+        return scope.getProviderNames();
+    }
+}
+
+class ScopedLocationFilter implements Predicate<GeoJsonObject>, ProviderScope {
+
+    private final double[] bbox;
+
+    private final Predicate<GeoJsonObject> filter;
+
+    public ScopedLocationFilter(double[] bbox, Predicate<GeoJsonObject> filter) {
+        this.bbox = bbox;
+        this.filter = filter;
+    }
+
+    @Override
+    public boolean test(GeoJsonObject location) {
+        return filter.test(location);
+    }
+
+    @Override
+    public double[] getBoundingBox() {
+        return bbox.clone();
+    }
+}
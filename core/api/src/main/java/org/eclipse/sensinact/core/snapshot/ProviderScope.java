@@ -0,0 +1,190 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.snapshot;
+
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
+
+/**
+ * Describes the providers a snapshot filter can accept.
+ * <p>
+ * Provider and location filters given to a snapshot can implement this
+ * interface to let the gateway use its indexes and skip the providers which are
+ * out of scope. Such a filter must reject any provider outside of the declared
+ * scope. A <code>null</code> value means the scope is not constrained on that
+ * criterion.
+ * <p>
+ * Criteria describe their scope with {@link ICriterion#getProviderScope()},
+ * which is attached to their filters with {@link #providerFilter(ICriterion)}
+ * and {@link #locationFilter(ICriterion)}.
+ */
+public interface ProviderScope {
+
+    /**
+     * Names of the accepted providers
+     *
+     * @return the provider names or <code>null</code>
+     */
+    default Set<String> getProviderNames() {
+        return null;
+    }
+
+    /**
+     * Package URIs of the models of the accepted providers
+     *
+     * @return the package URIs or <code>null</code>
+     */
+    default Set<String> getModelPackageUris() {
+        return null;
+    }
+
+    /**
+     * Names of the models of the accepted providers
+     *
+     * @return the model names or <code>null</code>
+     */
+    default Set<String> getModels() {
+        return null;
+    }
+
+    /**
+     * Bounding box the location of accepted providers must intersect. Providers
+     * without location are rejected.
+     *
+     * @return the bounding box as <code>[minLongitude, minLatitude,
+     *         maxLongitude, maxLatitude]</code> or <code>null</code>
+     */
+    default double[] getBoundingBox() {
+        return null;
+    }
+
+    /**
+     * Creates a provider scope
+     *
+     * @param packageUris   Package URIs of the models of the accepted providers,
+     *                      can be null
+     * @param models        Names of the models of the accepted providers, can be
+     *                      null
+     * @param providerNames Names of the accepted providers, can be null
+     * @param bbox          Bounding box the location of accepted providers must
+     *                      intersect, can be null
+     * @return the scope, null if it is not constrained at all
+     */
+    static ProviderScope of(Set<String> packageUris, Set<String> models, Set<String> providerNames,
+            double[] bbox) {
+        if (packageUris == null && models == null && providerNames == null && bbox == null) {
+            return null;
+        }
+        return new ProviderScopeImpl(packageUris, models, providerNames, bbox);
+    }
+
+    /**
+     * Computes the scope of providers accepted by both scopes
+     *
+     * @param a First scope, can be null
+     * @param b Second scope, can be null
+     * @return the intersection of both scopes, null if it is not constrained
+     */
+    static ProviderScope and(ProviderScope a, ProviderScope b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+
+        // Providers intersecting both boxes can be anywhere in either of them: keep
+        // the first one
+        double[] bbox = a.getBoundingBox() != null ? a.getBoundingBox() : b.getBoundingBox();
+        return of(ProviderScopeImpl.intersect(a.getModelPackageUris(), b.getModelPackageUris()),
+                ProviderScopeImpl.intersect(a.getModels(), b.getModels()),
+                ProviderScopeImpl.intersect(a.getProviderNames(), b.getProviderNames()), bbox);
+    }
+
+    /**
+     * Computes the scope of providers accepted by either scope
+     *
+     * @param a First scope, can be null
+     * @param b Second scope, can be null
+     * @return the union of both scopes, null if it is not constrained
+     */
+    static ProviderScope or(ProviderScope a, ProviderScope b) {
+        if (a == null || b == null) {
+            return null;
+        }
+
+        double[] bboxA = a.getBoundingBox();
+        double[] bboxB = b.getBoundingBox();
+        double[] bbox = null;
+        if (bboxA != null && bboxB != null) {
+            if (bboxA[0] > bboxA[2] || bboxB[0] > bboxB[2]) {
+                // A box crossing the antimeridian: keep all longitudes
+                bbox = new double[] { -180, Math.min(bboxA[1], bboxB[1]), 180, Math.max(bboxA[3], bboxB[3]) };
+            } else {
+                bbox = new double[] { Math.min(bboxA[0], bboxB[0]), Math.min(bboxA[1], bboxB[1]),
+                        Math.max(bboxA[2], bboxB[2]), Math.max(bboxA[3], bboxB[3]) };
+            }
+        }
+        return of(ProviderScopeImpl.union(a.getModelPackageUris(), b.getModelPackageUris()),
+                ProviderScopeImpl.union(a.getModels(), b.getModels()),
+                ProviderScopeImpl.union(a.getProviderNames(), b.getProviderNames()), bbox);
+    }
+
+    /**
+     * Returns the provider filter of the criterion, declaring the provider scope
+     * of the criterion to the snapshot. The returned filter checks the package
+     * URI, model and name of the providers, the bounding box is left to the
+     * location filter.
+     *
+     * @param criterion Snapshot criterion
+     * @return the provider filter, can be null
+     */
+    static Predicate<ProviderSnapshot> providerFilter(ICriterion criterion) {
+        return providerFilter(criterion.getProviderScope(), criterion.getProviderFilter());
+    }
+
+    /**
+     * Attaches a scope to a provider filter. The returned filter checks the
+     * package URI, model and name of the providers before calling the given
+     * filter, the bounding box is left to the location filter.
+     *
+     * @param scope  Provider scope, can be null
+     * @param filter Provider filter, can be null
+     * @return the scoped provider filter, can be null
+     */
+    static Predicate<ProviderSnapshot> providerFilter(ProviderScope scope, Predicate<ProviderSnapshot> filter) {
+        if (scope == null || (scope.getModelPackageUris() == null && scope.getModels() == null
+                && scope.getProviderNames() == null)) {
+            return filter;
+        }
+        return new ScopedProviderFilter(scope, filter);
+    }
+
+    /**
+     * Returns the location filter of the criterion, declaring the bounding box of
+     * the criterion to the snapshot. The bounding box is only declared if the
+     * criterion has a location filter, which must enforce it.
+     *
+     * @param criterion Snapshot criterion
+     * @return the location filter, can be null
+     */
+    static Predicate<GeoJsonObject> locationFilter(ICriterion criterion) {
+        final Predicate<GeoJsonObject> filter = criterion.getLocationFilter();
+        final ProviderScope scope = criterion.getProviderScope();
+        if (filter == null || filter instanceof ProviderScope || scope == null || scope.getBoundingBox() == null) {
+            return filter;
+        }
+        return new ScopedLocationFilter(scope.getBoundingBox(), filter);
+    }
+}
@@ -0,0 +1,67 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.snapshot;
+
+/**
+ * Describes the parts of the resources a snapshot must contain.
+ * <p>
+ * The providers, services and resources of the snapshot, with their names and
+ * types, are always available. Values and metadata which are not part of the
+ * projection are not copied: {@link ResourceSnapshot#getValue()} then returns
+ * <code>null</code> and {@link ResourceSnapshot#getMetadata()} an empty map.
+ */
+public enum SnapshotProjection {
+
+    /**
+     * Only the structure of the providers
+     */
+    STRUCTURE(false, false),
+
+    /**
+     * Structure and resource values
+     */
+    VALUES(true, false),
+
+    /**
+     * Structure and resource metadata
+     */
+    METADATA(false, true),
+
+    /**
+     * Structure, resource values and metadata
+     */
+    FULL(true, true);
+
+    private final boolean values;
+
+    private final boolean metadata;
+
+    SnapshotProjection(boolean values, boolean metadata) {
+        this.values = values;
+        this.metadata = metadata;
+    }
+
+    /**
+     * @return true if resource values are part of the snapshot
+     */
+    public boolean includesValues() {
+        return values;
+    }
+
+    /**
+     * @return true if resource metadata are part of the snapshot
+     */
+    public boolean includesMetadata() {
+        return metadata;
+    }
+}
@@ -20,6 +20,7 @@ import org.eclipse.sensinact.core.command.CommandScoped;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
+import org.eclipse.sensinact.core.snapshot.SnapshotProjection;
 import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
 
 /**
@@ -191,9 +192,28 @@ public interface SensinactDigitalTwin extends CommandScoped {
      * @param rcFilter       Resource filter (without values)
      * @return The filtered snapshot
      */
+    default List<ProviderSnapshot> filteredSnapshot(Predicate<GeoJsonObject> geoFilter,
+            Predicate<ProviderSnapshot> providerFilter, Predicate<ServiceSnapshot> svcFilter,
+            Predicate<ResourceSnapshot> rcFilter) {
+        return filteredSnapshot(geoFilter, providerFilter, svcFilter, rcFilter, SnapshotProjection.FULL);
+    }
+
+    /**
+     * Returns a (filtered) snapshot of the model, only containing the resource
+     * values and metadata required by the given projection. Resource values and
+     * metadata are only read for the resources accepted by the filters. All null
+     * filters are ignored, all associated items are accepted.
+     *
+     * @param geoFilter      Provider location filter
+     * @param providerFilter Provider filter (without services)
+     * @param svcFilter      Service filter (without resources)
+     * @param rcFilter       Resource filter (without values)
+     * @param projection     Parts of the resources to include in the snapshot
+     * @return The filtered snapshot
+     */
     List<ProviderSnapshot> filteredSnapshot(Predicate<GeoJsonObject> geoFilter,
             Predicate<ProviderSnapshot> providerFilter, Predicate<ServiceSnapshot> svcFilter,
-            Predicate<ResourceSnapshot> rcFilter);
+            Predicate<ResourceSnapshot> rcFilter, SnapshotProjection projection);
 
     /**
      * Returns the snapshot of the provider with the given name.
@@ -12,6 +12,7 @@
 **********************************************************************/
 package org.eclipse.sensinact.core.snapshot;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -21,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -502,4 +504,119 @@ public class ICriterionTest {
             assertFalse(criterionFE.dataEventFilter().test(rdn));
         }
     }
+
+    @Nested
+    class ScopeTests {
+
+        private ICriterion getScopedCriterion(String provider, String model) {
+            ICriterion criterion = getTestCriterion(provider, null, null, null, null);
+            ProviderScope scope = ProviderScope.of(null, model == null ? null : Set.of(model),
+                    provider == null ? null : Set.of(provider), null);
+            return new ICriterion() {
+
+                @Override
+                public Predicate<ServiceSnapshot> getServiceFilter() {
+                    return criterion.getServiceFilter();
+                }
+
+                @Override
+                public ResourceValueFilter getResourceValueFilter() {
+                    return criterion.getResourceValueFilter();
+                }
+
+                @Override
+                public Predicate<ResourceSnapshot> getResourceFilter() {
+                    return criterion.getResourceFilter();
+                }
+
+                @Override
+                public Predicate<ProviderSnapshot> getProviderFilter() {
+                    return criterion.getProviderFilter();
+                }
+
+                @Override
+                public Predicate<GeoJsonObject> getLocationFilter() {
+                    return criterion.getLocationFilter();
+                }
+
+                @Override
+                public ProviderScope getProviderScope() {
+                    return scope;
+                }
+            };
+        }
+
+        @Test
+        public void andTest() {
+            ICriterion criterionA = getScopedCriterion("a", null);
+            ICriterion criterionM = getScopedCriterion(null, "m");
+
+            ProviderScope scope = criterionA.and(criterionM).getProviderScope();
+            assertEquals(Set.of("a"), scope.getProviderNames());
+            assertEquals(Set.of("m"), scope.getModels());
+            assertNull(scope.getModelPackageUris());
+
+            // Unconstrained criteria keep the scope of the other side
+            ICriterion unscoped = getTestCriterion(null, "s", null, null, null);
+            assertEquals(Set.of("a"), criterionA.and(unscoped).getProviderScope().getProviderNames());
+            assertEquals(Set.of("a"), unscoped.and(criterionA).getProviderScope().getProviderNames());
+
+            // Disjoint scopes accept nothing
+            ICriterion criterionB = getScopedCriterion("b", null);
+            assertEquals(Set.of(), criterionA.and(criterionB).getProviderScope().getProviderNames());
+        }
+
+        @Test
+        public void orTest() {
+            ICriterion criterionA = getScopedCriterion("a", null);
+            ICriterion criterionB = getScopedCriterion("b", null);
+            assertEquals(Set.of("a", "b"), criterionA.or(criterionB).getProviderScope().getProviderNames());
+
+            // Any unconstrained side makes the union unconstrained
+            assertNull(criterionA.or(getScopedCriterion(null, "m")).getProviderScope());
+            assertNull(criterionA.or(getTestCriterion(null, "s", null, null, null)).getProviderScope());
+        }
+
+        @Test
+        public void orBoundingBoxTest() {
+            ProviderScope paris = ProviderScope.of(null, null, null, new double[] { 2, 48, 3, 49 });
+            ProviderScope lyon = ProviderScope.of(null, null, null, new double[] { 4, 45, 5, 46 });
+            assertArrayEquals(new double[] { 2, 45, 5, 49 }, ProviderScope.or(paris, lyon).getBoundingBox());
+
+            // Boxes crossing the antimeridian have their west bound greater than their
+            // east bound
+            ProviderScope fiji = ProviderScope.of(null, null, null, new double[] { 177, -21, -178, -12 });
+            assertArrayEquals(new double[] { -180, -21, 180, 49 }, ProviderScope.or(fiji, paris).getBoundingBox());
+            assertArrayEquals(new double[] { -180, -21, 180, 49 }, ProviderScope.or(paris, fiji).getBoundingBox());
+        }
+
+        @Test
+        public void negateTest() {
+            assertNull(getScopedCriterion("a", null).negate().getProviderScope());
+        }
+
+        @Test
+        public void providerFilterTest() {
+            // Without scope, the provider filter of the criterion is used as is
+            ICriterion unscoped = getTestCriterion("a", null, null, null, null);
+            Predicate<ProviderSnapshot> unscopedFilter = ProviderScope.providerFilter(unscoped);
+            assertFalse(unscopedFilter instanceof ProviderScope);
+            Mockito.lenient().when(ps.getName()).thenReturn("a");
+            assertTrue(unscopedFilter.test(ps));
+            Mockito.lenient().when(ps.getName()).thenReturn("b");
+            assertFalse(unscopedFilter.test(ps));
+            assertNull(ProviderScope.providerFilter(getTestCriterion(null, null, null, null, null)));
+
+            // The scoped filter is checked even if the criterion has no provider filter
+            ICriterion criterion = getScopedCriterion(null, "m");
+            Predicate<ProviderSnapshot> filter = ProviderScope.providerFilter(criterion);
+            assertTrue(filter instanceof ProviderScope);
+            assertEquals(Set.of("m"), ((ProviderScope) filter).getModels());
+
+            Mockito.lenient().when(ps.getModelName()).thenReturn("m");
+            assertTrue(filter.test(ps));
+            Mockito.lenient().when(ps.getModelName()).thenReturn("n");
+            assertFalse(filter.test(ps));
+        }
+    }
 }
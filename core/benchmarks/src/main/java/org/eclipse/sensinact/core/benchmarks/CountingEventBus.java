@@ -0,0 +1,49 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.osgi.service.typedevent.TypedEventBus;
+
+/**
+ * Event bus only counting the delivered events. Events can be delivered from
+ * any thread.
+ */
+public class CountingEventBus implements TypedEventBus {
+
+    private final LongAdder delivered = new LongAdder();
+
+    @Override
+    public void deliver(Object event) {
+        delivered.increment();
+    }
+
+    @Override
+    public void deliver(String topic, Object event) {
+        delivered.increment();
+    }
+
+    @Override
+    public void deliverUntyped(String topic, Map<String, ?> event) {
+        delivered.increment();
+    }
+
+    /**
+     * Number of events delivered so far
+     */
+    public long getDelivered() {
+        return delivered.sum();
+    }
+}
@@ -0,0 +1,105 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.benchmarks;
+
+import org.eclipse.sensinact.core.metrics.IMetricCounter;
+import org.eclipse.sensinact.core.metrics.IMetricMeter;
+import org.eclipse.sensinact.core.metrics.IMetricTimer;
+import org.eclipse.sensinact.core.metrics.IMetricsHistogram;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
+
+/**
+ * Metrics manager ignoring all metrics, so that benchmarks only measure the
+ * gateway itself
+ */
+public class NoopMetricsManager implements IMetricsManager {
+
+    private static final NoopMetric METRIC = new NoopMetric();
+
+    @Override
+    public void enableMetrics() {
+    }
+
+    @Override
+    public void disableMetrics() {
+    }
+
+    @Override
+    public void enableMetrics(String... names) {
+    }
+
+    @Override
+    public void disableMetrics(String... names) {
+    }
+
+    @Override
+    public void clear() {
+    }
+
+    @Override
+    public IMetricTimer withTimer(String name) {
+        return METRIC;
+    }
+
+    @Override
+    public IMetricTimer withTimers(String... names) {
+        return METRIC;
+    }
+
+    @Override
+    public IMetricCounter getCounter(String name) {
+        return METRIC;
+    }
+
+    @Override
+    public IMetricsHistogram getHistogram(String name) {
+        return METRIC;
+    }
+
+    @Override
+    public IMetricMeter getMeter(String name) {
+        return METRIC;
+    }
+
+    private static class NoopMetric implements IMetricCounter, IMetricsHistogram, IMetricMeter, IMetricTimer {
+
+        @Override
+        public String getName() {
+            return "noop";
+        }
+
+        @Override
+        public void inc() {
+        }
+
+        @Override
+        public void dec() {
+        }
+
+        @Override
+        public void update(long value) {
+        }
+
+        @Override
+        public void mark() {
+        }
+
+        @Override
+        public void mark(long n) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.command.impl;
+
+import java.util.Map;
+
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.sensinact.core.benchmarks.CountingEventBus;
+import org.eclipse.sensinact.core.benchmarks.NoopMetricsManager;
+import org.eclipse.sensinact.core.command.GatewayThread;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
+import org.eclipse.sensinact.model.core.provider.ProviderPackage;
+import org.osgi.util.converter.Converters;
+
+/**
+ * Runs a gateway thread outside of OSGi, for benchmarks
+ */
+public class GatewayFixture implements AutoCloseable {
+
+    private final IMetricsManager metrics = new NoopMetricsManager();
+
+    private final CountingEventBus eventBus = new CountingEventBus();
+
+    private final GatewayThreadImpl thread;
+
+    /**
+     * @param configuration the gateway thread configuration, using the
+     *                      configuration property names
+     */
+    public GatewayFixture(Map<String, Object> configuration) {
+        ResourceSet resourceSet = new ResourceSetImpl();
+        resourceSet.getPackageRegistry().put(ProviderPackage.eNS_URI, ProviderPackage.eINSTANCE);
+        GatewayThreadConfiguration config = Converters.standardConverter().convert(configuration)
+                .to(GatewayThreadConfiguration.class);
+        thread = new GatewayThreadImpl(metrics, eventBus, resourceSet, ProviderPackage.eINSTANCE, config);
+    }
+
+    public GatewayThread getThread() {
+        return thread;
+    }
+
+    public IMetricsManager getMetrics() {
+        return metrics;
+    }
+
+    public CountingEventBus getEventBus() {
+        return eventBus;
+    }
+
+    @Override
+    public void close() {
+        thread.deactivate();
+    }
+}
@@ -0,0 +1,142 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.command.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.sensinact.core.command.GatewayThread;
+import org.eclipse.sensinact.core.command.ResourceCommand;
+import org.eclipse.sensinact.core.impl.DataUpdateFixture;
+import org.eclipse.sensinact.core.push.dto.BulkGenericDto;
+import org.eclipse.sensinact.core.push.dto.GenericDto;
+import org.eclipse.sensinact.core.twin.SensinactResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+
+/**
+ * Measures the number of commands per second run by the gateway thread, when
+ * many resource updates are queued at once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GatewayThreadBenchmark {
+
+    private static final int PROVIDERS = 100;
+
+    private static final int COMMANDS = 1000;
+
+    private static final String SERVICE = "sensor";
+
+    private static final String RESOURCE = "value";
+
+    /**
+     * The execution mode of the gateway thread
+     */
+    @Param({ "SINGLE", "PARTITIONED" })
+    public String mode;
+
+    /**
+     * The number of partition workers in partitioned mode, so that results don't
+     * depend on the number of processors of the host
+     */
+    @Param({ "4" })
+    public int partitions;
+
+    /**
+     * The maximum number of commands run as a batch
+     */
+    @Param({ "1", "64" })
+    public int batchSize;
+
+    private GatewayFixture gateway;
+
+    private GatewayThread thread;
+
+    private String[] providers;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        gateway = new GatewayFixture(Map.of("execution.mode", mode, "partition.count", partitions,
+                "batch.size", batchSize, "queue.size", COMMANDS * 2));
+        thread = gateway.getThread();
+        providers = new String[PROVIDERS];
+        for (int i = 0; i < PROVIDERS; i++) {
+            providers[i] = "provider" + i;
+        }
+
+        // Create the providers and their resource
+        BulkGenericDto bulk = new BulkGenericDto();
+        bulk.dtos = new ArrayList<>(PROVIDERS);
+        for (String provider : providers) {
+            GenericDto dto = new GenericDto();
+            dto.provider = provider;
+            dto.service = SERVICE;
+            dto.resource = RESOURCE;
+            dto.type = Integer.class;
+            dto.value = 0;
+            bulk.dtos.add(dto);
+        }
+        DataUpdateFixture.create(thread, gateway.getMetrics(), false).pushUpdate(bulk).getValue();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        gateway.close();
+    }
+
+    /**
+     * Queues resource value updates spread over the providers, then waits for
+     * all of them
+     */
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public Object resourceUpdates() throws Exception {
+        final Instant timestamp = Instant.now();
+        List<Promise<Void>> results = new ArrayList<>(COMMANDS);
+        for (int i = 0; i < COMMANDS; i++) {
+            final int value = next++;
+            results.add(thread.execute(
+                    new ResourceCommand<Void>(providers[value % PROVIDERS], SERVICE, RESOURCE) {
+                        @Override
+                        protected Promise<Void> call(SensinactResource resource, PromiseFactory pf) {
+                            return resource.setValue(value, timestamp);
+                        }
+                    }));
+        }
+        return thread.getPromiseFactory().all(results).getValue();
+    }
+}
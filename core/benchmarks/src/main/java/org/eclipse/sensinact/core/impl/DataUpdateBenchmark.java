@@ -0,0 +1,168 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.sensinact.core.annotation.dto.Data;
+import org.eclipse.sensinact.core.annotation.dto.Provider;
+import org.eclipse.sensinact.core.annotation.dto.Resource;
+import org.eclipse.sensinact.core.annotation.dto.Service;
+import org.eclipse.sensinact.core.command.impl.GatewayFixture;
+import org.eclipse.sensinact.core.push.DataUpdate;
+import org.eclipse.sensinact.core.push.dto.BulkGenericDto;
+import org.eclipse.sensinact.core.push.dto.GenericDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the number of resource value updates per second pushed with the
+ * different kinds of DTOs, each update waiting for the previous one to be
+ * applied. The updated providers exist before the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataUpdateBenchmark {
+
+    private static final int PROVIDERS = 1000;
+
+    private static final int BULK_SIZE = 100;
+
+    private static final String SERVICE = "sensor";
+
+    private static final String RESOURCE = "value";
+
+    /**
+     * Flag to merge the value updates waiting in the gateway queue
+     */
+    @Param({ "false", "true" })
+    public boolean coalesce;
+
+    private GatewayFixture gateway;
+
+    private DataUpdate dataUpdate;
+
+    private String[] providers;
+
+    private int next;
+
+    public static class AnnotatedUpdate {
+        @Provider
+        public String provider;
+
+        @Service
+        public String service;
+
+        @Resource
+        public String resource;
+
+        @Data
+        public Integer data;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        gateway = new GatewayFixture(Map.of());
+        dataUpdate = DataUpdateFixture.create(gateway.getThread(), gateway.getMetrics(), coalesce);
+        providers = new String[PROVIDERS];
+        for (int i = 0; i < PROVIDERS; i++) {
+            providers[i] = "provider" + i;
+        }
+
+        // Create the providers
+        for (int i = 0; i < PROVIDERS; i += BULK_SIZE) {
+            dataUpdate.pushUpdate(bulk()).getValue();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        gateway.close();
+    }
+
+    private GenericDto generic() {
+        GenericDto dto = new GenericDto();
+        dto.provider = providers[next++ % PROVIDERS];
+        dto.service = SERVICE;
+        dto.resource = RESOURCE;
+        dto.type = Integer.class;
+        dto.value = next;
+        dto.timestamp = Instant.now();
+        return dto;
+    }
+
+    private BulkGenericDto bulk() {
+        BulkGenericDto bulk = new BulkGenericDto();
+        bulk.dtos = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            bulk.dtos.add(generic());
+        }
+        return bulk;
+    }
+
+    @Benchmark
+    public Object genericDto() throws Exception {
+        return dataUpdate.pushUpdate(generic()).getValue();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public Object bulkGenericDto() throws Exception {
+        return dataUpdate.pushUpdate(bulk()).getValue();
+    }
+
+    @Benchmark
+    public Object annotatedDto() throws Exception {
+        AnnotatedUpdate dto = new AnnotatedUpdate();
+        dto.provider = providers[next++ % PROVIDERS];
+        dto.service = SERVICE;
+        dto.resource = RESOURCE;
+        dto.data = next;
+        return dataUpdate.pushUpdate(dto).getValue();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public Object annotatedDtoList() throws Exception {
+        List<AnnotatedUpdate> dtos = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            AnnotatedUpdate dto = new AnnotatedUpdate();
+            dto.provider = providers[next++ % PROVIDERS];
+            dto.service = SERVICE;
+            dto.resource = RESOURCE;
+            dto.data = next;
+            dtos.add(dto);
+        }
+        return dataUpdate.pushUpdate(dtos).getValue();
+    }
+}
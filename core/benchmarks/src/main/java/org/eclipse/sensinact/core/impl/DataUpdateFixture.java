@@ -0,0 +1,44 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.impl;
+
+import java.util.Map;
+
+import org.eclipse.sensinact.core.command.GatewayThread;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
+import org.eclipse.sensinact.core.push.DataUpdate;
+import org.osgi.util.converter.Converters;
+
+/**
+ * Creates the data update service outside of OSGi, for benchmarks
+ */
+public final class DataUpdateFixture {
+
+    private DataUpdateFixture() {
+    }
+
+    /**
+     * @param thread   the gateway thread to run the updates
+     * @param metrics  the metrics manager
+     * @param coalesce flag to merge queued value updates
+     * @return the data update service
+     */
+    public static DataUpdate create(GatewayThread thread, IMetricsManager metrics, boolean coalesce) {
+        DataUpdateImpl dataUpdate = new DataUpdateImpl();
+        dataUpdate.thread = thread;
+        dataUpdate.metrics = metrics;
+        dataUpdate.activate(Converters.standardConverter().convert(Map.of("coalesce.updates", coalesce))
+                .to(DataUpdateConfiguration.class));
+        return dataUpdate;
+    }
+}
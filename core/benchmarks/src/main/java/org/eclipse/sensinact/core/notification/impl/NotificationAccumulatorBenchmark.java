@@ -0,0 +1,133 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.notification.impl;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.sensinact.core.benchmarks.CountingEventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the notification accumulators on bulk updates of many resources, as
+ * done by a batch of commands.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationAccumulatorBenchmark {
+
+    private static final String MODEL = "benchmark";
+
+    private static final String MODEL_PKG = "https://eclipse.org/sensinact/benchmark";
+
+    private static final int RESOURCES_PER_SERVICE = 5;
+
+    private static final int SERVICES_PER_PROVIDER = 2;
+
+    /**
+     * The accumulator implementation: "tree" for {@link NotificationAccumulatorImpl}
+     * and "hashed" for a reused {@link HashedNotificationAccumulator}
+     */
+    @Param({ "tree", "hashed" })
+    public String implementation;
+
+    @Param({ "1000" })
+    public int resources;
+
+    private String[] providers;
+
+    private String[] services;
+
+    private String[] names;
+
+    private Map<String, Object> metadata;
+
+    private Instant timestamp;
+
+    private CountingEventBus bus;
+
+    private HashedNotificationAccumulator free;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        providers = new String[resources];
+        services = new String[resources];
+        names = new String[resources];
+        for (int i = 0; i < resources; i++) {
+            providers[i] = "provider" + (i / (RESOURCES_PER_SERVICE * SERVICES_PER_PROVIDER));
+            services[i] = "service" + ((i / RESOURCES_PER_SERVICE) % SERVICES_PER_PROVIDER);
+            names[i] = "resource" + (i % RESOURCES_PER_SERVICE);
+        }
+        metadata = Map.of("unit", "celsius");
+        timestamp = Instant.now();
+        bus = new CountingEventBus();
+    }
+
+    private NotificationAccumulator createAccumulator() {
+        if ("tree".equals(implementation)) {
+            return new NotificationAccumulatorImpl(bus);
+        }
+        HashedNotificationAccumulator accumulator = free;
+        free = null;
+        return accumulator != null ? accumulator : new HashedNotificationAccumulator(bus, a -> free = a);
+    }
+
+    /**
+     * One value update per resource
+     */
+    @Benchmark
+    public long bulkUpdate() {
+        NotificationAccumulator accumulator = createAccumulator();
+        for (int i = 0; i < resources; i++) {
+            accumulator.resourceValueUpdate(MODEL_PKG, MODEL, providers[i], services[i], names[i], Integer.class, null,
+                    i, metadata, timestamp);
+        }
+        accumulator.completeAndSend();
+        return bus.getDelivered();
+    }
+
+    /**
+     * Two collapsed value updates and a metadata update per resource
+     */
+    @Benchmark
+    public long bulkUpdateWithMerge() {
+        NotificationAccumulator accumulator = createAccumulator();
+        Instant later = timestamp.plusMillis(1);
+        for (int i = 0; i < resources; i++) {
+            accumulator.resourceValueUpdate(MODEL_PKG, MODEL, providers[i], services[i], names[i], Integer.class, null,
+                    i, metadata, timestamp);
+            accumulator.metadataValueUpdate(MODEL_PKG, MODEL, providers[i], services[i], names[i], null, metadata,
+                    timestamp);
+            accumulator.resourceValueUpdate(MODEL_PKG, MODEL, providers[i], services[i], names[i], Integer.class, i,
+                    i + 1, metadata, later);
+        }
+        accumulator.completeAndSend();
+        return bus.getDelivered();
+    }
+}
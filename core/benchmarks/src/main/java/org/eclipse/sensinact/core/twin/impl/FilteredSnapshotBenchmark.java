@@ -0,0 +1,144 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.twin.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.eclipse.sensinact.core.command.AbstractTwinCommand;
+import org.eclipse.sensinact.core.command.GatewayThread;
+import org.eclipse.sensinact.core.command.impl.GatewayFixture;
+import org.eclipse.sensinact.core.impl.DataUpdateFixture;
+import org.eclipse.sensinact.core.push.DataUpdate;
+import org.eclipse.sensinact.core.push.dto.BulkGenericDto;
+import org.eclipse.sensinact.core.push.dto.GenericDto;
+import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.SnapshotProjection;
+import org.eclipse.sensinact.core.twin.SensinactDigitalTwin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+
+/**
+ * Measures the time to take a filtered snapshot of the digital twin according
+ * to its number of providers, each one having two services of two resources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FilteredSnapshotBenchmark {
+
+    private static final int BULK_SIZE = 1000;
+
+    private static final String[] SERVICES = { "sensor", "status" };
+
+    private static final String[] RESOURCES = { "value", "level" };
+
+    @Param({ "1000", "10000", "100000" })
+    public int providers;
+
+    private GatewayFixture gateway;
+
+    private GatewayThread thread;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        gateway = new GatewayFixture(Map.of());
+        thread = gateway.getThread();
+        DataUpdate dataUpdate = DataUpdateFixture.create(thread, gateway.getMetrics(), false);
+
+        BulkGenericDto bulk = new BulkGenericDto();
+        bulk.dtos = new ArrayList<>();
+        for (int i = 0; i < providers; i++) {
+            for (String service : SERVICES) {
+                for (String resource : RESOURCES) {
+                    GenericDto dto = new GenericDto();
+                    dto.model = "model" + (i % 10);
+                    dto.provider = "provider" + i;
+                    dto.service = service;
+                    dto.resource = resource;
+                    dto.type = Integer.class;
+                    dto.value = i;
+                    bulk.dtos.add(dto);
+                }
+            }
+            if (bulk.dtos.size() >= BULK_SIZE) {
+                dataUpdate.pushUpdate(bulk).getValue();
+                bulk = new BulkGenericDto();
+                bulk.dtos = new ArrayList<>();
+            }
+        }
+        if (!bulk.dtos.isEmpty()) {
+            dataUpdate.pushUpdate(bulk).getValue();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        gateway.close();
+    }
+
+    private int snapshot(Predicate<ProviderSnapshot> providerFilter, SnapshotProjection projection)
+            throws Exception {
+        return thread.execute(new AbstractTwinCommand<Integer>() {
+            @Override
+            protected Promise<Integer> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                List<ProviderSnapshot> snapshot = twin.filteredSnapshot(null, providerFilter, null, null,
+                        projection);
+                return pf.resolved(snapshot.size());
+            }
+        }).getValue();
+    }
+
+    /**
+     * Snapshot of all the providers, with values and metadata
+     */
+    @Benchmark
+    public int fullSnapshot() throws Exception {
+        return snapshot(null, SnapshotProjection.FULL);
+    }
+
+    /**
+     * Snapshot of all the providers, without values nor metadata
+     */
+    @Benchmark
+    public int structureSnapshot() throws Exception {
+        return snapshot(null, SnapshotProjection.STRUCTURE);
+    }
+
+    /**
+     * Snapshot of the providers of a single model, with their values
+     */
+    @Benchmark
+    public int modelSnapshot() throws Exception {
+        return snapshot(p -> "model3".equals(p.getModelName()), SnapshotProjection.VALUES);
+    }
+}
@@ -0,0 +1,116 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.command.impl;
+
+/**
+ * Gateway thread configuration
+ */
+public @interface GatewayThreadConfiguration {
+
+    /**
+     * Execution modes of the gateway commands
+     */
+    enum ExecutionMode {
+        /**
+         * All commands are run, in order, by the gateway thread
+         */
+        SINGLE,
+        /**
+         * Commands targeting a single provider are dispatched to partition worker
+         * threads according to the provider name. Other commands are run by the
+         * gateway thread once all partitions are idle.
+         */
+        PARTITIONED
+    }
+
+    /**
+     * Policies applied when a command is submitted while the work queue is full
+     */
+    enum AdmissionPolicy {
+        /**
+         * The caller is blocked until there is room in the queue or until the
+         * admission timeout is reached. Gateway threads are never blocked.
+         */
+        BLOCK,
+        /**
+         * The command promise fails with a GatewayOverloadedException
+         */
+        FAIL,
+        /**
+         * The oldest queued discardable command, i.e. a value or metadata update of
+         * resources which were already valued, is dropped to make room for the new
+         * one
+         */
+        DROP_OLDEST
+    }
+
+    /**
+     * Default size of the work queues: {@value #DEFAULT_QUEUE_SIZE}
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 4096;
+
+    /**
+     * Command execution mode (single thread by default)
+     */
+    ExecutionMode execution_mode() default ExecutionMode.SINGLE;
+
+    /**
+     * Number of partition worker threads in partitioned mode. Defaults to the
+     * number of available processors if zero or negative.
+     */
+    int partition_count() default 0;
+
+    /**
+     * Size of the work queue of the gateway thread and of each partition worker
+     */
+    int queue_size() default DEFAULT_QUEUE_SIZE;
+
+    /**
+     * Policy applied when the work queue is full (fail by default)
+     */
+    AdmissionPolicy admission_policy() default AdmissionPolicy.FAIL;
+
+    /**
+     * Maximum time, in milliseconds, a caller is blocked with the
+     * {@link AdmissionPolicy#BLOCK} policy
+     */
+    long admission_timeout() default 1000;
+
+    /**
+     * Maximum number of queued commands run in a single batch. The commands of a
+     * batch share the same digital twin and model manager views, and the changes
+     * they make are persisted together. The notifications of the commands done
+     * by the end of the batch are merged and sent once, while those of a command
+     * still waiting for its result are sent when it is done. A value of 1 (the
+     * default) disables batching.
+     */
+    int batch_size() default 1;
+
+    /**
+     * Directory where the providers and their dynamic models are persisted. The
+     * providers are not persisted if empty (the default).
+     */
+    String persistence_directory() default "";
+
+    /**
+     * Size, in bytes, of the persisted change log above which it is compacted
+     * into a new snapshot. Zero or negative to only compact on shutdown.
+     */
+    long persistence_compaction_threshold() default 64 * 1024 * 1024;
+
+    /**
+     * Forces each persisted batch of changes to the storage device before
+     * resolving the commands of the batch
+     */
+    boolean persistence_sync() default false;
+}
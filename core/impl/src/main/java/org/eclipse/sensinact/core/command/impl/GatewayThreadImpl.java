@@ -14,30 +14,46 @@ package org.eclipse.sensinact.core.command.impl;
 
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.eclipse.sensinact.core.command.GatewayThread.getGatewayThread;
 import static org.osgi.service.component.annotations.ReferenceCardinality.MULTIPLE;
 import static org.osgi.service.component.annotations.ReferencePolicy.DYNAMIC;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.sensinact.core.command.AbstractSensinactCommand;
+import org.eclipse.sensinact.core.command.GatewayOverloadedException;
 import org.eclipse.sensinact.core.command.GatewayThread;
+import org.eclipse.sensinact.core.command.impl.GatewayThreadConfiguration.AdmissionPolicy;
+import org.eclipse.sensinact.core.command.impl.GatewayThreadConfiguration.ExecutionMode;
 import org.eclipse.sensinact.core.metrics.IMetricTimer;
 import org.eclipse.sensinact.core.metrics.IMetricsManager;
+import org.eclipse.sensinact.core.model.SensinactModelManager;
 import org.eclipse.sensinact.core.model.impl.SensinactModelManagerImpl;
 import org.eclipse.sensinact.core.model.nexus.ModelNexus;
+import org.eclipse.sensinact.core.model.nexus.store.LogProviderStore;
+import org.eclipse.sensinact.core.model.nexus.store.ProviderStore;
+import org.eclipse.sensinact.core.notification.impl.HashedNotificationAccumulator;
 import org.eclipse.sensinact.core.notification.impl.ImmediateNotificationAccumulator;
 import org.eclipse.sensinact.core.notification.impl.NotificationAccumulator;
-import org.eclipse.sensinact.core.notification.impl.NotificationAccumulatorImpl;
+import org.eclipse.sensinact.core.twin.SensinactDigitalTwin;
 import org.eclipse.sensinact.core.twin.impl.SensinactDigitalTwinImpl;
 import org.eclipse.sensinact.core.whiteboard.WhiteboardHandler;
 import org.eclipse.sensinact.core.whiteboard.impl.SensinactWhiteboard;
@@ -45,17 +61,28 @@ import org.eclipse.sensinact.model.core.provider.ProviderPackage;
 import org.osgi.service.component.AnyService;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.typedevent.TypedEventBus;
+import org.osgi.util.converter.Converters;
 import org.osgi.util.promise.Deferred;
 import org.osgi.util.promise.Promise;
 import org.osgi.util.promise.PromiseFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 //TODO decide if this is the right level to be a component
-@Component(immediate = true)
+@Component(immediate = true, configurationPid = GatewayThreadImpl.PID, configurationPolicy = ConfigurationPolicy.OPTIONAL)
 public class GatewayThreadImpl extends Thread implements GatewayThread {
 
+    private static final Logger LOG = LoggerFactory.getLogger(GatewayThreadImpl.class);
+
+    /**
+     * Configuration PID
+     */
+    static final String PID = "sensinact.gateway.thread";
+
     private final TypedEventBus typedEventBus;
 
     private final SensinactWhiteboard whiteboard;
@@ -63,30 +90,102 @@ public class GatewayThreadImpl extends Thread implements GatewayThread {
     private final ModelNexus nexusImpl;
 
     // TODO decide if we should just use an infinite queue
-    private final BlockingQueue<WorkItem<?>> work = new ArrayBlockingQueue<>(4096);
+    private final BlockingQueue<WorkItem<?>> work;
 
     private final AtomicBoolean run = new AtomicBoolean(true);
 
+    private final AdmissionPolicy admissionPolicy;
+
+    private final long admissionTimeout;
+
+    /**
+     * Maximum number of work items run in a single batch
+     */
+    private final int batchSize;
+
+    /**
+     * Partition workers, null when running in single thread mode
+     */
+    private final PartitionWorker[] partitions;
+
+    /**
+     * Number of work items dispatched to the partitions and not yet done
+     */
+    private int partitionedInFlight;
+
+    private final Object partitionLock = new Object();
+
+    /**
+     * Held in read mode by the partition workers while they run commands, and in
+     * write mode by a partition worker which needs exclusive access
+     */
+    private final ReadWriteLock partitionAccess = new ReentrantReadWriteLock();
+
     // We single thread promises from this promise factory to avoid excessive
     // out-of-order rearrangement from chaining.
     private final PromiseFactory promiseFactory = new PromiseFactory(
             newSingleThreadExecutor(r -> new Thread(r, "Eclipse sensiNact Gateway Worker")),
             newSingleThreadScheduledExecutor(r -> new Thread(r, "Eclipse sensiNact Scheduler")));
 
-    private final AtomicReference<NotificationAccumulator> currentAccumulator = new AtomicReference<>();
+    // The accumulator is per thread as partition workers run commands concurrently
+    private final ThreadLocal<NotificationAccumulator> currentAccumulator = new ThreadLocal<>();
+
+    // Accumulators are reused with their buffers once they have sent their
+    // notifications, which may happen on another thread
+    private final Queue<HashedNotificationAccumulator> freeAccumulators = new ConcurrentLinkedQueue<>();
 
     private IMetricsManager metrics;
 
+    public GatewayThreadImpl(IMetricsManager metrics, TypedEventBus typedEventBus, ResourceSet resourceSet,
+            ProviderPackage providerPackage) {
+        this(metrics, typedEventBus, resourceSet, providerPackage,
+                Converters.standardConverter().convert(Map.of()).to(GatewayThreadConfiguration.class));
+    }
+
     @Activate
     public GatewayThreadImpl(@Reference IMetricsManager metrics, @Reference TypedEventBus typedEventBus,
-            @Reference ResourceSet resourceSet, @Reference ProviderPackage providerPackage) {
+            @Reference ResourceSet resourceSet, @Reference ProviderPackage providerPackage,
+            GatewayThreadConfiguration config) {
+        super("Eclipse sensiNact Gateway Thread");
         this.metrics = metrics;
         this.typedEventBus = typedEventBus;
         this.whiteboard = new SensinactWhiteboard(this, metrics);
-        nexusImpl = new ModelNexus(resourceSet, providerPackage, this::getCurrentAccumulator, whiteboard);
+
+        final int queueSize = config.queue_size() > 0 ? config.queue_size()
+                : GatewayThreadConfiguration.DEFAULT_QUEUE_SIZE;
+        this.work = new ArrayBlockingQueue<>(queueSize);
+        this.admissionPolicy = config.admission_policy();
+        this.admissionTimeout = Math.max(0, config.admission_timeout());
+        this.batchSize = Math.max(1, config.batch_size());
+
+        nexusImpl = new ModelNexus(resourceSet, providerPackage, this::getCurrentAccumulator, whiteboard,
+                createStore(config));
+
+        if (config.execution_mode() == ExecutionMode.PARTITIONED) {
+            int count = config.partition_count() > 0 ? config.partition_count()
+                    : Runtime.getRuntime().availableProcessors();
+            LOG.info("Starting the gateway with {} partitions", count);
+            partitions = new PartitionWorker[count];
+            for (int i = 0; i < count; i++) {
+                partitions[i] = new PartitionWorker(i, queueSize);
+                partitions[i].start();
+            }
+        } else {
+            partitions = null;
+        }
         start();
     }
 
+    private static ProviderStore createStore(GatewayThreadConfiguration config) {
+        String directory = config.persistence_directory();
+        if (directory == null || directory.isBlank()) {
+            return null;
+        }
+        LOG.info("Persisting the providers in {}", directory);
+        return new LogProviderStore(Paths.get(directory), config.persistence_compaction_threshold(),
+                config.persistence_sync());
+    }
+
     @Deactivate
     void deactivate() {
         run.set(false);
@@ -97,6 +196,19 @@ public class GatewayThreadImpl extends Thread implements GatewayThread {
             // Just keep going and reset our interrupt status
             Thread.currentThread().interrupt();
         }
+        if (partitions != null) {
+            for (PartitionWorker worker : partitions) {
+                worker.interrupt();
+            }
+            try {
+                for (PartitionWorker worker : partitions) {
+                    worker.join(500);
+                }
+            } catch (InterruptedException e) {
+                // Just keep going and reset our interrupt status
+                Thread.currentThread().interrupt();
+            }
+        }
         nexusImpl.shutDown();
 
         ExecutorService executor = (ExecutorService) promiseFactory.executor();
@@ -123,6 +235,9 @@ public class GatewayThreadImpl extends Thread implements GatewayThread {
     @Reference(cardinality = MULTIPLE, policy = DYNAMIC)
     void addEPackage(EPackage ePackage) {
         nexusImpl.addEPackage(ePackage);
+        if (nexusImpl.hasPendingProviders(ePackage)) {
+            execute(new ExclusiveTask(() -> nexusImpl.restorePendingProviders(ePackage)));
+        }
     }
 
     void removeEPackage(EPackage ePackage) {
@@ -165,28 +280,148 @@ public class GatewayThreadImpl extends Thread implements GatewayThread {
         return promiseFactory;
     }
 
-    private NotificationAccumulator createAccumulator() {
-        return new NotificationAccumulatorImpl(typedEventBus);
+    private HashedNotificationAccumulator createAccumulator() {
+        HashedNotificationAccumulator accumulator = freeAccumulators.poll();
+        return accumulator == null ? new HashedNotificationAccumulator(typedEventBus, freeAccumulators::offer)
+                : accumulator;
     }
 
     @Override
     public <T> Promise<T> execute(AbstractSensinactCommand<T> command) {
         Deferred<T> d = getPromiseFactory().deferred();
-        work.add(new WorkItem<>(d, command, nexusImpl));
-        metrics.getCounter("sensinact.tasks.pending").inc();
-        metrics.getHistogram("sensinact.tasks.pending.hist").update(work.size());
+        if (admit(new WorkItem<>(d, command))) {
+            metrics.getCounter("sensinact.tasks.pending").inc();
+            metrics.getHistogram("sensinact.tasks.pending.hist").update(work.size());
+        }
         return d.getPromise();
     }
 
+    /**
+     * Adds the given item to the work queue, applying the admission policy if the
+     * queue is full
+     *
+     * @param item Work item to queue
+     * @return true if the item was queued, false if it was rejected (its promise
+     *         is then failed)
+     */
+    private boolean admit(WorkItem<?> item) {
+        if (work.offer(item)) {
+            return true;
+        }
+
+        switch (admissionPolicy) {
+        case BLOCK:
+            // Never block a gateway thread as it could be the one draining the queue
+            if (!(Thread.currentThread() instanceof GatewayThread)) {
+                metrics.getCounter("sensinact.tasks.admission.blocked").inc();
+                try {
+                    if (work.offer(item, admissionTimeout, MILLISECONDS)) {
+                        return true;
+                    }
+                    metrics.getCounter("sensinact.tasks.admission.timeout").inc();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            break;
+        case DROP_OLDEST:
+            WorkItem<?> dropped = dropOldestDiscardable();
+            if (dropped != null) {
+                metrics.getCounter("sensinact.tasks.pending").dec();
+                metrics.getCounter("sensinact.tasks.admission.dropped").inc();
+                dropped.d.fail(new GatewayOverloadedException("The update was dropped by the overloaded gateway"));
+                if (work.offer(item)) {
+                    return true;
+                }
+            }
+            break;
+        default:
+            break;
+        }
+
+        metrics.getCounter("sensinact.tasks.admission.rejected").inc();
+        item.d.fail(new GatewayOverloadedException("The gateway work queue is full"));
+        return false;
+    }
+
+    /**
+     * Removes the oldest discardable work item from the queue
+     *
+     * @return the removed item, or null if no discardable item was found
+     */
+    private WorkItem<?> dropOldestDiscardable() {
+        for (WorkItem<?> candidate : work) {
+            AbstractSensinactCommand<?> command = candidate.command;
+            // Never drop an update which would create its provider, service or resource
+            if (command.updatesExistingResources(nexusImpl::hasValuedResource) && work.remove(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the current thread is allowed to change models and to access any
+     * provider, i.e. if it is not a partition worker or if it runs a task
+     * {@link #withExclusiveAccess(Supplier) with exclusive access}
+     *
+     * @return true if the current thread has exclusive access to the gateway
+     */
+    public static boolean hasExclusiveAccess() {
+        Thread current = Thread.currentThread();
+        return !(current instanceof PartitionWorker) || ((PartitionWorker) current).exclusive;
+    }
+
+    /**
+     * Runs the given task with exclusive access to the gateway, e.g. to change a
+     * model.
+     *
+     * When called from a partition worker, the task is run once the other
+     * partition workers are done with their current commands, and they don't
+     * start new ones until it returns. The commands of the calling partition stay
+     * in order.
+     *
+     * @param <T>  Result type
+     * @param task Task to run
+     * @return the result of the task
+     */
+    public static <T> T withExclusiveAccess(Supplier<T> task) {
+        Thread current = Thread.currentThread();
+        if (current instanceof PartitionWorker) {
+            return ((PartitionWorker) current).runExclusive(task);
+        }
+        return task.get();
+    }
+
     @Override
     public void run() {
+        final List<WorkItem<?>> batch = new ArrayList<>(batchSize);
         while (run.get()) {
             try {
                 WorkItem<?> item = work.take();
+                if (partitions == null && batchSize > 1) {
+                    batch.add(item);
+                    work.drainTo(batch, batchSize - 1);
+                    for (int i = 0; i < batch.size(); i++) {
+                        metrics.getCounter("sensinact.tasks.pending").dec();
+                    }
+                    metrics.getHistogram("sensinact.tasks.pending.hist").update(work.size());
+                    try {
+                        runBatch(batch);
+                    } finally {
+                        batch.clear();
+                    }
+                    continue;
+                }
+
                 metrics.getCounter("sensinact.tasks.pending").dec();
                 metrics.getHistogram("sensinact.tasks.pending.hist").update(work.size());
-                try (IMetricTimer timer = metrics.withTimer("sensinact.task.time")) {
-                    item.doWork();
+                String key = partitions == null ? null : item.command.getPartitionKey();
+                if (key != null) {
+                    dispatch(key, item);
+                } else {
+                    awaitIdlePartitions();
+                    runBatch(Collections.singletonList(item));
                 }
             } catch (InterruptedException e) {
                 continue;
@@ -194,38 +429,247 @@ public class GatewayThreadImpl extends Thread implements GatewayThread {
         }
     }
 
+    /**
+     * Runs the given work items against the same digital twin and model manager.
+     * Each work item is resolved with its own result. The notifications of the
+     * work items resolved by the end of the batch are merged and sent once, while
+     * those of a work item still waiting for its result are sent when it is
+     * resolved, so that it doesn't hold back the notifications of the others.
+     *
+     * @param batch Work items to run, in order
+     */
+    private void runBatch(List<WorkItem<?>> batch) {
+        if (batch.size() > 1) {
+            metrics.getHistogram("sensinact.task.batch.size").update(batch.size());
+        }
+
+        // Notifications of the items resolved while running the batch
+        HashedNotificationAccumulator merged = null;
+        int ran = 0;
+        try (IMetricTimer timer = metrics
+                .withTimer(batch.size() > 1 ? "sensinact.task.batch.time" : "sensinact.task.time")) {
+            SensinactDigitalTwinImpl twinImpl = new SensinactDigitalTwinImpl(nexusImpl,
+                    getGatewayThread().getPromiseFactory());
+            SensinactModelManagerImpl mgrImpl = new SensinactModelManagerImpl(nexusImpl);
+            try {
+                for (WorkItem<?> item : batch) {
+                    final HashedNotificationAccumulator accumulator = createAccumulator();
+                    currentAccumulator.set(accumulator);
+                    item.call(twinImpl, mgrImpl);
+                    ran++;
+                    if (!item.isDone()) {
+                        // Don't hold back the notifications of the other items
+                        item.onResolve(accumulator::completeAndSend);
+                    } else if (merged == null) {
+                        merged = accumulator;
+                    } else {
+                        accumulator.transferTo(merged);
+                    }
+                }
+            } finally {
+                twinImpl.invalidate();
+                mgrImpl.invalidate();
+            }
+        } catch (Exception e) {
+            // Items which didn't run yet can't be run any more
+            for (WorkItem<?> item : batch.subList(ran, batch.size())) {
+                item.fail(e);
+            }
+        } finally {
+            currentAccumulator.remove();
+        }
+
+        // Persist the changes before acknowledging them. The compaction runs in
+        // the background.
+        if (nexusImpl.persistChanges()) {
+            nexusImpl.compactStore();
+        }
+
+        if (merged != null) {
+            merged.completeAndSend();
+        }
+
+        // Resolve each item once the shared views are invalidated
+        for (WorkItem<?> item : batch) {
+            item.resolve();
+        }
+    }
+
+    /**
+     * Hands the work item to the partition worker associated to the given key
+     */
+    private void dispatch(String key, WorkItem<?> item) throws InterruptedException {
+        PartitionWorker worker = partitions[Math.floorMod(key.hashCode(), partitions.length)];
+        synchronized (partitionLock) {
+            partitionedInFlight++;
+        }
+        try {
+            worker.queue.put(item);
+        } catch (InterruptedException e) {
+            partitionDone();
+            // Don't lose the command if we were interrupted on shutdown
+            item.d.fail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for all partitioned work items to be done, so that the next command
+     * can be run with exclusive access to the gateway
+     */
+    private void awaitIdlePartitions() throws InterruptedException {
+        if (partitions != null) {
+            synchronized (partitionLock) {
+                while (partitionedInFlight > 0) {
+                    partitionLock.wait();
+                }
+            }
+        }
+    }
+
+    private void partitionDone() {
+        synchronized (partitionLock) {
+            if (--partitionedInFlight == 0) {
+                partitionLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * A worker running, in order, the commands of the providers associated to its
+     * partition
+     */
+    private class PartitionWorker extends Thread implements GatewayThread {
+
+        private final BlockingQueue<WorkItem<?>> queue;
+
+        /**
+         * Set while this worker has exclusive access to the gateway
+         */
+        private boolean exclusive;
+
+        PartitionWorker(int index, int queueSize) {
+            super("Eclipse sensiNact Gateway Partition " + index);
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        @Override
+        public PromiseFactory getPromiseFactory() {
+            return GatewayThreadImpl.this.getPromiseFactory();
+        }
+
+        @Override
+        public <T> Promise<T> execute(AbstractSensinactCommand<T> command) {
+            return GatewayThreadImpl.this.execute(command);
+        }
+
+        @Override
+        public void run() {
+            final List<WorkItem<?>> batch = new ArrayList<>(batchSize);
+            while (run.get()) {
+                try {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, batchSize - 1);
+                    partitionAccess.readLock().lock();
+                    try {
+                        runBatch(batch);
+                    } finally {
+                        partitionAccess.readLock().unlock();
+                        for (int i = 0; i < batch.size(); i++) {
+                            partitionDone();
+                        }
+                        batch.clear();
+                    }
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+        }
+
+        <T> T runExclusive(Supplier<T> task) {
+            if (exclusive) {
+                return task.get();
+            }
+            // The read lock can't be upgraded
+            partitionAccess.readLock().unlock();
+            partitionAccess.writeLock().lock();
+            exclusive = true;
+            try {
+                return task.get();
+            } finally {
+                exclusive = false;
+                partitionAccess.writeLock().unlock();
+                partitionAccess.readLock().lock();
+            }
+        }
+    }
+
+    /**
+     * A maintenance task of the nexus, run with exclusive access to the gateway
+     */
+    private class ExclusiveTask extends AbstractSensinactCommand<Void> {
+
+        private final Runnable task;
+
+        ExclusiveTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        protected Promise<Void> call(SensinactDigitalTwin twin, SensinactModelManager modelMgr,
+                PromiseFactory promiseFactory) {
+            task.run();
+            return promiseFactory.resolved(null);
+        }
+    }
+
     private class WorkItem<T> {
         private final Deferred<T> d;
         private final AbstractSensinactCommand<T> command;
-        private final ModelNexus nexusImpl;
+        private Promise<T> result;
 
-        public WorkItem(Deferred<T> d, AbstractSensinactCommand<T> command, ModelNexus nexusImpl) {
+        public WorkItem(Deferred<T> d, AbstractSensinactCommand<T> command) {
             this.d = d;
             this.command = command;
-            this.nexusImpl = nexusImpl;
         }
 
-        void doWork() {
+        /**
+         * Runs the command
+         */
+        void call(SensinactDigitalTwinImpl twinImpl, SensinactModelManagerImpl mgrImpl) {
             try {
-                final NotificationAccumulator accumulator = createAccumulator();
-                currentAccumulator.set(accumulator);
-
-                SensinactDigitalTwinImpl twinImpl = new SensinactDigitalTwinImpl(nexusImpl,
-                        getGatewayThread().getPromiseFactory());
-                SensinactModelManagerImpl mgrImpl = new SensinactModelManagerImpl(nexusImpl);
-                Promise<T> promise;
-                try {
-                    promise = command.call(twinImpl, mgrImpl).onResolve(accumulator::completeAndSend);
-                } finally {
-                    twinImpl.invalidate();
-                    mgrImpl.invalidate();
-                }
-                d.resolveWith(promise);
+                result = command.call(twinImpl, mgrImpl);
             } catch (Exception e) {
-                d.fail(e);
-            } finally {
-                currentAccumulator.set(null);
+                result = promiseFactory.failed(e);
             }
         }
+
+        /**
+         * Checks if the command result is already resolved
+         */
+        boolean isDone() {
+            return result.isDone();
+        }
+
+        /**
+         * @param callback called once the command result is resolved
+         */
+        void onResolve(Runnable callback) {
+            result.onResolve(callback);
+        }
+
+        /**
+         * Fails an item which couldn't run
+         */
+        void fail(Throwable t) {
+            result = promiseFactory.failed(t);
+        }
+
+        /**
+         * Resolves the item promise with the result of the command
+         */
+        void resolve() {
+            d.resolveWith(result);
+        }
     }
 }
@@ -0,0 +1,26 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.impl;
+
+/**
+ * Data update service configuration
+ */
+public @interface DataUpdateConfiguration {
+
+    /**
+     * Flag to merge value updates of a resource which are waiting in the gateway
+     * queue (false by default). Only the latest value is then applied and
+     * notified.
+     */
+    boolean coalesce_updates() default false;
+}
@@ -15,12 +15,15 @@ package org.eclipse.sensinact.core.impl;
 
 import static java.util.stream.Collectors.toList;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.WeakHashMap;
 import java.util.stream.Stream;
 
 import org.eclipse.sensinact.core.command.AbstractSensinactCommand;
+import org.eclipse.sensinact.core.command.GatewayOverloadedException;
 import org.eclipse.sensinact.core.command.GatewayThread;
 import org.eclipse.sensinact.core.command.IndependentCommands;
 import org.eclipse.sensinact.core.dto.impl.AbstractUpdateDto;
@@ -33,6 +36,8 @@ import org.eclipse.sensinact.core.extract.impl.CustomDtoDataExtractor;
 import org.eclipse.sensinact.core.extract.impl.DataExtractor;
 import org.eclipse.sensinact.core.extract.impl.EMFGenericDtoDataExtractor;
 import org.eclipse.sensinact.core.extract.impl.GenericDtoDataExtractor;
+import org.eclipse.sensinact.core.impl.ValueUpdateCoalescer.CoalescedSetValueCommand;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.model.SensinactModelManager;
 import org.eclipse.sensinact.core.push.DataMappingException;
 import org.eclipse.sensinact.core.push.DataUpdate;
@@ -42,7 +47,9 @@ import org.eclipse.sensinact.core.push.dto.BulkGenericDto;
 import org.eclipse.sensinact.core.push.dto.GenericDto;
 import org.eclipse.sensinact.core.twin.SensinactDigitalTwin;
 import org.eclipse.sensinact.model.core.provider.Provider;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.util.promise.FailedPromisesException;
 import org.osgi.util.promise.Promise;
@@ -50,25 +57,96 @@ import org.osgi.util.promise.PromiseFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@Component
+@Component(configurationPid = DataUpdateImpl.PID, configurationPolicy = ConfigurationPolicy.OPTIONAL)
 public class DataUpdateImpl implements DataUpdate {
 
+    /**
+     * Configuration PID
+     */
+    public static final String PID = "sensinact.data.update";
+
     private static final Logger LOG = LoggerFactory.getLogger(DataUpdateImpl.class);
 
     @Reference
     GatewayThread thread;
 
+    @Reference
+    IMetricsManager metrics;
+
+    /**
+     * Merges queued value updates, null if disabled
+     */
+    private ValueUpdateCoalescer coalescer;
+
     /**
      * We use a weak map so we don't keep classloaders for old bundles
      */
     private final Map<Class<?>, DataExtractor> cachedExtractors = new WeakHashMap<>();
 
+    @Activate
+    void activate(DataUpdateConfiguration config) {
+        coalescer = config.coalesce_updates() ? new ValueUpdateCoalescer(metrics, thread.getPromiseFactory())
+                : null;
+    }
+
     @Override
     public Promise<?> pushUpdate(Object o) {
-        List<AbstractSensinactCommand<?>> commands = toStreamOfCommands(o).collect(toList());
-        IndependentCommands<?> multiCommand = new IndependentCommands<>(commands);
-        return thread.execute(multiCommand).recoverWith(p -> thread.getPromiseFactory()
-                .failed(new FailedUpdatesException(toStreamOfDataUpdateFailures(p.getFailure()))));
+        List<Promise<?>> merged = new ArrayList<>();
+        List<AbstractSensinactCommand<?>> commands = toStreamOfCommands(o, merged).collect(toList());
+
+        Promise<List<Object>> result;
+        if (merged.isEmpty()) {
+            result = execute(commands);
+        } else if (commands.isEmpty()) {
+            result = all(merged);
+        } else {
+            merged.add(execute(commands));
+            result = all(merged);
+        }
+
+        return result.recoverWith(p -> {
+            Throwable t = p.getFailure();
+            GatewayOverloadedException overloaded = findOverload(t);
+            if (overloaded != null) {
+                // Keep the overload signal so that the caller can slow down
+                return thread.getPromiseFactory().failed(overloaded);
+            }
+            return thread.getPromiseFactory().failed(new FailedUpdatesException(toStreamOfDataUpdateFailures(t)));
+        });
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Promise<List<Object>> all(List<Promise<?>> promises) {
+        return thread.getPromiseFactory().all((List<Promise<Object>>) (List) promises);
+    }
+
+    private Promise<List<Object>> execute(List<AbstractSensinactCommand<?>> commands) {
+        Promise<List<Object>> result = thread.execute(new IndependentCommands<>(commands));
+        if (coalescer != null) {
+            // Updates merged into commands which never ran must not wait forever
+            result.onFailure(t -> commands.stream().filter(CoalescedSetValueCommand.class::isInstance)
+                    .forEach(c -> ((CoalescedSetValueCommand) c).abort(t)));
+        }
+        return result;
+    }
+
+    private GatewayOverloadedException findOverload(Throwable t) {
+        if (t instanceof GatewayOverloadedException) {
+            return (GatewayOverloadedException) t;
+        } else if (t instanceof FailedPromisesException) {
+            for (Promise<?> p : ((FailedPromisesException) t).getFailedPromises()) {
+                try {
+                    GatewayOverloadedException overloaded = findOverload(p.getFailure());
+                    if (overloaded != null) {
+                        return overloaded;
+                    }
+                } catch (InterruptedException e) {
+                    // This should never happen
+                    LOG.error("An InterruptedException occurred getting failures from completed promises", e);
+                }
+            }
+        }
+        return null;
     }
 
     private Stream<DataUpdateException> toStreamOfDataUpdateFailures(Throwable t) {
@@ -92,15 +170,15 @@ public class DataUpdateImpl implements DataUpdate {
         }
     }
 
-    private Stream<AbstractSensinactCommand<Void>> toStreamOfCommands(Object o) {
+    private Stream<AbstractSensinactCommand<Void>> toStreamOfCommands(Object o, List<Promise<?>> merged) {
         if (o instanceof Provider) {
-            return Stream.of(new SaveProviderCommand((Provider) o));
+            return Stream.of(ordered(new SaveProviderCommand((Provider) o)));
         }
 
         if (o instanceof List) {
             @SuppressWarnings("unchecked")
             List<Object> objects = (List<Object>) o;
-            return objects.stream().flatMap(item -> toStreamOfCommands(item));
+            return objects.stream().flatMap(item -> toStreamOfCommands(item, merged));
         }
 
         DataExtractor extractor;
@@ -113,7 +191,7 @@ public class DataUpdateImpl implements DataUpdate {
 
         List<? extends AbstractUpdateDto> updates = extractor.getUpdates(o);
 
-        return updates.stream().map(this::toCommand);
+        return updates.stream().map(u -> toCommand(u, merged)).filter(Objects::nonNull);
     }
 
     private DataExtractor createDataExtractor(Class<?> clazz) {
@@ -128,11 +206,15 @@ public class DataUpdateImpl implements DataUpdate {
         }
     }
 
-    private AbstractSensinactCommand<Void> toCommand(AbstractUpdateDto dto) {
+    private AbstractSensinactCommand<Void> toCommand(AbstractUpdateDto dto, List<Promise<?>> merged) {
         if (dto instanceof DataUpdateDto) {
+            if (coalescer != null) {
+                // Returns null if merged into a queued command
+                return coalescer.offer((DataUpdateDto) dto, merged);
+            }
             return new SetValueCommand((DataUpdateDto) dto);
         } else if (dto instanceof MetadataUpdateDto) {
-            return new SetMetadataCommand((MetadataUpdateDto) dto);
+            return ordered(new SetMetadataCommand((MetadataUpdateDto) dto));
         } else if (dto instanceof FailedMappingDto) {
             return new FailureCommand((FailedMappingDto) dto);
         } else {
@@ -140,6 +222,17 @@ public class DataUpdateImpl implements DataUpdate {
         }
     }
 
+    /**
+     * Prevents the value updates pushed after the given command from being merged
+     * into the commands queued before it
+     */
+    private AbstractSensinactCommand<Void> ordered(AbstractSensinactCommand<Void> command) {
+        if (coalescer != null) {
+            coalescer.barrier(command.getPartitionKey());
+        }
+        return command;
+    }
+
     static class FailureCommand extends AbstractSensinactCommand<Void> {
 
         private final FailedMappingDto dto;
@@ -148,6 +241,17 @@ public class DataUpdateImpl implements DataUpdate {
             this.dto = dto;
         }
 
+        @Override
+        public String getPartitionKey() {
+            return dto.provider;
+        }
+
+        @Override
+        public boolean updatesExistingResources(ExistingResources existing) {
+            String service = dto.serviceReference != null ? dto.serviceReference.getName() : dto.service;
+            return existing.contains(dto.provider, service, dto.resource);
+        }
+
         @Override
         protected Promise<Void> call(SensinactDigitalTwin twin, SensinactModelManager modelMgr,
                 PromiseFactory promiseFactory) {
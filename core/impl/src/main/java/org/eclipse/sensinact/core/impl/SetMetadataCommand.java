@@ -42,6 +42,17 @@ public class SetMetadataCommand extends AbstractSensinactCommand<Void> {
         this.metadataUpdateDto = metadataUpdateDto;
     }
 
+    @Override
+    public String getPartitionKey() {
+        return metadataUpdateDto.provider;
+    }
+
+    @Override
+    public boolean updatesExistingResources(ExistingResources existing) {
+        String service = metadataUpdateDto.serviceReference != null ? metadataUpdateDto.serviceReference.getName() : metadataUpdateDto.service;
+        return existing.contains(metadataUpdateDto.provider, service, metadataUpdateDto.resource);
+    }
+
     @Override
     protected Promise<Void> call(SensinactDigitalTwin twin, SensinactModelManager modelMgr,
             PromiseFactory promiseFactory) {
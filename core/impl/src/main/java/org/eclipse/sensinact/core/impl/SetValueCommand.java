@@ -20,6 +20,7 @@ import org.eclipse.sensinact.core.annotation.dto.DuplicateAction;
 import org.eclipse.sensinact.core.annotation.dto.NullAction;
 import org.eclipse.sensinact.core.command.AbstractSensinactCommand;
 import org.eclipse.sensinact.core.command.GetLevel;
+import org.eclipse.sensinact.core.command.impl.GatewayThreadImpl;
 import org.eclipse.sensinact.core.dto.impl.DataUpdateDto;
 import org.eclipse.sensinact.core.emf.model.EMFModel;
 import org.eclipse.sensinact.core.emf.model.EMFService;
@@ -49,11 +50,26 @@ public class SetValueCommand extends AbstractSensinactCommand<Void> {
         this.dataUpdateDto = dataUpdateDto;
     }
 
+    @Override
+    public String getPartitionKey() {
+        return dataUpdateDto.provider;
+    }
+
+    @Override
+    public boolean updatesExistingResources(ExistingResources existing) {
+        String service = dataUpdateDto.serviceReference != null ? dataUpdateDto.serviceReference.getName() : dataUpdateDto.service;
+        return existing.contains(dataUpdateDto.provider, service, dataUpdateDto.resource);
+    }
+
     @Override
     protected Promise<Void> call(SensinactDigitalTwin twin, SensinactModelManager modelMgr,
             PromiseFactory promiseFactory) {
         return doCall((SensinactEMFDigitalTwin) twin, (SensinactEMFModelManager) modelMgr, promiseFactory)
                 .recoverWith(p -> {
+                    if (p.getFailure() instanceof DataUpdateException) {
+                        // Already reported by a command run with exclusive access
+                        return promiseFactory.failed(p.getFailure());
+                    }
                     return promiseFactory.failed(new DataUpdateException(dataUpdateDto.modelPackageUri,
                             dataUpdateDto.model, dataUpdateDto.provider, dataUpdateDto.service, dataUpdateDto.resource,
                             dataUpdateDto.originalDto, p.getFailure()));
@@ -78,43 +94,12 @@ public class SetValueCommand extends AbstractSensinactCommand<Void> {
         }
 
         SensinactResource resource = twin.getResource(packageUri, mod, provider, svc, res);
-
         if (resource == null) {
-            EMFModel model = null;
-            if (modelEClass != null) {
-                model = modelMgr.getModel(modelEClass);
-            } else {
-                model = (EMFModel) modelMgr.getModel(packageUri, mod);
-                if (model == null) {
-                    model = modelMgr.createModel(packageUri, mod).withCreationTime(dataUpdateDto.timestamp).build();
-                }
-                modelEClass = model.getModelEClass();
-            }
-            EMFService service = model.getServices().get(svc);
-            if (service == null) {
-                if (ProviderPackage.Literals.DYNAMIC_PROVIDER.isSuperTypeOf(model.getModelEClass())) {
-                    service = model.createDynamicService(svc, svcEClass);
-                } else if (!model.isFrozen()) {
-                    service = model.createService(svc).withCreationTime(dataUpdateDto.timestamp).build();
-                }
-            }
-
-            Resource r = service.getResources().get(res);
-            if (!model.isFrozen() && r == null) {
-                Class<?> type = dataUpdateDto.type != null ? dataUpdateDto.type :
-                    dataUpdateDto.data != null ? dataUpdateDto.data.getClass() : null;
-                r = service.createResource(res).withValueType(ValueType.UPDATABLE)
-                        .withType(type).build();
-            }
-            if (svcEClass == null) {
-                svcEClass = service.getServiceEClass();
-            }
-
-            SensinactEMFProvider sp = twin.getProvider(packageUri, mod, provider);
-            if (sp == null) {
-                sp = twin.createProvider(packageUri, mod, provider, dataUpdateDto.timestamp);
-            }
-            resource = sp.getOrCreateService(svc, svcEClass).getResources().get(res);
+            // Creating the resource may change the model. When run by a partition
+            // worker, this pauses the other partitions but keeps this provider's
+            // updates in order.
+            resource = GatewayThreadImpl.withExclusiveAccess(
+                    () -> createResource(twin, modelMgr, packageUri, mod, provider, svcEClass, svc, res));
         }
 
         Function<TimedValue<Object>, Promise<Void>> cachedValueAction = null;
@@ -153,4 +138,43 @@ public class SetValueCommand extends AbstractSensinactCommand<Void> {
             return resource.setValue(dataUpdateDto.data, dataUpdateDto.timestamp);
         }
     }
+
+    private SensinactResource createResource(SensinactEMFDigitalTwin twin, SensinactEMFModelManager modelMgr,
+            String packageUri, String mod, String provider, EClass svcEClass, String svc, String res) {
+        EClass modelEClass = dataUpdateDto.modelEClass;
+        EMFModel model = null;
+        if (modelEClass != null) {
+            model = modelMgr.getModel(modelEClass);
+        } else {
+            model = (EMFModel) modelMgr.getModel(packageUri, mod);
+            if (model == null) {
+                model = modelMgr.createModel(packageUri, mod).withCreationTime(dataUpdateDto.timestamp).build();
+            }
+        }
+        EMFService service = model.getServices().get(svc);
+        if (service == null) {
+            if (ProviderPackage.Literals.DYNAMIC_PROVIDER.isSuperTypeOf(model.getModelEClass())) {
+                service = model.createDynamicService(svc, svcEClass);
+            } else if (!model.isFrozen()) {
+                service = model.createService(svc).withCreationTime(dataUpdateDto.timestamp).build();
+            }
+        }
+
+        Resource r = service.getResources().get(res);
+        if (!model.isFrozen() && r == null) {
+            Class<?> type = dataUpdateDto.type != null ? dataUpdateDto.type :
+                dataUpdateDto.data != null ? dataUpdateDto.data.getClass() : null;
+            r = service.createResource(res).withValueType(ValueType.UPDATABLE)
+                    .withType(type).build();
+        }
+        if (svcEClass == null) {
+            svcEClass = service.getServiceEClass();
+        }
+
+        SensinactEMFProvider sp = twin.getProvider(packageUri, mod, provider);
+        if (sp == null) {
+            sp = twin.createProvider(packageUri, mod, provider, dataUpdateDto.timestamp);
+        }
+        return sp.getOrCreateService(svc, svcEClass).getResources().get(res);
+    }
 }
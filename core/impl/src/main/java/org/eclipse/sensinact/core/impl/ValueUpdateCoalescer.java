@@ -0,0 +1,214 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.sensinact.core.command.AbstractSensinactCommand;
+import org.eclipse.sensinact.core.dto.impl.DataUpdateDto;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
+import org.eclipse.sensinact.core.model.SensinactModelManager;
+import org.eclipse.sensinact.core.twin.SensinactDigitalTwin;
+import org.osgi.util.promise.Deferred;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+
+/**
+ * Merges resource value updates which are waiting in the gateway queue.
+ *
+ * An update targeting a resource which already has a queued, not yet started,
+ * update replaces the value of the queued update instead of adding a new
+ * command to the queue. The promise of the superseded update resolves with the
+ * one of the update which was actually applied.
+ *
+ * To keep the order of the commands of a provider, updates are not merged any
+ * more into the commands queued before another command for the same provider:
+ * see {@link #barrier(String)}.
+ */
+class ValueUpdateCoalescer {
+
+    /**
+     * Mergeable commands, by provider then by service and resource. The commands
+     * of a provider are only accessed while holding its entry.
+     */
+    private final Map<String, Map<List<String>, CoalescedSetValueCommand>> pending = new ConcurrentHashMap<>();
+
+    private final IMetricsManager metrics;
+
+    private final PromiseFactory promiseFactory;
+
+    ValueUpdateCoalescer(IMetricsManager metrics, PromiseFactory promiseFactory) {
+        this.metrics = metrics;
+        this.promiseFactory = promiseFactory;
+    }
+
+    /**
+     * Registers a value update
+     *
+     * @param dto    the value update
+     * @param merged receives the promise of the queued command the update was
+     *               merged into
+     * @return the command to queue, or null if the update was merged into an
+     *         already queued command
+     */
+    CoalescedSetValueCommand offer(DataUpdateDto dto, List<Promise<?>> merged) {
+        String service = dto.serviceReference != null ? dto.serviceReference.getName() : dto.service;
+        if (dto.provider == null || service == null || dto.resource == null) {
+            // Let the command report the error
+            return new CoalescedSetValueCommand(service, null, dto);
+        }
+
+        List<String> key = List.of(service, dto.resource);
+        CoalescedSetValueCommand[] created = new CoalescedSetValueCommand[1];
+        CoalescedSetValueCommand[] queued = new CoalescedSetValueCommand[1];
+        pending.compute(dto.provider, (p, commands) -> {
+            CoalescedSetValueCommand current = commands == null ? null : commands.get(key);
+            if (current != null && current.merge(dto)) {
+                queued[0] = current;
+                return commands;
+            }
+            created[0] = new CoalescedSetValueCommand(service, key, dto);
+            Map<List<String>, CoalescedSetValueCommand> result = commands == null ? new HashMap<>() : commands;
+            result.put(key, created[0]);
+            return result;
+        });
+
+        if (created[0] == null) {
+            metrics.getCounter("sensinact.updates.coalesced").inc();
+            merged.add(queued[0].completion());
+        }
+        return created[0];
+    }
+
+    /**
+     * Stops merging updates into the commands already queued for a provider. Must
+     * be called before queuing any other command which reads or updates the
+     * provider, so that no later value update jumps ahead of it.
+     *
+     * @param provider the provider name, or <code>null</code> for a command
+     *                 accessing any provider
+     */
+    void barrier(String provider) {
+        if (provider == null) {
+            pending.clear();
+        } else {
+            pending.remove(provider);
+        }
+    }
+
+    private void remove(CoalescedSetValueCommand command) {
+        pending.computeIfPresent(command.provider, (p, commands) -> {
+            commands.remove(command.key, command);
+            return commands.isEmpty() ? null : commands;
+        });
+    }
+
+    /**
+     * A value update command whose value can be replaced until it starts
+     */
+    class CoalescedSetValueCommand extends AbstractSensinactCommand<Void> {
+
+        private final List<String> key;
+
+        private final String provider;
+
+        private final String service;
+
+        private final String resource;
+
+        private final Deferred<Void> completion = promiseFactory.deferred();
+
+        private DataUpdateDto latest;
+
+        private boolean started;
+
+        CoalescedSetValueCommand(String service, List<String> key, DataUpdateDto dto) {
+            this.key = key;
+            this.provider = dto.provider;
+            this.service = service;
+            this.resource = dto.resource;
+            this.latest = dto;
+        }
+
+        /**
+         * Replaces the queued value if the command didn't start yet
+         *
+         * @return false if the command already started
+         */
+        synchronized boolean merge(DataUpdateDto dto) {
+            if (started) {
+                return false;
+            }
+            if (dto.timestamp == null || latest.timestamp == null || !dto.timestamp.isBefore(latest.timestamp)) {
+                latest = dto;
+            }
+            return true;
+        }
+
+        /**
+         * The update which will be applied
+         */
+        synchronized DataUpdateDto getUpdate() {
+            return latest;
+        }
+
+        private synchronized DataUpdateDto start() {
+            started = true;
+            return latest;
+        }
+
+        /**
+         * The promise resolved once the command ran
+         */
+        Promise<Void> completion() {
+            return completion.getPromise();
+        }
+
+        /**
+         * Fails the command if it never ran, e.g. if it was rejected by the gateway
+         * thread
+         */
+        void abort(Throwable failure) {
+            start();
+            if (key != null) {
+                remove(this);
+            }
+            completion.resolveWith(promiseFactory.failed(failure));
+        }
+
+        @Override
+        public String getPartitionKey() {
+            return provider;
+        }
+
+        @Override
+        public boolean updatesExistingResources(ExistingResources existing) {
+            return existing.contains(provider, service, resource);
+        }
+
+        @Override
+        protected Promise<Void> call(SensinactDigitalTwin twin, SensinactModelManager modelMgr,
+                PromiseFactory promiseFactory) {
+            DataUpdateDto dto = start();
+            if (key != null) {
+                remove(this);
+            }
+            Promise<Void> result = new SetValueCommand(dto).call(twin, modelMgr, promiseFactory);
+            completion.resolveWith(result);
+            return result;
+        }
+    }
+}
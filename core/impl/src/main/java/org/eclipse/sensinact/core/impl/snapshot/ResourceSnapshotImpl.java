@@ -46,9 +46,14 @@ public class ResourceSnapshotImpl extends AbstractSnapshot implements ResourceSn
     private final ETypedElement rcFeature;
 
     /**
-     * Resource metadata
+     * Resource metadata, computed on first access
      */
-    private final Map<String, Object> metadata;
+    private Map<String, Object> metadata;
+
+    /**
+     * Flag set once the snapshot is complete: the model must not be read anymore
+     */
+    private boolean complete;
 
     /**
      * Resource content type
@@ -75,12 +80,19 @@ public class ResourceSnapshotImpl extends AbstractSnapshot implements ResourceSn
 
         // TODO: get it from the resource description
         this.valueType = ValueType.UPDATABLE;
+    }
 
-        Service modelService = parent.getModelService();
-        Metadata rcMetadata = modelService == null ? null : modelService.getMetadata().get(rcFeature);
-        final Map<String, Object> rcMeta = new HashMap<>();
-        rcMeta.putAll(EMFUtil.toMetadataAttributesToMap(rcMetadata, rcFeature));
-        this.metadata = rcMeta;
+    /**
+     * Marks the snapshot as complete, reading the resource metadata first if
+     * required. The model won't be read anymore by this snapshot.
+     *
+     * @param withMetadata Flag to read the metadata if not yet done
+     */
+    public void complete(final boolean withMetadata) {
+        if (withMetadata) {
+            getMetadata();
+        }
+        complete = true;
     }
 
     @Override
@@ -97,6 +109,17 @@ public class ResourceSnapshotImpl extends AbstractSnapshot implements ResourceSn
 
     @Override
     public Map<String, Object> getMetadata() {
+        if (metadata == null) {
+            if (complete) {
+                // Metadata were not part of the snapshot
+                return Map.of();
+            }
+            Service modelService = service.getModelService();
+            Metadata rcMetadata = modelService == null ? null : modelService.getMetadata().get(rcFeature);
+            final Map<String, Object> rcMeta = new HashMap<>();
+            rcMeta.putAll(EMFUtil.toMetadataAttributesToMap(rcMetadata, rcFeature));
+            metadata = rcMeta;
+        }
         return metadata;
     }
 
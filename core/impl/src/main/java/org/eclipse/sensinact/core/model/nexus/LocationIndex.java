@@ -0,0 +1,293 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.model.nexus;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.sensinact.gateway.geojson.Coordinates;
+import org.eclipse.sensinact.gateway.geojson.Feature;
+import org.eclipse.sensinact.gateway.geojson.FeatureCollection;
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
+import org.eclipse.sensinact.gateway.geojson.Geometry;
+import org.eclipse.sensinact.gateway.geojson.GeometryCollection;
+import org.eclipse.sensinact.gateway.geojson.LineString;
+import org.eclipse.sensinact.gateway.geojson.MultiLineString;
+import org.eclipse.sensinact.gateway.geojson.MultiPoint;
+import org.eclipse.sensinact.gateway.geojson.MultiPolygon;
+import org.eclipse.sensinact.gateway.geojson.Point;
+import org.eclipse.sensinact.gateway.geojson.Polygon;
+
+/**
+ * Grid based index of the provider locations.
+ *
+ * Each provider is registered in the cells of a fixed one degree grid covered
+ * by the bounding box of its location. Locations covering too many cells are
+ * kept apart and always returned as candidates.
+ *
+ * Bounding boxes follow RFC 7946: a box whose west bound is greater than its
+ * east bound crosses the antimeridian, and covers two ranges of columns.
+ */
+class LocationIndex {
+
+    /**
+     * Size of a grid cell, in degrees
+     */
+    private static final double CELL_SIZE = 1d;
+
+    private static final int COLUMNS = (int) Math.ceil(360 / CELL_SIZE);
+
+    private static final int ROWS = (int) Math.ceil(180 / CELL_SIZE);
+
+    /**
+     * Maximum number of cells a location is registered in
+     */
+    private static final int MAX_CELLS = 64;
+
+    private final Map<Integer, Set<String>> cells = new ConcurrentHashMap<>();
+
+    private final Set<String> oversized = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Cells of each indexed provider, or an empty array for oversized locations
+     */
+    private final Map<String, int[]> providerCells = new ConcurrentHashMap<>();
+
+    /**
+     * Updates the location of a provider
+     *
+     * @param provider provider name
+     * @param location new location, can be null
+     */
+    void update(String provider, GeoJsonObject location) {
+        remove(provider);
+
+        double[] bbox = boundingBox(location);
+        if (bbox == null) {
+            return;
+        }
+
+        int[] columns = columns(bbox[0], bbox[2]);
+        int minRow = row(Math.min(bbox[1], bbox[3]));
+        int maxRow = row(Math.max(bbox[1], bbox[3]));
+        int count = cellCount(columns, minRow, maxRow);
+        if (count > MAX_CELLS) {
+            oversized.add(provider);
+            providerCells.put(provider, new int[0]);
+            return;
+        }
+
+        int[] keys = new int[count];
+        int idx = 0;
+        for (int i = 0; i < columns.length; i += 2) {
+            for (int col = columns[i]; col <= columns[i + 1]; col++) {
+                for (int row = minRow; row <= maxRow; row++) {
+                    keys[idx] = row * COLUMNS + col;
+                    // Update within compute as remove() can drop empty cells concurrently
+                    cells.compute(keys[idx++], (k, v) -> {
+                        Set<String> names = v == null ? ConcurrentHashMap.newKeySet() : v;
+                        names.add(provider);
+                        return names;
+                    });
+                }
+            }
+        }
+        providerCells.put(provider, keys);
+    }
+
+    /**
+     * Removes a provider from the index
+     *
+     * @param provider provider name
+     */
+    void remove(String provider) {
+        int[] keys = providerCells.remove(provider);
+        if (keys == null) {
+            return;
+        } else if (keys.length == 0) {
+            oversized.remove(provider);
+        }
+        for (int key : keys) {
+            cells.computeIfPresent(key, (k, v) -> {
+                v.remove(provider);
+                return v.isEmpty() ? null : v;
+            });
+        }
+    }
+
+    /**
+     * Lists the providers whose location may intersect the given bounding box.
+     * The result is a superset of the matching providers: callers must still
+     * check the actual location.
+     *
+     * @param bbox bounding box as <code>[west, south, east, north]</code>, west
+     *             being greater than east if the box crosses the antimeridian
+     * @return the names of the candidate providers
+     */
+    Set<String> candidates(double[] bbox) {
+        Set<String> result = new HashSet<>(oversized);
+        int[] columns = columns(bbox[0], bbox[2]);
+        int minRow = row(Math.min(bbox[1], bbox[3]));
+        int maxRow = row(Math.max(bbox[1], bbox[3]));
+        if (cellCount(columns, minRow, maxRow) > cells.size()) {
+            // Cheaper to walk the occupied cells
+            cells.forEach((key, names) -> {
+                int col = key % COLUMNS;
+                int row = key / COLUMNS;
+                if (row >= minRow && row <= maxRow && inColumns(columns, col)) {
+                    result.addAll(names);
+                }
+            });
+        } else {
+            for (int i = 0; i < columns.length; i += 2) {
+                for (int col = columns[i]; col <= columns[i + 1]; col++) {
+                    for (int row = minRow; row <= maxRow; row++) {
+                        Set<String> names = cells.get(row * COLUMNS + col);
+                        if (names != null) {
+                            result.addAll(names);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ranges of columns covered by a longitude interval, as
+     * <code>[min1, max1, min2, max2...]</code>. An interval crossing the
+     * antimeridian is split in two ranges.
+     */
+    private static int[] columns(double west, double east) {
+        if (west <= east) {
+            return new int[] { column(west), column(east) };
+        }
+        return new int[] { column(west), COLUMNS - 1, 0, column(east) };
+    }
+
+    private static int cellCount(int[] columns, int minRow, int maxRow) {
+        int count = 0;
+        for (int i = 0; i < columns.length; i += 2) {
+            count += columns[i + 1] - columns[i] + 1;
+        }
+        return count * (maxRow - minRow + 1);
+    }
+
+    private static boolean inColumns(int[] columns, int col) {
+        for (int i = 0; i < columns.length; i += 2) {
+            if (col >= columns[i] && col <= columns[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int column(double longitude) {
+        return Math.max(0, Math.min(COLUMNS - 1, (int) Math.floor((longitude + 180) / CELL_SIZE)));
+    }
+
+    private static int row(double latitude) {
+        return Math.max(0, Math.min(ROWS - 1, (int) Math.floor((latitude + 90) / CELL_SIZE)));
+    }
+
+    /**
+     * Computes the bounding box of a GeoJSON object
+     *
+     * @param object GeoJSON object
+     * @return the bounding box as <code>[west, south, east, north]</code>, or
+     *         null if the object has no coordinates. The west bound is greater
+     *         than the east one if the box crosses the antimeridian.
+     */
+    static double[] boundingBox(GeoJsonObject object) {
+        if (object == null) {
+            return null;
+        }
+        if (object.bbox != null && object.bbox.size() >= 4) {
+            List<Double> b = object.bbox;
+            // Also handles 3D bounding boxes
+            int half = b.size() / 2;
+            double[] bbox = { value(b.get(0)), value(b.get(1)), value(b.get(half)), value(b.get(half + 1)) };
+            if (!Double.isNaN(bbox[0] + bbox[1] + bbox[2] + bbox[3])) {
+                return bbox;
+            }
+            // Invalid bounding box member, use the coordinates
+        }
+        double[] bbox = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.NEGATIVE_INFINITY };
+        expand(bbox, object);
+        return bbox[0] > bbox[2] ? null : bbox;
+    }
+
+    private static double value(Double d) {
+        return d == null ? Double.NaN : d;
+    }
+
+    private static void expand(double[] bbox, GeoJsonObject object) {
+        if (object instanceof Point) {
+            expand(bbox, ((Point) object).coordinates);
+        } else if (object instanceof MultiPoint) {
+            expandAll(bbox, ((MultiPoint) object).coordinates);
+        } else if (object instanceof LineString) {
+            expandAll(bbox, ((LineString) object).coordinates);
+        } else if (object instanceof MultiLineString) {
+            expandAll2(bbox, ((MultiLineString) object).coordinates);
+        } else if (object instanceof Polygon) {
+            expandAll2(bbox, ((Polygon) object).coordinates);
+        } else if (object instanceof MultiPolygon) {
+            List<List<List<Coordinates>>> polygons = ((MultiPolygon) object).coordinates;
+            if (polygons != null) {
+                polygons.forEach(p -> expandAll2(bbox, p));
+            }
+        } else if (object instanceof GeometryCollection) {
+            List<Geometry> geometries = ((GeometryCollection) object).geometries;
+            if (geometries != null) {
+                geometries.forEach(g -> expand(bbox, g));
+            }
+        } else if (object instanceof Feature) {
+            Geometry geometry = ((Feature) object).geometry;
+            if (geometry != null) {
+                expand(bbox, geometry);
+            }
+        } else if (object instanceof FeatureCollection) {
+            List<Feature> features = ((FeatureCollection) object).features;
+            if (features != null) {
+                features.forEach(f -> expand(bbox, f));
+            }
+        }
+    }
+
+    private static void expandAll2(double[] bbox, List<List<Coordinates>> coordinates) {
+        if (coordinates != null) {
+            coordinates.forEach(c -> expandAll(bbox, c));
+        }
+    }
+
+    private static void expandAll(double[] bbox, List<Coordinates> coordinates) {
+        if (coordinates != null) {
+            coordinates.forEach(c -> expand(bbox, c));
+        }
+    }
+
+    private static void expand(double[] bbox, Coordinates coordinates) {
+        if (coordinates == null || Double.isNaN(coordinates.longitude) || Double.isNaN(coordinates.latitude)) {
+            return;
+        }
+        bbox[0] = Math.min(bbox[0], coordinates.longitude);
+        bbox[1] = Math.min(bbox[1], coordinates.latitude);
+        bbox[2] = Math.max(bbox[2], coordinates.longitude);
+        bbox[3] = Math.max(bbox[3], coordinates.latitude);
+    }
+}
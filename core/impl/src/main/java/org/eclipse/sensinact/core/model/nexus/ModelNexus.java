@@ -14,10 +14,9 @@
 package org.eclipse.sensinact.core.model.nexus;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.time.Instant;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -29,6 +28,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -38,7 +38,6 @@ import java.util.stream.Stream;
 import org.eclipse.emf.common.util.BasicEMap;
 import org.eclipse.emf.common.util.ECollections;
 import org.eclipse.emf.common.util.EMap;
-import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EClassifier;
@@ -50,7 +49,6 @@ import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.ETypedElement;
 import org.eclipse.emf.ecore.EcorePackage;
-import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.sensinact.core.command.impl.ActionHandler;
@@ -59,10 +57,12 @@ import org.eclipse.sensinact.core.command.impl.ResourcePushHandler;
 import org.eclipse.sensinact.core.model.nexus.emf.EMFUtil;
 import org.eclipse.sensinact.core.model.nexus.emf.NamingUtils;
 import org.eclipse.sensinact.core.model.nexus.emf.compare.EMFCompareUtil;
+import org.eclipse.sensinact.core.model.nexus.store.ProviderStore;
 import org.eclipse.sensinact.core.notification.impl.NotificationAccumulator;
 import org.eclipse.sensinact.core.twin.DefaultTimedValue;
 import org.eclipse.sensinact.core.twin.TimedValue;
 import org.eclipse.sensinact.core.whiteboard.impl.SensinactWhiteboard;
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
 import org.eclipse.sensinact.model.core.provider.Admin;
 import org.eclipse.sensinact.model.core.provider.DynamicProvider;
 import org.eclipse.sensinact.model.core.provider.MetadataValue;
@@ -89,15 +89,18 @@ public class ModelNexus {
 
     private static final Logger LOG = LoggerFactory.getLogger(ModelNexus.class);
 
-    private static final String BASE = "data/";
-    private static final String BASIC_EPACKAGES = BASE + "ePackages.ecore";
-    private static final String BASIC_PROVIDERS = BASE + "providers.xmi";
-
     private final ResourceSet resourceSet;
     private final ProviderPackage providerPackage;
     private final Supplier<NotificationAccumulator> notificationAccumulator;
 
-    private final Map<String, Provider> providers = new HashMap<>();
+    // Concurrent as partitioned commands can create providers in parallel
+    private final Map<String, Provider> providers = new ConcurrentHashMap<>();
+
+    // Secondary indexes of the providers, kept in sync with the providers map
+    private final ProviderIndex index = new ProviderIndex();
+
+    // Persistence of the providers, null if no store is configured
+    private final ProviderPersistence persistence;
 
 //    private final Map<String, EClass> models = new HashMap<>();
 
@@ -152,70 +155,63 @@ public class ModelNexus {
 
     public ModelNexus(ResourceSet resourceSet, ProviderPackage ProviderPackage,
             Supplier<NotificationAccumulator> accumulator, SensinactWhiteboard whiteboard) {
+        this(resourceSet, ProviderPackage, accumulator, whiteboard, null);
+    }
+
+    /**
+     * @param store store to restore the providers from and to persist their
+     *              changes to, can be null
+     */
+    public ModelNexus(ResourceSet resourceSet, ProviderPackage ProviderPackage,
+            Supplier<NotificationAccumulator> accumulator, SensinactWhiteboard whiteboard, ProviderStore store) {
         this.resourceSet = resourceSet;
         this.providerPackage = ProviderPackage;
         this.notificationAccumulator = accumulator;
         this.whiteboard = whiteboard;
-        // TODO we need a general Working Directory for such data
-//		loadEPackages(Paths.get(BASIC_EPACKAGES));
+        this.persistence = store == null ? null : new ProviderPersistence(store, resourceSet);
+
+        if (persistence != null) {
+            try {
+                persistence.recover(this::restoreProvider, providers::get);
+            } catch (IOException e) {
+                LOG.error("Unable to restore the providers from the provider store", e);
+                throw new RuntimeException(e);
+            }
+        }
 
         if (!resourceSet.getPackageRegistry().containsKey(EMFUtil.DEFAULT_SENSINACT_PACKAGE_URI)) {
-            EMFUtil.createPackage("base", EMFUtil.DEFAULT_SENSINACT_PACKAGE_URI, "sensinactBase", this.resourceSet);
+            EPackage base = EMFUtil.createPackage("base", EMFUtil.DEFAULT_SENSINACT_PACKAGE_URI, "sensinactBase",
+                    this.resourceSet);
+            if (persistence != null) {
+                persistence.packageCreated(base);
+            }
         }
 
-//		loadInstances(Paths.get(BASIC_PROVIDERS));
         setupSensinactProvider();
-
+        persistChanges();
     }
 
-    private void loadEPackages(Path fileName) {
-        if (Files.isRegularFile(fileName)) {
-            Resource resource = resourceSet.createResource(URI.createFileURI(fileName.toString()));
-            try {
-                resource.load(null);
-                if (!resource.getContents().isEmpty()) {
-
-                    resource.getContents().forEach(e -> {
-                        EPackage ePackage = (EPackage) e;
-                        resource.setURI(URI.createURI(ePackage.getNsURI()));
-                        EcoreUtil.resolveAll(ePackage);
-                        resourceSet.getPackageRegistry().put(ePackage.getNsURI(), ePackage);
-                    });
-
-                    resourceSet.getResources().remove(resource);
-                }
-            } catch (IOException e) {
-                LOG.error(
-                        "THIS WILL BE A RUNTIME EXCPETION FOR NOW: Error Loading default EPackage from persistent file: {}",
-                        fileName, e);
-                throw new RuntimeException(e);
-            }
-        }
+    private void restoreProvider(Provider provider) {
+        // TODO should we fire events here?
+        registerModel(provider.eClass(), Instant.now(), true);
+        providers.put(provider.getId(), provider);
+        index.add(provider);
+        indexValuedResources(provider);
     }
 
-    private void loadInstances(Path fileName) {
-        if (Files.isRegularFile(fileName)) {
-            try {
-                // TODO should we fire events here?
-                URI uri = URI.createFileURI(fileName.toString());
-                Resource resource = resourceSet.createResource(uri);
-                resource.load(null);
-                if (!resource.getContents().isEmpty()) {
-                    resource.getContents().forEach(e -> {
-                        Provider provider = (Provider) e;
-                        EClass eClass = provider.eClass();
-                        registerModel(eClass, Instant.ofEpochMilli(resource.getTimeStamp()), true);
-                        providers.put(provider.getId(), provider);
-                    });
-                }
-                resource.getContents().clear();
-                resourceSet.getResources().remove(resource);
-            } catch (IOException e) {
-                LOG.error("THIS WILL BE A RUNTIME EXCPETION FOR NOW: Error loading provider from Path: {}", fileName,
-                        e);
-                throw new RuntimeException(e);
+    /**
+     * Indexes the resources of the given provider which have metadata, i.e. which
+     * were already valued
+     */
+    private void indexValuedResources(Provider provider) {
+        String providerName = provider.getId();
+        getServiceInstancesForProvider(provider).forEach((serviceName, entry) -> {
+            Service service = entry.getValue();
+            if (service != null) {
+                service.getMetadata().keySet()
+                        .forEach(rc -> index.addValuedResource(providerName, serviceName, rc.getName()));
             }
-        }
+        });
     }
 
     // TODO: This needs to become a predefined model
@@ -241,31 +237,69 @@ public class ModelNexus {
     }
 
     public void shutDown() {
+        if (persistence != null) {
+            persistence.flush();
+            if (persistence.isCompactionRequired()) {
+                persistence.compact();
+            }
+            // Waits for the compaction
+            persistence.close();
+        }
+        resourceSet.getResources().clear();
+    }
 
-        Resource providers = resourceSet.createResource(URI.createURI(BASIC_PROVIDERS));
-        this.providers.values().forEach(providers.getContents()::add);
+    /**
+     * Writes the changes made by the current thread to the provider store, if
+     * any. Must be called by each thread changing providers, once it is done
+     * with them.
+     *
+     * @return true if the provider store should be compacted
+     */
+    public boolean persistChanges() {
+        if (persistence == null) {
+            return false;
+        }
+        persistence.flush();
+        return persistence.isCompactionRequired();
+    }
 
-        try {
-            providers.save(Collections.emptyMap());
-        } catch (IOException e) {
-            LOG.error("Could not save provider instances", e);
+    /**
+     * Starts compacting the provider store, if any, in the background. The
+     * compaction doesn't read the providers, so this can be called from any
+     * thread.
+     */
+    public void compactStore() {
+        if (persistence != null) {
+            persistence.flush();
+            persistence.compact();
         }
+    }
 
-        // Always do this last, because it would mess up the Package URIs in the saved
-        // providers and complicate loading
-        Resource ePackages = resourceSet.createResource(URI.createURI(BASIC_EPACKAGES));
-        resourceSet.getPackageRegistry().entrySet().stream()
-                .filter(e -> !EPackage.Registry.INSTANCE.containsKey(e.getKey())).map(Entry::getValue)
-                .map(EPackage.class::cast).forEach(ePackages.getContents()::add);
+    /**
+     * Checks if stored providers are waiting for the given package to be restored
+     *
+     * @param ePackage a registered {@link EPackage}
+     */
+    public boolean hasPendingProviders(EPackage ePackage) {
+        return persistence != null && persistence.hasPendingProviders(ePackage.getNsURI());
+    }
 
-        try {
-            ePackages.save(Collections.emptyMap());
-        } catch (IOException e) {
-            LOG.error("Could not save EPackages", e);
+    /**
+     * Restores the stored providers which were waiting for the given package.
+     * Must be called with exclusive access to the providers.
+     *
+     * @param ePackage a registered {@link EPackage}
+     */
+    public void restorePendingProviders(EPackage ePackage) {
+        if (persistence != null) {
+            persistence.restorePendingProviders(ePackage.getNsURI(), this::restoreProvider, providers::get);
         }
+    }
 
-        resourceSet.getResources().clear();
-
+    private void providerChanged(Provider provider) {
+        if (persistence != null) {
+            persistence.providerChanged(provider);
+        }
     }
 
     /**
@@ -291,9 +325,9 @@ public class ModelNexus {
 
         NotificationAccumulator accumulator = notificationAccumulator.get();
 
-        Provider parent = providers.get(parentProvider);
+        Provider parent = getProvider(parentProvider);
 
-        Provider child = providers.get(childProvider);
+        Provider child = getProvider(childProvider);
 
         if (parent == null) {
             throw new IllegalArgumentException("No parent provider " + parentProvider);
@@ -302,6 +336,7 @@ public class ModelNexus {
             throw new IllegalArgumentException("No child provider " + childProvider);
         }
         parent.getLinkedProviders().add(child);
+        providerChanged(parent);
 
         // TODO link event
         // accumulator.link(...)
@@ -323,9 +358,9 @@ public class ModelNexus {
 
         Instant metaTimestamp = timestamp == null ? Instant.now() : timestamp;
 
-        Provider parent = providers.get(parentProvider);
+        Provider parent = getProvider(parentProvider);
 
-        Provider child = providers.get(childProvider);
+        Provider child = getProvider(childProvider);
 
         if (parent == null) {
             throw new IllegalArgumentException("No parent provider " + parentProvider);
@@ -334,6 +369,7 @@ public class ModelNexus {
             throw new IllegalArgumentException("No child provider " + childProvider);
         }
         parent.getLinkedProviders().remove(child);
+        providerChanged(parent);
 
         // TODO unlink event
         // accumulator.unlink(...)
@@ -385,6 +421,7 @@ public class ModelNexus {
             service = (Service) EcoreUtil.create((EClass) serviceFeature.get().getEType());
             provider.eSet(serviceFeature.get(), service);
         }
+        providerChanged(provider);
         accumulator.addService(packageUri, modelName, providerName, serviceName);
         return service;
     }
@@ -404,6 +441,7 @@ public class ModelNexus {
         }
         if (oldValue == null) {
             accumulator.addResource(packageUri, modelName, providerName, serviceName, resourceFeature.getName());
+            index.addValuedResource(providerName, serviceName, resourceFeature.getName());
         }
 
         // Allow an update if the resource didn't exist or if the update timestamp is
@@ -412,7 +450,8 @@ public class ModelNexus {
                 || !metadata.getTimestamp().isAfter(metaTimestamp.plusMillis(1))) {
             EClassifier resourceType = resourceFeature.getEType();
 
-            if (metadata == null) {
+            final boolean createdMetadata = metadata == null;
+            if (createdMetadata) {
                 metadata = ProviderFactory.eINSTANCE.createResourceValueMetadata();
                 if (resourceFeature instanceof Metadata) {
                     metadata.getExtra().addAll(((Metadata) resourceFeature).getExtra());
@@ -426,6 +465,16 @@ public class ModelNexus {
             } else {
                 service.eSet(resourceFeature, EMFUtil.convertToTargetType(resourceType, data));
             }
+            if (resourceFeature == ProviderPackage.Literals.ADMIN__LOCATION) {
+                index.updateLocation(providerName, (GeoJsonObject) service.eGet(resourceFeature));
+            }
+            if (createdMetadata) {
+                providerChanged(provider);
+            } else if (persistence != null) {
+                // Only the value and its timestamp changed
+                persistence.resourceValueChanged(provider, serviceName, resourceFeature,
+                        service.eGet(resourceFeature), metaTimestamp);
+            }
 
             Map<String, Object> newMetaData = EMFCompareUtil.extractMetadataMap(data, metadata, resourceFeature);
 
@@ -463,6 +512,9 @@ public class ModelNexus {
         }
 
         providers.put(providerName, provider);
+        index.add(provider);
+        indexValuedResources(provider);
+        providerChanged(provider);
 
         return provider;
     }
@@ -526,20 +578,34 @@ public class ModelNexus {
     }
 
     public Provider getProvider(String providerName) {
-        return providers.get(providerName);
+        return providerName == null ? null : providers.get(providerName);
+    }
+
+    /**
+     * Checks if a resource of a provider was already valued. Reads an index
+     * rather than the providers and can be called from any thread: the check may
+     * then miss a resource being valued.
+     *
+     * @param providerName provider name
+     * @param serviceName  service name
+     * @param resourceName resource name
+     * @return true if the resource exists and was valued
+     */
+    public boolean hasValuedResource(String providerName, String serviceName, String resourceName) {
+        return index.isValuedResource(providerName, serviceName, resourceName);
     }
 
     public String getProviderModel(String providerName) {
-        return Optional.ofNullable(providers.get(providerName)).map(p -> EMFUtil.getModelName(p.eClass())).orElse(null);
+        return Optional.ofNullable(getProvider(providerName)).map(p -> EMFUtil.getModelName(p.eClass())).orElse(null);
     }
 
     public String getProviderPackageUri(String providerName) {
-        return Optional.ofNullable(providers.get(providerName)).map(p -> p.eClass().getEPackage().getNsURI())
+        return Optional.ofNullable(getProvider(providerName)).map(p -> p.eClass().getEPackage().getNsURI())
                 .orElse(null);
     }
 
     public Provider getProvider(String modelPackageUri, String model, String providerName) {
-        Provider p = providers.get(providerName);
+        Provider p = getProvider(providerName);
         if (p != null) {
             String m = EMFUtil.getModelName(p.eClass());
             String mp = modelPackageUri == null ? EMFUtil.constructPackageUri(model) : modelPackageUri;
@@ -563,9 +629,41 @@ public class ModelNexus {
         return getProviders(getMandatoryModel(modelPackageUri, model));
     }
 
-    private List<Provider> getProviders(EClass model) {
-        // Don't use isInstance as subtypes have a different model
-        return providers.values().stream().filter(p -> p.eClass().equals(model)).collect(Collectors.toList());
+    /**
+     * Lists the providers of the given model. Providers of sub-types of the model
+     * are not included as they have a different model.
+     */
+    public List<Provider> getProviders(EClass model) {
+        return toProviders(index.getByModel(model));
+    }
+
+    /**
+     * Lists the providers with a model defined in the given package
+     */
+    public List<Provider> getProvidersByPackageUri(String modelPackageUri) {
+        return toProviders(index.getByPackageUri(modelPackageUri));
+    }
+
+    /**
+     * Lists the providers whose location may intersect the given bounding box.
+     * Callers must check the actual location of the returned providers.
+     *
+     * @param bbox bounding box as <code>[minLongitude, minLatitude,
+     *             maxLongitude, maxLatitude]</code>
+     */
+    public List<Provider> getProvidersInBoundingBox(double[] bbox) {
+        return toProviders(index.getByLocation(bbox));
+    }
+
+    private List<Provider> toProviders(Collection<String> names) {
+        List<Provider> result = new ArrayList<>(names.size());
+        for (String name : names) {
+            Provider provider = providers.get(name);
+            if (provider != null) {
+                result.add(provider);
+            }
+        }
+        return result;
     }
 
     public EAttribute createResource(EClass service, String resource, Class<?> type, Instant timestamp,
@@ -631,7 +729,9 @@ public class ModelNexus {
         EPackage ePackage = resourceSet.getPackageRegistry().getEPackage(theModelPackageUri);
         if (ePackage == null) {
             ePackage = EMFUtil.createPackage(modelName, theModelPackageUri, modelName, resourceSet);
-
+            if (persistence != null) {
+                persistence.packageCreated(ePackage);
+            }
         }
         EClass model = EMFUtil.createEClass(modelClassName, ePackage, null, ProviderPackage.Literals.PROVIDER);
         ModelMetadata metadata = ProviderFactory.eINSTANCE.createModelMetadata();
@@ -742,6 +842,7 @@ public class ModelNexus {
         } else {
             EMFUtil.handleMetadataValue(fcm, timestamp, value);
         }
+        providerChanged(provider);
         Map<String, Object> newMetadata = EMFUtil.toMetadataAttributesToMap(metadata, resource);
 
         notificationAccumulator.get().metadataValueUpdate(provider.eClass().getEPackage().getNsURI(),
@@ -1071,7 +1172,13 @@ public class ModelNexus {
     }
 
     private void doDeleteProvider(String modelPackageUri, String model, String name) {
-        providers.remove(name);
+        Provider removed = providers.remove(name);
+        if (removed != null) {
+            index.remove(removed);
+            if (persistence != null) {
+                persistence.providerRemoved(name);
+            }
+        }
         notificationAccumulator.get().removeProvider(modelPackageUri, model, name);
     }
 
@@ -1088,11 +1195,16 @@ public class ModelNexus {
             // replace the original
             DynamicProvider dynamicProvider = (DynamicProvider) EcoreUtil.create(provider.eClass());
             original.eClass().getEAllStructuralFeatures().forEach(e -> dynamicProvider.eSet(e, provider.eGet(e)));
+            index.remove(original);
             original = dynamicProvider;
             providers.put(id, dynamicProvider);
+            index.add(dynamicProvider);
         }
 
         EMFCompareUtil.compareAndSet(provider, original, notificationAccumulator.get());
+        indexValuedResources(original);
+        index.updateLocation(id, original.getAdmin() == null ? null : original.getAdmin().getLocation());
+        providerChanged(original);
 
         return EcoreUtil.copy(original);
     }
@@ -1172,7 +1284,8 @@ public class ModelNexus {
     }
 
     private Stream<Provider> getProviderofEPackage(EPackage ePackage) {
-        return providers.values().stream().filter(p -> p.eClass().getEPackage().equals(ePackage));
+        return getProvidersByPackageUri(ePackage.getNsURI()).stream()
+                .filter(p -> p.eClass().getEPackage().equals(ePackage));
     }
 
     /**
@@ -1182,8 +1295,13 @@ public class ModelNexus {
      */
     public void removeEPackage(EPackage ePackage) {
         if (ePackage != providerPackage) {
-            getProviderofEPackage(ePackage).collect(Collectors.toSet())
-                    .forEach(p -> doDeleteProvider(ePackage.getNsURI(), EMFUtil.getModelName(p.eClass()), p.getId()));
+            getProviderofEPackage(ePackage).collect(Collectors.toSet()).forEach(p -> {
+                doDeleteProvider(ePackage.getNsURI(), EMFUtil.getModelName(p.eClass()), p.getId());
+                if (persistence != null) {
+                    // Keep the stored provider until its package comes back
+                    persistence.providerSuspended(p);
+                }
+            });
             removeEPackageInternal(ePackage);
         }
     }
@@ -1191,6 +1309,9 @@ public class ModelNexus {
     private void removeEPackageInternal(EPackage ePackage) {
         if (ePackage != providerPackage) {
             resourceSet.getPackageRegistry().remove(ePackage.getNsURI());
+            if (persistence != null) {
+                persistence.packageRemoved(ePackage);
+            }
         }
     }
 
@@ -0,0 +1,127 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.model.nexus;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
+import org.eclipse.sensinact.model.core.provider.Admin;
+import org.eclipse.sensinact.model.core.provider.Provider;
+
+/**
+ * Secondary indexes of the providers known by the {@link ModelNexus}: by model,
+ * by model package URI and by location. The indexes hold provider names and
+ * must be updated by the nexus each time a provider is added, removed or
+ * moved. The resources of each provider which already hold a value are also
+ * indexed, so that they can be checked from any thread.
+ */
+class ProviderIndex {
+
+    private final Map<EClass, Set<String>> byModel = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<String>> byPackageUri = new ConcurrentHashMap<>();
+
+    private final LocationIndex locations = new LocationIndex();
+
+    private final Map<String, Set<List<String>>> valuedResources = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes a new provider
+     */
+    void add(Provider provider) {
+        String name = provider.getId();
+        EClass model = provider.eClass();
+        addTo(byModel, model, name);
+        addTo(byPackageUri, model.getEPackage().getNsURI(), name);
+        Admin admin = provider.getAdmin();
+        locations.update(name, admin == null ? null : admin.getLocation());
+    }
+
+    /**
+     * Removes a provider from the indexes
+     */
+    void remove(Provider provider) {
+        String name = provider.getId();
+        EClass model = provider.eClass();
+        removeFrom(byModel, model, name);
+        removeFrom(byPackageUri, model.getEPackage().getNsURI(), name);
+        locations.remove(name);
+        valuedResources.remove(name);
+    }
+
+    /**
+     * Indexes a resource of a provider which holds a value
+     */
+    void addValuedResource(String provider, String service, String resource) {
+        valuedResources.computeIfAbsent(provider, k -> ConcurrentHashMap.newKeySet()).add(List.of(service, resource));
+    }
+
+    /**
+     * Checks if a resource of a provider holds a value
+     */
+    boolean isValuedResource(String provider, String service, String resource) {
+        if (provider == null || service == null || resource == null) {
+            return false;
+        }
+        Set<List<String>> resources = valuedResources.get(provider);
+        return resources != null && resources.contains(List.of(service, resource));
+    }
+
+    /**
+     * Updates the location of an indexed provider
+     */
+    void updateLocation(String provider, GeoJsonObject location) {
+        locations.update(provider, location);
+    }
+
+    /**
+     * Names of the providers of the given model
+     */
+    Set<String> getByModel(EClass model) {
+        return Collections.unmodifiableSet(byModel.getOrDefault(model, Set.of()));
+    }
+
+    /**
+     * Names of the providers with a model from the given package
+     */
+    Set<String> getByPackageUri(String packageUri) {
+        return Collections.unmodifiableSet(byPackageUri.getOrDefault(packageUri, Set.of()));
+    }
+
+    /**
+     * Names of the providers whose location may intersect the given bounding box
+     */
+    Set<String> getByLocation(double[] bbox) {
+        return locations.candidates(bbox);
+    }
+
+    private static <K> void addTo(Map<K, Set<String>> index, K key, String name) {
+        index.compute(key, (k, v) -> {
+            Set<String> names = v == null ? ConcurrentHashMap.newKeySet() : v;
+            names.add(name);
+            return names;
+        });
+    }
+
+    private static <K> void removeFrom(Map<K, Set<String>> index, K key, String name) {
+        index.computeIfPresent(key, (k, v) -> {
+            v.remove(name);
+            return v.isEmpty() ? null : v;
+        });
+    }
+}
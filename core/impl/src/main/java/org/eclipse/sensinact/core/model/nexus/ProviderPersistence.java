@@ -0,0 +1,595 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.model.nexus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.EcoreUtil.Copier;
+import org.eclipse.sensinact.core.model.nexus.emf.EMFUtil;
+import org.eclipse.sensinact.core.model.nexus.emf.SensinactBinaryResourceFactory;
+import org.eclipse.sensinact.core.model.nexus.store.ProviderStore;
+import org.eclipse.sensinact.core.model.nexus.store.StoreRecord;
+import org.eclipse.sensinact.model.core.provider.Provider;
+import org.eclipse.sensinact.model.core.provider.ProviderPackage;
+import org.eclipse.sensinact.model.core.provider.ResourceValueMetadata;
+import org.eclipse.sensinact.model.core.provider.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps a {@link ProviderStore} in sync with the {@link ModelNexus}.
+ *
+ * Providers and dynamic model packages are stored using the compact binary
+ * encoding of {@link SensinactBinaryResourceFactory}. Provider changes are
+ * tracked per thread, as partition workers update their providers
+ * concurrently, and are written to the store when the thread flushes them,
+ * i.e. once per batch of commands. A provider is only stored whole when its
+ * structure changes: the value updates of its existing resources are stored as
+ * resource values, applied to the provider when it is restored. Links between
+ * providers are stored as provider names and restored once all providers are
+ * loaded.
+ *
+ * The records of providers whose model package is not available, e.g. a
+ * package registered later by another bundle, are kept aside until the
+ * package is added.
+ */
+class ProviderPersistence {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProviderPersistence.class);
+
+    private static final URI STORE_URI = URI.createURI("sensinact:/store");
+
+    private static final Resource.Factory RESOURCE_FACTORY = new SensinactBinaryResourceFactory();
+
+    private final ProviderStore store;
+
+    private final ResourceSet resourceSet;
+
+    /**
+     * Changes of the current thread
+     */
+    private final ThreadLocal<Changes> changes = ThreadLocal.withInitial(Changes::new);
+
+    /**
+     * Dynamic packages created by the nexus, by namespace URI
+     */
+    private final Map<String, EPackage> packages = new ConcurrentHashMap<>();
+
+    /**
+     * Namespace URIs of the changed or removed dynamic packages
+     */
+    private final Set<String> dirtyPackages = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Records of the providers whose model package is not available, by package
+     * namespace URI then provider name
+     */
+    private final Map<String, Map<String, StoreRecord>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Resource value records of the providers whose model package is not
+     * available, by provider name
+     */
+    private final Map<String, List<StoreRecord>> pendingValues = new ConcurrentHashMap<>();
+
+    /**
+     * Names of the parents of providers which are not restored yet
+     */
+    private final Map<String, Set<String>> unresolvedLinks = new ConcurrentHashMap<>();
+
+    ProviderPersistence(ProviderStore store, ResourceSet resourceSet) {
+        this.store = store;
+        this.resourceSet = resourceSet;
+    }
+
+    /**
+     * Restores the persisted dynamic packages and providers
+     *
+     * @param register called with each restored provider
+     * @param lookup   finds a provider by name
+     * @throws IOException error reading the store
+     */
+    void recover(Consumer<Provider> register, Function<String, Provider> lookup) throws IOException {
+        final long start = System.currentTimeMillis();
+        final List<StoreRecord> records = store.recover();
+
+        // Register all packages before resolving them, as they can reference each
+        // other
+        final List<EPackage> restored = new ArrayList<>();
+        final List<StoreRecord> providerRecords = new ArrayList<>();
+        final Map<String, List<StoreRecord>> values = new LinkedHashMap<>();
+        for (StoreRecord record : records) {
+            if (record.isResourceValue()) {
+                values.computeIfAbsent(record.getKey(), k -> new ArrayList<>()).add(record);
+            } else if (record.isProvider()) {
+                providerRecords.add(record);
+            } else if (resourceSet.getPackageRegistry().getEPackage(record.getKey()) != null) {
+                LOG.warn("The stored package {} is already registered and won't be restored", record.getKey());
+            } else {
+                Resource resource = load(record.getData());
+                try {
+                    EPackage ePackage = (EPackage) resource.getContents().get(0);
+                    EMFUtil.registerDynamicPackage(ePackage, resourceSet);
+                    restored.add(ePackage);
+                } finally {
+                    resourceSet.getResources().remove(resource);
+                }
+            }
+        }
+        for (EPackage ePackage : restored) {
+            EcoreUtil.resolveAll(ePackage);
+            track(ePackage);
+        }
+
+        int count = restoreProviders(providerRecords, values, register, lookup);
+        LOG.info("Restored {} model packages and {} providers from the provider store in {}ms", restored.size(),
+                count, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Checks if providers of the given package are waiting for it to be restored
+     */
+    boolean hasPendingProviders(String packageUri) {
+        return pending.containsKey(packageUri);
+    }
+
+    /**
+     * Restores the providers which were waiting for the given package
+     *
+     * @param packageUri package namespace URI
+     * @param register   called with each restored provider
+     * @param lookup     finds a provider by name
+     */
+    void restorePendingProviders(String packageUri, Consumer<Provider> register,
+            Function<String, Provider> lookup) {
+        Map<String, StoreRecord> records = pending.remove(packageUri);
+        if (records != null) {
+            int count = restoreProviders(records.values(), pendingValues, register, lookup);
+            LOG.info("Restored {} providers of the model package {}", count, packageUri);
+        }
+    }
+
+    /**
+     * Restores providers
+     *
+     * @param records  provider records
+     * @param values   resource value records by provider name, the values of
+     *                 the given providers are removed from it
+     * @param register called with each restored provider
+     * @param lookup   finds a provider by name
+     * @return the number of restored providers
+     */
+    private int restoreProviders(Collection<StoreRecord> records, Map<String, List<StoreRecord>> values,
+            Consumer<Provider> register, Function<String, Provider> lookup) {
+        final List<StoreRecord> restored = new ArrayList<>(records.size());
+        for (StoreRecord record : records) {
+            List<StoreRecord> providerValues = values.remove(record.getKey());
+            if (resourceSet.getPackageRegistry().getEPackage(record.getPackageUri()) == null) {
+                park(record, providerValues);
+                continue;
+            }
+            if (lookup.apply(record.getKey()) != null) {
+                LOG.warn("The stored provider {} already exists and won't be restored", record.getKey());
+                continue;
+            }
+            Provider provider;
+            try {
+                Resource resource = load(record.getData());
+                try {
+                    EcoreUtil.resolveAll(resource);
+                    provider = (Provider) resource.getContents().get(0);
+                    resource.getContents().clear();
+                } finally {
+                    resourceSet.getResources().remove(resource);
+                }
+            } catch (IOException | RuntimeException e) {
+                LOG.error("Unable to restore the stored provider {}", record.getKey(), e);
+                park(record, providerValues);
+                continue;
+            }
+            if (providerValues != null) {
+                providerValues.forEach(v -> restoreValue(provider, v));
+            }
+            register.accept(provider);
+            restored.add(record);
+        }
+
+        // Restore links once all providers are available
+        for (StoreRecord record : restored) {
+            Provider provider = lookup.apply(record.getKey());
+            for (String link : record.getLinks()) {
+                Provider child = lookup.apply(link);
+                if (child != null) {
+                    provider.getLinkedProviders().add(child);
+                } else {
+                    unresolvedLinks.computeIfAbsent(link, k -> ConcurrentHashMap.newKeySet()).add(record.getKey());
+                }
+            }
+        }
+        for (StoreRecord record : restored) {
+            Set<String> parents = unresolvedLinks.remove(record.getKey());
+            if (parents != null) {
+                Provider child = lookup.apply(record.getKey());
+                for (String parentName : parents) {
+                    Provider parent = lookup.apply(parentName);
+                    if (parent != null) {
+                        parent.getLinkedProviders().add(child);
+                    }
+                }
+            }
+        }
+        return restored.size();
+    }
+
+    private void restoreValue(Provider provider, StoreRecord record) {
+        Service service = provider.getService(record.getService());
+        EStructuralFeature feature = service == null ? null
+                : service.eClass().getEStructuralFeature(record.getResource());
+        ResourceValueMetadata metadata = feature == null ? null : service.getMetadata().get(feature);
+        if (!(feature instanceof EAttribute) || metadata == null) {
+            LOG.warn("Ignoring the stored value of the unknown resource {}", record);
+            return;
+        }
+        try {
+            service.eSet(feature, record.getValue() == null ? null
+                    : EcoreUtil.createFromString((EDataType) feature.getEType(), record.getValue()));
+            metadata.setTimestamp(record.getTimestamp());
+        } catch (RuntimeException e) {
+            LOG.error("Unable to restore the stored value {}", record, e);
+        }
+    }
+
+    private void park(StoreRecord record, List<StoreRecord> values) {
+        pending.computeIfAbsent(record.getPackageUri(), k -> new ConcurrentHashMap<>()).put(record.getKey(),
+                record);
+        if (values == null) {
+            pendingValues.remove(record.getKey());
+        } else {
+            pendingValues.put(record.getKey(), values);
+        }
+    }
+
+    /**
+     * Keeps the persisted state of a provider removed from the nexus because its
+     * model package was removed, so that it can be restored with the package
+     */
+    void providerSuspended(Provider provider) {
+        changes.get().remove(provider.getId());
+        try {
+            park(encode(provider), null);
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Unable to encode the provider {}", provider.getId(), e);
+        }
+    }
+
+    /**
+     * Tracks the changes of a dynamic package created by the nexus
+     */
+    void packageCreated(EPackage ePackage) {
+        track(ePackage);
+        dirtyPackages.add(ePackage.getNsURI());
+    }
+
+    /**
+     * Marks a dynamic package as removed
+     */
+    void packageRemoved(EPackage ePackage) {
+        String nsUri = ePackage.getNsURI();
+        if (packages.remove(nsUri, ePackage)) {
+            ePackage.eAdapters().removeIf(PackageTracker.class::isInstance);
+            dirtyPackages.add(nsUri);
+        }
+    }
+
+    private void track(EPackage ePackage) {
+        packages.put(ePackage.getNsURI(), ePackage);
+        ePackage.eAdapters().add(new PackageTracker(ePackage.getNsURI()));
+    }
+
+    /**
+     * Marks a provider as changed by the current thread, to be stored whole
+     */
+    void providerChanged(Provider provider) {
+        changes.get().providerChanged(provider.getId(), provider);
+    }
+
+    /**
+     * Marks a provider as removed by the current thread
+     */
+    void providerRemoved(String name) {
+        changes.get().providerChanged(name, null);
+    }
+
+    /**
+     * Records the new value of an existing resource, set by the current thread.
+     * The structure of the provider, including the metadata of the resource, must
+     * not have changed since it was last stored whole.
+     *
+     * @param provider  the provider
+     * @param service   the service name
+     * @param resource  the resource feature
+     * @param value     the new value
+     * @param timestamp the new value timestamp
+     */
+    void resourceValueChanged(Provider provider, String service, EStructuralFeature resource, Object value,
+            Instant timestamp) {
+        if (resource instanceof EAttribute && !resource.isMany()) {
+            changes.get().valueChanged(provider, service, (EAttribute) resource, value, timestamp);
+        } else {
+            providerChanged(provider);
+        }
+    }
+
+    /**
+     * Writes the changed packages and the providers changed by the current thread
+     * to the store
+     */
+    void flush() {
+        final Changes changed = changes.get();
+        if (changed.isEmpty() && dirtyPackages.isEmpty()) {
+            return;
+        }
+
+        final List<String> flushedPackages = new ArrayList<>();
+        final List<StoreRecord> records = new ArrayList<>(changed.size());
+        for (String nsUri : List.copyOf(dirtyPackages)) {
+            if (dirtyPackages.remove(nsUri)) {
+                flushedPackages.add(nsUri);
+                EPackage ePackage = packages.get(nsUri);
+                if (ePackage == null) {
+                    records.add(StoreRecord.ePackageRemoved(nsUri));
+                } else {
+                    try {
+                        records.add(encode(ePackage));
+                    } catch (IOException | RuntimeException e) {
+                        LOG.error("Unable to encode the model package {}", nsUri, e);
+                    }
+                }
+            }
+        }
+
+        for (Entry<String, Provider> entry : changed.providers.entrySet()) {
+            if (entry.getValue() == null) {
+                records.add(StoreRecord.providerRemoved(entry.getKey()));
+            } else {
+                try {
+                    records.add(encode(entry.getValue()));
+                } catch (IOException | RuntimeException e) {
+                    LOG.error("Unable to encode the provider {}", entry.getKey(), e);
+                }
+            }
+        }
+        for (Map<List<String>, ResourceValue> values : changed.values.values()) {
+            encodeValues(values.values(), records);
+        }
+        changed.clear();
+
+        try {
+            store.append(records);
+        } catch (IOException e) {
+            LOG.error("Unable to store {} provider changes", records.size(), e);
+            // Packages are written again on the next flush
+            dirtyPackages.addAll(flushedPackages);
+        }
+    }
+
+    /**
+     * Checks if the store should be compacted
+     */
+    boolean isCompactionRequired() {
+        return store.isCompactionRequired();
+    }
+
+    /**
+     * Starts compacting the store, in the background. Can be called from any
+     * thread, as the store doesn't read the providers of the nexus.
+     */
+    void compact() {
+        try {
+            store.compact();
+        } catch (IOException e) {
+            LOG.error("Unable to compact the provider store", e);
+        }
+    }
+
+    /**
+     * Closes the store
+     */
+    void close() {
+        try {
+            store.close();
+        } catch (IOException e) {
+            LOG.error("Error closing the provider store", e);
+        }
+    }
+
+    private StoreRecord encode(EPackage ePackage) throws IOException {
+        return StoreRecord.ePackage(ePackage.getNsURI(), save(EcoreUtil.copy(ePackage)));
+    }
+
+    private StoreRecord encode(Provider provider) throws IOException {
+        Copier copier = new LinkFreeCopier();
+        EObject copy = copier.copy(provider);
+        copier.copyReferences();
+        List<String> links = provider.getLinkedProviders().stream().map(Provider::getId)
+                .collect(Collectors.toList());
+        return StoreRecord.provider(provider.getId(), provider.eClass().getEPackage().getNsURI(), links,
+                save(copy));
+    }
+
+    /**
+     * Encodes the values of a provider, or the whole provider if a value can't be
+     * converted to a string
+     */
+    private void encodeValues(Collection<ResourceValue> values, List<StoreRecord> records) {
+        final int start = records.size();
+        Provider provider = null;
+        try {
+            for (ResourceValue v : values) {
+                provider = v.provider();
+                String value = v.value() == null ? null
+                        : EcoreUtil.convertToString((EDataType) v.resource().getEType(), v.value());
+                records.add(StoreRecord.resourceValue(provider.getId(), v.service(), v.resource().getName(),
+                        v.timestamp(), value));
+            }
+        } catch (RuntimeException e) {
+            records.subList(start, records.size()).clear();
+            try {
+                records.add(encode(provider));
+            } catch (IOException | RuntimeException e2) {
+                LOG.error("Unable to encode the provider {}", provider.getId(), e2);
+            }
+        }
+    }
+
+    private static byte[] save(EObject object) throws IOException {
+        Resource resource = RESOURCE_FACTORY.createResource(STORE_URI);
+        resource.getContents().add(object);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        resource.save(out, null);
+        return out.toByteArray();
+    }
+
+    /**
+     * Loads an encoded object in a temporary resource of the resource set, which
+     * must be removed by the caller
+     */
+    private Resource load(byte[] data) throws IOException {
+        Resource resource = RESOURCE_FACTORY.createResource(STORE_URI);
+        resourceSet.getResources().add(resource);
+        try {
+            resource.load(new ByteArrayInputStream(data), null);
+        } catch (IOException | RuntimeException e) {
+            resourceSet.getResources().remove(resource);
+            throw e;
+        }
+        return resource;
+    }
+
+    /**
+     * Copies a provider without its links to other providers, which are stored
+     * by name
+     */
+    private static class LinkFreeCopier extends Copier {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void copyReference(EReference eReference, EObject eObject, EObject copyEObject) {
+            if (eReference != ProviderPackage.Literals.PROVIDER__LINKED_PROVIDERS) {
+                super.copyReference(eReference, eObject, copyEObject);
+            }
+        }
+    }
+
+    /**
+     * A resource value to store
+     */
+    private record ResourceValue(Provider provider, String service, EAttribute resource, Object value,
+            Instant timestamp) {
+    }
+
+    /**
+     * Changes made by a thread since it last flushed them
+     */
+    private static class Changes {
+
+        /**
+         * Providers to store whole by name, null values marking removed providers
+         */
+        final Map<String, Provider> providers = new LinkedHashMap<>();
+
+        /**
+         * Resource values of the other providers, by provider name then service
+         * and resource names
+         */
+        final Map<String, Map<List<String>, ResourceValue>> values = new LinkedHashMap<>();
+
+        void providerChanged(String name, Provider provider) {
+            values.remove(name);
+            providers.put(name, provider);
+        }
+
+        void valueChanged(Provider provider, String service, EAttribute resource, Object value, Instant timestamp) {
+            String name = provider.getId();
+            if (!providers.containsKey(name)) {
+                values.computeIfAbsent(name, k -> new LinkedHashMap<>()).put(List.of(service, resource.getName()),
+                        new ResourceValue(provider, service, resource, value, timestamp));
+            }
+        }
+
+        void remove(String name) {
+            providers.remove(name);
+            values.remove(name);
+        }
+
+        int size() {
+            return providers.size() + values.size();
+        }
+
+        boolean isEmpty() {
+            return providers.isEmpty() && values.isEmpty();
+        }
+
+        void clear() {
+            providers.clear();
+            values.clear();
+        }
+    }
+
+    /**
+     * Marks a dynamic package as changed on any change of its content
+     */
+    private class PackageTracker extends EContentAdapter {
+
+        private final String nsUri;
+
+        PackageTracker(String nsUri) {
+            this.nsUri = nsUri;
+        }
+
+        @Override
+        public void notifyChanged(Notification notification) {
+            super.notifyChanged(notification);
+            if (!notification.isTouch()) {
+                dirtyPackages.add(nsUri);
+            }
+        }
+    }
+}
@@ -289,16 +289,35 @@ public class EMFUtil {
         ePackage.setName(name);
         ePackage.setNsPrefix(prefix);
         ePackage.setNsURI(nsUri);
-        ePackage.setEFactoryInstance(new EFactoryImpl() {
+        ePackage.setEFactoryInstance(createDynamicFactory());
+        resourceSet.getPackageRegistry().put(nsUri, ePackage);
+        return ePackage;
+    }
+
+    /**
+     * Registers a dynamic package which was not created by
+     * {@link #createPackage(String, String, String, ResourceSet)}, e.g. one
+     * restored from a persistent store, the same way as a newly created one
+     *
+     * @param ePackage    the dynamic package
+     * @param resourceSet the resource set to register the package in
+     */
+    public static void registerDynamicPackage(EPackage ePackage, ResourceSet resourceSet) {
+        Resource resource = new XMIResourceImpl(URI.createURI(ePackage.getNsURI()));
+        resource.getContents().add(ePackage);
+        ePackage.setEFactoryInstance(createDynamicFactory());
+        resourceSet.getPackageRegistry().put(ePackage.getNsURI(), ePackage);
+    }
+
+    private static EFactoryImpl createDynamicFactory() {
+        return new EFactoryImpl() {
             @Override
             protected EObject basicCreate(EClass eClass) {
                 return eClass.getInstanceClassName() == "java.util.Map$Entry"
                         ? new MinimalEObjectImpl.Container.Dynamic.BasicEMapEntry<String, String>(eClass)
                         : new MinimalEObjectImpl.Container.Dynamic.Permissive(eClass);
             }
-        });
-        resourceSet.getPackageRegistry().put(nsUri, ePackage);
-        return ePackage;
+        };
     }
 
     public static EAnnotation createEAnnotation(String source, Map<String, String> detailKeys) {
@@ -0,0 +1,112 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.model.nexus.emf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceFactoryImpl;
+import org.gecko.emf.osgi.constants.EMFNamespaces;
+import org.osgi.service.component.annotations.Component;
+
+/**
+ * A resource factory for a compact binary encoding of providers, of dynamic
+ * model packages and of any other EMF content.
+ *
+ * The resources use the EMF binary format in its most compact style: numbers,
+ * dates and enumeration literals are written in binary form rather than as
+ * strings, and integers are written with a variable length. The format version
+ * and style are stored in the resource, so loading doesn't require any option.
+ *
+ * The factory is registered as a service, for resource sets to use it for the
+ * {@value #FILE_EXTENSION} file extension and the {@value #CONTENT_TYPE}
+ * content type. It can also be used directly, e.g. with
+ * {@link #register(ResourceSet)} outside of OSGi.
+ */
+@Component(service = Resource.Factory.class, property = {
+        EMFNamespaces.EMF_MODEL_FILE_EXT + "=" + SensinactBinaryResourceFactory.FILE_EXTENSION,
+        EMFNamespaces.EMF_MODEL_CONTENT_TYPE + "=" + SensinactBinaryResourceFactory.CONTENT_TYPE })
+public class SensinactBinaryResourceFactory extends ResourceFactoryImpl {
+
+    /**
+     * File extension of the binary resources
+     */
+    public static final String FILE_EXTENSION = "sensinact";
+
+    /**
+     * Content type of the binary resources
+     */
+    public static final String CONTENT_TYPE = "org.eclipse.sensinact.binary";
+
+    private static final Map<Object, Object> SAVE_OPTIONS = Map.of(
+            BinaryResourceImpl.OPTION_VERSION, BinaryResourceImpl.BinaryIO.Version.VERSION_1_1,
+            BinaryResourceImpl.OPTION_STYLE_BINARY_FLOATING_POINT, Boolean.TRUE,
+            BinaryResourceImpl.OPTION_STYLE_BINARY_DATE, Boolean.TRUE,
+            BinaryResourceImpl.OPTION_STYLE_BINARY_ENUMERATOR, Boolean.TRUE,
+            BinaryResourceImpl.OPTION_BUFFER_CAPACITY, 8192);
+
+    @Override
+    public Resource createResource(URI uri) {
+        return new SensinactBinaryResource(uri);
+    }
+
+    /**
+     * Registers this factory in the given resource set for the
+     * {@value #FILE_EXTENSION} file extension and the {@value #CONTENT_TYPE}
+     * content type
+     *
+     * @param resourceSet the resource set
+     */
+    public void register(ResourceSet resourceSet) {
+        Resource.Factory.Registry registry = resourceSet.getResourceFactoryRegistry();
+        registry.getExtensionToFactoryMap().put(FILE_EXTENSION, this);
+        registry.getContentTypeToFactoryMap().put(CONTENT_TYPE, this);
+    }
+
+    /**
+     * A binary resource applying the compact save options by default. Options
+     * given to the save methods take precedence.
+     */
+    private static class SensinactBinaryResource extends BinaryResourceImpl {
+
+        SensinactBinaryResource(URI uri) {
+            super(uri);
+        }
+
+        @Override
+        protected void doSave(OutputStream outputStream, Map<?, ?> options) throws IOException {
+            Map<Object, Object> merged = new HashMap<>(SAVE_OPTIONS);
+            if (options != null) {
+                merged.putAll(options);
+            }
+            super.doSave(outputStream, merged);
+        }
+
+        @Override
+        protected void doLoad(InputStream inputStream, Map<?, ?> options) throws IOException {
+            Map<Object, Object> merged = new HashMap<>();
+            merged.put(BinaryResourceImpl.OPTION_BUFFER_CAPACITY, SAVE_OPTIONS.get(OPTION_BUFFER_CAPACITY));
+            if (options != null) {
+                merged.putAll(options);
+            }
+            super.doLoad(inputStream, merged);
+        }
+    }
+}
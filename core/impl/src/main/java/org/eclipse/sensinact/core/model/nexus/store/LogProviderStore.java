@@ -0,0 +1,630 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.model.nexus.store;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+import org.eclipse.sensinact.core.model.nexus.store.StoreRecord.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link ProviderStore} made of a compacted snapshot file and of an
+ * append-only change log.
+ *
+ * Both files start with a header holding a generation number. A compaction
+ * first switches the appends to a new log of the next generation. It then
+ * merges, in the background, the snapshot and the previous log into a snapshot
+ * of the next generation, which atomically replaces the current one, and the
+ * new log finally replaces the previous one. A log whose generation doesn't
+ * match the one of the snapshot is obsolete and ignored, so that a compaction
+ * interrupted at any step is recovered. Each record is stored with its length
+ * and checksum, so that a log truncated by a crash is recovered up to its last
+ * complete record.
+ */
+public class LogProviderStore implements ProviderStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LogProviderStore.class);
+
+    static final String SNAPSHOT_FILE = "providers.snapshot";
+
+    static final String LOG_FILE = "providers.log";
+
+    static final String NEXT_LOG_FILE = "providers.next.log";
+
+    private static final int MAGIC = 0x534e5354;
+
+    private static final int VERSION = 1;
+
+    /**
+     * Magic number, version and generation
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * Length and checksum of a record
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final int MAX_RECORD_SIZE = 1 << 30;
+
+    private final Path directory;
+
+    private final long compactionThreshold;
+
+    private final boolean sync;
+
+    private FileChannel log;
+
+    /**
+     * Generation of the snapshot
+     */
+    private long generation;
+
+    private long logSize;
+
+    /**
+     * Generation of the log the changes are appended to while a compaction is
+     * pending, zero otherwise
+     */
+    private long nextGeneration;
+
+    private Future<?> compaction;
+
+    private ExecutorService executor;
+
+    /**
+     * @param directory           directory holding the store files, created if
+     *                            necessary
+     * @param compactionThreshold size of the change log, in bytes, above which a
+     *                            compaction is required. Zero or negative to
+     *                            only compact on demand.
+     * @param sync                if true, changes are forced to the storage
+     *                            device before {@link #append(List)} returns
+     */
+    public LogProviderStore(Path directory, long compactionThreshold, boolean sync) {
+        this.directory = directory;
+        this.compactionThreshold = compactionThreshold;
+        this.sync = sync;
+    }
+
+    @Override
+    public synchronized List<StoreRecord> recover() throws IOException {
+        Files.createDirectories(directory);
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+
+        final State state = new State();
+        generation = 0;
+        nextGeneration = 0;
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.isRegularFile(snapshot)) {
+            generation = readSnapshot(snapshot, state);
+        }
+
+        Path logFile = directory.resolve(LOG_FILE);
+        long lastGeneration = generation;
+        long validSize = -1;
+        if (Files.isRegularFile(logFile)) {
+            long logGeneration = readGeneration(logFile);
+            lastGeneration = Math.max(lastGeneration, logGeneration);
+            if (logGeneration == generation) {
+                validSize = readLog(logFile, state);
+            } else {
+                LOG.info("Ignoring the obsolete provider store log {} of generation {}", logFile, logGeneration);
+            }
+        }
+
+        Path nextLogFile = directory.resolve(NEXT_LOG_FILE);
+        if (Files.isRegularFile(nextLogFile)) {
+            // A compaction was interrupted: the next log follows the snapshot or
+            // the current log
+            long logGeneration = readGeneration(nextLogFile);
+            lastGeneration = Math.max(lastGeneration, logGeneration);
+            if (logGeneration == generation || logGeneration == generation + 1) {
+                readLog(nextLogFile, state);
+            } else {
+                LOG.info("Ignoring the obsolete provider store log {} of generation {}", nextLogFile,
+                        logGeneration);
+            }
+
+            // Store the recovered state to start again from a single log
+            generation = lastGeneration + 1;
+            writeSnapshot(state.records(), generation);
+            Files.delete(nextLogFile);
+            openNewLog();
+        } else if (validSize < 0) {
+            openNewLog();
+        } else {
+            log = FileChannel.open(logFile, WRITE);
+            log.truncate(validSize);
+            log.position(validSize);
+            logSize = validSize;
+        }
+        return state.records();
+    }
+
+    @Override
+    public synchronized void append(List<StoreRecord> records) throws IOException {
+        checkOpen();
+        if (records.isEmpty()) {
+            return;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        for (StoreRecord record : records) {
+            writeRecord(out, record);
+        }
+        out.flush();
+
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while (bytes.hasRemaining()) {
+            log.write(bytes);
+        }
+        if (sync) {
+            log.force(false);
+        }
+        logSize += buffer.size();
+    }
+
+    @Override
+    public synchronized boolean isCompactionRequired() {
+        return compactionThreshold > 0 && !isCompacting() && logSize - HEADER_SIZE > compactionThreshold;
+    }
+
+    private boolean isCompacting() {
+        return compaction != null && !compaction.isDone();
+    }
+
+    @Override
+    public synchronized void compact() throws IOException {
+        checkOpen();
+        if (isCompacting()) {
+            return;
+        }
+        if (nextGeneration == 0) {
+            switchToNextLog();
+        }
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "Eclipse sensiNact Provider Store Compaction");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compaction = executor.submit(() -> {
+            try {
+                writeNextSnapshot();
+                promoteNextLog();
+            } catch (IOException | RuntimeException e) {
+                // Retried on the next compaction, or on recovery
+                LOG.error("Unable to compact the provider store", e);
+            }
+        });
+    }
+
+    /**
+     * Appends the next changes to a log of the next generation, so that the
+     * snapshot and the current log are not modified any more
+     */
+    synchronized void switchToNextLog() throws IOException {
+        checkOpen();
+        final long next = generation + 1;
+        FileChannel channel = createLog(directory.resolve(NEXT_LOG_FILE), next);
+        log.close();
+        log = channel;
+        logSize = HEADER_SIZE;
+        nextGeneration = next;
+    }
+
+    /**
+     * Merges the snapshot and the previous log into a snapshot of the
+     * generation of the next log. Runs without holding the store lock, as the
+     * files it reads are not modified any more.
+     */
+    void writeNextSnapshot() throws IOException {
+        final long current;
+        final long next;
+        synchronized (this) {
+            current = generation;
+            next = nextGeneration;
+        }
+
+        final long start = System.currentTimeMillis();
+        final State state = new State();
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.isRegularFile(snapshot)) {
+            long snapshotGeneration = readSnapshot(snapshot, state);
+            if (snapshotGeneration == next) {
+                // Written by a previous attempt
+                return;
+            }
+        }
+        Path logFile = directory.resolve(LOG_FILE);
+        if (Files.isRegularFile(logFile) && readGeneration(logFile) == current) {
+            readLog(logFile, state);
+        }
+        List<StoreRecord> records = state.records();
+        writeSnapshot(records, next);
+        LOG.info("Compacted the provider store to {} records in {}ms", records.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Replaces the previous log by the next one, once the snapshot of its
+     * generation is written
+     */
+    synchronized void promoteNextLog() throws IOException {
+        checkOpen();
+        log.close();
+        log = null;
+        Path logFile = directory.resolve(LOG_FILE);
+        move(directory.resolve(NEXT_LOG_FILE), logFile);
+        log = FileChannel.open(logFile, WRITE);
+        log.position(logSize);
+        generation = nextGeneration;
+        nextGeneration = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        final Future<?> running;
+        final ExecutorService compactionExecutor;
+        synchronized (this) {
+            running = compaction;
+            compactionExecutor = executor;
+            compaction = null;
+            executor = null;
+        }
+        if (running != null) {
+            try {
+                running.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Already logged
+            }
+        }
+        if (compactionExecutor != null) {
+            compactionExecutor.shutdown();
+        }
+        synchronized (this) {
+            if (log != null) {
+                log.close();
+                log = null;
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (log == null) {
+            throw new IllegalStateException("The provider store is not recovered or is closed");
+        }
+    }
+
+    private void openNewLog() throws IOException {
+        log = createLog(directory.resolve(LOG_FILE), generation);
+        logSize = HEADER_SIZE;
+    }
+
+    private FileChannel createLog(Path logFile, long logGeneration) throws IOException {
+        Path tmp = directory.resolve(logFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            writeHeader(out, logGeneration);
+            out.flush();
+            channel.force(true);
+        }
+        move(tmp, logFile);
+        FileChannel channel = FileChannel.open(logFile, WRITE);
+        channel.position(HEADER_SIZE);
+        return channel;
+    }
+
+    private void writeSnapshot(List<StoreRecord> records, long snapshotGeneration) throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            writeHeader(out, snapshotGeneration);
+            for (StoreRecord record : records) {
+                writeRecord(out, record);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        move(tmp, snapshot);
+    }
+
+    /**
+     * Applies the records of a snapshot
+     *
+     * @return the snapshot generation
+     */
+    private static long readSnapshot(Path snapshot, State state) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            long snapshotGeneration = readHeader(in);
+            byte[] payload;
+            while ((payload = readPayload(in)) != null) {
+                state.apply(decode(payload));
+            }
+            return snapshotGeneration;
+        }
+    }
+
+    /**
+     * Reads the generation of a log
+     *
+     * @return the generation, or -1 if the log is invalid
+     */
+    private static long readGeneration(Path logFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(logFile))) {
+            return readHeader(in);
+        } catch (EOFException | StreamCorruptedException e) {
+            LOG.warn("Ignoring the invalid provider store log {}", logFile);
+            return -1;
+        }
+    }
+
+    /**
+     * Applies the complete records of a log
+     *
+     * @return the size of the complete part of the log
+     */
+    private static long readLog(Path logFile, State state) throws IOException {
+        long validSize = HEADER_SIZE;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile)))) {
+            readHeader(in);
+            byte[] payload;
+            while ((payload = readPayload(in)) != null) {
+                state.apply(decode(payload));
+                validSize += RECORD_HEADER_SIZE + payload.length;
+            }
+        } catch (EOFException | StreamCorruptedException e) {
+            LOG.warn("Ignoring the incomplete end of the provider store log {} after {} bytes", logFile, validSize);
+        }
+        return validSize;
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, long generation) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(generation);
+    }
+
+    private static long readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a provider store file");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported provider store version " + version);
+        }
+        return in.readLong();
+    }
+
+    private static void writeRecord(DataOutputStream out, StoreRecord record) throws IOException {
+        byte[] payload = encode(record);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+    }
+
+    /**
+     * Reads the payload of the next record
+     *
+     * @return the payload, or null at the end of the stream
+     * @throws EOFException             incomplete record
+     * @throws StreamCorruptedException invalid record
+     */
+    private static byte[] readPayload(DataInputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        int length = (first << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8)
+                | in.readUnsignedByte();
+        if (length < 0 || length > MAX_RECORD_SIZE) {
+            throw new StreamCorruptedException("Invalid record length " + length);
+        }
+        int checksum = in.readInt();
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != checksum) {
+            throw new StreamCorruptedException("Invalid record checksum");
+        }
+        return payload;
+    }
+
+    private static byte[] encode(StoreRecord record) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(record.getType().ordinal());
+        out.writeUTF(record.getKey());
+        switch (record.getType()) {
+        case PACKAGE:
+            writeData(out, record.getData());
+            break;
+        case PROVIDER:
+            out.writeUTF(record.getPackageUri());
+            out.writeInt(record.getLinks().size());
+            for (String link : record.getLinks()) {
+                out.writeUTF(link);
+            }
+            writeData(out, record.getData());
+            break;
+        case RESOURCE_VALUE:
+            out.writeUTF(record.getService());
+            out.writeUTF(record.getResource());
+            out.writeLong(record.getTimestamp().getEpochSecond());
+            out.writeInt(record.getTimestamp().getNano());
+            out.writeBoolean(record.getValue() != null);
+            if (record.getValue() != null) {
+                writeData(out, record.getValue().getBytes(UTF_8));
+            }
+            break;
+        default:
+            break;
+        }
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static StoreRecord decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= Type.values().length) {
+            throw new StreamCorruptedException("Unknown record type " + ordinal);
+        }
+        String key = in.readUTF();
+        switch (Type.values()[ordinal]) {
+        case PACKAGE:
+            return StoreRecord.ePackage(key, readData(in));
+        case PACKAGE_REMOVED:
+            return StoreRecord.ePackageRemoved(key);
+        case PROVIDER:
+            String packageUri = in.readUTF();
+            int count = in.readInt();
+            List<String> links = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                links.add(in.readUTF());
+            }
+            return StoreRecord.provider(key, packageUri, links, readData(in));
+        case PROVIDER_REMOVED:
+            return StoreRecord.providerRemoved(key);
+        case RESOURCE_VALUE:
+            String service = in.readUTF();
+            String resource = in.readUTF();
+            Instant timestamp = Instant.ofEpochSecond(in.readLong(), in.readInt());
+            String value = in.readBoolean() ? new String(readData(in), UTF_8) : null;
+            return StoreRecord.resourceValue(key, service, resource, timestamp, value);
+        default:
+            throw new StreamCorruptedException("Unknown record type " + ordinal);
+        }
+    }
+
+    private static void writeData(DataOutputStream out, byte[] data) throws IOException {
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    private static byte[] readData(DataInputStream in) throws IOException {
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        return data;
+    }
+
+    /**
+     * The state a snapshot and its logs lead to
+     */
+    private static class State {
+
+        private final Map<String, StoreRecord> packages = new LinkedHashMap<>();
+
+        private final Map<String, StoreRecord> providers = new LinkedHashMap<>();
+
+        /**
+         * Resource values stored after the last state of their provider, by
+         * provider name then service and resource names
+         */
+        private final Map<String, Map<List<String>, StoreRecord>> values = new HashMap<>();
+
+        void apply(StoreRecord record) {
+            String key = record.getKey();
+            switch (record.getType()) {
+            case PACKAGE:
+                packages.put(key, record);
+                break;
+            case PACKAGE_REMOVED:
+                packages.remove(key);
+                break;
+            case PROVIDER:
+                providers.put(key, record);
+                values.remove(key);
+                break;
+            case PROVIDER_REMOVED:
+                providers.remove(key);
+                values.remove(key);
+                break;
+            case RESOURCE_VALUE:
+                if (providers.containsKey(key)) {
+                    values.computeIfAbsent(key, k -> new LinkedHashMap<>())
+                            .put(List.of(record.getService(), record.getResource()), record);
+                }
+                break;
+            default:
+                break;
+            }
+        }
+
+        List<StoreRecord> records() {
+            List<StoreRecord> result = new ArrayList<>(packages.size() + providers.size() + values.size());
+            result.addAll(packages.values());
+            result.addAll(providers.values());
+            for (String provider : providers.keySet()) {
+                Map<List<String>, StoreRecord> providerValues = values.get(provider);
+                if (providerValues != null) {
+                    result.addAll(providerValues.values());
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.model.nexus.store;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Persistent storage of the providers of the model nexus and of their dynamic
+ * model packages.
+ *
+ * The nexus appends the changes it made to the store, and periodically asks
+ * the store to compact them. The store compacts the changes on its own, without
+ * reading the state of the nexus. Implementations must support appends from
+ * concurrent threads.
+ */
+public interface ProviderStore {
+
+    /**
+     * Reads the persisted state, applying all the changes stored since the last
+     * compaction.
+     *
+     * @return the live package records, followed by the live provider records,
+     *         followed by the resource values stored after the last state of
+     *         their provider. Removal records are never returned.
+     * @throws IOException error reading the store
+     */
+    List<StoreRecord> recover() throws IOException;
+
+    /**
+     * Stores the given changes
+     *
+     * @param records changes, in order
+     * @throws IOException error writing to the store
+     */
+    void append(List<StoreRecord> records) throws IOException;
+
+    /**
+     * Checks if enough changes were appended since the last compaction for a new
+     * compaction to be worth its cost
+     */
+    boolean isCompactionRequired();
+
+    /**
+     * Replaces the stored state and the appended changes by the state they lead
+     * to. The compaction may run in the background, while new changes are
+     * appended.
+     *
+     * @throws IOException error starting the compaction
+     */
+    void compact() throws IOException;
+
+    /**
+     * Releases the resources of the store, once any running compaction is done
+     *
+     * @throws IOException error closing the store
+     */
+    void close() throws IOException;
+}
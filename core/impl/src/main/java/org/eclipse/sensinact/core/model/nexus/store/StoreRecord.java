@@ -0,0 +1,235 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.model.nexus.store;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A change of the state held by a {@link ProviderStore}: the new state of a
+ * dynamic model package or of a provider, or its removal, or the new value of
+ * a resource of a provider.
+ *
+ * Package and provider states are opaque binary encodings of the EMF objects.
+ * Resource values are stored in the string form of their EMF data type, and
+ * apply to the last stored state of their provider.
+ */
+public final class StoreRecord {
+
+    public enum Type {
+        /**
+         * New state of a dynamic model package, the key being its namespace URI
+         */
+        PACKAGE,
+        /**
+         * Removal of a dynamic model package
+         */
+        PACKAGE_REMOVED,
+        /**
+         * New state of a provider, the key being its name
+         */
+        PROVIDER,
+        /**
+         * Removal of a provider
+         */
+        PROVIDER_REMOVED,
+        /**
+         * New value of a resource, the key being the name of its provider
+         */
+        RESOURCE_VALUE
+    }
+
+    private final Type type;
+
+    private final String key;
+
+    private final String packageUri;
+
+    private final List<String> links;
+
+    private final byte[] data;
+
+    private final String service;
+
+    private final String resource;
+
+    private final Instant timestamp;
+
+    private final String value;
+
+    private StoreRecord(Type type, String key, String packageUri, List<String> links, byte[] data) {
+        this(type, key, packageUri, links, data, null, null, null, null);
+    }
+
+    private StoreRecord(Type type, String key, String packageUri, List<String> links, byte[] data, String service,
+            String resource, Instant timestamp, String value) {
+        this.type = Objects.requireNonNull(type);
+        this.key = Objects.requireNonNull(key);
+        this.packageUri = packageUri;
+        this.links = links == null ? List.of() : List.copyOf(links);
+        this.data = data;
+        this.service = service;
+        this.resource = resource;
+        this.timestamp = timestamp;
+        this.value = value;
+    }
+
+    /**
+     * New state of a dynamic model package
+     *
+     * @param nsUri package namespace URI
+     * @param data  encoded package
+     */
+    public static StoreRecord ePackage(String nsUri, byte[] data) {
+        return new StoreRecord(Type.PACKAGE, nsUri, nsUri, null, Objects.requireNonNull(data));
+    }
+
+    /**
+     * Removal of a dynamic model package
+     *
+     * @param nsUri package namespace URI
+     */
+    public static StoreRecord ePackageRemoved(String nsUri) {
+        return new StoreRecord(Type.PACKAGE_REMOVED, nsUri, nsUri, null, null);
+    }
+
+    /**
+     * New state of a provider
+     *
+     * @param name       provider name
+     * @param packageUri namespace URI of the package of the provider model
+     * @param links      names of the providers linked to this one
+     * @param data       encoded provider, without its links
+     */
+    public static StoreRecord provider(String name, String packageUri, List<String> links, byte[] data) {
+        return new StoreRecord(Type.PROVIDER, name, Objects.requireNonNull(packageUri), links,
+                Objects.requireNonNull(data));
+    }
+
+    /**
+     * Removal of a provider
+     *
+     * @param name provider name
+     */
+    public static StoreRecord providerRemoved(String name) {
+        return new StoreRecord(Type.PROVIDER_REMOVED, name, null, null, null);
+    }
+
+    /**
+     * New value of a resource
+     *
+     * @param provider  provider name
+     * @param service   service name
+     * @param resource  resource name
+     * @param timestamp value timestamp
+     * @param value     value, converted to a string by the EMF factory of its data
+     *                  type, can be null
+     */
+    public static StoreRecord resourceValue(String provider, String service, String resource, Instant timestamp,
+            String value) {
+        return new StoreRecord(Type.RESOURCE_VALUE, provider, null, null, null, Objects.requireNonNull(service),
+                Objects.requireNonNull(resource), Objects.requireNonNull(timestamp), value);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * The package namespace URI or the provider name, according to the record
+     * type
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * The namespace URI of the package, or of the provider model package. Null
+     * for provider removals and resource values.
+     */
+    public String getPackageUri() {
+        return packageUri;
+    }
+
+    /**
+     * Names of the providers linked to the provider
+     */
+    public List<String> getLinks() {
+        return links;
+    }
+
+    /**
+     * The encoded package or provider, null for removals and resource values
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * The service name of a resource value
+     */
+    public String getService() {
+        return service;
+    }
+
+    /**
+     * The resource name of a resource value
+     */
+    public String getResource() {
+        return resource;
+    }
+
+    /**
+     * The timestamp of a resource value
+     */
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * The string form of a resource value, can be null
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Checks if the record is about a provider, or about a model package
+     */
+    public boolean isProvider() {
+        return type == Type.PROVIDER || type == Type.PROVIDER_REMOVED;
+    }
+
+    /**
+     * Checks if the record holds the value of a resource
+     */
+    public boolean isResourceValue() {
+        return type == Type.RESOURCE_VALUE;
+    }
+
+    /**
+     * Checks if the record removes its package or provider
+     */
+    public boolean isRemoval() {
+        return type == Type.PACKAGE_REMOVED || type == Type.PROVIDER_REMOVED;
+    }
+
+    @Override
+    public String toString() {
+        if (type == Type.RESOURCE_VALUE) {
+            return "StoreRecord(" + type + ", " + key + "/" + service + "/" + resource + ")";
+        }
+        return "StoreRecord(" + type + ", " + key + ")";
+    }
+}
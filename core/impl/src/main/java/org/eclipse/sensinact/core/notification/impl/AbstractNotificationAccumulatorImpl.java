@@ -75,4 +75,11 @@ public abstract class AbstractNotificationAccumulatorImpl implements Notificatio
      * Complete the accumulation
      */
     protected abstract void doComplete();
+
+    /**
+     * Allows a completed accumulator to accumulate a new batch of notifications
+     */
+    protected void reset() {
+        complete = false;
+    }
 }
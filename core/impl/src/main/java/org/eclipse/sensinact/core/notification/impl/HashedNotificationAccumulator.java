@@ -0,0 +1,371 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.notification.impl;
+
+import static java.util.Collections.emptyMap;
+import static org.eclipse.sensinact.core.notification.LifecycleNotification.Status.PROVIDER_CREATED;
+import static org.eclipse.sensinact.core.notification.LifecycleNotification.Status.PROVIDER_DELETED;
+import static org.eclipse.sensinact.core.notification.LifecycleNotification.Status.RESOURCE_CREATED;
+import static org.eclipse.sensinact.core.notification.LifecycleNotification.Status.RESOURCE_DELETED;
+import static org.eclipse.sensinact.core.notification.LifecycleNotification.Status.SERVICE_CREATED;
+import static org.eclipse.sensinact.core.notification.LifecycleNotification.Status.SERVICE_DELETED;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import org.eclipse.sensinact.core.notification.LifecycleNotification;
+import org.eclipse.sensinact.core.notification.LifecycleNotification.Status;
+import org.eclipse.sensinact.core.notification.ResourceActionNotification;
+import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.eclipse.sensinact.core.notification.ResourceMetaDataNotification;
+import org.eclipse.sensinact.core.notification.ResourceNotification;
+import org.osgi.service.typedevent.TypedEventBus;
+
+/**
+ * A {@link NotificationAccumulator} with the same collapsing rules and delivery
+ * order as {@link NotificationAccumulatorImpl}, tuned for large batches.
+ *
+ * Notifications are accumulated in a hash map and only sorted once, when the
+ * batch is completed. The lists holding the notifications of each target are
+ * pooled, and lookups reuse the same key, so that updating an already known
+ * target doesn't allocate anything but the notification itself.
+ *
+ * If a recycler is given, the accumulator is reset once its notifications are
+ * sent, then handed to the recycler to be reused for a later batch with its
+ * buffers.
+ *
+ * This type is not thread safe and must not be used concurrently.
+ */
+public class HashedNotificationAccumulator extends AbstractNotificationAccumulatorImpl
+        implements NotificationAccumulator {
+
+    /**
+     * Maximum number of targets for which buffers are kept between batches
+     */
+    private static final int MAX_RETAINED_SLOTS = 1024;
+
+    private final TypedEventBus eventBus;
+
+    private final Consumer<? super HashedNotificationAccumulator> recycler;
+
+    private Map<NotificationKey, Slot> notifications = new HashMap<>();
+
+    private ArrayList<Slot> sorted = new ArrayList<>();
+
+    private final ArrayDeque<Slot> freeSlots = new ArrayDeque<>();
+
+    private final NotificationKey lookup = new NotificationKey(null, null, null, LifecycleNotification.class);
+
+    public HashedNotificationAccumulator(TypedEventBus eventBus) {
+        this(eventBus, null);
+    }
+
+    /**
+     * @param eventBus the event bus to send notifications to
+     * @param recycler called with this accumulator once it is reset after
+     *                 sending its notifications, can be null
+     */
+    public HashedNotificationAccumulator(TypedEventBus eventBus,
+            Consumer<? super HashedNotificationAccumulator> recycler) {
+        this.eventBus = eventBus;
+        this.recycler = recycler;
+    }
+
+    /**
+     * The notifications accumulated for a target
+     */
+    private static final class Slot implements Comparable<Slot> {
+
+        final NotificationKey key = new NotificationKey(null, null, null, LifecycleNotification.class);
+
+        final ArrayList<ResourceNotification> events = new ArrayList<>(2);
+
+        @Override
+        public int compareTo(Slot o) {
+            return key.compareTo(o.key);
+        }
+    }
+
+    private Slot get(String provider, String service, String resource, Class<? extends ResourceNotification> type) {
+        return notifications.get(lookup.set(provider, service, resource, type));
+    }
+
+    private Slot acquire(String provider, String service, String resource,
+            Class<? extends ResourceNotification> type) {
+        Slot slot = freeSlots.poll();
+        if (slot == null) {
+            slot = new Slot();
+        }
+        slot.key.set(provider, service, resource, type);
+        notifications.put(slot.key, slot);
+        return slot;
+    }
+
+    private void release(Slot slot) {
+        notifications.remove(slot.key);
+        slot.events.clear();
+        freeSlots.push(slot);
+    }
+
+    @Override
+    public void addProvider(String modelPackageUri, String model, String name) {
+        doLifecycleMerge(PROVIDER_CREATED, modelPackageUri, model, name, null, null, false);
+    }
+
+    @Override
+    public void removeProvider(String modelPackageUri, String model, String name) {
+        doLifecycleMerge(PROVIDER_DELETED, modelPackageUri, model, name, null, null, true);
+    }
+
+    @Override
+    public void addService(String modelPackageUri, String model, String provider, String name) {
+        doLifecycleMerge(SERVICE_CREATED, modelPackageUri, model, provider, name, null, false);
+    }
+
+    @Override
+    public void removeService(String modelPackageUri, String model, String provider, String name) {
+        doLifecycleMerge(SERVICE_DELETED, modelPackageUri, model, provider, name, null, true);
+    }
+
+    @Override
+    public void addResource(String modelPackageUri, String model, String provider, String service, String name) {
+        doLifecycleMerge(RESOURCE_CREATED, modelPackageUri, model, provider, service, name, false);
+    }
+
+    @Override
+    public void removeResource(String modelPackageUri, String model, String provider, String service, String name) {
+        doLifecycleMerge(RESOURCE_DELETED, modelPackageUri, model, provider, service, name, true);
+    }
+
+    private void doLifecycleMerge(Status status, String modelPackageUri, String model, String provider,
+            String service, String resource, boolean isDelete) {
+        check();
+        LifecycleNotification ln = createLifecycleNotification(status, modelPackageUri, model, provider, service,
+                resource, null, null);
+        Slot slot = get(provider, service, resource, LifecycleNotification.class);
+        if (slot == null) {
+            acquire(provider, service, resource, LifecycleNotification.class).events.add(ln);
+            return;
+        }
+
+        List<ResourceNotification> events = slot.events;
+        // Check the status of the last entry
+        Status s = ((LifecycleNotification) events.get(events.size() - 1)).status();
+        if (s == status) {
+            // Simply replace the final entry with the update
+            events.set(events.size() - 1, ln);
+        } else if (isDelete) {
+            // A create/delete is nothing, A delete/create/delete is a delete
+            if (events.size() == 1) {
+                release(slot);
+            } else {
+                events.clear();
+                events.add(ln);
+            }
+        } else {
+            // Must be a delete/create, as we can't have a create/delete/create
+            if (events.size() > 1) {
+                events.subList(1, events.size()).clear();
+            }
+            events.add(ln);
+        }
+    }
+
+    @Override
+    public void metadataValueUpdate(String modelPackageUri, String model, String provider, String service,
+            String resource, Map<String, Object> oldValues, Map<String, Object> newValues, Instant timestamp) {
+        check();
+
+        final Map<String, Object> nonNullOldValues = oldValues == null ? emptyMap() : oldValues;
+        final Map<String, Object> nonNullNewValues = newValues == null ? emptyMap() : newValues;
+        Objects.requireNonNull(timestamp);
+
+        Slot slot = get(provider, service, resource, ResourceMetaDataNotification.class);
+        final Map<String, Object> oldValuesToUse;
+        if (slot != null) {
+            ResourceMetaDataNotification previous = (ResourceMetaDataNotification) slot.events.get(0);
+            if (previous.timestamp().isAfter(timestamp)) {
+                throw new IllegalArgumentException("Received metadata updates out of temporal order");
+            }
+            oldValuesToUse = previous.oldValues();
+        } else {
+            oldValuesToUse = nonNullOldValues;
+        }
+
+        // Keep the metadata of a pending value update in sync
+        Slot data = get(provider, service, resource, ResourceDataNotification.class);
+        if (data != null && !data.events.isEmpty()) {
+            ResourceDataNotification rdn = (ResourceDataNotification) data.events.get(0);
+            data.events.set(0, createResourceDataNotification(rdn.modelPackageUri(), rdn.model(), provider, service,
+                    resource, rdn.type(), rdn.oldValue(), rdn.newValue(), nonNullNewValues, rdn.timestamp()));
+        }
+
+        ResourceMetaDataNotification rmdn = createResourceMetaDataNotification(modelPackageUri, model, provider,
+                service, resource, oldValuesToUse, nonNullNewValues, timestamp);
+        if (slot == null) {
+            acquire(provider, service, resource, ResourceMetaDataNotification.class).events.add(rmdn);
+        } else {
+            slot.events.set(0, rmdn);
+        }
+    }
+
+    @Override
+    public void resourceValueUpdate(String modelPackageUri, String model, String provider, String service,
+            String resource, Class<?> type, Object oldValue, Object newValue, Map<String, Object> metadata,
+            Instant timestamp) {
+        check();
+        Objects.requireNonNull(timestamp);
+
+        Slot slot = get(provider, service, resource, ResourceDataNotification.class);
+        if (slot == null) {
+            acquire(provider, service, resource, ResourceDataNotification.class).events
+                    .add(createResourceDataNotification(modelPackageUri, model, provider, service, resource, type,
+                            oldValue, newValue, metadata, timestamp));
+        } else {
+            ResourceDataNotification previous = (ResourceDataNotification) slot.events.get(0);
+            if (previous.timestamp().isAfter(timestamp)) {
+                throw new IllegalArgumentException("Received resource value updates out of temporal order");
+            }
+            slot.events.set(0, createResourceDataNotification(modelPackageUri, model, provider, service, resource,
+                    type, previous.oldValue(), newValue, metadata, timestamp));
+        }
+    }
+
+    @Override
+    public void resourceAction(String modelPackageUri, String model, String provider, String service,
+            String resource, Instant timestamp) {
+        check();
+        Objects.requireNonNull(timestamp);
+        ResourceActionNotification ran = createResourceActionNotification(modelPackageUri, model, provider, service,
+                resource, timestamp);
+
+        Slot slot = get(provider, service, resource, ResourceActionNotification.class);
+        if (slot == null) {
+            slot = acquire(provider, service, resource, ResourceActionNotification.class);
+        }
+        // Insert in timestamp order, after the actions with the same timestamp
+        List<ResourceNotification> events = slot.events;
+        int idx = events.size();
+        while (idx > 0 && ((ResourceActionNotification) events.get(idx - 1)).timestamp().isAfter(timestamp)) {
+            idx--;
+        }
+        events.add(idx, ran);
+    }
+
+    @Override
+    protected void doComplete() {
+        try {
+            sorted.addAll(notifications.values());
+            sorted.sort(null);
+            for (Slot slot : sorted) {
+                for (ResourceNotification n : slot.events) {
+                    eventBus.deliver(n.getTopic(), n);
+                }
+            }
+        } finally {
+            recycle();
+        }
+    }
+
+    /**
+     * Moves the accumulated notifications to another accumulator, which collapses
+     * them with its own, instead of sending them. This accumulator is then
+     * recycled as if it was completed.
+     *
+     * @param target the accumulator receiving the notifications
+     */
+    public void transferTo(NotificationAccumulator target) {
+        check();
+        try {
+            sorted.addAll(notifications.values());
+            sorted.sort(null);
+            for (Slot slot : sorted) {
+                for (ResourceNotification n : slot.events) {
+                    replay(n, target);
+                }
+            }
+        } finally {
+            recycle();
+        }
+    }
+
+    private static void replay(ResourceNotification n, NotificationAccumulator target) {
+        if (n instanceof ResourceDataNotification) {
+            ResourceDataNotification rdn = (ResourceDataNotification) n;
+            target.resourceValueUpdate(rdn.modelPackageUri(), rdn.model(), rdn.provider(), rdn.service(),
+                    rdn.resource(), rdn.type(), rdn.oldValue(), rdn.newValue(), rdn.metadata(), rdn.timestamp());
+        } else if (n instanceof ResourceMetaDataNotification) {
+            ResourceMetaDataNotification rmdn = (ResourceMetaDataNotification) n;
+            target.metadataValueUpdate(rmdn.modelPackageUri(), rmdn.model(), rmdn.provider(), rmdn.service(),
+                    rmdn.resource(), rmdn.oldValues(), rmdn.newValues(), rmdn.timestamp());
+        } else if (n instanceof ResourceActionNotification) {
+            ResourceActionNotification ran = (ResourceActionNotification) n;
+            target.resourceAction(ran.modelPackageUri(), ran.model(), ran.provider(), ran.service(), ran.resource(),
+                    ran.timestamp());
+        } else {
+            LifecycleNotification ln = (LifecycleNotification) n;
+            switch (ln.status()) {
+            case PROVIDER_CREATED:
+                target.addProvider(ln.modelPackageUri(), ln.model(), ln.provider());
+                break;
+            case PROVIDER_DELETED:
+                target.removeProvider(ln.modelPackageUri(), ln.model(), ln.provider());
+                break;
+            case SERVICE_CREATED:
+                target.addService(ln.modelPackageUri(), ln.model(), ln.provider(), ln.service());
+                break;
+            case SERVICE_DELETED:
+                target.removeService(ln.modelPackageUri(), ln.model(), ln.provider(), ln.service());
+                break;
+            case RESOURCE_CREATED:
+                target.addResource(ln.modelPackageUri(), ln.model(), ln.provider(), ln.service(), ln.resource());
+                break;
+            case RESOURCE_DELETED:
+                target.removeResource(ln.modelPackageUri(), ln.model(), ln.provider(), ln.service(),
+                        ln.resource());
+                break;
+            }
+        }
+    }
+
+    /**
+     * Clears the buffers and hands this accumulator to the recycler, if any
+     */
+    private void recycle() {
+        for (Slot slot : sorted) {
+            slot.events.clear();
+            if (freeSlots.size() < MAX_RETAINED_SLOTS) {
+                freeSlots.push(slot);
+            }
+        }
+        if (sorted.size() > MAX_RETAINED_SLOTS) {
+            // Don't keep the memory of an exceptionally large batch
+            notifications = new HashMap<>();
+            sorted = new ArrayList<>();
+        } else {
+            notifications.clear();
+            sorted.clear();
+        }
+
+        if (recycler != null) {
+            reset();
+            recycler.accept(this);
+        }
+    }
+}
@@ -12,31 +12,58 @@
 **********************************************************************/
 package org.eclipse.sensinact.core.notification.impl;
 
+import java.util.Objects;
+
 import org.eclipse.sensinact.core.notification.ResourceNotification;
 import org.eclipse.sensinact.core.notification.LifecycleNotification;
 import org.eclipse.sensinact.core.notification.ResourceActionNotification;
 import org.eclipse.sensinact.core.notification.ResourceDataNotification;
 import org.eclipse.sensinact.core.notification.ResourceMetaDataNotification;
 
+/**
+ * Identifies the notifications about a given target and of a given type.
+ *
+ * Keys are ordered by notification type, then by provider, service and
+ * resource names. Keys used in maps must not be modified: only lookup keys are
+ * reset with {@link #set(String, String, String, Class)}.
+ */
 class NotificationKey implements Comparable<NotificationKey> {
 
-    private final String provider;
-    private final String service;
-    private final String resource;
+    private String provider;
+    private String service;
+    private String resource;
+
+    private Class<? extends ResourceNotification> type;
+
+    private int typeRank;
 
-    private final Class<? extends ResourceNotification> type;
+    private int hash;
 
     public NotificationKey(String provider, String service, String resource,
             Class<? extends ResourceNotification> type) {
+        set(provider, service, resource, type);
+    }
+
+    /**
+     * Changes the target of this key, for it to be reused for lookups
+     */
+    NotificationKey set(String provider, String service, String resource,
+            Class<? extends ResourceNotification> type) {
         this.provider = provider;
         this.service = service;
         this.resource = resource;
         this.type = type;
+        this.typeRank = mapTypeToInt(type);
+        int h = Objects.hashCode(provider);
+        h = 31 * h + Objects.hashCode(service);
+        h = 31 * h + Objects.hashCode(resource);
+        this.hash = 31 * h + typeRank;
+        return this;
     }
 
     @Override
     public int compareTo(NotificationKey nk) {
-        int value = compareType(type, nk.type);
+        int value = typeRank - nk.typeRank;
 
         if (value == 0) {
             value = safeCompare(provider, nk.provider);
@@ -53,9 +80,22 @@ class NotificationKey implements Comparable<NotificationKey> {
         return value;
     }
 
-    private int compareType(Class<? extends ResourceNotification> a,
-            Class<? extends ResourceNotification> b) {
-        return mapTypeToInt(a) - mapTypeToInt(b);
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof NotificationKey)) {
+            return false;
+        }
+        NotificationKey other = (NotificationKey) obj;
+        return hash == other.hash && type == other.type && Objects.equals(provider, other.provider)
+                && Objects.equals(service, other.service) && Objects.equals(resource, other.resource);
     }
 
     private int mapTypeToInt(Class<? extends ResourceNotification> clazz) {
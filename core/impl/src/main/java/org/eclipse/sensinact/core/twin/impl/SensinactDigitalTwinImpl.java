@@ -13,9 +13,12 @@
 package org.eclipse.sensinact.core.twin.impl;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -34,9 +37,11 @@ import org.eclipse.sensinact.core.impl.snapshot.ServiceSnapshotImpl;
 import org.eclipse.sensinact.core.model.ResourceType;
 import org.eclipse.sensinact.core.model.nexus.ModelNexus;
 import org.eclipse.sensinact.core.model.nexus.emf.EMFUtil;
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
+import org.eclipse.sensinact.core.snapshot.SnapshotProjection;
 import org.eclipse.sensinact.core.twin.DefaultTimedValue;
 import org.eclipse.sensinact.core.twin.SensinactResource;
 import org.eclipse.sensinact.core.twin.SensinactService;
@@ -326,12 +331,13 @@ public class SensinactDigitalTwinImpl extends CommandScopedImpl implements Sensi
     @Override
     public List<ProviderSnapshot> filteredSnapshot(Predicate<GeoJsonObject> geoFilter,
             Predicate<ProviderSnapshot> providerFilter, Predicate<ServiceSnapshot> svcFilter,
-            Predicate<ResourceSnapshot> rcFilter) {
+            Predicate<ResourceSnapshot> rcFilter, SnapshotProjection projection) {
 
         final Instant snapshotTime = Instant.now();
+        final SnapshotProjection parts = projection == null ? SnapshotProjection.FULL : projection;
 
         // Filter providers with their API model
-        Stream<ProviderSnapshotImpl> providersStream = nexusImpl.getProviders().stream()
+        Stream<ProviderSnapshotImpl> providersStream = candidateProviders(geoFilter, providerFilter).stream()
                 .map(p -> new ProviderSnapshotImpl(p.eClass().getEPackage().getNsURI(),
                         EMFUtil.getModelName(p.eClass()), p, snapshotTime));
         if (providerFilter != null) {
@@ -347,35 +353,106 @@ public class SensinactDigitalTwinImpl extends CommandScopedImpl implements Sensi
 
         // Filter providers according to their services
         providersStream = providersStream.map(p -> {
-            snapshotServicesAndResources(svcFilter, rcFilter, snapshotTime, p);
+            snapshotServicesAndResources(svcFilter, rcFilter, parts, snapshotTime, p);
             return p;
         }).filter(p -> !p.getServices().isEmpty());
 
         return providersStream.collect(Collectors.toList());
     }
 
+    /**
+     * Uses the nexus indexes to list the providers which may be accepted by the
+     * given filters, according to the scope they declare
+     */
+    private Collection<Provider> candidateProviders(Predicate<GeoJsonObject> geoFilter,
+            Predicate<ProviderSnapshot> providerFilter) {
+        final ProviderScope geoScope = geoFilter instanceof ProviderScope ? (ProviderScope) geoFilter : null;
+        final ProviderScope providerScope = providerFilter instanceof ProviderScope ? (ProviderScope) providerFilter
+                : null;
+        if (geoScope == null && providerScope == null) {
+            return nexusImpl.getProviders();
+        }
+
+        double[] bbox = geoScope != null ? geoScope.getBoundingBox() : null;
+        Set<String> packageUris = null;
+        Set<String> models = null;
+        Set<String> names = null;
+        if (providerScope != null) {
+            packageUris = providerScope.getModelPackageUris();
+            models = providerScope.getModels();
+            names = providerScope.getProviderNames();
+            if (bbox == null) {
+                bbox = providerScope.getBoundingBox();
+            }
+        }
+
+        Collection<Provider> candidates = null;
+        if (names != null) {
+            // Direct look up, the provider filter checks the model
+            candidates = new ArrayList<>(names.size());
+            for (String name : names) {
+                Provider provider = nexusImpl.getProvider(name);
+                if (provider != null) {
+                    candidates.add(provider);
+                }
+            }
+        } else if (packageUris != null && models != null) {
+            candidates = new ArrayList<>();
+            for (String packageUri : packageUris) {
+                for (String model : models) {
+                    Optional<EClass> eClass = nexusImpl.getModel(packageUri, model);
+                    if (eClass.isPresent()) {
+                        candidates.addAll(nexusImpl.getProviders(eClass.get()));
+                    }
+                }
+            }
+        } else if (packageUris != null) {
+            candidates = new ArrayList<>();
+            for (String packageUri : packageUris) {
+                candidates.addAll(nexusImpl.getProvidersByPackageUri(packageUri));
+            }
+        }
+
+        if (bbox != null) {
+            List<Provider> located = nexusImpl.getProvidersInBoundingBox(bbox);
+            if (candidates == null) {
+                candidates = located;
+            } else {
+                Set<String> locatedNames = located.stream().map(Provider::getId).collect(Collectors.toSet());
+                candidates.removeIf(p -> !locatedNames.contains(p.getId()));
+            }
+        }
+
+        return candidates == null ? nexusImpl.getProviders() : candidates;
+    }
+
     private void snapshotServicesAndResources(Predicate<ServiceSnapshot> svcFilter,
-            Predicate<ResourceSnapshot> rcFilter, final Instant snapshotTime, ProviderSnapshotImpl p) {
+            Predicate<ResourceSnapshot> rcFilter, SnapshotProjection projection, final Instant snapshotTime,
+            ProviderSnapshotImpl p) {
         final Provider modelProvider = p.getModelProvider();
         nexusImpl.getServiceInstancesForProvider(modelProvider).entrySet().stream()
                 .map(e -> new ServiceSnapshotImpl(p, e.getKey(), e.getValue(), snapshotTime))
                 .filter(svcFilter != null ? svcFilter : x -> Boolean.TRUE)
                 // Filter services according to their resources
                 .map(s -> {
-                    snapshotResources(rcFilter, snapshotTime, s);
+                    snapshotResources(rcFilter, projection, snapshotTime, s);
                     return s;
                 })
                 .filter(s -> !s.getResources().isEmpty())
                 .forEach(p::add);
     }
 
-    private void snapshotResources(Predicate<ResourceSnapshot> rcFilter, final Instant snapshotTime,
-            ServiceSnapshotImpl s) {
+    private void snapshotResources(Predicate<ResourceSnapshot> rcFilter, SnapshotProjection projection,
+            final Instant snapshotTime, ServiceSnapshotImpl s) {
         nexusImpl.getResourcesForService(s.getModelEClass())
                 .map(f -> new ResourceSnapshotImpl(s, f, snapshotTime))
                 .filter(rcFilter != null ? rcFilter : x -> Boolean.TRUE)
                 .forEach(r -> {
-                    fillInResource(r);
+                    // Only read the parts of the accepted resources required by the caller
+                    if (projection.includesValues()) {
+                        fillInResource(r);
+                    }
+                    r.complete(projection.includesMetadata());
                     s.add(r);
                 });
     }
@@ -394,7 +471,7 @@ public class SensinactDigitalTwinImpl extends CommandScopedImpl implements Sensi
                 nexusImpl.getProviderPackageUri(nexusProvider.getId()),
                 nexusImpl.getProviderModel(nexusProvider.getId()), nexusProvider, snapshotTime);
 
-        snapshotServicesAndResources(null, null, snapshotTime, providerSnapshot);
+        snapshotServicesAndResources(null, null, SnapshotProjection.FULL, snapshotTime, providerSnapshot);
         return providerSnapshot;
     }
 
@@ -426,7 +503,7 @@ public class SensinactDigitalTwinImpl extends CommandScopedImpl implements Sensi
         providerSnapshot.add(svcSnapshot);
 
         // Get the resources
-        snapshotResources(null, snapshotTime, svcSnapshot);
+        snapshotResources(null, SnapshotProjection.FULL, snapshotTime, svcSnapshot);
         return svcSnapshot;
     }
 
@@ -468,6 +545,7 @@ public class SensinactDigitalTwinImpl extends CommandScopedImpl implements Sensi
         // Describe the resource
         final ResourceSnapshotImpl rcSnapshot = new ResourceSnapshotImpl(svcSnapshot, foundRc.get(), snapshotTime);
         fillInResource(rcSnapshot);
+        rcSnapshot.complete(true);
         svcSnapshot.add(rcSnapshot);
         return rcSnapshot;
     }
@@ -14,22 +14,39 @@ package org.eclipse.sensinact.core.command.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.sensinact.core.command.AbstractSensinactCommand;
 import org.eclipse.sensinact.core.command.AbstractTwinCommand;
+import org.eclipse.sensinact.core.command.GatewayOverloadedException;
+import org.eclipse.sensinact.core.command.GetLevel;
+import org.eclipse.sensinact.core.dto.impl.DataUpdateDto;
+import org.eclipse.sensinact.core.impl.DataUpdateTestUtil;
+import org.eclipse.sensinact.core.impl.SetValueCommand;
 import org.eclipse.sensinact.core.metrics.IMetricCounter;
 import org.eclipse.sensinact.core.metrics.IMetricTimer;
 import org.eclipse.sensinact.core.metrics.IMetricsHistogram;
@@ -38,10 +55,14 @@ import org.eclipse.sensinact.core.model.Model;
 import org.eclipse.sensinact.core.model.Resource;
 import org.eclipse.sensinact.core.model.SensinactModelManager;
 import org.eclipse.sensinact.core.model.Service;
+import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.eclipse.sensinact.core.push.DataUpdate;
+import org.eclipse.sensinact.core.push.dto.GenericDto;
 import org.eclipse.sensinact.core.twin.SensinactDigitalTwin;
 import org.eclipse.sensinact.core.twin.SensinactProvider;
 import org.eclipse.sensinact.core.twin.SensinactResource;
 import org.eclipse.sensinact.core.twin.SensinactService;
+import org.eclipse.sensinact.core.twin.TimedValue;
 import org.eclipse.sensinact.model.core.provider.ProviderPackage;
 import org.eclipse.sensinact.core.emf.util.EMFTestUtil;
 import org.junit.jupiter.api.AfterEach;
@@ -49,10 +70,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.osgi.service.typedevent.TypedEventBus;
+import org.osgi.util.converter.Converters;
+import org.osgi.util.promise.Deferred;
 import org.osgi.util.promise.Promise;
 import org.osgi.util.promise.PromiseFactory;
 
@@ -68,6 +94,8 @@ public class GatewayThreadImplTest {
     @Spy
     ResourceSet resourceSet = EMFTestUtil.createResourceSet();
 
+    IMetricsManager metrics;
+
     GatewayThreadImpl thread = null;
 
     @BeforeEach
@@ -84,7 +112,7 @@ public class GatewayThreadImplTest {
         }
         resourceSet = EMFTestUtil.createResourceSet();
 
-        IMetricsManager metrics = mock(IMetricsManager.class);
+        metrics = mock(IMetricsManager.class);
         IMetricCounter counter = mock(IMetricCounter.class);
         IMetricsHistogram histogram = mock(IMetricsHistogram.class);
         IMetricTimer timer = mock(IMetricTimer.class);
@@ -138,6 +166,522 @@ public class GatewayThreadImplTest {
         assertEquals(testValue, result.getValue());
     }
 
+    @Nested
+    class PartitionedTests {
+
+        static final int PARTITIONS = 2;
+
+        @BeforeEach
+        void setupPartitions() {
+            thread.deactivate();
+            GatewayThreadConfiguration config = Converters.standardConverter()
+                    .convert(Map.of("execution.mode", "PARTITIONED", "partition.count", PARTITIONS))
+                    .to(GatewayThreadConfiguration.class);
+            thread = new GatewayThreadImpl(metrics, typedEventBus, resourceSet, providerPackage, config);
+        }
+
+        /**
+         * Returns a provider name associated to the given partition
+         */
+        String providerInPartition(int partition) {
+            for (int i = 0;; i++) {
+                String name = "provider" + i;
+                if (Math.floorMod(name.hashCode(), PARTITIONS) == partition) {
+                    return name;
+                }
+            }
+        }
+
+        AbstractSensinactCommand<String> partitioned(String provider, Runnable task) {
+            return new AbstractTwinCommand<String>() {
+                @Override
+                public String getPartitionKey() {
+                    return provider;
+                }
+
+                @Override
+                protected Promise<String> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                    task.run();
+                    return pf.resolved(Thread.currentThread().getName());
+                }
+            };
+        }
+
+        @Test
+        void testOrderedPerProvider() throws Exception {
+            String provider = providerInPartition(0);
+            List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+            List<Promise<String>> promises = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                int idx = i;
+                promises.add(thread.execute(partitioned(provider, () -> order.add(idx))));
+            }
+
+            for (Promise<String> p : promises) {
+                assertTrue(p.getValue().startsWith("Eclipse sensiNact Gateway Partition"));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, order.get(i));
+            }
+        }
+
+        @Test
+        void testConcurrentPartitions() throws Exception {
+            // Each command waits for the other one: they can only complete if they
+            // run concurrently
+            CountDownLatch latch = new CountDownLatch(2);
+            Runnable task = () -> {
+                latch.countDown();
+                try {
+                    assertTrue(latch.await(1, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            };
+
+            Promise<String> p1 = thread.execute(partitioned(providerInPartition(0), task));
+            Promise<String> p2 = thread.execute(partitioned(providerInPartition(1), task));
+
+            assertNotEquals(p1.getValue(), p2.getValue());
+            assertNull(p1.getFailure());
+            assertNull(p2.getFailure());
+        }
+
+        @Test
+        void testExclusiveCommandWaitsForPartitions() throws Exception {
+            List<String> order = Collections.synchronizedList(new ArrayList<>());
+            Promise<String> p1 = thread.execute(partitioned(providerInPartition(0), () -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                order.add("partitioned");
+            }));
+            Promise<String> p2 = thread.execute(new AbstractTwinCommand<String>() {
+                @Override
+                protected Promise<String> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                    order.add("exclusive");
+                    return pf.resolved(Thread.currentThread().getName());
+                }
+            });
+
+            p1.getValue();
+            assertEquals("Eclipse sensiNact Gateway Thread", p2.getValue());
+            assertEquals(List.of("partitioned", "exclusive"), order);
+        }
+
+        @Test
+        void testResourceCreationKeepsProviderOrder() throws Exception {
+            String provider = providerInPartition(0);
+            DataUpdateDto dto = new DataUpdateDto();
+            dto.model = "orderModel";
+            dto.provider = provider;
+            dto.service = "svc";
+            dto.resource = "value";
+            dto.type = Integer.class;
+            dto.data = 42;
+            dto.timestamp = Instant.now();
+
+            // The update creates the resource, the next command of the same provider
+            // must see it
+            Promise<Void> update = thread.execute(new SetValueCommand(dto));
+            Promise<Object> read = thread.execute(new AbstractTwinCommand<Object>() {
+                @Override
+                public String getPartitionKey() {
+                    return provider;
+                }
+
+                @Override
+                protected Promise<Object> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                    SensinactResource resource = twin.getResource(provider, "svc", "value");
+                    return resource == null ? pf.resolved(null)
+                            : resource.getValue(Object.class, GetLevel.WEAK).map(TimedValue::getValue);
+                }
+            });
+
+            assertNull(update.getFailure());
+            assertEquals(42, read.getValue());
+        }
+    }
+
+    @Nested
+    class AdmissionTests {
+
+        CountDownLatch started;
+        CountDownLatch release;
+
+        void setupAdmission(String policy) {
+            thread.deactivate();
+            GatewayThreadConfiguration config = Converters.standardConverter()
+                    .convert(Map.of("queue.size", 1, "admission.policy", policy, "admission.timeout", 100))
+                    .to(GatewayThreadConfiguration.class);
+            thread = new GatewayThreadImpl(metrics, typedEventBus, resourceSet, providerPackage, config);
+            started = new CountDownLatch(1);
+            release = new CountDownLatch(1);
+        }
+
+        AbstractSensinactCommand<Integer> command(int value) {
+            return new AbstractTwinCommand<Integer>() {
+                @Override
+                protected Promise<Integer> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                    return pf.resolved(value);
+                }
+            };
+        }
+
+        DataUpdateDto update(String resource, int value) {
+            DataUpdateDto dto = new DataUpdateDto();
+            dto.model = "admissionModel";
+            dto.provider = "admission";
+            dto.service = "svc";
+            dto.resource = resource;
+            dto.type = Integer.class;
+            dto.data = value;
+            dto.timestamp = Instant.now();
+            return dto;
+        }
+
+        GenericDto push(String resource, int value) {
+            GenericDto dto = new GenericDto();
+            dto.model = "admissionModel";
+            dto.provider = "admission";
+            dto.service = "svc";
+            dto.resource = resource;
+            dto.type = Integer.class;
+            dto.value = value;
+            return dto;
+        }
+
+        Promise<Object> getValue(String resource) {
+            return thread.execute(new AbstractTwinCommand<Object>() {
+                @Override
+                protected Promise<Object> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                    return twin.getResource("admission", "svc", resource).getValue(Object.class, GetLevel.WEAK)
+                            .map(TimedValue::getValue);
+                }
+            });
+        }
+
+        Promise<Integer> fillQueue() throws Exception {
+            return fillQueue(command(1));
+        }
+
+        /**
+         * Blocks the gateway thread and fills its work queue with the given command
+         */
+        <T> Promise<T> fillQueue(AbstractSensinactCommand<T> queued) throws Exception {
+            blockThread();
+            return thread.execute(queued);
+        }
+
+        /**
+         * Blocks the gateway thread until the release latch is counted down
+         */
+        void blockThread() throws Exception {
+            thread.execute(new AbstractTwinCommand<Integer>() {
+                @Override
+                protected Promise<Integer> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return pf.resolved(0);
+                }
+            });
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+        }
+
+        @Test
+        void testFailWhenFull() throws Exception {
+            setupAdmission("FAIL");
+            Promise<Integer> queued = fillQueue();
+
+            Promise<Integer> rejected = thread.execute(command(2));
+            assertTrue(rejected.isDone());
+            assertTrue(rejected.getFailure() instanceof GatewayOverloadedException);
+
+            release.countDown();
+            assertEquals(1, queued.getValue());
+        }
+
+        @Test
+        void testBlockUntilTimeout() throws Exception {
+            setupAdmission("BLOCK");
+            Promise<Integer> queued = fillQueue();
+
+            long start = System.nanoTime();
+            Promise<Integer> rejected = thread.execute(command(2));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+            assertTrue(rejected.getFailure() instanceof GatewayOverloadedException);
+
+            release.countDown();
+            assertEquals(1, queued.getValue());
+            assertEquals(3, thread.execute(command(3)).getValue());
+        }
+
+        @Test
+        void testDropOldestUpdate() throws Exception {
+            setupAdmission("DROP_OLDEST");
+            assertNull(thread.execute(new SetValueCommand(update("value", 1))).getFailure());
+            Promise<Void> dropped = fillQueue(new SetValueCommand(update("value", 2)));
+
+            // The update of an existing resource makes room for the new command
+            Promise<Integer> admitted = thread.execute(command(3));
+            assertTrue(dropped.getFailure() instanceof GatewayOverloadedException);
+
+            release.countDown();
+            assertEquals(3, admitted.getValue());
+        }
+
+        @Test
+        void testDropOldestKeepsResourceCreation() throws Exception {
+            setupAdmission("DROP_OLDEST");
+            assertNull(thread.execute(new SetValueCommand(update("value", 1))).getFailure());
+            Promise<Void> creation = fillQueue(new SetValueCommand(update("other", 2)));
+
+            // The update would create a resource: it is never dropped
+            Promise<Integer> rejected = thread.execute(command(3));
+            assertTrue(rejected.isDone());
+            assertTrue(rejected.getFailure() instanceof GatewayOverloadedException);
+
+            release.countDown();
+            assertNull(creation.getFailure());
+            assertEquals(2, getValue("other").getValue());
+        }
+
+        @ParameterizedTest
+        @ValueSource(booleans = { false, true })
+        void testDropOldestPushedUpdate(boolean coalesce) throws Exception {
+            setupAdmission("DROP_OLDEST");
+            DataUpdate dataUpdate = DataUpdateTestUtil.createDataUpdate(thread, metrics, coalesce);
+            assertNull(dataUpdate.pushUpdate(push("value", 1)).getFailure());
+
+            blockThread();
+            Promise<?> dropped = dataUpdate.pushUpdate(push("value", 2));
+
+            // The queued update of an existing resource makes room for the new command
+            Promise<Integer> admitted = thread.execute(command(3));
+            assertTrue(dropped.timeout(1000).getFailure() instanceof GatewayOverloadedException);
+
+            release.countDown();
+            assertEquals(3, admitted.getValue());
+            assertEquals(1, getValue("value").getValue());
+        }
+
+        @ParameterizedTest
+        @ValueSource(booleans = { false, true })
+        void testDropOldestKeepsPushedResourceCreation(boolean coalesce) throws Exception {
+            setupAdmission("DROP_OLDEST");
+            DataUpdate dataUpdate = DataUpdateTestUtil.createDataUpdate(thread, metrics, coalesce);
+            assertNull(dataUpdate.pushUpdate(push("value", 1)).getFailure());
+
+            blockThread();
+            Promise<?> creation = dataUpdate.pushUpdate(push("other", 2));
+
+            // The queued update would create a resource: it is never dropped
+            Promise<?> rejected = dataUpdate.pushUpdate(push("value", 3));
+            assertTrue(rejected.timeout(1000).getFailure() instanceof GatewayOverloadedException);
+
+            release.countDown();
+            assertNull(creation.getFailure());
+            assertEquals(2, getValue("other").getValue());
+            assertEquals(1, getValue("value").getValue());
+        }
+    }
+
+    @Nested
+    class BatchTests {
+
+        @BeforeEach
+        void setupBatch() {
+            thread.deactivate();
+            GatewayThreadConfiguration config = Converters.standardConverter()
+                    .convert(Map.of("batch.size", 10)).to(GatewayThreadConfiguration.class);
+            thread = new GatewayThreadImpl(metrics, typedEventBus, resourceSet, providerPackage, config);
+        }
+
+        @Test
+        void testItemsResolvedIndependently() throws Exception {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            thread.execute(new AbstractTwinCommand<Void>() {
+                @Override
+                protected Promise<Void> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return pf.resolved(null);
+                }
+            });
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+
+            // Queued while the gateway thread is busy: run as a single batch
+            List<String> threads = Collections.synchronizedList(new ArrayList<>());
+            List<Promise<Integer>> promises = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                int value = i;
+                promises.add(thread.execute(new AbstractTwinCommand<Integer>() {
+                    @Override
+                    protected Promise<Integer> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                        threads.add(Thread.currentThread().getName());
+                        if (value == 2) {
+                            throw new IllegalArgumentException("failed");
+                        }
+                        return pf.resolved(value);
+                    }
+                }));
+            }
+            release.countDown();
+
+            for (int i = 0; i < 5; i++) {
+                if (i == 2) {
+                    assertTrue(promises.get(i).getFailure() instanceof IllegalArgumentException);
+                } else {
+                    assertEquals(i, promises.get(i).getValue());
+                }
+            }
+            assertEquals(5, threads.size());
+            verify(metrics).withTimer("sensinact.task.time");
+            verify(metrics).withTimer("sensinact.task.batch.time");
+        }
+
+        @Test
+        void testResolvedItemsNotificationsMerged() throws Exception {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            thread.execute(new AbstractTwinCommand<Void>() {
+                @Override
+                protected Promise<Void> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return pf.resolved(null);
+                }
+            });
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+
+            // Queued while the gateway thread is busy: run as a single batch
+            Instant timestamp = Instant.now();
+            List<Promise<Void>> promises = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                DataUpdateDto dto = new DataUpdateDto();
+                dto.model = "batchModel";
+                dto.provider = "batch";
+                dto.service = "svc";
+                dto.resource = "value";
+                dto.type = Integer.class;
+                dto.data = i;
+                dto.timestamp = timestamp.plusSeconds(i);
+                promises.add(thread.execute(new SetValueCommand(dto)));
+            }
+            release.countDown();
+
+            for (Promise<Void> promise : promises) {
+                assertNull(promise.getFailure());
+            }
+            // The updates of the same resource are sent as a single notification
+            ArgumentCaptor<Object> data = ArgumentCaptor.forClass(Object.class);
+            verify(typedEventBus, timeout(1000)).deliver(eq("DATA/batchModel/batch/svc/value"), data.capture());
+            Thread.sleep(100);
+            verify(typedEventBus, times(1)).deliver(eq("DATA/batchModel/batch/svc/value"), any());
+            assertEquals(4, ((ResourceDataNotification) data.getValue()).newValue());
+        }
+
+        @Test
+        void testFailureOnlyFailsItemsNotRun() throws Exception {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            thread.execute(new AbstractTwinCommand<Void>() {
+                @Override
+                protected Promise<Void> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return pf.resolved(null);
+                }
+            });
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+
+            // The second update is accepted by the model but can't be merged in the
+            // notifications of the first one, which fails the rest of the batch
+            Instant timestamp = Instant.now();
+            List<Promise<Void>> promises = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                DataUpdateDto dto = new DataUpdateDto();
+                dto.model = "batchModel";
+                dto.provider = "batch";
+                dto.service = "svc";
+                dto.resource = "value";
+                dto.type = Integer.class;
+                dto.data = i;
+                dto.timestamp = i == 1 ? timestamp.minusMillis(1) : timestamp.plusSeconds(i);
+                promises.add(thread.execute(new SetValueCommand(dto)));
+            }
+            release.countDown();
+
+            assertNull(promises.get(0).getFailure());
+            assertNull(promises.get(1).getFailure());
+            assertTrue(promises.get(2).getFailure() instanceof IllegalArgumentException);
+        }
+
+        @Test
+        void testPendingItemDoesNotHoldNotifications() throws Exception {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            thread.execute(new AbstractTwinCommand<Void>() {
+                @Override
+                protected Promise<Void> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return pf.resolved(null);
+                }
+            });
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+
+            // Both queued in the same batch, the first one waits for its result
+            Deferred<Integer> pending = thread.getPromiseFactory().deferred();
+            Promise<Integer> waiting = thread.execute(new AbstractTwinCommand<Integer>() {
+                @Override
+                protected Promise<Integer> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                    return pending.getPromise();
+                }
+            });
+            DataUpdateDto dto = new DataUpdateDto();
+            dto.model = "batchModel";
+            dto.provider = "batch";
+            dto.service = "svc";
+            dto.resource = "value";
+            dto.type = Integer.class;
+            dto.data = 1;
+            dto.timestamp = Instant.now();
+            Promise<Void> update = thread.execute(new SetValueCommand(dto));
+            release.countDown();
+
+            assertNull(update.getFailure());
+            verify(typedEventBus, timeout(1000)).deliver(eq("DATA/batchModel/batch/svc/value"), any());
+            assertFalse(waiting.isDone());
+
+            pending.resolve(42);
+            assertEquals(42, waiting.getValue());
+        }
+    }
+
     @Nested
     class LifecycleTests {
         @Nested
@@ -0,0 +1,169 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.sensinact.core.dto.impl.DataUpdateDto;
+import org.eclipse.sensinact.core.impl.ValueUpdateCoalescer.CoalescedSetValueCommand;
+import org.eclipse.sensinact.core.metrics.IMetricCounter;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+
+@ExtendWith(MockitoExtension.class)
+public class ValueUpdateCoalescerTest {
+
+    @Mock
+    IMetricsManager metrics;
+
+    @Mock
+    IMetricCounter counter;
+
+    ValueUpdateCoalescer coalescer;
+
+    @BeforeEach
+    void setup() {
+        lenient().when(metrics.getCounter(anyString())).thenReturn(counter);
+        coalescer = new ValueUpdateCoalescer(metrics, new PromiseFactory(PromiseFactory.inlineExecutor()));
+    }
+
+    DataUpdateDto dto(String resource, Object data, Instant timestamp) {
+        DataUpdateDto dto = new DataUpdateDto();
+        dto.provider = "provider";
+        dto.service = "service";
+        dto.resource = resource;
+        dto.data = data;
+        dto.timestamp = timestamp;
+        return dto;
+    }
+
+    @Test
+    void testMergeQueuedUpdates() throws Exception {
+        List<Promise<?>> merged = new ArrayList<>();
+        CoalescedSetValueCommand command = coalescer.offer(dto("a", 1, null), merged);
+        assertNotNull(command);
+        assertEquals("provider", command.getPartitionKey());
+        assertTrue(merged.isEmpty());
+
+        assertNull(coalescer.offer(dto("a", 2, null), merged));
+        assertNull(coalescer.offer(dto("a", 3, null), merged));
+        assertEquals(2, merged.size());
+        merged.forEach(p -> assertSame(command.completion(), p));
+        verify(counter, times(2)).inc();
+
+        // Other resources are not merged
+        assertNotNull(coalescer.offer(dto("b", 1, null), merged));
+        assertEquals(2, merged.size());
+    }
+
+    @Test
+    void testNoMergeOnceStarted() throws Exception {
+        List<Promise<?>> merged = new ArrayList<>();
+        CoalescedSetValueCommand command = coalescer.offer(dto("a", 1, Instant.now()), merged);
+        assertNull(coalescer.offer(dto("a", 2, Instant.now()), merged));
+
+        IllegalStateException failure = new IllegalStateException("rejected");
+        command.abort(failure);
+        assertTrue(merged.get(0).isDone());
+        assertSame(failure, merged.get(0).getFailure());
+
+        CoalescedSetValueCommand next = coalescer.offer(dto("a", 3, null), merged);
+        assertNotNull(next);
+        assertFalse(next.completion().isDone());
+        assertEquals(1, merged.size());
+    }
+
+    @Test
+    void testOlderUpdateDoesNotReplaceValue() throws Exception {
+        Instant now = Instant.now();
+        List<Promise<?>> merged = new ArrayList<>();
+        CoalescedSetValueCommand command = coalescer.offer(dto("a", 1, now), merged);
+        assertTrue(command.merge(dto("a", 2, now.minusSeconds(1))));
+        assertEquals(1, command.getUpdate().data);
+        assertTrue(command.merge(dto("a", 3, now.plusSeconds(1))));
+        assertEquals(3, command.getUpdate().data);
+        command.abort(new IllegalStateException());
+        assertFalse(command.merge(dto("a", 4, now.plusSeconds(2))));
+    }
+
+    @Test
+    void testNoMergeAcrossOtherCommand() throws Exception {
+        List<Promise<?>> merged = new ArrayList<>();
+        CoalescedSetValueCommand first = coalescer.offer(dto("a", 1, null), merged);
+        CoalescedSetValueCommand other = coalescer.offer(dto("b", 1, null), merged);
+
+        // A metadata update of the provider is queued after the first value
+        coalescer.barrier("provider");
+
+        CoalescedSetValueCommand second = coalescer.offer(dto("a", 2, null), merged);
+        assertNotNull(second);
+        assertNotSame(first, second);
+        assertNotNull(coalescer.offer(dto("b", 2, null), merged));
+        assertTrue(merged.isEmpty());
+        assertEquals(1, first.getUpdate().data);
+        assertEquals(1, other.getUpdate().data);
+
+        // Later updates are merged into the command queued after the barrier
+        assertNull(coalescer.offer(dto("a", 3, null), merged));
+        assertEquals(3, second.getUpdate().data);
+
+        // Other providers are not affected
+        DataUpdateDto otherProvider = dto("a", 1, null);
+        otherProvider.provider = "other";
+        CoalescedSetValueCommand third = coalescer.offer(otherProvider, merged);
+        coalescer.barrier("provider");
+        otherProvider = dto("a", 2, null);
+        otherProvider.provider = "other";
+        assertNull(coalescer.offer(otherProvider, merged));
+        assertEquals(2, third.getUpdate().data);
+    }
+
+    @Test
+    void testServiceReference() throws Exception {
+        EReference reference = EcoreFactory.eINSTANCE.createEReference();
+        reference.setName("service");
+        DataUpdateDto dto = dto("a", 1, null);
+        dto.service = null;
+        dto.serviceReference = reference;
+
+        List<Promise<?>> merged = new ArrayList<>();
+        CoalescedSetValueCommand command = coalescer.offer(dto, merged);
+        assertTrue(command.updatesExistingResources((p, s, r) -> "service".equals(s)));
+
+        // Merged with the updates naming the service
+        assertNull(coalescer.offer(dto("a", 2, null), merged));
+        assertEquals(2, command.getUpdate().data);
+    }
+}
@@ -0,0 +1,166 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.model.nexus.emf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.sensinact.core.emf.util.EMFTestUtil;
+import org.eclipse.sensinact.model.core.provider.Admin;
+import org.eclipse.sensinact.model.core.provider.ProviderFactory;
+import org.eclipse.sensinact.model.core.provider.ProviderPackage;
+import org.eclipse.sensinact.model.core.provider.ResourceValueMetadata;
+import org.eclipse.sensinact.model.core.testdata.TestSensor;
+import org.eclipse.sensinact.model.core.testdata.TestTemperatur;
+import org.eclipse.sensinact.model.core.testdata.TestdataFactory;
+import org.eclipse.sensinact.model.core.testdata.TestdataPackage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SensinactBinaryResourceFactoryTest {
+
+    private static final String DYNAMIC_URI = "https://eclipse.org/sensinact/test/binary";
+
+    @TempDir
+    Path dir;
+
+    private static ResourceSet createResourceSet() {
+        ResourceSet resourceSet = EMFTestUtil.createResourceSet();
+        new SensinactBinaryResourceFactory().register(resourceSet);
+        return resourceSet;
+    }
+
+    private URI fileUri(String name) {
+        return URI.createFileURI(dir.resolve(name).toString());
+    }
+
+    private static TestSensor createSensor(String name, int values) {
+        final Instant timestamp = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+        TestSensor sensor = TestdataFactory.eINSTANCE.createTestSensor();
+        sensor.setId(name);
+
+        Admin admin = ProviderFactory.eINSTANCE.createAdmin();
+        admin.setFriendlyName("Sensor " + name);
+        admin.setModel("TestSensor");
+        admin.setModelPackageUri(TestdataPackage.eNS_URI);
+        sensor.setAdmin(admin);
+
+        TestTemperatur temp = TestdataFactory.eINSTANCE.createTestTemperatur();
+        temp.setV1(Integer.toString(values));
+        temp.setV2("value " + name);
+        ResourceValueMetadata metadata = ProviderFactory.eINSTANCE.createResourceValueMetadata();
+        metadata.setTimestamp(timestamp);
+        temp.getMetadata().put(TestdataPackage.Literals.TEST_TEMPERATUR__V1, metadata);
+        sensor.setTemp(temp);
+        return sensor;
+    }
+
+    @Test
+    void testProviderRoundTrip() throws IOException {
+        ResourceSet resourceSet = createResourceSet();
+        Resource resource = resourceSet
+                .createResource(fileUri("sensor." + SensinactBinaryResourceFactory.FILE_EXTENSION));
+        assertInstanceOf(SensinactBinaryResourceFactory.class,
+                resourceSet.getResourceFactoryRegistry().getFactory(resource.getURI()));
+
+        TestSensor sensor = createSensor("sensor", 42);
+        resource.getContents().add(sensor);
+        resource.save(null);
+
+        Resource loaded = createResourceSet().getResource(resource.getURI(), true);
+        EcoreUtil.resolveAll(loaded);
+        assertEquals(1, loaded.getContents().size());
+        TestSensor copy = (TestSensor) loaded.getContents().get(0);
+        assertTrue(EcoreUtil.equals(sensor, copy));
+        assertEquals("42", copy.getTemp().getV1());
+        assertEquals(sensor.getTemp().getMetadata().get(TestdataPackage.Literals.TEST_TEMPERATUR__V1).getTimestamp(),
+                copy.getTemp().getMetadata().get(TestdataPackage.Literals.TEST_TEMPERATUR__V1).getTimestamp());
+    }
+
+    @Test
+    void testSmallerThanXMI() throws IOException {
+        ResourceSet resourceSet = createResourceSet();
+        Resource binary = resourceSet
+                .createResource(fileUri("sensors." + SensinactBinaryResourceFactory.FILE_EXTENSION));
+        Resource xmi = resourceSet.createResource(fileUri("sensors.xmi"));
+        for (int i = 0; i < 100; i++) {
+            binary.getContents().add(createSensor("sensor" + i, i));
+            xmi.getContents().add(createSensor("sensor" + i, i));
+        }
+        binary.save(null);
+        xmi.save(null);
+
+        long binarySize = Files.size(dir.resolve("sensors." + SensinactBinaryResourceFactory.FILE_EXTENSION));
+        long xmiSize = Files.size(dir.resolve("sensors.xmi"));
+        assertTrue(binarySize * 2 < xmiSize, "Binary size " + binarySize + " vs XMI size " + xmiSize);
+
+        Resource loaded = createResourceSet().getResource(binary.getURI(), true);
+        assertEquals(100, loaded.getContents().size());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(EcoreUtil.equals(binary.getContents().get(i), loaded.getContents().get(i)));
+        }
+    }
+
+    @Test
+    void testDynamicPackageRoundTrip() throws IOException {
+        ResourceSet resourceSet = createResourceSet();
+        EPackage ePackage = EMFUtil.createPackage("binary", DYNAMIC_URI, "binary", resourceSet);
+        EClass eClass = EMFUtil.createEClass("BinarySensor", ePackage, null, ProviderPackage.Literals.PROVIDER);
+        EMFUtil.addAttribute("count", EcorePackage.Literals.EINT, eClass);
+        EMFUtil.addAttribute("level", EcorePackage.Literals.EDOUBLE, eClass);
+
+        Resource packageResource = resourceSet
+                .createResource(fileUri("package." + SensinactBinaryResourceFactory.FILE_EXTENSION));
+        packageResource.getContents().add(EcoreUtil.copy(ePackage));
+        packageResource.save(null);
+
+        EObject instance = EcoreUtil.create(eClass);
+        instance.eSet(ProviderPackage.Literals.PROVIDER__ID, "dynamic");
+        instance.eSet(eClass.getEStructuralFeature("count"), 12);
+        instance.eSet(eClass.getEStructuralFeature("level"), 0.1d);
+        Resource instanceResource = resourceSet
+                .createResource(fileUri("instance." + SensinactBinaryResourceFactory.FILE_EXTENSION));
+        instanceResource.getContents().add(instance);
+        instanceResource.save(null);
+
+        // Load the package in a new resource set, then an instance of its class
+        ResourceSet target = createResourceSet();
+        Resource loadedPackage = target.getResource(packageResource.getURI(), true);
+        EPackage copy = (EPackage) loadedPackage.getContents().get(0);
+        assertTrue(EcoreUtil.equals(packageResource.getContents().get(0), copy));
+
+        EMFUtil.registerDynamicPackage(copy, target);
+        EObject loaded = target.getResource(instanceResource.getURI(), true).getContents().get(0);
+        EClass loadedClass = loaded.eClass();
+        assertEquals(copy.getEClassifier("BinarySensor"), loadedClass);
+        assertEquals("dynamic", loaded.eGet(ProviderPackage.Literals.PROVIDER__ID));
+        assertEquals(12, loaded.eGet(loadedClass.getEStructuralFeature("count")));
+        assertEquals(0.1d, loaded.eGet(loadedClass.getEStructuralFeature("level")));
+    }
+}
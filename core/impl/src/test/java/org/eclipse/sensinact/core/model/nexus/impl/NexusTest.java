@@ -36,8 +36,11 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
@@ -59,7 +62,12 @@ import org.eclipse.emf.ecore.xmi.XMLResource;
 import org.eclipse.sensinact.core.emf.util.EMFTestUtil;
 import org.eclipse.sensinact.core.model.nexus.ModelNexus;
 import org.eclipse.sensinact.core.model.nexus.emf.EMFUtil;
+import org.eclipse.sensinact.core.model.nexus.store.LogProviderStore;
 import org.eclipse.sensinact.core.notification.impl.NotificationAccumulator;
+import org.eclipse.sensinact.core.whiteboard.impl.SensinactWhiteboard;
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
+import org.eclipse.sensinact.gateway.geojson.Polygon;
+import org.eclipse.sensinact.gateway.geojson.utils.GeoJsonUtils;
 import org.eclipse.sensinact.model.core.provider.Admin;
 import org.eclipse.sensinact.model.core.provider.DynamicProvider;
 import org.eclipse.sensinact.model.core.provider.Provider;
@@ -70,6 +78,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
@@ -702,6 +711,116 @@ public class NexusTest {
         }
     }
 
+    @Nested
+    public class IndexTests {
+
+        private static final String TEST_MODEL = "TestModel";
+        private final String TEST_PKG = EMFUtil.constructPackageUri(TEST_MODEL);
+        private final String OTHER_PKG = EMFUtil.constructPackageUri("Other");
+
+        private ModelNexus nexus;
+
+        @BeforeEach
+        void setup() {
+            nexus = new ModelNexus(resourceSet, ProviderPackage.eINSTANCE, () -> accumulator);
+        }
+
+        private void setLocation(String providerName, double longitude, double latitude) {
+            setLocation(providerName, GeoJsonUtils.point(longitude, latitude));
+        }
+
+        private void setLocation(String providerName, GeoJsonObject location) {
+            Provider provider = nexus.getProvider(providerName);
+            nexus.handleDataUpdate(provider, ProviderPackage.Literals.PROVIDER__ADMIN.getName(),
+                    ProviderPackage.Literals.ADMIN, ProviderPackage.Literals.ADMIN__LOCATION, location, Instant.now());
+        }
+
+        private Set<String> names(Collection<Provider> providers) {
+            return providers.stream().map(Provider::getId).collect(Collectors.toSet());
+        }
+
+        @Test
+        void testModelAndPackageIndexes() {
+            Instant now = Instant.now();
+            EClass model = nexus.createModel(TEST_PKG, TEST_MODEL, now);
+            EClass model2 = nexus.createModel(TEST_PKG, "TestModel2", now);
+            EClass other = nexus.createModel(OTHER_PKG, TEST_MODEL, now);
+
+            nexus.createProviderInstance(TEST_PKG, TEST_MODEL, "a");
+            nexus.createProviderInstance(TEST_PKG, TEST_MODEL, "b");
+            nexus.createProviderInstance(TEST_PKG, "TestModel2", "c");
+            nexus.createProviderInstance(OTHER_PKG, TEST_MODEL, "d");
+
+            assertEquals(Set.of("a", "b"), names(nexus.getProviders(model)));
+            assertEquals(Set.of("c"), names(nexus.getProviders(model2)));
+            assertEquals(Set.of("d"), names(nexus.getProviders(other)));
+            assertEquals(Set.of("a", "b", "c"), names(nexus.getProvidersByPackageUri(TEST_PKG)));
+
+            nexus.deleteProvider(TEST_PKG, TEST_MODEL, "a");
+            assertEquals(Set.of("b"), names(nexus.getProviders(model)));
+            assertEquals(Set.of("b", "c"), names(nexus.getProvidersByPackageUri(TEST_PKG)));
+
+            nexus.deleteModel(TEST_PKG, "TestModel2");
+            assertEquals(Set.of("b"), names(nexus.getProvidersByPackageUri(TEST_PKG)));
+        }
+
+        @Test
+        void testLocationIndex() {
+            nexus.createModel(TEST_PKG, TEST_MODEL, Instant.now());
+            nexus.createProviderInstance(TEST_PKG, TEST_MODEL, "paris");
+            nexus.createProviderInstance(TEST_PKG, TEST_MODEL, "grenoble");
+            nexus.createProviderInstance(TEST_PKG, TEST_MODEL, "nowhere");
+
+            setLocation("paris", 2.35, 48.85);
+            setLocation("grenoble", 5.72, 45.19);
+
+            double[] aroundParis = { 2, 48, 3, 49 };
+            double[] france = { -5, 42, 8, 51 };
+            assertEquals(Set.of("paris"), names(nexus.getProvidersInBoundingBox(aroundParis)));
+            assertEquals(Set.of("paris", "grenoble"), names(nexus.getProvidersInBoundingBox(france)));
+
+            // Moving a provider updates the index
+            setLocation("paris", 5.7, 45.2);
+            assertEquals(Set.of(), names(nexus.getProvidersInBoundingBox(aroundParis)));
+            assertEquals(Set.of("paris", "grenoble"), names(nexus.getProvidersInBoundingBox(france)));
+
+            nexus.deleteProvider(TEST_PKG, TEST_MODEL, "grenoble");
+            assertEquals(Set.of("paris"), names(nexus.getProvidersInBoundingBox(france)));
+        }
+
+        @Test
+        void testLocationIndexAntimeridian() {
+            nexus.createModel(TEST_PKG, TEST_MODEL, Instant.now());
+            nexus.createProviderInstance(TEST_PKG, TEST_MODEL, "fiji");
+            nexus.createProviderInstance(TEST_PKG, TEST_MODEL, "samoa");
+            nexus.createProviderInstance(TEST_PKG, TEST_MODEL, "paris");
+
+            // RFC 7946 bounding box crossing the antimeridian: west > east
+            Polygon area = GeoJsonUtils.polygon(GeoJsonUtils.coords(178, -20), GeoJsonUtils.coords(-179, -20),
+                    GeoJsonUtils.coords(-179, -15), GeoJsonUtils.coords(178, -15));
+            area.bbox = List.of(178d, -20d, -179d, -15d);
+            setLocation("fiji", area);
+            setLocation("samoa", -172, -13.8);
+            setLocation("paris", 2.35, 48.85);
+
+            double[] west = { 179, -18, 180, -17 };
+            double[] east = { -180, -18, -179.5, -17 };
+            double[] pacific = { 170, -25, -170, -10 };
+            double[] samoa = { 175, -15, -172, -13 };
+            assertEquals(Set.of("fiji"), names(nexus.getProvidersInBoundingBox(west)));
+            assertEquals(Set.of("fiji"), names(nexus.getProvidersInBoundingBox(east)));
+            assertEquals(Set.of("fiji", "samoa"), names(nexus.getProvidersInBoundingBox(pacific)));
+            assertEquals(Set.of("fiji", "samoa"), names(nexus.getProvidersInBoundingBox(samoa)));
+            assertEquals(Set.of("paris"), names(nexus.getProvidersInBoundingBox(new double[] { 0, 45, 5, 50 })));
+
+            // Moving the provider removes all its cells
+            setLocation("fiji", 2.3, 48.8);
+            assertEquals(Set.of(), names(nexus.getProvidersInBoundingBox(west)));
+            assertEquals(Set.of(), names(nexus.getProvidersInBoundingBox(east)));
+            assertEquals(Set.of("fiji", "paris"), names(nexus.getProvidersInBoundingBox(new double[] { 0, 45, 5, 50 })));
+        }
+    }
+
     @Nested
     public class LinkedProviderTests {
 
@@ -1088,4 +1207,87 @@ public class NexusTest {
         }
 
     }
+
+    @Nested
+    public class PersistenceTests {
+
+        private static final String TEST_MODEL = "TestModel";
+
+        @TempDir
+        Path storeDir;
+
+        private ModelNexus createNexus(ResourceSet rs) {
+            return new ModelNexus(rs, ProviderPackage.eINSTANCE, () -> accumulator, (SensinactWhiteboard) null,
+                    new LogProviderStore(storeDir, 0, false));
+        }
+
+        private ModelNexus populate() {
+            ModelNexus nexus = createNexus(resourceSet);
+            Instant now = Instant.now();
+            EClass model = nexus.createModel(TEST_MODEL, now);
+            EReference service = nexus.createService(model, "testservice", now);
+            EAttribute resource = nexus.createResource(service.getEReferenceType(), "testValue", String.class, now,
+                    null);
+            Provider p1 = nexus.createProviderInstance(TEST_MODEL, "p1", now);
+            nexus.createProviderInstance(TEST_MODEL, "p2", now);
+            nexus.createProviderInstance(TEST_MODEL, "deleted", now);
+            nexus.handleDataUpdate(p1, service.getName(), service, service.getEReferenceType(), resource, "test",
+                    now);
+            nexus.linkProviders("p1", "p2", now);
+            nexus.deleteProvider(EMFUtil.constructPackageUri(TEST_MODEL), TEST_MODEL, "deleted");
+            return nexus;
+        }
+
+        private void assertRestored(ModelNexus nexus) {
+            Provider p1 = nexus.getProvider("p1");
+            assertNotNull(p1);
+            assertNotNull(nexus.getProvider("p2"));
+            assertNull(nexus.getProvider("deleted"));
+
+            Service service = p1.getService("testservice");
+            assertNotNull(service);
+            assertEquals("test", service.eGet(service.eClass().getEStructuralFeature("testValue")));
+            assertEquals(1, p1.getLinkedProviders().size());
+            assertSame(nexus.getProvider("p2"), p1.getLinkedProviders().get(0));
+
+            // Restored models can be extended
+            EClass model = nexus.getModel(EMFUtil.constructPackageUri(TEST_MODEL), TEST_MODEL).get();
+            assertNotNull(nexus.createService(model, "other", Instant.now()));
+        }
+
+        @Test
+        void restoreAfterShutdown() {
+            populate().shutDown();
+
+            assertRestored(createNexus(EMFTestUtil.createResourceSet()));
+        }
+
+        @Test
+        void restoreFromLog() {
+            // Simulates a crash: changes are persisted but never compacted
+            assertFalse(populate().persistChanges());
+
+            assertRestored(createNexus(EMFTestUtil.createResourceSet()));
+        }
+
+        @Test
+        void restoreValueUpdates() {
+            ModelNexus nexus = populate();
+            assertFalse(nexus.persistChanges());
+            Provider p1 = nexus.getProvider("p1");
+            Service service = p1.getService("testservice");
+            EReference ref = (EReference) p1.eClass().getEStructuralFeature("testservice");
+            EAttribute resource = (EAttribute) service.eClass().getEStructuralFeature("testValue");
+            Instant updated = Instant.parse("2030-01-01T00:00:00.5Z");
+            // Updates of existing resources are stored as deltas
+            nexus.handleDataUpdate(p1, "testservice", ref, service.eClass(), resource, "updated", updated);
+            assertFalse(nexus.persistChanges());
+
+            ModelNexus restored = createNexus(EMFTestUtil.createResourceSet());
+            Service restoredService = restored.getProvider("p1").getService("testservice");
+            EAttribute restoredResource = (EAttribute) restoredService.eClass().getEStructuralFeature("testValue");
+            assertEquals("updated", restoredService.eGet(restoredResource));
+            assertEquals(updated, restoredService.getMetadata().get(restoredResource).getTimestamp());
+        }
+    }
 }
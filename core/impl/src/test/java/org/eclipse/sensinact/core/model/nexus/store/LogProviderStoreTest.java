@@ -0,0 +1,180 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.model.nexus.store;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LogProviderStoreTest {
+
+    private static final String PKG = "https://eclipse.org/sensinact/test";
+
+    @TempDir
+    Path dir;
+
+    private static byte[] data(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> keys(List<StoreRecord> records) {
+        return records.stream().map(StoreRecord::getKey).collect(Collectors.toList());
+    }
+
+    @Test
+    void testRecoverFromLog() throws IOException {
+        LogProviderStore store = new LogProviderStore(dir, 0, false);
+        assertTrue(store.recover().isEmpty());
+        store.append(List.of(StoreRecord.ePackage(PKG, data("pkg")),
+                StoreRecord.provider("a", PKG, List.of("b"), data("a1")),
+                StoreRecord.provider("b", PKG, List.of(), data("b1"))));
+        store.append(List.of(StoreRecord.provider("a", PKG, List.of(), data("a2")),
+                StoreRecord.providerRemoved("b")));
+        store.close();
+
+        store = new LogProviderStore(dir, 0, false);
+        List<StoreRecord> records = store.recover();
+        assertEquals(List.of(PKG, "a"), keys(records));
+        assertArrayEquals(data("a2"), records.get(1).getData());
+        assertEquals(PKG, records.get(1).getPackageUri());
+        assertTrue(records.get(1).getLinks().isEmpty());
+        store.close();
+    }
+
+    @Test
+    void testTruncatedLog() throws IOException {
+        LogProviderStore store = new LogProviderStore(dir, 0, false);
+        store.recover();
+        store.append(List.of(StoreRecord.provider("a", PKG, List.of(), data("a"))));
+        store.close();
+
+        // Incomplete record, as written by a crash
+        Files.write(dir.resolve(LogProviderStore.LOG_FILE), new byte[] { 0, 0, 0, 42, 1, 2 }, APPEND);
+
+        store = new LogProviderStore(dir, 0, false);
+        assertEquals(List.of("a"), keys(store.recover()));
+        // The incomplete record is dropped and the log can be appended to
+        store.append(List.of(StoreRecord.provider("b", PKG, List.of(), data("b"))));
+        store.close();
+
+        store = new LogProviderStore(dir, 0, false);
+        assertEquals(List.of("a", "b"), keys(store.recover()));
+        store.close();
+    }
+
+    @Test
+    void testCompaction() throws IOException {
+        LogProviderStore store = new LogProviderStore(dir, 64, false);
+        store.recover();
+        assertFalse(store.isCompactionRequired());
+        store.append(List.of(StoreRecord.ePackage(PKG, data("pkg"))));
+        for (int i = 0; i < 10; i++) {
+            store.append(List.of(StoreRecord.provider("a", PKG, List.of(), data("value " + i))));
+        }
+        assertTrue(store.isCompactionRequired());
+
+        store.compact();
+        // Appended while the compaction runs
+        store.append(List.of(StoreRecord.provider("b", PKG, List.of(), data("b"))));
+        store.close();
+        assertFalse(Files.exists(dir.resolve(LogProviderStore.NEXT_LOG_FILE)));
+
+        store = new LogProviderStore(dir, 64, false);
+        List<StoreRecord> records = store.recover();
+        assertFalse(store.isCompactionRequired());
+        assertEquals(List.of(PKG, "a", "b"), keys(records));
+        assertArrayEquals(data("value 9"), records.get(1).getData());
+        store.close();
+    }
+
+    @Test
+    void testResourceValues() throws IOException {
+        Instant t1 = Instant.parse("2025-01-01T00:00:00.123456789Z");
+        Instant t2 = t1.plusSeconds(1);
+        LogProviderStore store = new LogProviderStore(dir, 0, false);
+        store.recover();
+        store.append(List.of(StoreRecord.provider("a", PKG, List.of(), data("a")),
+                StoreRecord.provider("b", PKG, List.of(), data("b")),
+                StoreRecord.resourceValue("a", "svc", "value", t1, "1"),
+                StoreRecord.resourceValue("a", "svc", "other", t1, null),
+                StoreRecord.resourceValue("b", "svc", "value", t1, "1")));
+        // Latest value wins, values before a new provider state are dropped
+        store.append(List.of(StoreRecord.resourceValue("a", "svc", "value", t2, "2"),
+                StoreRecord.provider("b", PKG, List.of(), data("b2")),
+                StoreRecord.resourceValue("c", "svc", "value", t2, "unknown provider")));
+        store.close();
+
+        store = new LogProviderStore(dir, 0, false);
+        List<StoreRecord> records = store.recover();
+        assertEquals(List.of("a", "b", "a", "a"), keys(records));
+        assertArrayEquals(data("b2"), records.get(1).getData());
+        StoreRecord value = records.get(2);
+        assertTrue(value.isResourceValue());
+        assertEquals("svc", value.getService());
+        assertEquals("value", value.getResource());
+        assertEquals(t2, value.getTimestamp());
+        assertEquals("2", value.getValue());
+        assertEquals("other", records.get(3).getResource());
+        assertNull(records.get(3).getValue());
+
+        // Compaction keeps the values
+        store.compact();
+        store.close();
+        store = new LogProviderStore(dir, 0, false);
+        assertEquals(List.of("a", "b", "a", "a"), keys(store.recover()));
+        store.close();
+    }
+
+    @Test
+    void testInterruptedCompaction() throws IOException {
+        LogProviderStore store = new LogProviderStore(dir, 0, false);
+        store.recover();
+        store.append(List.of(StoreRecord.provider("a", PKG, List.of(), data("a"))));
+        store.switchToNextLog();
+        store.append(List.of(StoreRecord.provider("b", PKG, List.of(), data("b"))));
+        // Crash before the snapshot is written
+        store.close();
+
+        store = new LogProviderStore(dir, 0, false);
+        assertEquals(List.of("a", "b"), keys(store.recover()));
+        assertFalse(Files.exists(dir.resolve(LogProviderStore.NEXT_LOG_FILE)));
+        store.switchToNextLog();
+        store.append(List.of(StoreRecord.provider("c", PKG, List.of(), data("c"))));
+        store.writeNextSnapshot();
+        // Crash before the next log replaces the previous one
+        store.close();
+
+        store = new LogProviderStore(dir, 0, false);
+        assertEquals(List.of("a", "b", "c"), keys(store.recover()));
+        store.append(List.of(StoreRecord.providerRemoved("a")));
+        store.close();
+
+        store = new LogProviderStore(dir, 0, false);
+        assertEquals(List.of("b", "c"), keys(store.recover()));
+        store.close();
+    }
+}
@@ -0,0 +1,126 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.core.notification.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.sensinact.core.model.nexus.emf.EMFUtil;
+import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.osgi.service.typedevent.TypedEventBus;
+
+/**
+ * Runs all the accumulator tests against the hashed accumulator, and checks
+ * its reuse
+ */
+class HashedNotificationAccumulatorTest extends NotificationSenderTest {
+
+    private static final String MODEL = "model";
+    private static final String PROVIDER = "provider";
+    private static final String SERVICE = "service";
+    private static final String RESOURCE = "resource";
+
+    private final String MODEL_PKG = EMFUtil.constructPackageUri(MODEL);
+
+    private final List<HashedNotificationAccumulator> recycled = new ArrayList<>();
+
+    @Override
+    NotificationAccumulator createAccumulator(TypedEventBus bus) {
+        return new HashedNotificationAccumulator(bus, recycled::add);
+    }
+
+    @Nested
+    class ReuseTests {
+
+        @Test
+        void testReuse() {
+            Instant now = Instant.now();
+            accumulator.resourceValueUpdate(MODEL_PKG, MODEL, PROVIDER, SERVICE, RESOURCE, Integer.class, null, 1,
+                    Map.of(), now);
+            accumulator.completeAndSend();
+            assertSame(accumulator, recycled.get(0));
+
+            // The recycled accumulator starts from scratch
+            accumulator.resourceValueUpdate(MODEL_PKG, MODEL, PROVIDER, SERVICE, RESOURCE, Integer.class, 1, 2,
+                    Map.of(), now.plusSeconds(1));
+            accumulator.completeAndSend();
+
+            InOrder inOrder = Mockito.inOrder(bus);
+            inOrder.verify(bus).deliver(eq("DATA/" + MODEL + "/" + PROVIDER + "/" + SERVICE + "/" + RESOURCE),
+                    Mockito.<ResourceDataNotification>argThat(n -> n.oldValue() == null && n.newValue().equals(1)));
+            inOrder.verify(bus).deliver(eq("DATA/" + MODEL + "/" + PROVIDER + "/" + SERVICE + "/" + RESOURCE),
+                    Mockito.<ResourceDataNotification>argThat(n -> n.oldValue().equals(1) && n.newValue().equals(2)));
+            Mockito.verifyNoMoreInteractions(bus);
+        }
+
+        @Test
+        void testEmptyBatchAfterReuse() {
+            accumulator.addProvider(MODEL_PKG, MODEL, PROVIDER);
+            accumulator.completeAndSend();
+            accumulator.completeAndSend();
+            Mockito.verify(bus).deliver(any(String.class), any());
+            assertEquals(2, recycled.size());
+            assertSame(accumulator, recycled.get(1));
+        }
+
+        @Test
+        void testRecycledOnDeliveryFailure() {
+            Mockito.doThrow(IllegalStateException.class).when(bus).deliver(any(String.class), any());
+            accumulator.addProvider(MODEL_PKG, MODEL, PROVIDER);
+            assertThrows(IllegalStateException.class, accumulator::completeAndSend);
+            assertSame(accumulator, recycled.get(0));
+
+            // Nothing left from the failed batch
+            Mockito.reset(bus);
+            accumulator.completeAndSend();
+            Mockito.verifyNoInteractions(bus);
+        }
+
+        @Test
+        void testTransfer() {
+            Instant now = Instant.now();
+            HashedNotificationAccumulator target = new HashedNotificationAccumulator(bus);
+            target.addProvider(MODEL_PKG, MODEL, PROVIDER);
+            target.resourceValueUpdate(MODEL_PKG, MODEL, PROVIDER, SERVICE, RESOURCE, Integer.class, null, 1,
+                    Map.of(), now);
+
+            accumulator.resourceValueUpdate(MODEL_PKG, MODEL, PROVIDER, SERVICE, RESOURCE, Integer.class, 1, 2,
+                    Map.of(), now.plusSeconds(1));
+            accumulator.resourceAction(MODEL_PKG, MODEL, PROVIDER, SERVICE, RESOURCE, now.plusSeconds(1));
+            ((HashedNotificationAccumulator) accumulator).transferTo(target);
+            assertSame(accumulator, recycled.get(0));
+            Mockito.verifyNoInteractions(bus);
+
+            // The transferred notifications are collapsed with the target ones
+            target.completeAndSend();
+            Mockito.verify(bus).deliver(eq("LIFECYCLE/" + MODEL + "/" + PROVIDER), any());
+            Mockito.verify(bus).deliver(eq("DATA/" + MODEL + "/" + PROVIDER + "/" + SERVICE + "/" + RESOURCE),
+                    Mockito.<ResourceDataNotification>argThat(n -> n.oldValue() == null && n.newValue().equals(2)));
+            Mockito.verify(bus).deliver(eq("ACTION/" + MODEL + "/" + PROVIDER + "/" + SERVICE + "/" + RESOURCE),
+                    any());
+            Mockito.verifyNoMoreInteractions(bus);
+        }
+    }
+}
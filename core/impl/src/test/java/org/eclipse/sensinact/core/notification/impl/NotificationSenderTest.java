@@ -67,7 +67,11 @@ class NotificationSenderTest {
 
     @BeforeEach
     void start() {
-        accumulator = new NotificationAccumulatorImpl(bus);
+        accumulator = createAccumulator(bus);
+    }
+
+    NotificationAccumulator createAccumulator(TypedEventBus bus) {
+        return new NotificationAccumulatorImpl(bus);
     }
 
     @Nested
@@ -50,6 +50,7 @@ import org.eclipse.sensinact.core.notification.impl.NotificationAccumulator;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
+import org.eclipse.sensinact.core.snapshot.SnapshotProjection;
 import org.eclipse.sensinact.core.twin.SensinactProvider;
 import org.eclipse.sensinact.core.twin.SensinactResource;
 import org.eclipse.sensinact.core.twin.SensinactService;
@@ -379,6 +380,29 @@ public class SensinactTwinTest {
             assertEquals(5, serviceSnapshot.getResources().get(0).getValue().getValue());
         }
 
+        @Test
+        void projectedSnapshot() throws Exception {
+            twinImpl.createProvider(TEST_MODEL_WITH_METADATA, TEST_PROVIDER);
+            twinImpl.getResource(TEST_PROVIDER, TEST_SERVICE, TEST_RESOURCE).setValue(5).getValue();
+
+            Predicate<ProviderSnapshot> pf = p -> TEST_PROVIDER.equals(p.getName());
+
+            ResourceSnapshot rs = twinImpl.filteredSnapshot(null, pf, null, null, SnapshotProjection.STRUCTURE)
+                    .get(0).getResource(TEST_SERVICE, TEST_RESOURCE);
+            assertNull(rs.getValue());
+            assertTrue(rs.getMetadata().isEmpty());
+
+            rs = twinImpl.filteredSnapshot(null, pf, null, null, SnapshotProjection.VALUES).get(0)
+                    .getResource(TEST_SERVICE, TEST_RESOURCE);
+            assertEquals(5, rs.getValue().getValue());
+            assertTrue(rs.getMetadata().isEmpty());
+
+            rs = twinImpl.filteredSnapshot(null, pf, null, null, SnapshotProjection.METADATA).get(0)
+                    .getResource(TEST_SERVICE, TEST_RESOURCE);
+            assertNull(rs.getValue());
+            assertEquals("bar", rs.getMetadata().get("foo"));
+        }
+
         @Test
         void simpleResourceValueFilterWithDynamicResource() throws Exception {
             DynamicProvider provider = (DynamicProvider) EcoreUtil
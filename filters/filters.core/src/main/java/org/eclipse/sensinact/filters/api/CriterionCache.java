@@ -0,0 +1,133 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.filters.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
+import org.eclipse.sensinact.core.snapshot.ICriterion;
+
+/**
+ * A bounded cache of parsed filters, evicting the least recently used ones.
+ * <p>
+ * Parsed criteria are shared between all the callers using the same key: they
+ * must not hold any state once parsed, and must resolve time dependent values,
+ * like the current time, when they are evaluated. Parsing errors are not
+ * cached.
+ */
+public class CriterionCache {
+
+    /**
+     * Default number of cached criteria
+     */
+    public static final int DEFAULT_SIZE = 256;
+
+    /**
+     * Parses a filter that isn't in the cache
+     */
+    @FunctionalInterface
+    public interface CriterionParser {
+
+        /**
+         * @return The parsed filter, can be null if it has no effect
+         * @throws FilterParserException Error parsing filter
+         */
+        ICriterion parse() throws FilterParserException;
+    }
+
+    private final Map<Object, ICriterion> criteria;
+
+    private final String hitMetric;
+
+    private final String missMetric;
+
+    private volatile IMetricsManager metrics;
+
+    /**
+     * @param maxSize    Maximum number of cached criteria
+     * @param metricName Prefix of the names of the hit and miss counters
+     */
+    public CriterionCache(final int maxSize, final String metricName) {
+        this.hitMetric = metricName + ".hit";
+        this.missMetric = metricName + ".miss";
+        this.criteria = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<Object, ICriterion> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Sets the metrics manager counting cache hits and misses
+     *
+     * @param metrics Metrics manager, can be null
+     */
+    public void setMetrics(final IMetricsManager metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the criterion cached with the given key, parsing it if needed
+     *
+     * @param key    Cache key, which must identify the filter and the parser
+     *               parameters
+     * @param parser Parses the filter on a cache miss
+     * @return The parsed filter, can be null if it has no effect
+     * @throws FilterParserException Error parsing filter
+     */
+    public ICriterion get(final Object key, final CriterionParser parser) throws FilterParserException {
+        final IMetricsManager metrics = this.metrics;
+        synchronized (criteria) {
+            if (criteria.containsKey(key)) {
+                if (metrics != null) {
+                    metrics.getCounter(hitMetric).inc();
+                }
+                return criteria.get(key);
+            }
+        }
+
+        if (metrics != null) {
+            metrics.getCounter(missMetric).inc();
+        }
+
+        // Parse outside the lock: concurrent parsing of a filter gives equivalent criteria
+        final ICriterion criterion = parser.parse();
+        synchronized (criteria) {
+            criteria.put(key, criterion);
+        }
+        return criterion;
+    }
+
+    /**
+     * Removes all cached criteria
+     */
+    public void clear() {
+        synchronized (criteria) {
+            criteria.clear();
+        }
+    }
+
+    /**
+     * @return the number of cached criteria
+     */
+    public int size() {
+        synchronized (criteria) {
+            return criteria.size();
+        }
+    }
+}
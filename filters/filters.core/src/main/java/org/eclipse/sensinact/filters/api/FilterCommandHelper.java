@@ -20,8 +20,10 @@ import java.util.stream.Collectors;
 import org.eclipse.sensinact.core.command.AbstractTwinCommand;
 import org.eclipse.sensinact.core.command.GatewayThread;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
+import org.eclipse.sensinact.core.snapshot.SnapshotProjection;
 import org.eclipse.sensinact.core.twin.SensinactDigitalTwin;
 import org.osgi.util.promise.Promise;
 import org.osgi.util.promise.PromiseFactory;
@@ -33,13 +35,31 @@ public class FilterCommandHelper {
 
     public static Collection<ProviderSnapshot> executeFilter(GatewayThread thread, ICriterion criterion)
             throws FilterException {
+        return executeFilter(thread, criterion, SnapshotProjection.FULL);
+    }
+
+    /**
+     * Runs the filter, only reading the parts of the resources required by the
+     * projection. Resource values are always read if the criterion has a
+     * resource value filter.
+     */
+    public static Collection<ProviderSnapshot> executeFilter(GatewayThread thread, ICriterion criterion,
+            SnapshotProjection projection) throws FilterException {
+        final SnapshotProjection parts;
+        if (criterion.getResourceValueFilter() == null || projection == null || projection.includesValues()) {
+            parts = projection;
+        } else {
+            parts = projection.includesMetadata() ? SnapshotProjection.FULL : SnapshotProjection.VALUES;
+        }
+
         Collection<ProviderSnapshot> providers;
         try {
             providers = thread.execute(new AbstractTwinCommand<Collection<ProviderSnapshot>>() {
                 protected Promise<Collection<ProviderSnapshot>> call(SensinactDigitalTwin model, PromiseFactory pf) {
                     return pf.resolved(
-                            model.filteredSnapshot(criterion.getLocationFilter(), criterion.getProviderFilter(),
-                                    criterion.getServiceFilter(), criterion.getResourceFilter()));
+                            model.filteredSnapshot(ProviderScope.locationFilter(criterion),
+                                    ProviderScope.providerFilter(criterion),
+                                    criterion.getServiceFilter(), criterion.getResourceFilter(), parts));
                 }
             }).getValue();
         } catch (InterruptedException e) {
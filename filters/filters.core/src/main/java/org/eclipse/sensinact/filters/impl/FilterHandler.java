@@ -16,15 +16,21 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.Map;
 
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.filters.api.CriterionCache;
 import org.eclipse.sensinact.filters.api.FilterParserException;
 import org.eclipse.sensinact.filters.api.IFilterHandler;
 import org.eclipse.sensinact.filters.api.IFilterParser;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.Constants;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 
 /**
  * Handler to ease usage of filters
@@ -32,14 +38,57 @@ import org.osgi.service.component.annotations.Component;
 @Component(immediate = true, service = IFilterHandler.class)
 public class FilterHandler implements IFilterHandler {
 
-    @Activate
+    /**
+     * Counters of parsed filters cache hits and misses
+     */
+    static final String METRIC_CACHE = "sensinact.filters.cache";
+
+    /**
+     * Key of a parsed filter: parsers are identified by their service ID
+     */
+    private record CacheKey(Object parserId, String filterLanguage, String filterQuery,
+            Map<String, Object> parameters) {
+    }
+
+    private final CriterionCache cache = new CriterionCache(CriterionCache.DEFAULT_SIZE, METRIC_CACHE);
+
+    @Reference
+    private IMetricsManager metrics;
+
     private BundleContext context;
 
+    @Activate
+    void activate(final BundleContext context) {
+        this.context = context;
+        cache.setMetrics(metrics);
+    }
+
+    @Reference(service = IFilterParser.class, cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC)
+    void addParser(final ServiceReference<IFilterParser> svcRef) {
+        // Parsers are looked up on each call
+    }
+
+    void removeParser(final ServiceReference<IFilterParser> svcRef) {
+        // Release the criteria of the removed parser
+        cache.clear();
+    }
+
     @Override
     public ICriterion parseFilter(final String filterLanguage, final String filterQuery,
             final Map<String, Object> parameters) throws FilterParserException {
 
         final ServiceReference<IFilterParser> svcRef = findParser(filterLanguage);
+        if (!isCacheable(parameters)) {
+            return doParseFilter(svcRef, filterLanguage, filterQuery, parameters);
+        }
+
+        final CacheKey key = new CacheKey(svcRef.getProperty(Constants.SERVICE_ID), filterLanguage, filterQuery,
+                parameters == null ? Map.of() : Map.copyOf(parameters));
+        return cache.get(key, () -> doParseFilter(svcRef, filterLanguage, filterQuery, parameters));
+    }
+
+    private ICriterion doParseFilter(final ServiceReference<IFilterParser> svcRef, final String filterLanguage,
+            final String filterQuery, final Map<String, Object> parameters) throws FilterParserException {
         try {
             final IFilterParser parser = context.getService(svcRef);
             return parser.parseFilter(filterQuery, filterLanguage, parameters);
@@ -48,6 +97,18 @@ public class FilterHandler implements IFilterHandler {
         }
     }
 
+    /**
+     * Parameters are part of the cache key: only cache filters with immutable
+     * parameter values
+     */
+    private boolean isCacheable(final Map<String, Object> parameters) {
+        if (parameters == null) {
+            return true;
+        }
+        return parameters.values().stream().allMatch(v -> v instanceof String || v instanceof Number
+                || v instanceof Boolean || v instanceof Enum<?>);
+    }
+
     private ServiceReference<IFilterParser> findParser(final String filterLanguage) throws FilterParserException {
         final Collection<ServiceReference<IFilterParser>> svcRefs;
         try {
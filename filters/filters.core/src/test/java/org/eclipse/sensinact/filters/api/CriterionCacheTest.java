@@ -0,0 +1,97 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.filters.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.sensinact.core.metrics.IMetricCounter;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
+import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the parsed filters cache
+ */
+public class CriterionCacheTest {
+
+    @Test
+    void testCacheHit() throws Exception {
+        final IMetricsManager metrics = mock(IMetricsManager.class);
+        final IMetricCounter hits = mock(IMetricCounter.class);
+        final IMetricCounter misses = mock(IMetricCounter.class);
+        when(metrics.getCounter("test.hit")).thenReturn(hits);
+        when(metrics.getCounter("test.miss")).thenReturn(misses);
+
+        final CriterionCache cache = new CriterionCache(4, "test");
+        cache.setMetrics(metrics);
+
+        final AtomicInteger parsed = new AtomicInteger();
+        final ICriterion criterion = mock(ICriterion.class);
+        final CriterionCache.CriterionParser parser = () -> {
+            parsed.incrementAndGet();
+            return criterion;
+        };
+
+        assertSame(criterion, cache.get("a", parser));
+        assertSame(criterion, cache.get("a", parser));
+        assertEquals(1, parsed.get());
+        verify(misses, times(1)).inc();
+        verify(hits, times(1)).inc();
+
+        // Filters without effect are cached too
+        assertNull(cache.get("b", () -> {
+            parsed.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.get("b", parser));
+        assertEquals(2, parsed.get());
+    }
+
+    @Test
+    void testErrorsNotCached() throws Exception {
+        final CriterionCache cache = new CriterionCache(4, "test");
+        assertThrows(FilterParserException.class, () -> cache.get("a", () -> {
+            throw new FilterParserException("invalid");
+        }));
+        assertEquals(0, cache.size());
+
+        final ICriterion criterion = mock(ICriterion.class);
+        assertSame(criterion, cache.get("a", () -> criterion));
+    }
+
+    @Test
+    void testEviction() throws Exception {
+        final CriterionCache cache = new CriterionCache(2, "test");
+        final ICriterion first = mock(ICriterion.class);
+        cache.get("a", () -> first);
+        cache.get("b", () -> mock(ICriterion.class));
+        // Use the first one again: the second one is now the eldest
+        assertSame(first, cache.get("a", () -> mock(ICriterion.class)));
+        cache.get("c", () -> mock(ICriterion.class));
+
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get("a", () -> mock(ICriterion.class)));
+
+        final ICriterion other = mock(ICriterion.class);
+        assertSame(other, cache.get("b", () -> other));
+    }
+}
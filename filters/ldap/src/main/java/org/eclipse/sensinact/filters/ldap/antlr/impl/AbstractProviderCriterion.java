@@ -12,6 +12,8 @@
 **********************************************************************/
 package org.eclipse.sensinact.filters.ldap.antlr.impl;
 
+import java.util.Locale;
+import java.util.Set;
 import java.util.function.Predicate;
 
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
@@ -58,6 +60,26 @@ public abstract class AbstractProviderCriterion extends AbstractCriterion {
      */
     protected abstract String getProviderFieldValue(final ProviderSnapshot provider);
 
+    /**
+     * Returns the tested value as a provider scope set, if this criterion is a
+     * strict equality test. LDAP equality ignores case, so values with cased
+     * letters can't be used to look up the indexes.
+     *
+     * @return the expected value or null
+     */
+    protected Set<String> getExactValues() {
+        if (isNegative() || comparator != LdapComparator.EQUAL || expectedValue.isRegex()) {
+            return null;
+        }
+
+        final String value = expectedValue.getString();
+        if (value == null || !value.equals(value.toLowerCase(Locale.ROOT))
+                || !value.equals(value.toUpperCase(Locale.ROOT))) {
+            return null;
+        }
+        return Set.of(value);
+    }
+
     @Override
     public String toString() {
         String content = String.format("(%s%s%s)", ldapConstantName, comparator, expectedValue);
@@ -12,6 +12,7 @@
 **********************************************************************/
 package org.eclipse.sensinact.filters.ldap.antlr.impl;
 
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 
 /**
@@ -32,6 +33,11 @@ public class CriterionProviderModel extends AbstractProviderCriterion {
         return provider.getModelName();
     }
 
+    @Override
+    public ProviderScope getProviderScope() {
+        return ProviderScope.of(null, getExactValues(), null, null);
+    }
+
     @Override
     public ILdapCriterion negate() {
         return new CriterionProviderModel(expectedValue, comparator, !isNegative());
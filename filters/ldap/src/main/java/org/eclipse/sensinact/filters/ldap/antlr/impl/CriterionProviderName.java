@@ -12,6 +12,7 @@
 **********************************************************************/
 package org.eclipse.sensinact.filters.ldap.antlr.impl;
 
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 
 /**
@@ -32,6 +33,11 @@ public class CriterionProviderName extends AbstractProviderCriterion {
         return provider.getName();
     }
 
+    @Override
+    public ProviderScope getProviderScope() {
+        return ProviderScope.of(null, null, getExactValues(), null);
+    }
+
     @Override
     public ILdapCriterion negate() {
         return new CriterionProviderName(expectedValue, comparator, !isNegative());
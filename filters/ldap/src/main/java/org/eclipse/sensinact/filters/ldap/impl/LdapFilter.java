@@ -17,6 +17,7 @@ import java.util.Objects;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
 import org.eclipse.sensinact.filters.ldap.antlr.impl.AbstractCriterion;
@@ -129,6 +130,29 @@ public class LdapFilter extends AbstractCriterion {
         return makeProviderFilter(filteredCriteria);
     }
 
+    @Override
+    public ProviderScope getProviderScope() {
+        if (subCriteria.isEmpty()) {
+            return null;
+        }
+
+        switch (operator) {
+        case AND:
+            return subCriteria.stream().map(ILdapCriterion::getProviderScope).reduce(null, ProviderScope::and);
+
+        case OR:
+            // Any unconstrained branch makes the whole filter unconstrained
+            ProviderScope scope = subCriteria.get(0).getProviderScope();
+            for (int i = 1; scope != null && i < subCriteria.size(); i++) {
+                scope = ProviderScope.or(scope, subCriteria.get(i).getProviderScope());
+            }
+            return scope;
+
+        default:
+            return null;
+        }
+    }
+
     public ResourceValueFilter getResourceValueFilter() {
         final List<ResourceValueFilter> allCriteria = subCriteria.stream().map(ILdapCriterion::getResourceValueFilter)
                 .filter(Objects::nonNull).collect(Collectors.toList());
@@ -12,14 +12,17 @@
 **********************************************************************/
 package org.eclipse.sensinact.filters.ldap;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
@@ -27,6 +30,7 @@ import org.antlr.v4.runtime.CommonTokenStream;
 import org.eclipse.sensinact.core.model.ResourceType;
 import org.eclipse.sensinact.core.model.ValueType;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
@@ -427,4 +431,26 @@ public class LdapParserTest {
         assertQueryFalse("(PROVIDER=provider2)", rc);
         assertQueryTrue("(PROVIDER=provider*)", rc);
     }
+
+    @Test
+    void testProviderScope() throws Exception {
+        ProviderScope scope = parse("(PROVIDER=1234)").getProviderScope();
+        assertEquals(Set.of("1234"), scope.getProviderNames());
+        assertNull(scope.getModels());
+
+        scope = parse("(&(MODEL=42)(test.value>=42))").getProviderScope();
+        assertEquals(Set.of("42"), scope.getModels());
+        assertNull(scope.getProviderNames());
+
+        scope = parse("(|(PROVIDER=1234)(PROVIDER=5678))").getProviderScope();
+        assertEquals(Set.of("1234", "5678"), scope.getProviderNames());
+
+        // Only strict equalities give a scope
+        assertNull(parse("(PROVIDER=12*)").getProviderScope());
+        assertNull(parse("(PROVIDER~=1234)").getProviderScope());
+        assertNull(parse("(!(PROVIDER=1234))").getProviderScope());
+        assertNull(parse("(|(PROVIDER=1234)(test.value>=42))").getProviderScope());
+        // LDAP equality ignores case
+        assertNull(parse("(PROVIDER=provider1)").getProviderScope());
+    }
 }
@@ -18,8 +18,10 @@ import static org.eclipse.sensinact.filters.resource.selector.impl.ResourceSelec
 import static org.eclipse.sensinact.filters.resource.selector.impl.ResourceSelectorCriterion.never;
 
 import java.util.List;
+import java.util.Set;
 import java.util.function.Predicate;
 
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
@@ -92,6 +94,22 @@ public class ProviderSelectionCriterion {
         return ResourceSelectionCriterion.exactSelection(ps.provider());
     }
 
+    public String exactModelUri() {
+        return ResourceSelectionCriterion.exactSelection(ps.modelUri());
+    }
+
+    /**
+     * Returns the providers accepted by this selection, according to its exact
+     * selections
+     */
+    public ProviderScope providerScope() {
+        return ProviderScope.of(toSet(exactModelUri()), toSet(exactModel()), toSet(exactProvider()), null);
+    }
+
+    private static Set<String> toSet(String value) {
+        return value == null ? null : Set.of(value);
+    }
+
     public List<ResourceSelectionCriterion> getResources() {
         return resources;
     }
@@ -22,6 +22,7 @@ import java.util.stream.Stream;
 
 import org.eclipse.sensinact.core.notification.ResourceDataNotification;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
@@ -53,6 +54,8 @@ public class ResourceSelectorCriterion implements ICriterion {
 
     private final ResourceValueFilter valueFilter;
 
+    private final ProviderScope providerScope;
+
     public ResourceSelectorCriterion(ResourceSelector rs, boolean allowSingleLevelWildcards) {
         this.rs = rs;
         this.allowSingleLevelWildcards = allowSingleLevelWildcards;
@@ -83,6 +86,13 @@ public class ResourceSelectorCriterion implements ICriterion {
 
         this.valueFilter = (p, rl) -> providerSelections.stream()
                 .anyMatch(ps -> ps.resourceValueFilter().test(p, rl));
+
+        // Providers must match one of the selections
+        ProviderScope scope = providerSelections.isEmpty() ? null : providerSelections.get(0).providerScope();
+        for (int i = 1; scope != null && i < providerSelections.size(); i++) {
+            scope = ProviderScope.or(scope, providerSelections.get(i).providerScope());
+        }
+        this.providerScope = scope;
     }
 
     static <T> Predicate<T> fromSelection(Function<T,String> nameExtractor, Selection s) {
@@ -148,6 +158,11 @@ public class ResourceSelectorCriterion implements ICriterion {
         return valueFilter;
     }
 
+    @Override
+    public ProviderScope getProviderScope() {
+        return providerScope;
+    }
+
     @Override
     public ICriterion negate() {
 
@@ -32,6 +32,23 @@ public interface IQueryHandler {
      */
     AbstractResultDTO handleQuery(SensiNactSession userSession, AbstractQueryDTO query);
 
+    /**
+     * Handles the given query description in the scope of a user session,
+     * allowing large results to be computed while they are serialized.
+     *
+     * Errors detected before the serialization are handled as in
+     * {@link #handleQuery(SensiNactSession, AbstractQueryDTO)}. The returned
+     * result must be serialized while the user session is still valid.
+     *
+     * @param userSession Caller session
+     * @param query       Query description
+     * @return Query results, possibly a
+     *         {@link org.eclipse.sensinact.northbound.query.dto.result.StreamedResultDTO}
+     */
+    default AbstractResultDTO handleStreamingQuery(SensiNactSession userSession, AbstractQueryDTO query) {
+        return handleQuery(userSession, query);
+    }
+
     /**
      * Parses the given filter
      *
@@ -0,0 +1,89 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.northbound.query.dto.result;
+
+import java.io.IOException;
+
+import org.eclipse.sensinact.northbound.query.api.AbstractResultDTO;
+import org.eclipse.sensinact.northbound.query.api.EResultType;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * A result whose content is computed while it is serialized, to avoid holding
+ * large results in memory.
+ * <p>
+ * It is serialized with the same JSON structure as the materialized DTO of its
+ * result type. Errors raised while writing the content can't be reported in
+ * the result anymore: they interrupt its serialization.
+ */
+public class StreamedResultDTO extends AbstractResultDTO implements JsonSerializable {
+
+    /**
+     * Writes the result content
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+
+        /**
+         * Writes the value of the content field
+         *
+         * @param generator JSON generator
+         * @param provider  Serializer provider to use for DTOs
+         * @throws IOException Error computing or writing the content
+         */
+        void write(JsonGenerator generator, SerializerProvider provider) throws IOException;
+    }
+
+    private final String contentField;
+
+    private final ContentWriter writer;
+
+    /**
+     * @param type         Result type
+     * @param contentField Name of the field holding the streamed content
+     * @param writer       Content writer, called at each serialization
+     */
+    public StreamedResultDTO(final EResultType type, final String contentField, final ContentWriter writer) {
+        super(type);
+        this.contentField = contentField;
+        this.writer = writer;
+    }
+
+    @Override
+    public void serialize(final JsonGenerator gen, final SerializerProvider serializers) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", type.name());
+        gen.writeStringField("uri", uri);
+        if (requestId != null) {
+            gen.writeStringField("requestId", requestId);
+        }
+        gen.writeNumberField("statusCode", statusCode);
+        if (error != null) {
+            gen.writeStringField("error", error);
+        }
+        gen.writeFieldName(contentField);
+        writer.write(gen, serializers);
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(final JsonGenerator gen, final SerializerProvider serializers,
+            final TypeSerializer typeSer) throws IOException {
+        // The type field is already written with the other fields
+        serialize(gen, serializers);
+    }
+}
@@ -12,14 +12,20 @@
 **********************************************************************/
 package org.eclipse.sensinact.northbound.query.impl;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
@@ -30,10 +36,12 @@ import org.eclipse.sensinact.core.model.ResourceType;
 import org.eclipse.sensinact.core.model.SensinactModelManager;
 import org.eclipse.sensinact.core.model.ValueType;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
 import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
+import org.eclipse.sensinact.core.snapshot.SnapshotProjection;
 import org.eclipse.sensinact.core.twin.SensinactDigitalTwin;
 import org.eclipse.sensinact.core.twin.SensinactResource;
 import org.eclipse.sensinact.core.twin.TimedValue;
@@ -75,6 +83,7 @@ import org.eclipse.sensinact.northbound.query.dto.result.ShortResourceDescriptio
 import org.eclipse.sensinact.northbound.query.dto.result.SnapshotProviderDTO;
 import org.eclipse.sensinact.northbound.query.dto.result.SnapshotResourceDTO;
 import org.eclipse.sensinact.northbound.query.dto.result.SnapshotServiceDTO;
+import org.eclipse.sensinact.northbound.query.dto.result.StreamedResultDTO;
 import org.eclipse.sensinact.northbound.query.dto.result.TypedResponse;
 import org.eclipse.sensinact.northbound.session.ProviderDescription;
 import org.eclipse.sensinact.northbound.session.ResourceDescription;
@@ -104,6 +113,11 @@ public class QueryHandler implements IQueryHandler {
      */
     private static final String DEFAULT_FILTER_LANGUAGE = "ldap";
 
+    /**
+     * Number of providers snapshotted at once in streamed results
+     */
+    private static final int STREAM_CHUNK_SIZE = 100;
+
     /**
      * SensiNact gateway thread
      */
@@ -170,6 +184,46 @@ public class QueryHandler implements IQueryHandler {
             result = new ErrorResultDTO(t);
         }
 
+        return completeResult(query, result);
+    }
+
+    @Override
+    public AbstractResultDTO handleStreamingQuery(final SensiNactSession userSession, final AbstractQueryDTO query) {
+
+        AbstractResultDTO result;
+        try {
+            switch (query.operation) {
+            case DESCRIBE:
+                if (query.uri != null && !query.uri.isEmpty()) {
+                    return handleQuery(userSession, query);
+                }
+                result = streamProvidersDescription(userSession, (QueryDescribeDTO) query);
+                break;
+
+            case GET_SNAPSHOT:
+                result = streamSnapshot((QuerySnapshotDTO) query);
+                break;
+
+            default:
+                // Small results
+                return handleQuery(userSession, query);
+            }
+        } catch (Throwable t) {
+            logger.error("Error handling query {} on {}: {}", query.operation, query.uri, t.getMessage(), t);
+            result = new ErrorResultDTO(t);
+        }
+
+        return completeResult(query, result);
+    }
+
+    /**
+     * Sets the query details in its result
+     *
+     * @param query  Query description
+     * @param result Query result, can be null
+     * @return The result to return
+     */
+    private AbstractResultDTO completeResult(final AbstractQueryDTO query, AbstractResultDTO result) {
         if (result == null) {
             result = new ErrorResultDTO(204, "No content");
         }
@@ -190,18 +244,17 @@ public class QueryHandler implements IQueryHandler {
         if(filter == null || filter.isEmpty()) {
             return null;
         }
-        synchronized (filterHandlerRef) {
-                IFilterHandler filterHandler = filterHandlerRef.get();
-                if (filterHandler == null) {
-                    throw new StatusException(501, "No filter implementation available");
-                }
+        // Parsed filters are cached by the handler: don't serialize the lookups
+        final IFilterHandler filterHandler = filterHandlerRef.get();
+        if (filterHandler == null) {
+            throw new StatusException(501, "No filter implementation available");
+        }
 
-                try {
-                    return filterHandler.parseFilter(filterLanguage != null ? filterLanguage : DEFAULT_FILTER_LANGUAGE,
-                            filter);
-                } catch (Throwable t) {
-                    throw new StatusException(500, "Error parsing filter: " + t.getMessage());
-                }
+        try {
+            return filterHandler.parseFilter(filterLanguage != null ? filterLanguage : DEFAULT_FILTER_LANGUAGE,
+                    filter);
+        } catch (Throwable t) {
+            throw new StatusException(500, "Error parsing filter: " + t.getMessage());
         }
     }
 
@@ -377,21 +430,23 @@ public class QueryHandler implements IQueryHandler {
      * @return Matching snapshot
      * @throws StatusException Error parsing or executing filter
      */
-    private Collection<ProviderSnapshot> executeFilter(final String filter, final String filterLanguage)
-            throws StatusException {
-        return executeFilter(parseFilter(filter, filterLanguage));
+    private Collection<ProviderSnapshot> executeFilter(final String filter, final String filterLanguage,
+            final SnapshotProjection projection) throws StatusException {
+        return executeFilter(parseFilter(filter, filterLanguage), projection);
     }
 
     /**
      * Executes the given parser
      *
-     * @param filter Filter
+     * @param filter     Filter
+     * @param projection Parts of the resources to include in the snapshot
      * @return Matching snapshot
      * @throws StatusException Error parsing or executing filter
      */
-    private Collection<ProviderSnapshot> executeFilter(final ICriterion filter) throws StatusException {
+    private Collection<ProviderSnapshot> executeFilter(final ICriterion filter, final SnapshotProjection projection)
+            throws StatusException {
         try {
-            return FilterCommandHelper.executeFilter(gatewayThread, filter);
+            return FilterCommandHelper.executeFilter(gatewayThread, filter, projection);
         } catch (FilterException e) {
             throw new StatusException(500, "Error executing filter: " + e.getMessage());
         }
@@ -412,43 +467,176 @@ public class QueryHandler implements IQueryHandler {
         result.uri = "/";
         result.statusCode = 200;
 
+        final SnapshotProjection projection = query.includeMetadata ? SnapshotProjection.FULL
+                : SnapshotProjection.VALUES;
+        for (var filter : query.filter) {
+            ICriterion criterion = resourceSelectorFilterFactory.parseResourceSelector(filter);
+            for (var providerSnapshot : executeFilter(criterion, projection)) {
+                addSnapshotProvider(result.providers, providerSnapshot, query.includeMetadata);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Snapshot handling writing the providers by chunks while the result is
+     * serialized
+     *
+     * @param query Query description
+     * @return Result DTO
+     */
+    private AbstractResultDTO streamSnapshot(final QuerySnapshotDTO query) throws Exception {
+        final SnapshotProjection projection = query.includeMetadata ? SnapshotProjection.FULL
+                : SnapshotProjection.VALUES;
+
+        // Parse the filters and list the matching providers before returning, to
+        // report errors in the result
+        final List<ICriterion> criteria = new ArrayList<>();
+        final Set<String> names = new TreeSet<>();
         for (var filter : query.filter) {
             ICriterion criterion = resourceSelectorFilterFactory.parseResourceSelector(filter);
-            for (var providerSnapshot : executeFilter(criterion)) {
-                for (var serviceSnapshot : providerSnapshot.getServices()) {
-                    for (var resourceSnapshot : serviceSnapshot.getResources()) {
-                        if (resourceSnapshot.getValue() != null) {
-                            SnapshotProviderDTO providerDTO = result.providers
-                                    .computeIfAbsent(providerSnapshot.getName(), (name) -> {
-                                        var dto = new SnapshotProviderDTO();
-                                        dto.name = providerSnapshot.getName();
-                                        dto.modelName = providerSnapshot.getModelName();
-                                        dto.services = new HashMap<>();
-                                        return dto;
-                                    });
-                            SnapshotServiceDTO serviceDTO = providerDTO.services
-                                    .computeIfAbsent(serviceSnapshot.getName(), (name) -> {
-                                        var dto = new SnapshotServiceDTO();
-                                        dto.name = serviceSnapshot.getName();
-                                        dto.resources = new HashMap<>();
-                                        return dto;
-                                    });
-                            SnapshotResourceDTO resourceDTO = new SnapshotResourceDTO();
-                            resourceDTO.name = resourceSnapshot.getName();
-                            resourceDTO.type = resourceSnapshot.getType().getName();
-                            resourceDTO.timestamp = resourceSnapshot.getValue().getTimestamp().toEpochMilli();
-                            resourceDTO.value = resourceSnapshot.getValue().getValue();
-                            if (query.includeMetadata) {
-                                resourceDTO.attributes = generateMetadataDescriptions(resourceSnapshot.getMetadata());
+            criteria.add(criterion);
+            names.addAll(listProviderNames(criterion));
+        }
+
+        final StreamedResultDTO result = new StreamedResultDTO(EResultType.SNAPSHOT_RESPONSE, "providers",
+                (generator, serializers) -> {
+                    generator.writeStartObject();
+                    for (Set<String> chunk : chunks(names)) {
+                        final Map<String, SnapshotProviderDTO> providers = new TreeMap<>();
+                        for (ICriterion criterion : criteria) {
+                            for (var providerSnapshot : executeStreamedFilter(chunkCriterion(criterion, chunk),
+                                    projection)) {
+                                addSnapshotProvider(providers, providerSnapshot, query.includeMetadata);
                             }
-                            serviceDTO.resources.put(resourceSnapshot.getName(), resourceDTO);
+                        }
+
+                        for (Entry<String, SnapshotProviderDTO> entry : providers.entrySet()) {
+                            generator.writeFieldName(entry.getKey());
+                            serializers.defaultSerializeValue(entry.getValue(), generator);
                         }
                     }
+                    generator.writeEndObject();
+                });
+        result.uri = "/";
+        result.statusCode = 200;
+        return result;
+    }
+
+    /**
+     * Adds the resources with a value of the given provider snapshot to the
+     * snapshot result
+     *
+     * @param providers        Snapshot result providers
+     * @param providerSnapshot Provider snapshot
+     * @param includeMetadata  Flag to include resources metadata
+     */
+    private void addSnapshotProvider(final Map<String, SnapshotProviderDTO> providers,
+            final ProviderSnapshot providerSnapshot, final boolean includeMetadata) {
+        for (var serviceSnapshot : providerSnapshot.getServices()) {
+            for (var resourceSnapshot : serviceSnapshot.getResources()) {
+                if (resourceSnapshot.getValue() != null) {
+                    SnapshotProviderDTO providerDTO = providers.computeIfAbsent(providerSnapshot.getName(), (name) -> {
+                        var dto = new SnapshotProviderDTO();
+                        dto.name = providerSnapshot.getName();
+                        dto.modelName = providerSnapshot.getModelName();
+                        dto.services = new HashMap<>();
+                        return dto;
+                    });
+                    SnapshotServiceDTO serviceDTO = providerDTO.services.computeIfAbsent(serviceSnapshot.getName(),
+                            (name) -> {
+                                var dto = new SnapshotServiceDTO();
+                                dto.name = serviceSnapshot.getName();
+                                dto.resources = new HashMap<>();
+                                return dto;
+                            });
+                    SnapshotResourceDTO resourceDTO = new SnapshotResourceDTO();
+                    resourceDTO.name = resourceSnapshot.getName();
+                    resourceDTO.type = resourceSnapshot.getType().getName();
+                    resourceDTO.timestamp = resourceSnapshot.getValue().getTimestamp().toEpochMilli();
+                    resourceDTO.value = resourceSnapshot.getValue().getValue();
+                    if (includeMetadata) {
+                        resourceDTO.attributes = generateMetadataDescriptions(resourceSnapshot.getMetadata());
+                    }
+                    serviceDTO.resources.put(resourceSnapshot.getName(), resourceDTO);
                 }
             }
         }
+    }
 
-        return result;
+    /**
+     * Lists the names of the providers which may match the given filter. The
+     * resource value filter is ignored as it requires reading the values: it is
+     * applied when snapshotting the providers.
+     *
+     * @param criterion Filter
+     * @return The names of the candidate providers
+     * @throws StatusException Error executing filter
+     */
+    private Set<String> listProviderNames(final ICriterion criterion) throws StatusException {
+        final UpdatableCriterion structure = new UpdatableCriterion(criterion);
+        structure.setResourceValueFilter(null);
+        structure.setProviderScope(criterion.getProviderScope());
+        return executeFilter(structure, SnapshotProjection.STRUCTURE).stream().map(ProviderSnapshot::getName)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Restricts the given filter to a chunk of providers
+     *
+     * @param criterion Filter, can be null
+     * @param names     Names of the providers of the chunk
+     * @return The filter of the chunk
+     */
+    private ICriterion chunkCriterion(final ICriterion criterion, final Set<String> names) {
+        final UpdatableCriterion chunk;
+        final ProviderScope scope = ProviderScope.of(null, null, names, null);
+        if (criterion == null) {
+            chunk = new UpdatableCriterion(null, null, null, null, null);
+            chunk.setProviderScope(scope);
+        } else {
+            chunk = new UpdatableCriterion(criterion);
+            chunk.setProviderScope(ProviderScope.and(criterion.getProviderScope(), scope));
+        }
+        chunk.addProviderFilter(p -> names.contains(p.getName()));
+        return chunk;
+    }
+
+    /**
+     * Splits the given sorted provider names into chunks
+     *
+     * @param names Provider names
+     * @return The chunks of names
+     */
+    private List<Set<String>> chunks(final Set<String> names) {
+        final List<Set<String>> chunks = new ArrayList<>();
+        Set<String> chunk = null;
+        for (String name : names) {
+            if (chunk == null || chunk.size() == STREAM_CHUNK_SIZE) {
+                chunk = new HashSet<>();
+                chunks.add(chunk);
+            }
+            chunk.add(name);
+        }
+        return chunks;
+    }
+
+    /**
+     * Executes the filter of a chunk while a result is serialized
+     *
+     * @param filter     Filter
+     * @param projection Parts of the resources to include in the snapshot
+     * @return Matching snapshot
+     * @throws IOException Error executing filter
+     */
+    private Collection<ProviderSnapshot> executeStreamedFilter(final ICriterion filter,
+            final SnapshotProjection projection) throws IOException {
+        try {
+            return executeFilter(filter, projection);
+        } catch (StatusException e) {
+            throw new IOException(e.getMessage(), e);
+        }
     }
 
     /**
@@ -466,7 +654,7 @@ public class QueryHandler implements IQueryHandler {
             // Use a filter
             final Collection<ProviderSnapshot> filteredSnapshot;
             try {
-                filteredSnapshot = executeFilter(query.filter, query.filterLanguage);
+                filteredSnapshot = executeFilter(query.filter, query.filterLanguage, SnapshotProjection.STRUCTURE);
             } catch (StatusException e) {
                 return e.toErrorResult();
             }
@@ -503,14 +691,13 @@ public class QueryHandler implements IQueryHandler {
             // Use a filter
             final Collection<ProviderSnapshot> filteredSnapshot;
             final ICriterion parsedFilter;
-            synchronized (filterHandlerRef) {
-                parsedFilter = parseFilter(query.filter, query.filterLanguage);
-            }
+            parsedFilter = parseFilter(query.filter, query.filterLanguage);
 
             final UpdatableCriterion updatedCriterion = new UpdatableCriterion(parsedFilter);
             updatedCriterion.addProviderFilter(p -> providerId.equals(p.getName()));
             try {
-                filteredSnapshot = FilterCommandHelper.executeFilter(gatewayThread, updatedCriterion);
+                filteredSnapshot = FilterCommandHelper.executeFilter(gatewayThread, updatedCriterion,
+                        SnapshotProjection.STRUCTURE);
             } catch (final Throwable t) {
                 return new ErrorResultDTO(500, "Error executing filter: " + t.getMessage());
             }
@@ -561,14 +748,13 @@ public class QueryHandler implements IQueryHandler {
             // Use a filter
             final Collection<ProviderSnapshot> filteredSnapshot;
             final ICriterion parsedFilter;
-            synchronized (filterHandlerRef) {
-                parsedFilter = parseFilter(query.filter, query.filterLanguage);
-            }
+            parsedFilter = parseFilter(query.filter, query.filterLanguage);
 
             final UpdatableCriterion updatedCriterion = new UpdatableCriterion(parsedFilter);
             updatedCriterion.addProviderFilter(p -> providerId.equals(p.getName()));
             try {
-                filteredSnapshot = FilterCommandHelper.executeFilter(gatewayThread, updatedCriterion);
+                filteredSnapshot = FilterCommandHelper.executeFilter(gatewayThread, updatedCriterion,
+                        SnapshotProjection.STRUCTURE);
             } catch (final Throwable t) {
                 return new ErrorResultDTO(500, "Error executing filter: " + t.getMessage());
             }
@@ -714,13 +900,13 @@ public class QueryHandler implements IQueryHandler {
         if (query.filter != null && !query.filter.isBlank()) {
             // Use a filter
             try {
-                providers = executeFilter(query.filter, query.filterLanguage);
+                providers = executeFilter(query.filter, query.filterLanguage, SnapshotProjection.VALUES);
             } catch (StatusException e) {
                 return e.toErrorResult();
             }
         } else {
             // Direct listing
-            providers = userSession.filteredSnapshot(null);
+            providers = userSession.filteredSnapshot(null, SnapshotProjection.VALUES);
         }
 
         final ResultDescribeProvidersDTO result = new ResultDescribeProvidersDTO();
@@ -728,55 +914,136 @@ public class QueryHandler implements IQueryHandler {
         result.providers = new ArrayList<>(providers.size());
 
         for (final ProviderSnapshot provider : providers) {
-            provider.getServices().get(0).getResources().get(0).getValue();
+            result.providers.add(describeProviderSnapshot(provider, query.attrs));
+        }
 
-            final CompleteProviderDescriptionDTO providerDto = new CompleteProviderDescriptionDTO();
-            providerDto.name = provider.getName();
+        return result;
+    }
 
-            // Fill in resources from the admin service
-            ServiceSnapshot adminSvc = null;
-            for (ServiceSnapshot svcSnapshot : provider.getServices()) {
-                if ("admin".equals(svcSnapshot.getName())) {
-                    adminSvc = svcSnapshot;
-                    break;
+    /**
+     * Describes all providers, writing them by chunks while the result is
+     * serialized
+     *
+     * @param userSession Caller session
+     * @param query       The description query
+     * @return Result DTO
+     */
+    private AbstractResultDTO streamProvidersDescription(final SensiNactSession userSession,
+            final QueryDescribeDTO query) throws Exception {
+
+        // Parse the filter and list the matching providers before returning, to
+        // report errors in the result
+        final ICriterion criterion;
+        final Set<String> names = new TreeSet<>();
+        if (query.filter != null && !query.filter.isBlank()) {
+            // Use a filter
+            try {
+                criterion = parseFilter(query.filter, query.filterLanguage);
+                if (criterion != null) {
+                    names.addAll(listProviderNames(criterion));
                 }
+            } catch (StatusException e) {
+                return e.toErrorResult();
             }
+        } else {
+            // Direct listing
+            criterion = null;
+        }
 
-            if (adminSvc != null) {
-                TimedValue<?> value;
-                for (ResourceSnapshot rcSnapshot : adminSvc.getResources()) {
-                    switch (rcSnapshot.getName()) {
-                    case "icon":
-                        if (query.attrs.contains("icon") && (value = rcSnapshot.getValue()) != null) {
-                            providerDto.icon = (String) value.getValue();
-                        }
-                        break;
+        if (criterion == null) {
+            userSession.filteredSnapshot(null, SnapshotProjection.STRUCTURE).stream().map(ProviderSnapshot::getName)
+                    .forEach(names::add);
+        }
 
-                    case "friendlyName":
-                        if (query.attrs.contains("friendlyName") && (value = rcSnapshot.getValue()) != null) {
-                            providerDto.friendlyName = (String) value.getValue();
+        final StreamedResultDTO result = new StreamedResultDTO(EResultType.COMPLETE_LIST, "providers",
+                (generator, serializers) -> {
+                    generator.writeStartArray();
+                    for (Set<String> chunk : chunks(names)) {
+                        final Collection<ProviderSnapshot> providers;
+                        if (criterion != null) {
+                            providers = executeStreamedFilter(chunkCriterion(criterion, chunk),
+                                    SnapshotProjection.VALUES);
+                        } else {
+                            providers = userSession.filteredSnapshot(chunkCriterion(null, chunk),
+                                    SnapshotProjection.VALUES);
                         }
-                        break;
 
-                    case "location":
-                        if ((query.attrs.isEmpty() || query.attrs.contains("location"))
-                                && (value = rcSnapshot.getValue()) != null) {
-                            providerDto.location = (GeoJsonObject) value.getValue();
+                        for (final ProviderSnapshot provider : sortByName(providers)) {
+                            serializers.defaultSerializeValue(describeProviderSnapshot(provider, query.attrs),
+                                    generator);
                         }
-                        break;
+                    }
+                    generator.writeEndArray();
+                });
+        result.statusCode = 200;
+        return result;
+    }
 
-                    default:
-                        break;
+    /**
+     * Sorts the given providers snapshots by name
+     *
+     * @param providers Provider snapshots
+     * @return The sorted snapshots
+     */
+    private List<ProviderSnapshot> sortByName(final Collection<ProviderSnapshot> providers) {
+        final List<ProviderSnapshot> sorted = new ArrayList<>(providers);
+        sorted.sort(Comparator.comparing(ProviderSnapshot::getName));
+        return sorted;
+    }
+
+    /**
+     * Generates the complete description of a provider
+     *
+     * @param provider Provider snapshot
+     * @param attrs    Admin attributes to include
+     * @return Complete description of the provider
+     */
+    private CompleteProviderDescriptionDTO describeProviderSnapshot(final ProviderSnapshot provider,
+            final List<String> attrs) {
+        final CompleteProviderDescriptionDTO providerDto = new CompleteProviderDescriptionDTO();
+        providerDto.name = provider.getName();
+
+        // Fill in resources from the admin service
+        ServiceSnapshot adminSvc = null;
+        for (ServiceSnapshot svcSnapshot : provider.getServices()) {
+            if ("admin".equals(svcSnapshot.getName())) {
+                adminSvc = svcSnapshot;
+                break;
+            }
+        }
+
+        if (adminSvc != null) {
+            TimedValue<?> value;
+            for (ResourceSnapshot rcSnapshot : adminSvc.getResources()) {
+                switch (rcSnapshot.getName()) {
+                case "icon":
+                    if (attrs.contains("icon") && (value = rcSnapshot.getValue()) != null) {
+                        providerDto.icon = (String) value.getValue();
                     }
+                    break;
+
+                case "friendlyName":
+                    if (attrs.contains("friendlyName") && (value = rcSnapshot.getValue()) != null) {
+                        providerDto.friendlyName = (String) value.getValue();
+                    }
+                    break;
+
+                case "location":
+                    if ((attrs.isEmpty() || attrs.contains("location"))
+                            && (value = rcSnapshot.getValue()) != null) {
+                        providerDto.location = (GeoJsonObject) value.getValue();
+                    }
+                    break;
+
+                default:
+                    break;
                 }
             }
-
-            providerDto.services = provider.getServices().stream().map(this::completeServiceDescription)
-                    .collect(Collectors.toList());
-            result.providers.add(providerDto);
         }
 
-        return result;
+        providerDto.services = provider.getServices().stream().map(this::completeServiceDescription)
+                .collect(Collectors.toList());
+        return providerDto;
     }
 
     /**
@@ -15,6 +15,7 @@ package org.eclipse.sensinact.northbound.query.impl;
 import java.util.function.Predicate;
 
 import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
@@ -51,6 +52,11 @@ public class UpdatableCriterion implements ICriterion {
      */
     private ResourceValueFilter resourceValueFilter;
 
+    /**
+     * Providers the filters can accept
+     */
+    private ProviderScope providerScope;
+
     /**
      * @param locationFilter      Location filter
      * @param providerFilter      Provider filter
@@ -93,6 +99,11 @@ public class UpdatableCriterion implements ICriterion {
         return resourceValueFilter;
     }
 
+    @Override
+    public ProviderScope getProviderScope() {
+        return providerScope;
+    }
+
     /**
      * @param source Parent criterion
      */
@@ -136,6 +147,14 @@ public class UpdatableCriterion implements ICriterion {
         this.resourceValueFilter = resourceValueFilter;
     }
 
+    /**
+     * @param providerScope The providers the filters can accept, null if not
+     *                      constrained
+     */
+    public void setProviderScope(final ProviderScope providerScope) {
+        this.providerScope = providerScope;
+    }
+
     /**
      * @param locationFilter the location filter to add (AND operator)
      */
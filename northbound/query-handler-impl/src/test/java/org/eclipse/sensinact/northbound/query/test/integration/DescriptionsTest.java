@@ -50,6 +50,9 @@ import org.osgi.test.common.annotation.InjectService;
 import org.osgi.test.common.annotation.Property;
 import org.osgi.test.common.annotation.config.WithConfiguration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
 @Requirement(namespace = ServiceNamespace.SERVICE_NAMESPACE, filter = "(objectClass=org.eclipse.sensinact.northbound.session.SensiNactSessionManager)")
 @WithConfiguration(pid = "sensinact.session.manager", properties = @Property(key = "auth.policy", value = "ALLOW_ALL"))
 public class DescriptionsTest {
@@ -127,6 +130,38 @@ public class DescriptionsTest {
         assertTrue(gotService, "Test service not found");
     }
 
+    /**
+     * Complete system description written while serialized
+     */
+    @Test
+    void streamedCompleteList() throws Exception {
+        // Register the resources
+        push.pushUpdate(utils.makeDto(PROVIDER, SERVICE, RESOURCE, VALUE, Integer.class)).getValue();
+        push.pushUpdate(utils.makeDto(PROVIDER_2, SERVICE, RESOURCE, VALUE, Integer.class)).getValue();
+
+        final QueryDescribeDTO query = new QueryDescribeDTO();
+        query.uri = new SensinactPath();
+
+        final AbstractResultDTO rawResult = handler.handleStreamingQuery(session, query);
+        utils.assertResultSuccess(rawResult, EResultType.COMPLETE_LIST);
+
+        // Same content as the complete result, sorted by name
+        final ObjectMapper mapper = JsonMapper.builder().build();
+        final ResultDescribeProvidersDTO result = (ResultDescribeProvidersDTO) mapper
+                .readValue(mapper.writeValueAsString(rawResult), AbstractResultDTO.class);
+        final ResultDescribeProvidersDTO expected = (ResultDescribeProvidersDTO) handler.handleQuery(session, query);
+
+        final List<String> names = result.providers.stream().map(p -> p.name).collect(Collectors.toList());
+        assertEquals(expected.providers.stream().map(p -> p.name).sorted().collect(Collectors.toList()), names);
+        assertTrue(names.contains(PROVIDER), "Provider not found");
+        assertTrue(names.contains(PROVIDER_2), "Second provider not found");
+
+        final CompleteProviderDescriptionDTO providerDto = result.providers.stream()
+                .filter((p) -> PROVIDER.equals(p.name)).findFirst().get();
+        assertEquals(Set.of("admin", SERVICE),
+                providerDto.services.stream().map(s -> s.name).collect(Collectors.toSet()));
+    }
+
     /**
      * List of names of providers
      */
@@ -17,9 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Predicate;
 
-import org.eclipse.sensinact.core.notification.ResourceNotification;
 import org.eclipse.sensinact.core.notification.ClientDataListener;
 import org.eclipse.sensinact.core.notification.ClientLifecycleListener;
 import org.eclipse.sensinact.filters.resource.selector.api.ResourceSelector;
@@ -94,6 +92,17 @@ public class RestNorthbound implements IRestNorthbound {
         return getQueryHandler().handleQuery(getSession(), query);
     }
 
+    /**
+     * Forwards a query with a potentially large result to the query handler,
+     * which can compute it while it is written to the response
+     *
+     * @param query Query to forwards to the handler
+     * @return
+     */
+    private AbstractResultDTO handleStreamingQuery(final AbstractQueryDTO query) {
+        return getQueryHandler().handleStreamingQuery(getSession(), query);
+    }
+
     /**
      * Injects the query filter in a description query
      *
@@ -135,7 +144,7 @@ public class RestNorthbound implements IRestNorthbound {
         query.attrs = uriInfo.getQueryParameters().getOrDefault("attrs", List.of());
         query.uri = new SensinactPath();
         injectFilter(query);
-        return handleQuery(query);
+        return handleStreamingQuery(query);
     }
 
     @Override
@@ -201,7 +210,7 @@ public class RestNorthbound implements IRestNorthbound {
         query.uri = new SensinactPath();
         query.filter = filter;
         query.includeMetadata = includeMetadata;
-        return handleQuery(query);
+        return handleStreamingQuery(query);
     }
 
     /**
@@ -316,10 +325,6 @@ public class RestNorthbound implements IRestNorthbound {
         final SensiNactSession session = getSession();
         final AtomicReference<String> listenerId = new AtomicReference<>();
 
-        // TODO replace this with a single-level wildcard when typed events permits it
-        Predicate<ResourceNotification> filter = e -> providerId.equals(e.provider()) &&
-                serviceName.equals(e.service()) && rcName.equals(e.resource());
-
         final ClientDataListener cdl = (t, e) -> {
             if (eventSink.isClosed()) {
                 // Event sink is already closed: remove listener
@@ -327,10 +332,8 @@ public class RestNorthbound implements IRestNorthbound {
                 return;
             }
 
-            if(filter.test(e)) {
-                eventSink.send(sse.newEventBuilder().name("data").mediaType(MediaType.APPLICATION_JSON_TYPE)
-                        .data(new ResourceDataNotificationDTO(e)).build());
-            }
+            eventSink.send(sse.newEventBuilder().name("data").mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(new ResourceDataNotificationDTO(e)).build());
         };
 
         final ClientLifecycleListener cll = (t, e) -> {
@@ -339,14 +342,12 @@ public class RestNorthbound implements IRestNorthbound {
                 session.removeListener(listenerId.get());
                 return;
             }
-            if(filter.test(e)) {
-                eventSink.send(sse.newEventBuilder().name("lifecycle").mediaType(MediaType.APPLICATION_JSON_TYPE)
-                        .data(new ResourceLifecycleNotificationDTO(e)).build());
-            }
+            eventSink.send(sse.newEventBuilder().name("lifecycle").mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(new ResourceLifecycleNotificationDTO(e)).build());
         };
 
-        // Register the listener
-        // TODO use single level wildcard final String topic = String.join("/", providerId, serviceName, rcName);
-        listenerId.set(session.addListener(List.of("*"), cdl, null, cll, null));
+        // Register the listener on the resource topics only
+        final String topic = SensiNactSession.resourceTopic(providerId, serviceName, rcName);
+        listenerId.set(session.addListener(List.of(topic), cdl, null, cll, null));
     }
 }
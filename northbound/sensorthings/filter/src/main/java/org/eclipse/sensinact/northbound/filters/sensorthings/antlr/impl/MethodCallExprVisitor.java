@@ -92,8 +92,8 @@ public class MethodCallExprVisitor extends ODataFilterBaseVisitor<Function<Resou
             return x -> Instant.MAX;
 
         case ODataFilterParser.RULE_nowmethodcallexpr:
-            final Instant parseTime = Instant.now();
-            return x -> parseTime;
+            // Resolved on evaluation: parsed filters are cached and reused
+            return x -> Instant.now();
 
         // Math operations
         case ODataFilterParser.RULE_roundmethodcallexpr:
@@ -0,0 +1,141 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl;
+
+import java.util.Set;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
+import org.eclipse.sensinact.northbound.filters.sensorthings.EFilterContext;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser.BoolcommonexprContext;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser.CommonexprContext;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser.PrimitiveliteralContext;
+
+/**
+ * Extracts the names of the providers a filter can accept from its
+ * <code>id eq '...'</code> comparisons. Any other expression leaves the scope
+ * unconstrained.
+ */
+public class ProviderScopeVisitor {
+
+    private final EFilterContext context;
+
+    public ProviderScopeVisitor(final EFilterContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns the scope of the given boolean expression, null if it is not
+     * constrained
+     */
+    public ProviderScope visitBoolcommonexpr(final BoolcommonexprContext ctx) {
+        final ParserRuleContext firstElement = ctx.getChild(ParserRuleContext.class, 0);
+        if (firstElement == null) {
+            return null;
+        }
+
+        final ProviderScope scope;
+        switch (firstElement.getRuleIndex()) {
+        case ODataFilterParser.RULE_commonexpr:
+            scope = idEquality(ctx);
+            break;
+
+        case ODataFilterParser.RULE_boolparenexpr:
+            scope = visitBoolcommonexpr(ctx.boolparenexpr().boolcommonexpr());
+            break;
+
+        default:
+            scope = null;
+            break;
+        }
+
+        // Combine the same way as the predicate
+        if (ctx.andexpr() != null) {
+            return ProviderScope.and(scope, visitBoolcommonexpr(ctx.andexpr().boolcommonexpr()));
+        } else if (ctx.orexpr() != null) {
+            return scope == null ? null : ProviderScope.or(scope, visitBoolcommonexpr(ctx.orexpr().boolcommonexpr()));
+        } else {
+            return scope;
+        }
+    }
+
+    private ProviderScope idEquality(final BoolcommonexprContext ctx) {
+        if (ctx.eqexpr() == null) {
+            return null;
+        }
+
+        final CommonexprContext left = ctx.commonexpr();
+        final CommonexprContext right = ctx.eqexpr().commonexpr();
+        String id = null;
+        if (isId(left)) {
+            id = stringLiteral(right);
+        } else if (isId(right)) {
+            id = stringLiteral(left);
+        }
+
+        final String providerName = id == null ? null : providerName(id);
+        return providerName == null ? null : ProviderScope.of(null, null, Set.of(providerName), null);
+    }
+
+    private boolean isId(final CommonexprContext ctx) {
+        return ctx.getChildCount() == 1 && ctx.firstmemberexpr() != null
+                && "id".equalsIgnoreCase(ctx.firstmemberexpr().getText());
+    }
+
+    private String stringLiteral(final CommonexprContext ctx) {
+        if (ctx.getChildCount() != 1 || ctx.primitiveliteral() == null) {
+            return null;
+        }
+
+        final PrimitiveliteralContext literal = ctx.primitiveliteral();
+        final ParserRuleContext value = literal.getChild(ParserRuleContext.class, 0);
+        if (value == null || value.getRuleIndex() != ODataFilterParser.RULE_string_1) {
+            return null;
+        }
+        return new StringVisitor().visit(value);
+    }
+
+    /**
+     * Extracts the provider name from an entity ID of the filter context
+     */
+    private String providerName(final String id) {
+        switch (context) {
+        case THINGS:
+        case LOCATIONS:
+        case HISTORICAL_LOCATIONS:
+        case FEATURES_OF_INTEREST:
+            // Provider
+            return id;
+
+        case DATASTREAMS:
+        case SENSORS:
+        case OBSERVED_PROPERTIES:
+            // Provider~Service~Resource
+            return idPrefix(id, 3);
+
+        case OBSERVATIONS:
+            // Provider~Service~Resource~Timestamp
+            return idPrefix(id, 4);
+
+        default:
+            return null;
+        }
+    }
+
+    private String idPrefix(final String id, final int nbParts) {
+        final String[] parts = id.split("~", -1);
+        // Ignore ambiguous IDs
+        return parts.length == nbParts ? parts[0] : null;
+    }
+}
@@ -16,6 +16,7 @@ import java.util.List;
 import java.util.function.Predicate;
 
 import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
@@ -28,11 +29,18 @@ public class SensorthingsCriterion implements ICriterion {
 
     private final EFilterContext context;
     private final Predicate<ResourceValueFilterInputHolder> predicate;
+    private final ProviderScope scope;
 
     public SensorthingsCriterion(final EFilterContext context,
             final Predicate<ResourceValueFilterInputHolder> predicate) {
+        this(context, predicate, null);
+    }
+
+    public SensorthingsCriterion(final EFilterContext context,
+            final Predicate<ResourceValueFilterInputHolder> predicate, final ProviderScope scope) {
         this.context = context;
         this.predicate = predicate;
+        this.scope = scope;
     }
 
     @Override
@@ -55,6 +63,11 @@ public class SensorthingsCriterion implements ICriterion {
         return null;
     }
 
+    @Override
+    public ProviderScope getProviderScope() {
+        return scope;
+    }
+
     @Override
     public ResourceValueFilter getResourceValueFilter() {
         switch (context) {
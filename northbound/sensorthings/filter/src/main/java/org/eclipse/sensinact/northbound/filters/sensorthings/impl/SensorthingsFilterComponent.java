@@ -21,7 +21,10 @@ import java.util.function.Predicate;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
+import org.eclipse.sensinact.filters.api.CriterionCache;
 import org.eclipse.sensinact.filters.api.FilterParserException;
 import org.eclipse.sensinact.filters.api.IFilterParser;
 import org.eclipse.sensinact.filters.propertytypes.FiltersSupported;
@@ -32,13 +35,34 @@ import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterLe
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser;
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser.BoolcommonexprContext;
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl.BoolCommonExprVisitor;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl.ProviderScopeVisitor;
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl.ResourceValueFilterInputHolder;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 
 @Component
 @FiltersSupported({OGC_FILTER, SENSORTHINGS_FILTER})
 public class SensorthingsFilterComponent implements IFilterParser, ISensorthingsFilterParser {
 
+    /**
+     * Counters of parsed filters cache hits and misses
+     */
+    static final String METRIC_CACHE = "sensinact.sensorthings.filters.cache";
+
+    private record CacheKey(String query, EFilterContext context) {
+    }
+
+    private final CriterionCache cache = new CriterionCache(CriterionCache.DEFAULT_SIZE, METRIC_CACHE);
+
+    @Reference
+    private IMetricsManager metrics;
+
+    @Activate
+    void activate() {
+        cache.setMetrics(metrics);
+    }
+
     @Override
     public ICriterion parseFilter(String query, String queryLanguage, Map<String, Object> parameters)
             throws FilterParserException {
@@ -61,7 +85,13 @@ public class SensorthingsFilterComponent implements IFilterParser, ISensorthings
 
     @Override
     public ICriterion parseFilter(String query, EFilterContext filterContext) throws FilterParserException {
+        // Dashboards repeat the same filters: only pay the ANTLR parsing once
+        return cache.get(new CacheKey(query, filterContext), () -> doParseFilter(query, filterContext));
+    }
+
+    private ICriterion doParseFilter(String query, EFilterContext filterContext) throws FilterParserException {
         final Predicate<ResourceValueFilterInputHolder> predicate;
+        final ProviderScope scope;
 
         // Parse the filter
         try {
@@ -72,11 +102,12 @@ public class SensorthingsFilterComponent implements IFilterParser, ISensorthings
             final BoolcommonexprContext parsedContext = parser.boolcommonexpr();
             final BoolCommonExprVisitor visitor = new BoolCommonExprVisitor(parser);
             predicate = visitor.visit(parsedContext);
+            scope = new ProviderScopeVisitor(filterContext).visitBoolcommonexpr(parsedContext);
         } catch (Exception e) {
             throw new FilterParserException("Error parsing SensorThings query '" + query + "': " + e, e);
         }
 
         // Return the ICriterion
-        return new SensorthingsCriterion(filterContext, predicate);
+        return new SensorthingsCriterion(filterContext, predicate, scope);
     }
 }
@@ -13,18 +13,27 @@
 package org.eclipse.sensinact.northbound.filters.sensorthings;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.function.Predicate;
 
 import org.antlr.v4.runtime.ANTLRInputStream;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
@@ -36,7 +45,9 @@ import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterLe
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser;
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.ODataFilterParser.BoolcommonexprContext;
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl.BoolCommonExprVisitor;
+import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl.ProviderScopeVisitor;
 import org.eclipse.sensinact.northbound.filters.sensorthings.antlr.impl.ResourceValueFilterInputHolder;
+import org.eclipse.sensinact.northbound.filters.sensorthings.impl.SensorthingsFilterComponent;
 import org.junit.jupiter.api.Test;
 
 public class OGCParserTest {
@@ -313,6 +324,29 @@ public class OGCParserTest {
         assertQueries(expectations, holder);
     }
 
+    @Test
+    void testNowOfCachedFilter() throws Exception {
+        final SensorthingsFilterComponent component = new SensorthingsFilterComponent();
+        final String query = "resultTime le now() and resultTime gt now() sub duration'PT1M'";
+        final ICriterion criterion = component.parseFilter(query, EFilterContext.OBSERVATIONS);
+
+        ProviderSnapshot provider = RcUtils.makeProvider("provider");
+        ServiceSnapshot svc = RcUtils.addService(provider, "service");
+        // Value set after the filter was parsed
+        Thread.sleep(50);
+        ResourceSnapshot rc = RcUtils.addResource(svc, "value", 5.0, Instant.now());
+        Thread.sleep(50);
+
+        // Cached filter, which must use the current time
+        final ICriterion cached = component.parseFilter(query, EFilterContext.OBSERVATIONS);
+        assertSame(criterion, cached);
+        assertTrue(cached.getResourceValueFilter().test(provider, List.of(rc)));
+
+        // Value too old
+        rc = RcUtils.addResource(svc, "old", 5.0, Instant.now().minus(Duration.ofMinutes(2)));
+        assertFalse(cached.getResourceValueFilter().test(provider, List.of(rc)));
+    }
+
     @Test
     void testThingsComplex() throws Exception {
         final Map<String, Boolean> expectations = new LinkedHashMap<>();
@@ -329,4 +363,31 @@ public class OGCParserTest {
                 List.of(rc));
         assertQueries(expectations, holder);
     }
+
+    private ProviderScope parseScope(final EFilterContext filterContext, final String query) {
+        ANTLRInputStream inStream = new ANTLRInputStream(query);
+        ODataFilterLexer markupLexer = new ODataFilterLexer(inStream);
+        CommonTokenStream commonTokenStream = new CommonTokenStream(markupLexer);
+        ODataFilterParser parser = new ODataFilterParser(commonTokenStream);
+        return new ProviderScopeVisitor(filterContext).visitBoolcommonexpr(parser.boolcommonexpr());
+    }
+
+    @Test
+    void testProviderScope() throws Exception {
+        assertEquals(Set.of("p1"), parseScope(EFilterContext.THINGS, "id eq 'p1'").getProviderNames());
+        assertEquals(Set.of("p1"), parseScope(EFilterContext.THINGS, "'p1' eq id").getProviderNames());
+        assertEquals(Set.of("p1"),
+                parseScope(EFilterContext.THINGS, "id eq 'p1' and name eq 'test'").getProviderNames());
+        assertEquals(Set.of("p1", "p2"),
+                parseScope(EFilterContext.THINGS, "(id eq 'p1' or id eq 'p2')").getProviderNames());
+        assertEquals(Set.of("p1"), parseScope(EFilterContext.DATASTREAMS, "id eq 'p1~svc~rc'").getProviderNames());
+
+        // Unconstrained scopes
+        assertNull(parseScope(EFilterContext.THINGS, "id eq 'p1' or name eq 'test'"));
+        assertNull(parseScope(EFilterContext.THINGS, "not id eq 'p1'"));
+        assertNull(parseScope(EFilterContext.THINGS, "id ne 'p1'"));
+        assertNull(parseScope(EFilterContext.THINGS, "Datastreams/id eq 'p1~svc~rc'"));
+        assertNull(parseScope(EFilterContext.DATASTREAMS, "id eq 'p1'"));
+    }
 }
+
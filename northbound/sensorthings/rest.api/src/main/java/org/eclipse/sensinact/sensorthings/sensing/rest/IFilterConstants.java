@@ -24,4 +24,37 @@ public interface IFilterConstants {
      */
     String EXPAND_SETTINGS_STRING = "sensinact.sensorthings.expand";
 
+    /**
+     * Request context property holding the $top value, as an Integer
+     */
+    String PROP_TOP = "org.eclipse.sensinact.sensorthings.sensing.rest.top";
+
+    /**
+     * Request context property holding the $skip value, as an Integer
+     */
+    String PROP_SKIP = "org.eclipse.sensinact.sensorthings.sensing.rest.skip";
+
+    /**
+     * Request context property holding the $orderby comparator of the result
+     * DTOs
+     */
+    String PROP_ORDER_BY = "org.eclipse.sensinact.sensorthings.sensing.rest.orderby";
+
+    /**
+     * Request context property holding the $orderby clauses, as a list of
+     * {@link OrderByClause}
+     */
+    String PROP_ORDER_BY_CLAUSES = "org.eclipse.sensinact.sensorthings.sensing.rest.orderby.clauses";
+
+    /**
+     * Request context property holding the $count flag, as a Boolean
+     */
+    String PROP_COUNT = "org.eclipse.sensinact.sensorthings.sensing.rest.count";
+
+    /**
+     * Request context property set to {@link Boolean#TRUE} by resources which
+     * already applied $orderby, $skip, $top and $count to their result list
+     */
+    String PROP_PAGINATION_APPLIED = "sensinact.sensorthings.pagination.applied";
+
 }
@@ -0,0 +1,30 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.sensorthings.sensing.rest;
+
+/**
+ * A clause of the $orderby query parameter
+ *
+ * @param path      Path of the sort property, e.g. <code>id</code> or
+ *                  <code>Datastream/name</code>
+ * @param ascending Flag to sort in ascending order
+ */
+public record OrderByClause(String path, boolean ascending) {
+
+    /**
+     * Checks if this clause sorts on the entity ID
+     */
+    public boolean isId() {
+        return "id".equals(path);
+    }
+}
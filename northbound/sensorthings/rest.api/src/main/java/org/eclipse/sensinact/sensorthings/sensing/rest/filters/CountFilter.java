@@ -13,6 +13,7 @@
 package org.eclipse.sensinact.sensorthings.sensing.rest.filters;
 
 import static jakarta.ws.rs.Priorities.ENTITY_CODER;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_COUNT;
 
 import java.io.IOException;
 import java.util.List;
@@ -33,12 +34,10 @@ import jakarta.ws.rs.core.Response.Status;
 @Priority(ENTITY_CODER + 4)
 public class CountFilter implements ContainerRequestFilter, ContainerResponseFilter {
 
-    private static final String COUNT_PROP = "org.eclipse.sensinact.sensorthings.sensing.rest.count";
-
     @Override
     public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
             throws IOException {
-        Boolean addCount = (Boolean) requestContext.getProperty(COUNT_PROP);
+        Boolean addCount = (Boolean) requestContext.getProperty(PROP_COUNT);
 
         addCount = addCount == null ? Boolean.FALSE : addCount;
 
@@ -70,7 +69,7 @@ public class CountFilter implements ContainerRequestFilter, ContainerResponseFil
                         .entity("The $count parameter must be \"true\" or \"false\"").build());
             }
         }
-        requestContext.setProperty(COUNT_PROP, addCount);
+        requestContext.setProperty(PROP_COUNT, addCount);
     }
 
 }
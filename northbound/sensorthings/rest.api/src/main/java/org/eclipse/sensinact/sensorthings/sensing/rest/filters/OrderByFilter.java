@@ -13,15 +13,20 @@
 package org.eclipse.sensinact.sensorthings.sensing.rest.filters;
 
 import static jakarta.ws.rs.Priorities.ENTITY_CODER;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_ORDER_BY;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_ORDER_BY_CLAUSES;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_PAGINATION_APPLIED;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.eclipse.sensinact.sensorthings.sensing.dto.ResultList;
 import org.eclipse.sensinact.sensorthings.sensing.dto.Self;
+import org.eclipse.sensinact.sensorthings.sensing.rest.OrderByClause;
 
 import jakarta.annotation.Priority;
 import jakarta.ws.rs.BadRequestException;
@@ -38,14 +43,12 @@ import jakarta.ws.rs.core.Response.Status;
 @Priority(ENTITY_CODER + 3)
 public class OrderByFilter implements ContainerRequestFilter, ContainerResponseFilter {
 
-    private static final String ORDERBY_PROP = "org.eclipse.sensinact.sensorthings.sensing.rest.orderby";
-
     @Override
     public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
             throws IOException {
         @SuppressWarnings("unchecked")
-        Comparator<Object> comparator = (Comparator<Object>) requestContext.getProperty(ORDERBY_PROP);
-        if (comparator == null) {
+        Comparator<Object> comparator = (Comparator<Object>) requestContext.getProperty(PROP_ORDER_BY);
+        if (comparator == null || Boolean.TRUE.equals(requestContext.getProperty(PROP_PAGINATION_APPLIED))) {
             return;
         }
 
@@ -64,12 +67,19 @@ public class OrderByFilter implements ContainerRequestFilter, ContainerResponseF
         List<String> list = requestContext.getUriInfo().getQueryParameters().getOrDefault("$orderby", List.of());
 
         try {
-            Comparator<Object> comparator = list.stream()
+            List<OrderByClause> clauses = list.stream()
                     .flatMap(s -> Arrays.stream(s.split(",")))
+                    .map(this::toClause)
+                    .collect(Collectors.toList());
+            if (clauses.isEmpty()) {
+                clauses = List.of(new OrderByClause("id", true));
+            }
+            Comparator<Object> comparator = clauses.stream()
                     .map(this::toComparator)
                     .reduce(Comparator::thenComparing)
-                    .orElseGet(() -> toComparator("id"));
-            requestContext.setProperty(ORDERBY_PROP, comparator);
+                    .get();
+            requestContext.setProperty(PROP_ORDER_BY_CLAUSES, List.copyOf(clauses));
+            requestContext.setProperty(PROP_ORDER_BY, comparator);
         } catch (Exception e) {
             requestContext.abortWith(Response
                     .status(Status.BAD_REQUEST)
@@ -80,7 +90,7 @@ public class OrderByFilter implements ContainerRequestFilter, ContainerResponseF
 
     private static final Comparator<Comparable<Object>> BASE_COMPARATOR = Comparator.nullsFirst(Comparator.naturalOrder());
 
-    private Comparator<Object> toComparator(String s) {
+    private OrderByClause toClause(String s) {
 
         String clause = s.trim();
         boolean ascending;
@@ -94,12 +104,16 @@ public class OrderByFilter implements ContainerRequestFilter, ContainerResponseF
             ascending = true;
         }
 
-        final String[] path = clause.split("/");
+        return new OrderByClause(clause, ascending);
+    }
+
+    private Comparator<Object> toComparator(OrderByClause clause) {
+        final String[] path = clause.path().split("/");
         Comparator<Object> result = (a,b) -> {
             return BASE_COMPARATOR.compare(get(a, path), get(b,path));
         };
 
-        return ascending ? result : result.reversed();
+        return clause.ascending() ? result : result.reversed();
     }
 
     @SuppressWarnings("unchecked")
@@ -13,6 +13,9 @@
 package org.eclipse.sensinact.sensorthings.sensing.rest.filters;
 
 import static jakarta.ws.rs.Priorities.ENTITY_CODER;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_PAGINATION_APPLIED;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_SKIP;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_TOP;
 
 import java.io.IOException;
 import java.util.List;
@@ -37,16 +40,14 @@ import jakarta.ws.rs.core.Response.Status;
 @Priority(ENTITY_CODER + 1)
 public class TopFilter implements ContainerRequestFilter, ContainerResponseFilter {
 
-    private static final String TOP_PROP = "org.eclipse.sensinact.sensorthings.sensing.rest.top";
-
     @Context
     ResourceInfo resourceInfo;
 
     @Override
     public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
             throws IOException {
-        Integer top = (Integer) requestContext.getProperty(TOP_PROP);
-        if (top == null) {
+        Integer top = (Integer) requestContext.getProperty(PROP_TOP);
+        if (top == null || Boolean.TRUE.equals(requestContext.getProperty(PROP_PAGINATION_APPLIED))) {
             return;
         }
 
@@ -57,7 +58,7 @@ public class TopFilter implements ContainerRequestFilter, ContainerResponseFilte
             int size = resultList.value.size();
             resultList.value = resultList.value.subList(0, Math.min(top, size));
 
-            Integer skip = (Integer) requestContext.getProperty(SkipFilter.SKIP_PROP);
+            Integer skip = (Integer) requestContext.getProperty(PROP_SKIP);
             Integer nextSkip = (skip == null) ? top : top + skip;
             if (top < size) {
                 resultList.nextLink = requestContext.getUriInfo().getRequestUriBuilder()
@@ -106,7 +107,7 @@ public class TopFilter implements ContainerRequestFilter, ContainerResponseFilte
                     .entity("The $top parameter must be an integer greater than zero").build());
             return;
         }
-        requestContext.setProperty(TOP_PROP, top);
+        requestContext.setProperty(PROP_TOP, top);
     }
 
 }
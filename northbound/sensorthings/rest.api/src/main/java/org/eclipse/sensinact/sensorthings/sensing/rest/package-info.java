@@ -11,5 +11,5 @@
 *   Kentyou - initial implementation
 **********************************************************************/
 @org.osgi.annotation.bundle.Export
-@org.osgi.annotation.versioning.Version("0.0.1")
+@org.osgi.annotation.versioning.Version("0.1.0")
 package org.eclipse.sensinact.sensorthings.sensing.rest;
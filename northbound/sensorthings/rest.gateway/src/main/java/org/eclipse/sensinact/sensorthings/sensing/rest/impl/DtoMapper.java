@@ -229,8 +229,7 @@ public class DtoMapper {
         final ProviderSnapshot provider = resource.getService().getProvider();
         final Map<String, Object> metadata = resource.getMetadata();
 
-        datastream.id = String.format("%s~%s~%s", provider.getName(), resource.getService().getName(),
-                resource.getName());
+        datastream.id = toResourceId(resource);
 
         datastream.name = toString(metadata.getOrDefault(FRIENDLY_NAME, resource.getName()));
         datastream.description = toString(metadata.getOrDefault(DESCRIPTION, NO_DESCRIPTION));
@@ -258,7 +257,7 @@ public class DtoMapper {
 
         if(expansions.shouldExpand("Observations", datastream)) {
             expansions.addExpansion("Observations", datastream, RootResourceAccessImpl.getObservationList(userSession, application,
-                    mapper, uriInfo, expansions.getExpansionSettings("Observations"), resource, 25));
+                    mapper, uriInfo, null, expansions.getExpansionSettings("Observations"), resource, 25));
         }
 
         if(expansions.shouldExpand("ObservedProperty", datastream)) {
@@ -288,10 +287,9 @@ public class DtoMapper {
         Sensor sensor = new Sensor();
 
         ProviderSnapshot providerSnapshot = resource.getService().getProvider();
-        final String provider = providerSnapshot.getName();
         final Map<String, Object> metadata = resource.getMetadata();
 
-        sensor.id = String.format("%s~%s~%s", provider, resource.getService().getName(), resource.getName());
+        sensor.id = toResourceId(resource);
 
         sensor.name = toString(metadata.getOrDefault(FRIENDLY_NAME, resource.getName()));
         sensor.description = toString(metadata.getOrDefault(DESCRIPTION, NO_DESCRIPTION));
@@ -346,8 +344,7 @@ public class DtoMapper {
         final Instant timestamp = t.map(TimedValue::getTimestamp).orElse(null);
 
         ProviderSnapshot providerSnapshot = resource.getService().getProvider();
-        observation.id = String.format("%s~%s~%s~%s", providerSnapshot.getName(),
-                resource.getService().getName(), resource.getName(), Long.toString(timestamp.toEpochMilli(), 16));
+        observation.id = toObservationId(resource, timestamp);
 
         observation.resultTime = timestamp;
         observation.result = t.map(TimedValue::getValue).orElse(null);
@@ -381,8 +378,7 @@ public class DtoMapper {
         final Map<String, Object> metadata = resource.getMetadata();
 
         ProviderSnapshot providerSnapshot = resource.getService().getProvider();
-        observedProperty.id = String.format("%s~%s~%s", providerSnapshot.getName(),
-                resource.getService().getName(), resource.getName());
+        observedProperty.id = toResourceId(resource);
 
         observedProperty.name = toString(metadata.getOrDefault(FRIENDLY_NAME, resource.getName()));
         observedProperty.description = toString(metadata.getOrDefault(DESCRIPTION, NO_DESCRIPTION));
@@ -437,6 +433,21 @@ public class DtoMapper {
         return featureOfInterest;
     }
 
+    /**
+     * Returns the ID of the Datastream, Sensor and ObservedProperty of a resource
+     */
+    public static String toResourceId(ResourceSnapshot resource) {
+        return String.format("%s~%s~%s", resource.getService().getProvider().getName(),
+                resource.getService().getName(), resource.getName());
+    }
+
+    /**
+     * Returns the ID of the Observation of a resource at the given time
+     */
+    public static String toObservationId(ResourceSnapshot resource, Instant timestamp) {
+        return String.format("%s~%s", toResourceId(resource), Long.toString(timestamp.toEpochMilli(), 16));
+    }
+
     public static String extractFirstIdSegment(String id) {
         if (id.isEmpty()) {
             throw new BadRequestException("Invalid id");
@@ -91,7 +91,7 @@ public class ObservationsAccessImpl extends AbstractAccess implements Observatio
     @Override
     public ResultList<Observation> getObservationDatastreamObservations(String id) {
         return RootResourceAccessImpl.getObservationList(getSession(), application, getMapper(), uriInfo,
-                getExpansions(), validateAndGetResourceSnapshot(id), 0);
+                requestContext, getExpansions(), validateAndGetResourceSnapshot(id), 0);
     }
 
     @Override
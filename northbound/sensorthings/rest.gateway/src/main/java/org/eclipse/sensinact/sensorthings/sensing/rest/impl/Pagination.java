@@ -0,0 +1,193 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.sensorthings.sensing.rest.impl;
+
+import static java.util.stream.Collectors.toList;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_COUNT;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_ORDER_BY_CLAUSES;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_PAGINATION_APPLIED;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_SKIP;
+import static org.eclipse.sensinact.sensorthings.sensing.rest.IFilterConstants.PROP_TOP;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import org.eclipse.sensinact.sensorthings.sensing.dto.ResultList;
+import org.eclipse.sensinact.sensorthings.sensing.dto.Self;
+import org.eclipse.sensinact.sensorthings.sensing.rest.OrderByClause;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+
+/**
+ * Applies $orderby, $skip, $top and $count on the snapshots of a result list,
+ * so that only the DTOs of the requested page are built.
+ * <p>
+ * This is only possible when the result is sorted by ID, which can be computed
+ * from a snapshot. Otherwise, all DTOs are built and the response filters do
+ * the work.
+ */
+final class Pagination {
+
+    private record Keyed<S>(String id, S item) {
+    }
+
+    private Pagination() {
+    }
+
+    /**
+     * Builds the result list of the given snapshots
+     *
+     * @param <S>            Snapshot type
+     * @param <T>            DTO type
+     * @param requestContext Request context, holding the query parameters
+     * @param items          Snapshots matching the request
+     * @param idFunction     Computes the ID of the DTO of a snapshot
+     * @param mapper         Converts a snapshot to a DTO
+     * @return The result list
+     */
+    static <S, T extends Self> ResultList<T> toResultList(final ContainerRequestContext requestContext,
+            final List<S> items, final Function<S, String> idFunction, final Function<S, T> mapper) {
+        if (!canPageById(requestContext)) {
+            // Sorting on DTO content: let the response filters handle the result
+            final ResultList<T> list = new ResultList<>();
+            list.value = items.stream().map(mapper).collect(toList());
+            return list;
+        }
+
+        @SuppressWarnings("unchecked")
+        final List<OrderByClause> clauses = (List<OrderByClause>) requestContext.getProperty(PROP_ORDER_BY_CLAUSES);
+        final int size = items.size();
+        final int start = pageStart(requestContext, size);
+        final int end = pageEnd(requestContext, size);
+
+        final List<S> page;
+        if (clauses == null) {
+            page = items.subList(start, end);
+        } else {
+            Comparator<Keyed<S>> comparator = Comparator.comparing(Keyed::id);
+            if (isDescending(requestContext)) {
+                comparator = comparator.reversed();
+            }
+            page = selectPage(items, idFunction, comparator, start, end);
+        }
+
+        final ResultList<T> list = toPage(requestContext, page, end < size, mapper);
+        if (Boolean.TRUE.equals(requestContext.getProperty(PROP_COUNT))) {
+            list.count = size;
+        }
+        return list;
+    }
+
+    /**
+     * Builds the result list of items already sorted by ID, in the requested
+     * order. The count of the list is left to the caller.
+     *
+     * @param <S>            Item type
+     * @param <T>            DTO type
+     * @param requestContext Request context, holding the query parameters
+     * @param sorted         Sorted items, from the first one of the result
+     * @param mapper         Converts an item to a DTO
+     * @return The result list
+     */
+    static <S, T extends Self> ResultList<T> toSortedResultList(final ContainerRequestContext requestContext,
+            final List<S> sorted, final Function<S, T> mapper) {
+        final int size = sorted.size();
+        final int end = pageEnd(requestContext, size);
+        return toPage(requestContext, sorted.subList(pageStart(requestContext, size), end), end < size, mapper);
+    }
+
+    /**
+     * Checks if the result of the request can be paged before building DTOs,
+     * i.e. if it is sorted by ID or not sorted at all
+     *
+     * @param requestContext Request context, holding the query parameters
+     * @return True if the result can be paged on IDs
+     */
+    static boolean canPageById(final ContainerRequestContext requestContext) {
+        @SuppressWarnings("unchecked")
+        final List<OrderByClause> clauses = (List<OrderByClause>) requestContext.getProperty(PROP_ORDER_BY_CLAUSES);
+        return clauses == null || (clauses.size() == 1 && clauses.get(0).isId());
+    }
+
+    /**
+     * @param requestContext Request context, holding the query parameters
+     * @return True if the result is sorted by descending ID
+     */
+    static boolean isDescending(final ContainerRequestContext requestContext) {
+        @SuppressWarnings("unchecked")
+        final List<OrderByClause> clauses = (List<OrderByClause>) requestContext.getProperty(PROP_ORDER_BY_CLAUSES);
+        return clauses != null && !clauses.isEmpty() && !clauses.get(0).ascending();
+    }
+
+    /**
+     * Returns the number of sorted items needed to build the requested page
+     *
+     * @param requestContext Request context, holding the query parameters
+     * @param size           Number of available items
+     * @return The index of the end of the page
+     */
+    static int pageEnd(final ContainerRequestContext requestContext, final int size) {
+        final Integer top = (Integer) requestContext.getProperty(PROP_TOP);
+        final int start = pageStart(requestContext, size);
+        return top == null ? size : (int) Math.min((long) start + top, size);
+    }
+
+    private static int pageStart(final ContainerRequestContext requestContext, final int size) {
+        final Integer skip = (Integer) requestContext.getProperty(PROP_SKIP);
+        return skip == null ? 0 : Math.min(skip, size);
+    }
+
+    private static <S, T extends Self> ResultList<T> toPage(final ContainerRequestContext requestContext,
+            final List<S> page, final boolean hasNext, final Function<S, T> mapper) {
+        final ResultList<T> list = new ResultList<>();
+        list.value = page.stream().map(mapper).collect(toList());
+        if (hasNext) {
+            final int nextSkip = pageEnd(requestContext, Integer.MAX_VALUE);
+            list.nextLink = requestContext.getUriInfo().getRequestUriBuilder().replaceQueryParam("$skip", nextSkip)
+                    .build().toString();
+        }
+
+        requestContext.setProperty(PROP_PAGINATION_APPLIED, Boolean.TRUE);
+        return list;
+    }
+
+    /**
+     * Returns the items between start and end once sorted, keeping at most end
+     * items in memory while looking for them
+     */
+    private static <S> List<S> selectPage(final List<S> items, final Function<S, String> idFunction,
+            final Comparator<Keyed<S>> comparator, final int start, final int end) {
+        if (start >= end) {
+            return List.of();
+        }
+
+        // Keep the first items, with the greatest one on top of the queue
+        final PriorityQueue<Keyed<S>> selection = new PriorityQueue<>(Math.min(end, 1024), comparator.reversed());
+        for (S item : items) {
+            final Keyed<S> keyed = new Keyed<>(idFunction.apply(item), item);
+            if (selection.size() < end) {
+                selection.add(keyed);
+            } else if (comparator.compare(keyed, selection.peek()) < 0) {
+                selection.poll();
+                selection.add(keyed);
+            }
+        }
+
+        final List<Keyed<S>> sorted = new ArrayList<>(selection);
+        sorted.sort(comparator);
+        return sorted.subList(start, sorted.size()).stream().map(Keyed::item).collect(toList());
+    }
+}
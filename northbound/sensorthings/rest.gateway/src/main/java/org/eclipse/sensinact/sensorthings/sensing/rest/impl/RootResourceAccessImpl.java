@@ -22,8 +22,11 @@ import static org.eclipse.sensinact.sensorthings.sensing.rest.impl.DtoMapper.toO
 import static org.eclipse.sensinact.sensorthings.sensing.rest.impl.DtoMapper.toSensor;
 import static org.eclipse.sensinact.sensorthings.sensing.rest.impl.DtoMapper.toThing;
 
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -55,12 +58,40 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.core.Application;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
 import jakarta.ws.rs.core.UriInfo;
 
 public class RootResourceAccessImpl extends AbstractAccess implements RootResourceAccess {
 
+    /**
+     * Query option naming the history aggregation function of observations
+     */
+    static final String AGGREGATE_OPTION = "aggregate";
+
+    /**
+     * Query option giving the ISO-8601 duration of an aggregation bucket
+     */
+    static final String INTERVAL_OPTION = "interval";
+
+    /**
+     * Query option giving the ISO-8601 start of an aggregation
+     */
+    static final String FROM_OPTION = "from";
+
+    /**
+     * Query option giving the ISO-8601 end of an aggregation
+     */
+    static final String TO_OPTION = "to";
+
+    /**
+     * Maximum number of buckets of an aggregation, as accepted by the history
+     * providers
+     */
+    static final long MAX_AGGREGATION_BUCKETS = 10000;
+
     private ISensorthingsFilterParser getFilterParser() {
         return providers.getContextResolver(ISensorthingsFilterParser.class, MediaType.WILDCARD_TYPE).getContext(null);
     }
@@ -133,14 +164,9 @@ public class RootResourceAccessImpl extends AbstractAccess implements RootResour
 
     @Override
     public ResultList<Thing> getThings() {
-        ResultList<Thing> list = new ResultList<>();
-
         List<ProviderSnapshot> providers = listProviders(EFilterContext.THINGS);
-        list.value = providers.stream()
-                .map(p -> toThing(getSession(), application, getMapper(), uriInfo, getExpansions(), p))
-                .collect(toList());
-
-        return list;
+        return Pagination.toResultList(requestContext, providers, ProviderSnapshot::getName,
+                p -> toThing(getSession(), application, getMapper(), uriInfo, getExpansions(), p));
     }
 
     @Override
@@ -170,76 +196,49 @@ public class RootResourceAccessImpl extends AbstractAccess implements RootResour
 
     @Override
     public ResultList<Datastream> getDatastreams() {
-        ResultList<Datastream> list = new ResultList<>();
-
         List<ResourceSnapshot> resources = listSetResources(EFilterContext.DATASTREAMS);
-        list.value = resources.stream()
-                .map(r -> toDatastream(getSession(), application, getMapper(), uriInfo, getExpansions(), r))
-                .collect(toList());
-
-        return list;
+        return Pagination.toResultList(requestContext, resources, DtoMapper::toResourceId,
+                r -> toDatastream(getSession(), application, getMapper(), uriInfo, getExpansions(), r));
     }
 
     @Override
     public ResultList<Sensor> getSensors() {
-        ResultList<Sensor> list = new ResultList<>();
-
         List<ResourceSnapshot> resources = listSetResources(EFilterContext.SENSORS);
-        list.value = resources.stream().
-                map(r -> toSensor(getSession(), application, getMapper(), uriInfo, getExpansions(), r))
-                .collect(toList());
-
-        return list;
+        return Pagination.toResultList(requestContext, resources, DtoMapper::toResourceId,
+                r -> toSensor(getSession(), application, getMapper(), uriInfo, getExpansions(), r));
     }
 
     // No history as it is *live* observation data not a data stream
     @Override
     public ResultList<Observation> getObservations() {
-        ResultList<Observation> list = new ResultList<>();
-
         List<ResourceSnapshot> resources = listSetResources(EFilterContext.OBSERVATIONS);
-        list.value = resources.stream()
-                .map(r -> toObservation(getSession(), application, getMapper(), uriInfo, getExpansions(), r))
-                .collect(toList());
-
-        return list;
+        return Pagination.toResultList(requestContext, resources,
+                r -> DtoMapper.toObservationId(r, r.getValue().getTimestamp()),
+                r -> toObservation(getSession(), application, getMapper(), uriInfo, getExpansions(), r));
     }
 
     @Override
     public ResultList<ObservedProperty> getObservedProperties() {
-        ResultList<ObservedProperty> list = new ResultList<>();
-
         List<ResourceSnapshot> resources = listSetResources(EFilterContext.OBSERVED_PROPERTIES);
-        list.value = resources.stream()
-                .map(r -> toObservedProperty(getSession(), application, getMapper(), uriInfo, getExpansions(), r))
-                .collect(toList());
-
-        return list;
+        return Pagination.toResultList(requestContext, resources, DtoMapper::toResourceId,
+                r -> toObservedProperty(getSession(), application, getMapper(), uriInfo, getExpansions(), r));
     }
 
     @Override
     public ResultList<FeatureOfInterest> getFeaturesOfInterest() {
-        ResultList<FeatureOfInterest> list = new ResultList<>();
-
         List<ProviderSnapshot> providers = listProviders(EFilterContext.FEATURES_OF_INTEREST);
-        list.value = providers.stream()
-                .map(p -> toFeatureOfInterest(getSession(), application, getMapper(), uriInfo, getExpansions(), p))
-                .collect(toList());
-
-        return list;
+        return Pagination.toResultList(requestContext, providers, ProviderSnapshot::getName,
+                p -> toFeatureOfInterest(getSession(), application, getMapper(), uriInfo, getExpansions(), p));
     }
 
-    @SuppressWarnings("unchecked")
     static ResultList<Observation> getObservationList(SensiNactSession userSession, Application application,
-            ObjectMapper mapper, UriInfo uriInfo, ExpansionSettings expansions, ResourceSnapshot resourceSnapshot,
-            int localResultLimit) {
+            ObjectMapper mapper, UriInfo uriInfo, ContainerRequestContext requestContext,
+            ExpansionSettings expansions, ResourceSnapshot resourceSnapshot, int localResultLimit) {
 
         String provider = resourceSnapshot.getService().getProvider().getName();
         String service = resourceSnapshot.getService().getName();
         String resource = resourceSnapshot.getName();
 
-        ResultList<Observation> list = new ResultList<>();
-
         String historyProvider = (String) application.getProperties().get("sensinact.history.provider");
         Integer maxResults = (Integer) application.getProperties().get("sensinact.history.result.limit");
 
@@ -247,42 +246,159 @@ public class RootResourceAccessImpl extends AbstractAccess implements RootResour
             maxResults = Math.min(localResultLimit, maxResults);
         }
 
-        List<Observation> results = new ArrayList<>();
+        // Observation IDs end with their timestamp: sorting by ID is sorting by time
+        boolean paged = requestContext != null && Pagination.canPageById(requestContext);
+        boolean descending = paged && Pagination.isDescending(requestContext);
 
-        if (historyProvider != null) {
-            Long count = (Long) userSession.actOnResource(historyProvider, "history", "count",
-                    Map.of("provider", provider, "service", service, "resource", resource));
+        Long count = null;
+        List<TimedValue<?>> latest = List.of();
 
-            list.count = count == null ? null : count > Integer.MAX_VALUE ? Integer.MAX_VALUE : count.intValue();
+        if (historyProvider != null) {
+            List<TimedValue<?>> aggregated = getAggregatedValues(userSession, requestContext, historyProvider,
+                    provider, service, resource, maxResults);
+            if (aggregated != null) {
+                // One observation per bucket, computed by the history provider
+                List<TimedValue<?>> sorted = descending ? reverse(aggregated) : aggregated;
+                ResultList<Observation> list;
+                if (paged) {
+                    list = Pagination.toSortedResultList(requestContext, sorted, t -> DtoMapper.toObservation(
+                            userSession, application, mapper, uriInfo, expansions, resourceSnapshot, Optional.of(t)));
+                } else {
+                    list = new ResultList<>();
+                    list.value = DtoMapper.toObservationList(userSession, application, mapper, uriInfo, expansions,
+                            resourceSnapshot, sorted);
+                }
+                if (Boolean.TRUE.equals(requestContext.getProperty(IFilterConstants.PROP_COUNT))) {
+                    list.count = sorted.size();
+                }
+                return list;
+            }
+
+            if (requestContext == null || Boolean.TRUE.equals(requestContext.getProperty(IFilterConstants.PROP_COUNT))) {
+                count = (Long) userSession.actOnResource(historyProvider, "history", "count",
+                        Map.of("provider", provider, "service", service, "resource", resource));
+            }
+
+            int window = maxResults;
+            if (descending) {
+                // Only read up to the end of the page, plus one value to know if there is a next page
+                window = (int) Math.min(window, Pagination.pageEnd(requestContext, Integer.MAX_VALUE) + 1L);
+            }
+            latest = getLatestValues(userSession, historyProvider, provider, service, resource, window);
+        }
 
-            Map<String, Object> params = new HashMap<>(
-                    Map.of("provider", provider, "service", service, "resource", resource));
-            Integer skip = Integer.valueOf(0);
+        ResultList<Observation> list;
+        if (latest.isEmpty()) {
+            list = new ResultList<>();
+            list.value = new ArrayList<>(1);
+            if (resourceSnapshot.isSet()) {
+                list.value.add(DtoMapper.toObservation(userSession, application, mapper, uriInfo, expansions,
+                        resourceSnapshot));
+            }
+        } else {
+            List<TimedValue<?>> sorted = descending ? latest : reverse(latest);
+            if (paged) {
+                list = Pagination.toSortedResultList(requestContext, sorted, t -> DtoMapper.toObservation(userSession,
+                        application, mapper, uriInfo, expansions, resourceSnapshot, Optional.of(t)));
+            } else {
+                list = new ResultList<>();
+                list.value = DtoMapper.toObservationList(userSession, application, mapper, uriInfo, expansions,
+                        resourceSnapshot, sorted);
+            }
+        }
 
-            List<TimedValue<?>> timed;
-            do {
-                params.put("skip", skip);
+        list.count = count == null ? null : count > Integer.MAX_VALUE ? Integer.MAX_VALUE : count.intValue();
+        return list;
+    }
 
-                timed = (List<TimedValue<?>>) userSession.actOnResource(historyProvider, "history", "range", params);
+    /**
+     * Reads the latest values of a resource from the history provider, in a
+     * single query walking back from the present
+     *
+     * @return The values, the latest first
+     */
+    @SuppressWarnings("unchecked")
+    private static List<TimedValue<?>> getLatestValues(SensiNactSession userSession, String historyProvider,
+            String provider, String service, String resource, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
 
-                results.addAll(0, DtoMapper.toObservationList(userSession, application, mapper, uriInfo, expansions, resourceSnapshot, timed));
+        List<TimedValue<?>> values = (List<TimedValue<?>>) userSession.actOnResource(historyProvider, "history",
+                "page", Map.of("provider", provider, "service", service, "resource", resource, "ascending", false,
+                        "limit", limit));
+        return values == null ? List.of() : values;
+    }
 
-                if (timed.isEmpty()) {
-                    break;
-                } else if (timed.size() == 500) {
-                    skip = results.size();
-                }
+    /**
+     * Reads the values of a resource aggregated by the history provider, when
+     * requested with the aggregate and interval query options. Without a from
+     * option, the aggregation covers as many buckets as the history results
+     * limit, up to the to option or the present.
+     *
+     * @return The aggregated values in chronological order, null if no
+     *         aggregation was requested
+     * @throws BadRequestException Invalid aggregation options, or more than
+     *                             {@link #MAX_AGGREGATION_BUCKETS} buckets
+     */
+    @SuppressWarnings("unchecked")
+    private static List<TimedValue<?>> getAggregatedValues(SensiNactSession userSession,
+            ContainerRequestContext requestContext, String historyProvider, String provider, String service,
+            String resource, int maxBuckets) {
+        if (requestContext == null) {
+            return null;
+        }
 
-            } while (results.size() < count && results.size() < maxResults);
+        MultivaluedMap<String, String> options = requestContext.getUriInfo().getQueryParameters();
+        String function = options.getFirst(AGGREGATE_OPTION);
+        if (function == null) {
+            return null;
         }
 
-        if (results.isEmpty() && resourceSnapshot.isSet()) {
-            results.add(DtoMapper.toObservation(userSession, application, mapper, uriInfo, expansions, resourceSnapshot));
+        Duration interval;
+        ZonedDateTime to;
+        ZonedDateTime from;
+        try {
+            String intervalOption = options.getFirst(INTERVAL_OPTION);
+            if (intervalOption == null) {
+                throw new BadRequestException("Missing aggregation interval");
+            }
+            // History providers work with milliseconds
+            interval = Duration.ofMillis(Duration.parse(intervalOption).toMillis());
+            if (interval.toMillis() <= 0) {
+                throw new BadRequestException("The aggregation interval must be at least one millisecond");
+            }
+
+            String toOption = options.getFirst(TO_OPTION);
+            to = toOption == null ? ZonedDateTime.now(ZoneOffset.UTC) : ZonedDateTime.parse(toOption);
+            String fromOption = options.getFirst(FROM_OPTION);
+            from = fromOption == null ? to.minus(interval.multipliedBy(Math.max(1, maxBuckets) - 1L))
+                    : ZonedDateTime.parse(fromOption);
+
+            // Counted as the history providers do
+            long nbBuckets = Math.subtractExact(to.toInstant().toEpochMilli(), from.toInstant().toEpochMilli())
+                    / interval.toMillis() + 1;
+            if (nbBuckets > MAX_AGGREGATION_BUCKETS) {
+                throw new BadRequestException(String.format("Too many aggregation buckets: %d (maximum %d)%s",
+                        nbBuckets, MAX_AGGREGATION_BUCKETS,
+                        fromOption == null ? ", set the from option" : ""));
+            }
+        } catch (DateTimeParseException | ArithmeticException e) {
+            throw new BadRequestException("Invalid aggregation options", e);
         }
 
-        list.value = results;
+        List<TimedValue<?>> values = (List<TimedValue<?>>) userSession.actOnResource(historyProvider, "history",
+                "aggregate", Map.of("provider", provider, "service", service, "resource", resource, "fromTime", from,
+                        "toTime", to, "interval", interval.toMillis(), "function", function));
+        return values == null ? List.of() : values;
+    }
 
-        return list;
+    private static <T> List<T> reverse(List<T> list) {
+        List<T> reversed = new ArrayList<>(list.size());
+        for (int i = list.size() - 1; i >= 0; i--) {
+            reversed.add(list.get(i));
+        }
+        return reversed;
     }
 
 }
@@ -300,6 +300,46 @@ public class FiltersTest extends AbstractIntegrationTest {
         assertEquals(nbIds, subStreams.count);
     }
 
+    @Test
+    void testRootSkipTop() throws IOException, InterruptedException {
+        // Register the providers
+        final int nbProviders = 5;
+        for (int i = 0; i < nbProviders; i++) {
+            createResource("rootSkipTop_" + i, "sensor", "rc", i);
+        }
+
+        // List all things (should be more or as many as our providers)
+        final ResultList<AnyIdDTO> allThings = utils.queryJson("/Things?$count=true", RESULT_ANY);
+        final List<String> allIds = allThings.value.stream().map(s -> (String) s.id).collect(Collectors.toList());
+        assertTrue(allIds.size() >= nbProviders);
+        assertEquals(allIds.size(), allThings.count);
+        assertNull(allThings.nextLink);
+
+        // Test a page in the middle
+        final int topVal = 2;
+        final int skipVal = 1;
+        ResultList<AnyIdDTO> page = utils.queryJson(
+                String.format("/Things?$top=%d&$skip=%d&$count=true", topVal, skipVal), RESULT_ANY);
+        assertEquals(allIds.subList(skipVal, skipVal + topVal),
+                page.value.stream().map(s -> (String) s.id).collect(Collectors.toList()));
+        assertEquals(allIds.size(), page.count);
+        assertNotNull(page.nextLink);
+
+        // Test the reverse order
+        final List<String> reversedIds = new ArrayList<>(allIds);
+        Collections.reverse(reversedIds);
+        page = utils.queryJson(String.format("/Things?$orderby=id%%20desc&$top=%d", topVal), RESULT_ANY);
+        assertEquals(reversedIds.subList(0, topVal),
+                page.value.stream().map(s -> (String) s.id).collect(Collectors.toList()));
+        assertNull(page.count);
+
+        // Test the last page
+        page = utils.queryJson(String.format("/Things?$top=%d&$skip=%d", topVal, allIds.size() - 1), RESULT_ANY);
+        assertEquals(allIds.subList(allIds.size() - 1, allIds.size()),
+                page.value.stream().map(s -> (String) s.id).collect(Collectors.toList()));
+        assertNull(page.nextLink);
+    }
+
     @Nested
     class FilterFilterTest {
 
@@ -290,6 +290,39 @@ public class ObservationHistoryTest extends AbstractIntegrationTest {
         }
     }
 
+    @Test
+    void getDataStreamObservationPages() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            createResource("foo", "bar", "pages", String.valueOf(i), TS_2012.plus(ofDays(i)));
+        }
+        waitForRowCount("sensinact.text_data", 1006);
+
+        // Latest values first
+        ResultList<Observation> observations = utils.queryJson(
+                "/Datastreams(foo~bar~pages)/Observations?$count=true&$orderby=id%20desc&$top=10&$skip=20",
+                RESULT_OBSERVATIONS);
+
+        assertEquals(1000, observations.count);
+        assertEquals(10, observations.value.size());
+        assertNotNull(observations.nextLink);
+        for (int i = 0; i < 10; i++) {
+            Instant ts = TS_2012.plus(ofDays(979 - i));
+            assertEquals(ts, observations.value.get(i).resultTime);
+            assertEquals(String.valueOf(979 - i), observations.value.get(i).result);
+        }
+
+        // Chronological order
+        observations = utils.queryJson("/Datastreams(foo~bar~pages)/Observations?$top=10&$skip=990",
+                RESULT_OBSERVATIONS);
+
+        assertNull(observations.count);
+        assertEquals(10, observations.value.size());
+        assertNull(observations.nextLink);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(String.valueOf(990 + i), observations.value.get(i).result);
+        }
+    }
+
     @Test
     void getHistoricObservationTest() throws Exception {
         for (int i = 0; i < 10; i++) {
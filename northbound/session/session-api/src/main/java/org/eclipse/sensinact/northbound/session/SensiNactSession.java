@@ -24,6 +24,7 @@ import org.eclipse.sensinact.core.notification.ClientLifecycleListener;
 import org.eclipse.sensinact.core.notification.ClientMetadataListener;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.SnapshotProjection;
 import org.eclipse.sensinact.core.twin.TimedValue;
 import org.eclipse.sensinact.northbound.security.api.UserInfo;
 
@@ -68,6 +69,13 @@ public interface SensiNactSession {
     Map<String, List<String>> activeListeners();
 
     /**
+     * Registers listeners on topic patterns. Topics are made of the model,
+     * provider, service and resource names, separated by <code>/</code>. In a
+     * pattern, a <code>+</code> segment matches any single segment and a final
+     * <code>*</code> matches the rest of the topic, e.g.
+     * <code>+/provider/*</code> for all the events of a provider. A
+     * <code>+</code> within a longer segment is not a wildcard, but a name made
+     * of a single <code>+</code> can't be listened to on its own.
      *
      * @param topics - topic strings, omitting the initial segment (e.g. LIFECYCLE)
      * @param cdl    a listener, or null if data events are ignored
@@ -79,6 +87,20 @@ public interface SensiNactSession {
     String addListener(List<String> topics, ClientDataListener cdl, ClientMetadataListener cml,
             ClientLifecycleListener cll, ClientActionListener cal);
 
+    /**
+     * Get the topic pattern matching the events of a single resource, whatever
+     * the model of its provider
+     *
+     * @param provider Provider name
+     * @param service  Service name
+     * @param resource Resource name
+     * @return the topic pattern, to be given to
+     *         {@link #addListener(List, ClientDataListener, ClientMetadataListener, ClientLifecycleListener, ClientActionListener)}
+     */
+    static String resourceTopic(String provider, String service, String resource) {
+        return String.join("/", "+", provider, service, resource);
+    }
+
     /**
      * Remove a registered listener
      *
@@ -302,7 +324,19 @@ public interface SensiNactSession {
      * @param filter Optional filter to apply during snapshot
      * @return A snapshot of the model
      */
-    List<ProviderSnapshot> filteredSnapshot(ICriterion filter);
+    default List<ProviderSnapshot> filteredSnapshot(ICriterion filter) {
+        return filteredSnapshot(filter, SnapshotProjection.FULL);
+    }
+
+    /**
+     * Returns a (filtered) snapshot of the model, only containing the resource
+     * values and metadata required by the given projection
+     *
+     * @param filter     Optional filter to apply during snapshot
+     * @param projection Parts of the resources to include in the snapshot
+     * @return A snapshot of the model
+     */
+    List<ProviderSnapshot> filteredSnapshot(ICriterion filter, SnapshotProjection projection);
 
     /**
      * Return the user that owns this session
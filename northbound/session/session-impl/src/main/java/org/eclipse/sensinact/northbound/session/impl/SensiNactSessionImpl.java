@@ -27,16 +27,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.NavigableMap;
 import java.util.Objects;
-import java.util.TreeMap;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.eclipse.sensinact.core.authorization.Authorizer;
 import org.eclipse.sensinact.core.authorization.NotPermittedException;
@@ -57,9 +53,11 @@ import org.eclipse.sensinact.core.notification.ResourceDataNotification;
 import org.eclipse.sensinact.core.notification.ResourceMetaDataNotification;
 import org.eclipse.sensinact.core.notification.ResourceNotification;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
+import org.eclipse.sensinact.core.snapshot.SnapshotProjection;
 import org.eclipse.sensinact.core.twin.SensinactDigitalTwin;
 import org.eclipse.sensinact.core.twin.SensinactProvider;
 import org.eclipse.sensinact.core.twin.SensinactResource;
@@ -89,8 +87,14 @@ public class SensiNactSessionImpl implements SensiNactSession {
 
     private final Map<String, List<String>> listenerRegistrations = new HashMap<>();
 
-    private final NavigableMap<String, List<SessionListenerRegistration>> listenersByWildcardTopic = new TreeMap<>();
-    private final Map<String, List<SessionListenerRegistration>> listenersByTopic = new HashMap<>();
+    private final Map<String, List<SessionListenerRegistration>> listenersById = new HashMap<>();
+
+    private final SubscriptionIndex<SessionListenerRegistration> listenersByTopic = new SubscriptionIndex<>();
+
+    /**
+     * The index shared by the sessions of the session manager, can be null
+     */
+    private final SubscriptionIndex<SessionListenerRegistration> sharedListenersByTopic;
 
     private Instant expiry;
 
@@ -105,7 +109,17 @@ public class SensiNactSessionImpl implements SensiNactSession {
     private final PreAuthorizer preAuthorizer;
 
     public SensiNactSessionImpl(final UserInfo user, final PreAuthorizer preAuthorizer, final Authorizer authorizer, final GatewayThread thread) {
+        this(user, preAuthorizer, authorizer, thread, null);
+    }
+
+    /**
+     * @param sharedListenersByTopic an index to which the listeners of this
+     *                               session are also added, until it expires
+     */
+    SensiNactSessionImpl(final UserInfo user, final PreAuthorizer preAuthorizer, final Authorizer authorizer,
+            final GatewayThread thread, final SubscriptionIndex<SessionListenerRegistration> sharedListenersByTopic) {
         this.user = user;
+        this.sharedListenersByTopic = sharedListenersByTopic;
         this.preAuthorizer = Objects.requireNonNull(preAuthorizer, "No PreAuthorizer given");
         this.authorizer = Objects.requireNonNull(authorizer, "No Authorizer given");
         this.thread = thread;
@@ -124,89 +138,76 @@ public class SensiNactSessionImpl implements SensiNactSession {
             ClientLifecycleListener cll, ClientActionListener cal) {
         String subscriptionId = UUID.randomUUID().toString();
 
-        synchronized (lock) {
+        List<SessionListenerRegistration> regs = new ArrayList<>();
+        if (cdl != null) {
+            regs.add(new SessionDataListener(subscriptionId, topics, "DATA/", authorizer, cdl));
+        }
 
-            if (cdl != null) {
-                addListenerTopic(topics, "DATA/", new SessionDataListener(subscriptionId, authorizer, cdl));
-            }
+        if (cml != null) {
+            regs.add(new SessionMetadataListener(subscriptionId, topics, "METADATA/", authorizer, cml));
+        }
 
-            if (cml != null) {
-                addListenerTopic(topics, "METADATA/", new SessionMetadataListener(subscriptionId, authorizer, cml));
-            }
+        if (cll != null) {
+            regs.add(new SessionLifecycleListener(subscriptionId, topics, "LIFECYCLE/", authorizer, cll));
+        }
 
-            if (cll != null) {
-                addListenerTopic(topics, "LIFECYCLE/", new SessionLifecycleListener(subscriptionId, authorizer, cll));
-            }
+        if (cal != null) {
+            regs.add(new SessionActionListener(subscriptionId, topics, "ACTION/", authorizer, cal));
+        }
 
-            if (cal != null) {
-                addListenerTopic(topics, "ACTION/", new SessionActionListener(subscriptionId, authorizer, cal));
+        synchronized (lock) {
+            for (SessionListenerRegistration reg : regs) {
+                addListenerTopics(listenersByTopic, reg);
+                if (sharedListenersByTopic != null && !expired) {
+                    addListenerTopics(sharedListenersByTopic, reg);
+                }
             }
-
+            listenersById.put(subscriptionId, List.copyOf(regs));
             listenerRegistrations.put(subscriptionId, List.copyOf(topics));
         }
 
         return subscriptionId;
     }
 
-    /**
-     * Must be called holding {@link #lock}
-     *
-     * @param topics
-     * @param prefix
-     * @param reg
-     */
-    private void addListenerTopic(List<String> topics, String prefix, SessionListenerRegistration reg) {
-        topics.stream().map(prefix::concat).forEach(s -> {
-            if (s.endsWith("*")) {
-                listenersByWildcardTopic.merge(s.substring(0, s.length() - 1), List.of(reg), this::mergeLists);
-            } else {
-                listenersByTopic.merge(s, List.of(reg), this::mergeLists);
-            }
-        });
+    private static void addListenerTopics(SubscriptionIndex<SessionListenerRegistration> index,
+            SessionListenerRegistration reg) {
+        reg.topics.forEach(t -> index.add(t, reg));
     }
 
-    private List<SessionListenerRegistration> mergeLists(List<SessionListenerRegistration> a,
-            List<SessionListenerRegistration> b) {
-        return Stream.of(a, b).flatMap(List::stream).collect(toList());
+    private static void removeListenerTopics(SubscriptionIndex<SessionListenerRegistration> index,
+            SessionListenerRegistration reg) {
+        reg.topics.forEach(t -> index.remove(t, reg));
     }
 
     @Override
     public void removeListener(String id) {
         synchronized (lock) {
-            List<String> topics = listenerRegistrations.remove(id);
-
-            if (topics != null) {
-                removeListener(id, "DATA/", topics);
-                removeListener(id, "METADATA/", topics);
-                removeListener(id, "LIFECYCLE/", topics);
-                removeListener(id, "ACTION/", topics);
+            listenerRegistrations.remove(id);
+            List<SessionListenerRegistration> regs = listenersById.remove(id);
+
+            if (regs != null) {
+                for (SessionListenerRegistration reg : regs) {
+                    removeListenerTopics(listenersByTopic, reg);
+                    if (sharedListenersByTopic != null && !expired) {
+                        removeListenerTopics(sharedListenersByTopic, reg);
+                    }
+                }
             }
         }
     }
 
-    private void removeListener(String subscriptionId, String prefix, List<String> topics) {
-        topics.stream().map(prefix::concat).forEach(s -> {
-            if (s.endsWith("*")) {
-                listenersByWildcardTopic.computeIfPresent(s.substring(0, s.length() - 1),
-                        (topic, regs) -> this.removeSubscription(subscriptionId, regs));
-            } else {
-                listenersByTopic.computeIfPresent(s, (topic, regs) -> this.removeSubscription(subscriptionId, regs));
-            }
-        });
-    }
-
     /**
-     * Must be called holding {@link #lock}
-     *
-     * @param subscriptionId
-     * @param regs
+     * Marks the session as expired and removes its listeners from the shared
+     * index. Must be called holding {@link #lock}
      */
-    private List<SessionListenerRegistration> removeSubscription(String subscriptionId,
-            List<SessionListenerRegistration> regs) {
-        List<SessionListenerRegistration> list = regs.stream().filter(r -> !r.subscriptionId.equals(subscriptionId))
-                .collect(toList());
-
-        return list.isEmpty() ? null : list;
+    private void doExpire() {
+        if (!expired) {
+            expired = true;
+            if (sharedListenersByTopic != null) {
+                listenersById.values().forEach(
+                        regs -> regs.forEach(reg -> removeListenerTopics(sharedListenersByTopic, reg)));
+            }
+        }
     }
 
     private <I, T> T executeGetCommand(Function<SensinactDigitalTwin, I> caller, Function<I, T> converter) {
@@ -626,21 +627,25 @@ public class SensiNactSessionImpl implements SensiNactSession {
     }
 
     @Override
-    public List<ProviderSnapshot> filteredSnapshot(ICriterion filter) {
+    public List<ProviderSnapshot> filteredSnapshot(ICriterion filter, SnapshotProjection projection) {
         Predicate<ServiceSnapshot> service = this::authorizeService;
         Predicate<ResourceSnapshot> resource = this::authorizeResource;
 
         if (filter == null) {
             return executeGetCommand((m) -> m.filteredSnapshot(null, ps -> authorizeProvider(ps, false),
-                    service, resource), Function.identity());
+                    service, resource, projection), Function.identity());
         } else {
-            Predicate<GeoJsonObject> location = filter.getLocationFilter();
-            Predicate<ProviderSnapshot> provider = ps -> authorizeProvider(ps, location != null);
+            Predicate<GeoJsonObject> location = ProviderScope.locationFilter(filter);
+            Predicate<ProviderSnapshot> authorized = ps -> authorizeProvider(ps, location != null);
             Predicate<ProviderSnapshot> pf = filter.getProviderFilter();
+            // Keep the scope of the filter so that the snapshot can use the indexes
+            Predicate<ProviderSnapshot> provider = ProviderScope.providerFilter(filter.getProviderScope(),
+                    pf == null ? authorized : authorized.and(pf));
             Predicate<ServiceSnapshot> sf = filter.getServiceFilter();
             Predicate<ResourceSnapshot> rf = filter.getResourceFilter();
-            return executeGetCommand((m) -> m.filteredSnapshot(location, pf == null ? provider : provider.and(pf),
-                    sf == null ? service : service.and(sf), rf == null ? resource : resource.and(rf)), Function.identity());
+            return executeGetCommand((m) -> m.filteredSnapshot(location, provider,
+                    sf == null ? service : service.and(sf), rf == null ? resource : resource.and(rf), projection),
+                    Function.identity());
         }
     }
 
@@ -669,15 +674,7 @@ public class SensiNactSessionImpl implements SensiNactSession {
         synchronized (lock) {
             if (!isExpired()) {
                 toNotify = new ArrayList<>();
-                toNotify.addAll(listenersByTopic.getOrDefault(topic, List.of()));
-                for (Entry<String, List<SessionListenerRegistration>> e : listenersByWildcardTopic.headMap(topic, true)
-                        .descendingMap().entrySet()) {
-                    if (topic.startsWith(e.getKey())) {
-                        toNotify.addAll(e.getValue());
-                    } else {
-                        break;
-                    }
-                }
+                listenersByTopic.match(topic, toNotify::add);
             } else {
                 toNotify = List.of();
             }
@@ -695,7 +692,7 @@ public class SensiNactSessionImpl implements SensiNactSession {
     public boolean isExpired() {
         synchronized (lock) {
             if (!expired && !expiry.isAfter(Instant.now())) {
-                expired = true;
+                doExpire();
             }
             return expired;
         }
@@ -722,7 +719,7 @@ public class SensiNactSessionImpl implements SensiNactSession {
     @Override
     public void expire() {
         synchronized (lock) {
-            expired = true;
+            doExpire();
         }
     }
 
@@ -732,26 +729,41 @@ public class SensiNactSessionImpl implements SensiNactSession {
         }
     }
 
-    private static abstract class SessionListenerRegistration {
+    /**
+     * A listener of this session, registered on the topics of a type of
+     * notification
+     */
+    abstract class SessionListenerRegistration {
 
         private final String subscriptionId;
+        private final List<String> topics;
         protected final Authorizer authorizer;
 
-        public SessionListenerRegistration(String subscriptionId, Authorizer authorizer) {
+        public SessionListenerRegistration(String subscriptionId, List<String> topics, String prefix,
+                Authorizer authorizer) {
             this.subscriptionId = subscriptionId;
+            this.topics = topics.stream().map(prefix::concat).collect(toList());
             this.authorizer = authorizer;
         }
 
+        /**
+         * @return the session holding this listener
+         */
+        SensiNactSessionImpl getSession() {
+            return SensiNactSessionImpl.this;
+        }
+
         public abstract void notify(String topic, ResourceNotification notification);
 
     }
 
-    private static class SessionLifecycleListener extends SessionListenerRegistration {
+    private class SessionLifecycleListener extends SessionListenerRegistration {
 
         private final ClientLifecycleListener listener;
 
-        public SessionLifecycleListener(String subscriptionId, Authorizer authorizer, ClientLifecycleListener listener) {
-            super(subscriptionId, authorizer);
+        public SessionLifecycleListener(String subscriptionId, List<String> topics, String prefix, Authorizer authorizer,
+                ClientLifecycleListener listener) {
+            super(subscriptionId, topics, prefix, authorizer);
             this.listener = listener;
         }
 
@@ -787,12 +799,13 @@ public class SensiNactSessionImpl implements SensiNactSession {
         }
     }
 
-    private static class SessionMetadataListener extends SessionListenerRegistration {
+    private class SessionMetadataListener extends SessionListenerRegistration {
 
         private final ClientMetadataListener listener;
 
-        public SessionMetadataListener(String subscriptionId, Authorizer authorizer, ClientMetadataListener listener) {
-            super(subscriptionId, authorizer);
+        public SessionMetadataListener(String subscriptionId, List<String> topics, String prefix, Authorizer authorizer,
+                ClientMetadataListener listener) {
+            super(subscriptionId, topics, prefix, authorizer);
             this.listener = listener;
         }
 
@@ -806,12 +819,13 @@ public class SensiNactSessionImpl implements SensiNactSession {
         }
     }
 
-    private static class SessionDataListener extends SessionListenerRegistration {
+    private class SessionDataListener extends SessionListenerRegistration {
 
         private final ClientDataListener listener;
 
-        public SessionDataListener(String subscriptionId, Authorizer authorizer, ClientDataListener listener) {
-            super(subscriptionId, authorizer);
+        public SessionDataListener(String subscriptionId, List<String> topics, String prefix, Authorizer authorizer,
+                ClientDataListener listener) {
+            super(subscriptionId, topics, prefix, authorizer);
             this.listener = listener;
         }
 
@@ -825,12 +839,13 @@ public class SensiNactSessionImpl implements SensiNactSession {
         }
     }
 
-    private static class SessionActionListener extends SessionListenerRegistration {
+    private class SessionActionListener extends SessionListenerRegistration {
 
         private final ClientActionListener listener;
 
-        public SessionActionListener(String subscriptionId, Authorizer authorizer, ClientActionListener listener) {
-            super(subscriptionId, authorizer);
+        public SessionActionListener(String subscriptionId, List<String> topics, String prefix, Authorizer authorizer,
+                ClientActionListener listener) {
+            super(subscriptionId, topics, prefix, authorizer);
             this.listener = listener;
         }
 
@@ -25,6 +25,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 import org.eclipse.sensinact.core.authorization.Authorizer;
@@ -52,6 +54,11 @@ public class SessionManager
 
     private static final Logger LOG = LoggerFactory.getLogger(SessionManager.class);
 
+    /**
+     * Minimum delay between two looks for the expired sessions, in nanoseconds
+     */
+    private static final long EXPIRY_CHECK_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
     @Reference
     GatewayThread thread;
 
@@ -63,6 +70,18 @@ public class SessionManager
 
     private final Map<String, String> userDefaultSessionIds = new HashMap<>();
 
+    /**
+     * The listeners of all the live sessions, by topic. Notifications are
+     * dispatched through this index without holding {@link #lock}
+     */
+    private final SubscriptionIndex<SensiNactSessionImpl.SessionListenerRegistration> listenersByTopic =
+            new SubscriptionIndex<>();
+
+    /**
+     * Time of the next look for the expired sessions, see {@link System#nanoTime()}
+     */
+    private final AtomicLong nextExpiryCheck = new AtomicLong(System.nanoTime());
+
     private AuthorizationEngine authEngine;
 
     private boolean active;
@@ -342,7 +361,8 @@ public class SessionManager
             }
         }
 
-        final SensiNactSessionImpl session = new SensiNactSessionImpl(user, preAuthorizer, authorizer, thread);
+        final SensiNactSessionImpl session = new SensiNactSessionImpl(user, preAuthorizer, authorizer, thread,
+                listenersByTopic);
         String sessionId = session.getSessionId();
 
         boolean authChanged;
@@ -375,21 +395,53 @@ public class SessionManager
         if(LOG.isDebugEnabled()) {
             LOG.debug("Session Manager received a notification on topic {}", topic);
         }
-        List<SensiNactSessionImpl> sessions;
-        synchronized (lock) {
-            sessions = new ArrayList<>(this.sessions.values());
-        }
-        for (SensiNactSessionImpl session : sessions) {
+        listenersByTopic.match(topic, reg -> {
+            SensiNactSessionImpl session = reg.getSession();
             if (!session.isExpired()) {
                 try {
-                    session.notify(topic, event);
+                    reg.notify(topic, event);
                 } catch (Exception e) {
                     LOG.error("Error notifiying session {} on topic {}", session.getSessionId(), topic);
                 }
             } else {
-                removeSession(session.getUserInfo().getUserId(), session.getSessionId());
+                // Expiring the session removed its listeners from the index
+                removeExpiredSession(session);
+            }
+        });
+
+        // Sessions without a matching listener are not seen above
+        long now = System.nanoTime();
+        long next = nextExpiryCheck.get();
+        if (now - next >= 0 && nextExpiryCheck.compareAndSet(next, now + EXPIRY_CHECK_INTERVAL)) {
+            removeExpiredSessions();
+        }
+    }
+
+    /**
+     * Removes all the expired sessions
+     */
+    void removeExpiredSessions() {
+        List<SensiNactSessionImpl> toCheck;
+        synchronized (lock) {
+            if (!active) {
+                return;
+            }
+            toCheck = new ArrayList<>(sessions.values());
+        }
+        for (SensiNactSessionImpl session : toCheck) {
+            if (session.isExpired()) {
+                removeExpiredSession(session);
+            }
+        }
+    }
+
+    private void removeExpiredSession(SensiNactSessionImpl session) {
+        synchronized (lock) {
+            if (!active || sessions.get(session.getSessionId()) != session) {
+                return;
             }
         }
+        removeSession(session.getUserInfo().getUserId(), session.getSessionId());
     }
 
     @Override
@@ -0,0 +1,221 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.northbound.session.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * A topic trie mapping topic patterns to the subscriptions registered on them,
+ * so that the subscriptions matching a topic are found without looking at the
+ * others.
+ * <p>
+ * Patterns are split in segments on <code>/</code>:
+ * <ul>
+ * <li>a <code>+</code> segment matches exactly one topic segment</li>
+ * <li>a pattern ending with <code>*</code> matches all the topics starting
+ * with the text before the <code>*</code></li>
+ * <li>any other pattern only matches the identical topic</li>
+ * </ul>
+ * Updates are serialized, but lookups take no lock: the nodes are held in
+ * concurrent maps and their subscriptions in copy-on-write lists.
+ *
+ * @param <T> the subscription type
+ */
+final class SubscriptionIndex<T> {
+
+    private static final String SINGLE_LEVEL = "+";
+
+    private static final String WILDCARD = "*";
+
+    private static final class Node<T> {
+
+        /**
+         * Child nodes, by segment
+         */
+        final ConcurrentMap<String, Node<T>> children = new ConcurrentHashMap<>();
+
+        /**
+         * Subscriptions to the topic ending at this node
+         */
+        volatile List<T> exact = List.of();
+
+        /**
+         * Subscriptions to the topics continuing with a segment starting with
+         * the key
+         */
+        final ConcurrentMap<String, List<T>> prefixes = new ConcurrentHashMap<>();
+
+        boolean isEmpty() {
+            return children.isEmpty() && exact.isEmpty() && prefixes.isEmpty();
+        }
+    }
+
+    private final Object lock = new Object();
+
+    private final Node<T> root = new Node<>();
+
+    /**
+     * Registers a subscription on a topic pattern
+     *
+     * @param pattern the topic pattern
+     * @param value   the subscription
+     */
+    void add(String pattern, T value) {
+        Objects.requireNonNull(value);
+        synchronized (lock) {
+            if (pattern.endsWith(WILDCARD)) {
+                String prefix = pattern.substring(0, pattern.length() - 1);
+                int idx = prefix.lastIndexOf('/');
+                Node<T> node = root;
+                if (idx >= 0) {
+                    for (String segment : prefix.substring(0, idx).split("/", -1)) {
+                        node = node.children.computeIfAbsent(segment, k -> new Node<>());
+                    }
+                }
+                node.prefixes.merge(prefix.substring(idx + 1), List.of(value), SubscriptionIndex::concat);
+            } else {
+                Node<T> node = root;
+                for (String segment : pattern.split("/", -1)) {
+                    node = node.children.computeIfAbsent(segment, k -> new Node<>());
+                }
+                node.exact = concat(node.exact, List.of(value));
+            }
+        }
+    }
+
+    /**
+     * Unregisters a subscription from a topic pattern
+     *
+     * @param pattern the topic pattern
+     * @param value   the subscription
+     */
+    void remove(String pattern, T value) {
+        synchronized (lock) {
+            final String[] segments;
+            final String partial;
+            if (pattern.endsWith(WILDCARD)) {
+                String prefix = pattern.substring(0, pattern.length() - 1);
+                int idx = prefix.lastIndexOf('/');
+                segments = idx < 0 ? new String[0] : prefix.substring(0, idx).split("/", -1);
+                partial = prefix.substring(idx + 1);
+            } else {
+                segments = pattern.split("/", -1);
+                partial = null;
+            }
+
+            List<Node<T>> path = new ArrayList<>(segments.length + 1);
+            Node<T> node = root;
+            path.add(node);
+            for (String segment : segments) {
+                node = node.children.get(segment);
+                if (node == null) {
+                    return;
+                }
+                path.add(node);
+            }
+
+            if (partial == null) {
+                node.exact = without(node.exact, value);
+            } else {
+                node.prefixes.computeIfPresent(partial, (k, v) -> {
+                    List<T> list = without(v, value);
+                    return list.isEmpty() ? null : list;
+                });
+            }
+
+            // Prune the nodes left empty
+            for (int i = segments.length; i > 0 && path.get(i).isEmpty(); i--) {
+                path.get(i - 1).children.remove(segments[i - 1], path.get(i));
+            }
+        }
+    }
+
+    /**
+     * Calls the action with each subscription matching the topic, once per
+     * matching pattern
+     *
+     * @param topic  the topic
+     * @param action the action to call
+     */
+    void match(String topic, Consumer<? super T> action) {
+        match(root, topic, 0, action);
+    }
+
+    private void match(Node<T> node, String topic, int start, Consumer<? super T> action) {
+        if (start > topic.length()) {
+            // The whole topic has been consumed
+            node.exact.forEach(action);
+            return;
+        }
+
+        if (!node.prefixes.isEmpty()) {
+            for (Entry<String, List<T>> e : node.prefixes.entrySet()) {
+                // Prefixes never contain a '/', so they can only match this segment
+                if (topic.startsWith(e.getKey(), start)) {
+                    e.getValue().forEach(action);
+                }
+            }
+        }
+
+        if (node.children.isEmpty()) {
+            return;
+        }
+
+        int end = topic.indexOf('/', start);
+        if (end < 0) {
+            end = topic.length();
+        }
+        String segment = topic.substring(start, end);
+
+        Node<T> child = node.children.get(segment);
+        if (child != null) {
+            match(child, topic, end + 1, action);
+        }
+        if (!SINGLE_LEVEL.equals(segment)) {
+            child = node.children.get(SINGLE_LEVEL);
+            if (child != null) {
+                match(child, topic, end + 1, action);
+            }
+        }
+    }
+
+    /**
+     * @return true if no subscription is registered
+     */
+    boolean isEmpty() {
+        return root.isEmpty();
+    }
+
+    private static <T> List<T> concat(List<T> a, List<T> b) {
+        List<T> list = new ArrayList<>(a.size() + b.size());
+        list.addAll(a);
+        list.addAll(b);
+        return List.copyOf(list);
+    }
+
+    private static <T> List<T> without(List<T> list, T value) {
+        List<T> result = new ArrayList<>(list.size());
+        for (T t : list) {
+            if (!t.equals(value)) {
+                result.add(t);
+            }
+        }
+        return result.size() == list.size() ? list : List.copyOf(result);
+    }
+}
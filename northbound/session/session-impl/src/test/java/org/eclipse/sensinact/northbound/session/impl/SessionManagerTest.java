@@ -0,0 +1,82 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.northbound.session.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.annotation.Annotation;
+import java.time.Duration;
+import java.util.List;
+
+import org.eclipse.sensinact.northbound.security.api.UserInfo;
+import org.eclipse.sensinact.northbound.session.SensiNactSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the expiry of the sessions of the session manager
+ */
+public class SessionManagerTest {
+
+    private final SessionManager manager = new SessionManager();
+
+    private final UserInfo bob = new TestUserInfo("bob", true);
+
+    @BeforeEach
+    void start() {
+        manager.start(new SessionManager.Config() {
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return SessionManager.Config.class;
+            }
+
+            @Override
+            public int expiry() {
+                return 600;
+            }
+
+            @Override
+            public DefaultAuthPolicy auth_policy() {
+                return DefaultAuthPolicy.ALLOW_ALL;
+            }
+        });
+    }
+
+    @AfterEach
+    void stop() {
+        manager.stop();
+    }
+
+    @Test
+    void testExpiredSessionWithoutListener() throws Exception {
+        SensiNactSession expiring = manager.createNewSession(bob);
+        SensiNactSession listening = manager.createNewSession(bob);
+        listening.addListener(List.of("+/provider/*"), (t, e) -> {
+        }, null, null, null);
+        assertEquals(2, manager.gauge());
+
+        expiring.extend(Duration.ofMillis(1));
+        Thread.sleep(10);
+
+        // The notification matches no listener of the expired session
+        manager.notify("DATA/model/other/svc/rc", null);
+        assertTrue(expiring.isExpired());
+        assertEquals(1, manager.gauge());
+        assertNotEquals(expiring, manager.getSession(bob, expiring.getSessionId()));
+        assertFalse(listening.isExpired());
+    }
+}
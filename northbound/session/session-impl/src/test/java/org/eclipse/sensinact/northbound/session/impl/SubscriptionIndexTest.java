@@ -0,0 +1,111 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.northbound.session.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the topic matching of the subscription index
+ */
+public class SubscriptionIndexTest {
+
+    private final SubscriptionIndex<String> index = new SubscriptionIndex<>();
+
+    private List<String> match(String topic) {
+        List<String> result = new ArrayList<>();
+        index.match(topic, result::add);
+        result.sort(null);
+        return result;
+    }
+
+    @Test
+    void testExactTopic() {
+        index.add("DATA/provider/svc/rc", "a");
+        index.add("DATA/provider/svc/rc", "b");
+        index.add("DATA/provider/svc/other", "c");
+
+        assertEquals(List.of("a", "b"), match("DATA/provider/svc/rc"));
+        assertEquals(List.of("c"), match("DATA/provider/svc/other"));
+        assertEquals(List.of(), match("DATA/provider/svc"));
+        assertEquals(List.of(), match("DATA/provider/svc/rc/x"));
+    }
+
+    @Test
+    void testWildcard() {
+        index.add("DATA/*", "all");
+        index.add("DATA/provider/*", "provider");
+        index.add("DATA/prov*", "partial");
+        index.add("*", "everything");
+
+        assertEquals(List.of("all", "everything", "partial", "provider"), match("DATA/provider/svc/rc"));
+        assertEquals(List.of("all", "everything", "partial"), match("DATA/provider2/svc/rc"));
+        assertEquals(List.of("all", "everything"), match("DATA/other/svc/rc"));
+        assertEquals(List.of("everything"), match("METADATA/provider/svc/rc"));
+        // The wildcard needs a following segment, as for a plain prefix match
+        assertEquals(List.of("all", "everything", "partial"), match("DATA/provider"));
+    }
+
+    @Test
+    void testSingleLevel() {
+        index.add("DATA/+/svc/rc", "any-provider");
+        index.add("DATA/+/+/rc", "any-service");
+        index.add("DATA/+/admin/*", "admin");
+
+        assertEquals(List.of("any-provider", "any-service"), match("DATA/p1/svc/rc"));
+        assertEquals(List.of("any-service"), match("DATA/p1/other/rc"));
+        assertEquals(List.of("admin", "any-service"), match("DATA/p2/admin/rc"));
+        assertEquals(List.of(), match("DATA/p1/svc/rc/x"));
+        assertEquals(List.of(), match("DATA/p1/svc"));
+    }
+
+    @Test
+    void testSingleLevelOnlyAsSegment() {
+        // A '+' is a wildcard only as a whole segment
+        index.add("DATA/a+b/svc/rc", "literal");
+        index.add("DATA/+/svc/rc", "any-provider");
+
+        assertEquals(List.of("any-provider", "literal"), match("DATA/a+b/svc/rc"));
+        assertEquals(List.of("any-provider"), match("DATA/ab/svc/rc"));
+        // A provider named '+' can't be told apart from the wildcard
+        assertEquals(List.of("any-provider"), match("DATA/+/svc/rc"));
+    }
+
+    @Test
+    void testRemove() {
+        index.add("DATA/provider/svc/rc", "a");
+        index.add("DATA/provider/svc/rc", "b");
+        index.add("DATA/+/svc/*", "a");
+
+        index.remove("DATA/provider/svc/rc", "a");
+        assertEquals(List.of("a", "b"), match("DATA/provider/svc/rc"));
+
+        index.remove("DATA/+/svc/*", "a");
+        assertEquals(List.of("b"), match("DATA/provider/svc/rc"));
+
+        // Removing an unknown subscription is a no-op
+        index.remove("DATA/unknown/svc/rc", "b");
+        index.remove("DATA/provider/svc/rc", "c");
+        assertFalse(index.isEmpty());
+
+        index.remove("DATA/provider/svc/rc", "b");
+        assertEquals(List.of(), match("DATA/provider/svc/rc"));
+        assertTrue(index.isEmpty());
+    }
+}
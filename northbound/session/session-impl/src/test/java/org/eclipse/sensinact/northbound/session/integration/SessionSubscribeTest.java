@@ -189,4 +189,43 @@ public class SessionSubscribeTest {
 
         assertNull(queue.poll(1, TimeUnit.SECONDS));
     }
+
+    /**
+     * Show that a subscription to a single resource only receives its events
+     *
+     * @throws Exception
+     */
+    @Test
+    void resourceSubscribe() throws Exception {
+
+        BlockingQueue<ResourceDataNotification> queue = new ArrayBlockingQueue<>(32);
+
+        SensiNactSession session = sessionManager.getDefaultSession(BOB);
+        session.addListener(List.of(SensiNactSession.resourceTopic(PROVIDER, SERVICE, RESOURCE)),
+                (t, e) -> queue.offer(e), null, null, null);
+
+        GenericDto dto = new GenericDto();
+        dto.model = MODEL;
+        dto.provider = PROVIDER;
+        dto.service = SERVICE;
+        dto.resource = RESOURCE;
+        dto.value = VALUE;
+        dto.type = Integer.class;
+
+        push.pushUpdate(dto);
+
+        ResourceDataNotification notification = queue.poll(1, TimeUnit.SECONDS);
+
+        assertNotNull(notification);
+        assertEquals(PROVIDER, notification.provider());
+        assertEquals(SERVICE, notification.service());
+        assertEquals(RESOURCE, notification.resource());
+        assertEquals(VALUE, notification.newValue());
+
+        // Another resource of the same service
+        dto.resource = RESOURCE + "2";
+        push.pushUpdate(dto);
+
+        assertNull(queue.poll(500, TimeUnit.MILLISECONDS));
+    }
 }
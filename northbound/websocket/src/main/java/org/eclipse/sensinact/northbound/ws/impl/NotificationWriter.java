@@ -0,0 +1,335 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.northbound.ws.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.sensinact.core.metrics.IMetricCounter;
+import org.eclipse.sensinact.core.metrics.IMetricsHistogram;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
+import org.eclipse.sensinact.northbound.query.api.AbstractResultDTO;
+import org.eclipse.sensinact.northbound.query.dto.SensinactPath;
+import org.eclipse.sensinact.northbound.query.dto.notification.AbstractResourceNotificationDTO;
+import org.eclipse.sensinact.northbound.query.dto.notification.ErrorResultNotificationDTO;
+import org.eclipse.sensinact.northbound.query.dto.notification.ResourceDataNotificationDTO;
+import org.eclipse.sensinact.northbound.query.dto.notification.ResultResourceNotificationDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Sends the notifications of a WebSocket connection asynchronously, so that a
+ * slow client never blocks the notification threads.
+ * <p>
+ * Notifications are queued up to a maximum size, beyond which the
+ * {@link OverflowPolicy} applies, and are written one frame at a time. When
+ * the batch size is greater than 1, each frame holds a JSON array of up to
+ * batch size notifications.
+ */
+class NotificationWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationWriter.class);
+
+    /**
+     * Depth of the queue of a connection, sampled when a notification is queued
+     */
+    static final String METRIC_QUEUE_DEPTH = "sensinact.websocket.queue.depth";
+
+    /**
+     * Number of notifications dropped because a queue was full
+     */
+    static final String METRIC_DROPPED = "sensinact.websocket.notifications.dropped";
+
+    /**
+     * Number of notifications replaced by a newer one for the same resource
+     */
+    static final String METRIC_CONFLATED = "sensinact.websocket.notifications.conflated";
+
+    /**
+     * Number of connections closed because their queue was full
+     */
+    static final String METRIC_DISCONNECTED = "sensinact.websocket.overflow.disconnections";
+
+    /**
+     * Settings of the notification writers
+     *
+     * @param queueSize      maximum number of pending notifications per
+     *                       connection
+     * @param batchSize      maximum number of notifications per frame
+     * @param overflowPolicy what to do when the queue is full
+     * @param metrics        the metrics manager
+     */
+    record Settings(int queueSize, int batchSize, OverflowPolicy overflowPolicy, IMetricsManager metrics) {
+    }
+
+    private record ConflationKey(String subscriptionId, String uri) {
+    }
+
+    private static final class Pending {
+        final ConflationKey key;
+        ResultResourceNotificationDTO result;
+
+        Pending(ConflationKey key, ResultResourceNotificationDTO result) {
+            this.key = key;
+            this.result = result;
+        }
+    }
+
+    private final Object lock = new Object();
+
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+
+    private final Map<ConflationKey, Pending> conflatable = new HashMap<>();
+
+    private final Session ws;
+
+    private final ObjectMapper mapper;
+
+    private final int queueSize;
+
+    private final int batchSize;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final Runnable onFailure;
+
+    private final IMetricsHistogram depth;
+
+    private final IMetricCounter dropped;
+
+    private final IMetricCounter conflated;
+
+    private final IMetricCounter disconnected;
+
+    /**
+     * True while a frame is being written
+     */
+    private boolean writing;
+
+    private boolean closed;
+
+    /**
+     * @param ws        WebSocket session
+     * @param mapper    JSON mapper
+     * @param settings  Writer settings
+     * @param onFailure Called when the connection must be closed
+     */
+    NotificationWriter(Session ws, ObjectMapper mapper, Settings settings, Runnable onFailure) {
+        this.ws = ws;
+        this.mapper = mapper;
+        this.queueSize = Math.max(1, settings.queueSize());
+        this.batchSize = Math.max(1, settings.batchSize());
+        this.overflowPolicy = settings.overflowPolicy();
+        this.onFailure = onFailure;
+        IMetricsManager metrics = settings.metrics();
+        depth = metrics.getHistogram(METRIC_QUEUE_DEPTH);
+        dropped = metrics.getCounter(METRIC_DROPPED);
+        conflated = metrics.getCounter(METRIC_CONFLATED);
+        disconnected = metrics.getCounter(METRIC_DISCONNECTED);
+    }
+
+    /**
+     * Queues a notification
+     *
+     * @param subscriptionId ID of the subscription
+     * @param notification   Notification DTO
+     */
+    void send(String subscriptionId, AbstractResourceNotificationDTO notification) {
+        final ResultResourceNotificationDTO result = new ResultResourceNotificationDTO();
+        result.statusCode = 200;
+        result.uri = new SensinactPath(notification.provider, notification.service, notification.resource).toUri();
+        result.subscriptionId = subscriptionId;
+        result.notification = notification;
+
+        final ConflationKey key = overflowPolicy == OverflowPolicy.CONFLATE
+                && notification instanceof ResourceDataNotificationDTO
+                        ? new ConflationKey(subscriptionId, result.uri)
+                        : null;
+
+        boolean disconnect = false;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+
+            if (key != null) {
+                Pending pending = conflatable.get(key);
+                if (pending != null) {
+                    // Keep the position of the pending notification with the new value
+                    pending.result = result;
+                    conflated.inc();
+                    return;
+                }
+            }
+
+            if (queue.size() >= queueSize) {
+                if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                    logger.warn("Notification queue of WebSocket {} is full. Closing the connection",
+                            ws.getRemoteAddress());
+                    disconnected.inc();
+                    doClose();
+                    disconnect = true;
+                } else {
+                    Pending oldest = queue.poll();
+                    if (oldest.key != null) {
+                        conflatable.remove(oldest.key);
+                    }
+                    dropped.inc();
+                }
+            }
+
+            if (!closed) {
+                Pending pending = new Pending(key, result);
+                queue.add(pending);
+                if (key != null) {
+                    conflatable.put(key, pending);
+                }
+                depth.update(queue.size());
+
+                if (writing) {
+                    // The current write will go on with the queue
+                    return;
+                }
+                writing = true;
+            }
+        }
+
+        if (disconnect) {
+            onFailure.run();
+        } else {
+            writeNext();
+        }
+    }
+
+    /**
+     * Drops the pending notifications and stops writing
+     */
+    void close() {
+        synchronized (lock) {
+            doClose();
+        }
+    }
+
+    /**
+     * Must be called holding {@link #lock}
+     */
+    private void doClose() {
+        closed = true;
+        queue.clear();
+        conflatable.clear();
+    }
+
+    /**
+     * Writes frames until the queue is empty or a write doesn't complete
+     * immediately, in which case its callback takes over
+     */
+    private void writeNext() {
+        while (true) {
+            final List<ResultResourceNotificationDTO> batch;
+            synchronized (lock) {
+                if (closed || queue.isEmpty()) {
+                    writing = false;
+                    return;
+                }
+                batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+                while (batch.size() < batchSize && !queue.isEmpty()) {
+                    Pending pending = queue.poll();
+                    if (pending.key != null) {
+                        conflatable.remove(pending.key);
+                    }
+                    batch.add(pending.result);
+                }
+            }
+
+            final BatchCallback callback = new BatchCallback();
+            try {
+                ws.getRemote().sendString(toPayload(batch), callback);
+            } catch (Exception e) {
+                callback.writeFailed(e);
+            }
+
+            synchronized (lock) {
+                if (!callback.done) {
+                    // Still writing: the callback will continue
+                    callback.returned = true;
+                    return;
+                }
+            }
+        }
+    }
+
+    private String toPayload(List<ResultResourceNotificationDTO> batch) {
+        try {
+            return batchSize == 1 ? mapper.writeValueAsString(batch.get(0)) : mapper.writeValueAsString(batch);
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing notifications for the client: {}", e.getMessage(), e);
+            Set<String> subscriptions = new LinkedHashSet<>();
+            batch.forEach(r -> subscriptions.add(r.subscriptionId));
+            List<AbstractResultDTO> errors = new ArrayList<>(subscriptions.size());
+            subscriptions.forEach(s -> errors.add(new ErrorResultNotificationDTO(s)));
+            try {
+                return batchSize == 1 ? mapper.writeValueAsString(errors.get(0)) : mapper.writeValueAsString(errors);
+            } catch (JsonProcessingException e2) {
+                throw new IllegalStateException("Unable to serialize notification errors", e2);
+            }
+        }
+    }
+
+    /**
+     * Continues writing once a frame is sent, if {@link #writeNext()} returned
+     * before
+     */
+    private class BatchCallback implements WriteCallback {
+
+        /**
+         * Set when the write succeeded before {@link #writeNext()} returned
+         */
+        boolean done;
+
+        /**
+         * Set when {@link #writeNext()} returned before the write completed
+         */
+        boolean returned;
+
+        @Override
+        public void writeSuccess() {
+            synchronized (lock) {
+                if (!returned) {
+                    done = true;
+                    return;
+                }
+            }
+            writeNext();
+        }
+
+        @Override
+        public void writeFailed(Throwable t) {
+            logger.error("Error sending notifications to client: {}. Closing WebSocket.", t.getMessage(), t);
+            synchronized (lock) {
+                writing = false;
+                doClose();
+            }
+            onFailure.run();
+        }
+    }
+}
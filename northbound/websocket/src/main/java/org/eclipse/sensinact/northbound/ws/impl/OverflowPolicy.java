@@ -0,0 +1,35 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.northbound.ws.impl;
+
+/**
+ * What to do when the notification queue of a WebSocket client is full
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Drop the oldest pending notification
+     */
+    DROP_OLDEST,
+
+    /**
+     * Replace a pending data notification of the same resource by the new one,
+     * and drop the oldest pending notification if there is none
+     */
+    CONFLATE,
+
+    /**
+     * Close the connection of the client
+     */
+    DISCONNECT;
+}
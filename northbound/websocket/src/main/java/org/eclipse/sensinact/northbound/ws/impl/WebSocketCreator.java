@@ -47,13 +47,21 @@ public class WebSocketCreator implements JettyWebSocketCreator {
      */
     private final IQueryHandler queryHandler;
 
+    /**
+     * Notification writers settings, passed to web sockets
+     */
+    private final NotificationWriter.Settings writerSettings;
+
     /**
      * @param sessionManager Session manager
      * @param queryHandler   Query handler
+     * @param writerSettings Notification writers settings
      */
-    public WebSocketCreator(final SensiNactSessionManager sessionManager, final IQueryHandler queryHandler) {
+    public WebSocketCreator(final SensiNactSessionManager sessionManager, final IQueryHandler queryHandler,
+            final NotificationWriter.Settings writerSettings) {
         this.sessionManager = sessionManager;
         this.queryHandler = queryHandler;
+        this.writerSettings = writerSettings;
     }
 
     /**
@@ -83,7 +91,7 @@ public class WebSocketCreator implements JettyWebSocketCreator {
     public Object createWebSocket(final JettyServerUpgradeRequest req, final JettyServerUpgradeResponse resp) {
         UserInfo userInfo = (UserInfo) req.getServletAttribute(WebSocketJettyRegistrar.SENSINACT_USER_INFO);
         final WebSocketEndpoint wsConnection = new WebSocketEndpoint(this, sessionManager.createNewSession(userInfo),
-                queryHandler);
+                queryHandler, writerSettings);
         sessions.add(wsConnection);
         return wsConnection;
     }
@@ -47,10 +47,8 @@ import org.eclipse.sensinact.northbound.query.api.IQueryHandler;
 import org.eclipse.sensinact.northbound.query.api.StatusException;
 import org.eclipse.sensinact.northbound.query.dto.SensinactPath;
 import org.eclipse.sensinact.northbound.query.dto.notification.AbstractResourceNotificationDTO;
-import org.eclipse.sensinact.northbound.query.dto.notification.ErrorResultNotificationDTO;
 import org.eclipse.sensinact.northbound.query.dto.notification.ResourceDataNotificationDTO;
 import org.eclipse.sensinact.northbound.query.dto.notification.ResourceLifecycleNotificationDTO;
-import org.eclipse.sensinact.northbound.query.dto.notification.ResultResourceNotificationDTO;
 import org.eclipse.sensinact.northbound.query.dto.query.QuerySubscribeDTO;
 import org.eclipse.sensinact.northbound.query.dto.query.QueryUnsubscribeDTO;
 import org.eclipse.sensinact.northbound.query.dto.result.ErrorResultDTO;
@@ -85,6 +83,16 @@ public class WebSocketEndpoint {
      */
     private final AtomicReference<Session> wsSession = new AtomicReference<>();
 
+    /**
+     * Notification writer of the current WebSocket session
+     */
+    private final AtomicReference<NotificationWriter> notificationWriter = new AtomicReference<>();
+
+    /**
+     * Notification writers settings
+     */
+    private final NotificationWriter.Settings writerSettings;
+
     /**
      * Current user session
      */
@@ -109,12 +117,14 @@ public class WebSocketEndpoint {
      * @param pool             WebSocket connections pool
      * @param sensiNactSession User session manager
      * @param queryHandler     Query handler
+     * @param writerSettings   Notification writer settings
      */
     public WebSocketEndpoint(final WebSocketCreator pool, final SensiNactSession sensiNactSession,
-            final IQueryHandler queryHandler) {
+            final IQueryHandler queryHandler, final NotificationWriter.Settings writerSettings) {
         this.pool = pool;
         this.userSession = sensiNactSession;
         this.queryHandler = queryHandler;
+        this.writerSettings = writerSettings;
     }
 
     /**
@@ -126,6 +136,11 @@ public class WebSocketEndpoint {
             return;
         }
 
+        NotificationWriter writer = notificationWriter.getAndSet(null);
+        if (writer != null) {
+            writer.close();
+        }
+
         // Close subscriptions first
         if (userSession != null) {
             for (final String listenerId : subscriptions) {
@@ -149,6 +164,7 @@ public class WebSocketEndpoint {
     @OnWebSocketConnect
     public void open(final Session session) {
         logger.debug("WebSocket opening - {}", session);
+        notificationWriter.set(new NotificationWriter(session, mapper, writerSettings, this::close));
         wsSession.set(session);
     }
 
@@ -195,7 +211,8 @@ public class WebSocketEndpoint {
                 break;
 
             default:
-                result = queryHandler.handleQuery(userSession, query);
+                // Results are serialized right away, while the session is valid
+                result = queryHandler.handleStreamingQuery(userSession, query);
                 break;
             }
 
@@ -330,30 +347,16 @@ public class WebSocketEndpoint {
 
         final ResultSubscribeDTO result = new ResultSubscribeDTO();
         List<String> topics;
-        final Predicate<ResourceNotification> eventPredicate;
         if (path.targetsSpecificResource()) {
             result.uri = path.toUri();
-            // TODO replace this with single level wildcard
-            topics = List.of("*");
-            eventPredicate = n -> query.uri.provider.equals(n.provider()) && query.uri.service.equals(n.service())
-                    && query.uri.resource.equals(n.resource());
+            // Only receive the events of the resource
+            topics = List.of(SensiNactSession.resourceTopic(path.provider, path.service, path.resource));
         } else {
             result.uri = "/";
             topics = List.of("*");
-            eventPredicate = n -> true;
         }
 
-        final Predicate<ResourceNotification> p;
-        if (query.filter != null) {
-            Predicate<ResourceNotification> queryFilter = prepareFilter(query);
-            if (queryFilter != null) {
-                p = eventPredicate.and(queryFilter);
-            } else {
-                p = eventPredicate;
-            }
-        } else {
-            p = eventPredicate;
-        }
+        final Predicate<ResourceNotification> p = query.filter != null ? prepareFilter(query) : null;
 
         final ClientDataListener cld = (topic, evt) -> {
             try {
@@ -362,7 +365,7 @@ public class WebSocketEndpoint {
                     logger.warn("Detected closed WebSocket. Stop listening");
                     userSession.removeListener(listenerId.get());
                 } else if ((p == null || p.test(evt)) && checkLatch(latch)) {
-                    sendNotification(ws, listenerId.get(), new ResourceDataNotificationDTO(evt));
+                    sendNotification(listenerId.get(), new ResourceDataNotificationDTO(evt));
                 }
             } catch (Throwable e) {
                 logger.warn("Error notifying WebSocket of life cycle update", e);
@@ -376,7 +379,7 @@ public class WebSocketEndpoint {
                     logger.warn("Detected closed WebSocket. Stop listening");
                     userSession.removeListener(listenerId.get());
                 } else if ((p == null || p.test(evt)) && checkLatch(latch)) {
-                    sendNotification(ws, listenerId.get(), new ResourceLifecycleNotificationDTO(evt));
+                    sendNotification(listenerId.get(), new ResourceLifecycleNotificationDTO(evt));
                 }
             } catch (Throwable e) {
                 logger.error("Error notifying WebSocket of a data update", e);
@@ -421,32 +424,15 @@ public class WebSocketEndpoint {
     }
 
     /**
-     * Sends a notification to the client
-     *
-     * @param ws
+     * Queues a notification to be sent to the client
      *
      * @param listenerId   ID of the subscription
      * @param notification Notification DTO
      */
-    private void sendNotification(Session ws, final String listenerId,
-            final AbstractResourceNotificationDTO notification) {
-        try {
-            final ResultResourceNotificationDTO result = new ResultResourceNotificationDTO();
-            result.statusCode = 200;
-            result.uri = new SensinactPath(notification.provider, notification.service, notification.resource).toUri();
-            result.subscriptionId = listenerId;
-            result.notification = notification;
-            ws.getRemote().sendString(mapper.writeValueAsString(result));
-        } catch (IOException e) {
-            logger.error("Error sending notification to client: {}", e.getMessage(), e);
-            try {
-                final ErrorResultNotificationDTO errorNotification = new ErrorResultNotificationDTO(listenerId);
-                ws.getRemote().sendString(mapper.writeValueAsString(errorNotification));
-            } catch (IOException e2) {
-                logger.error("Error sending notification to client: {}. Closing WebSocket.", e2.getMessage(), e2);
-                userSession.removeListener(listenerId);
-                WebSocketEndpoint.this.close();
-            }
+    private void sendNotification(final String listenerId, final AbstractResourceNotificationDTO notification) {
+        NotificationWriter writer = notificationWriter.get();
+        if (writer != null) {
+            writer.send(listenerId, notification);
         }
     }
 
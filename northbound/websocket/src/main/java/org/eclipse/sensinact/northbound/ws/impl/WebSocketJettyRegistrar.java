@@ -33,6 +33,7 @@ import org.eclipse.jetty.websocket.core.server.WebSocketServerComponents;
 import org.eclipse.jetty.websocket.server.JettyWebSocketServerContainer;
 import org.eclipse.jetty.websocket.server.JettyWebSocketServlet;
 import org.eclipse.jetty.websocket.server.JettyWebSocketServletFactory;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.northbound.query.api.IQueryHandler;
 import org.eclipse.sensinact.northbound.security.api.Authenticator;
 import org.eclipse.sensinact.northbound.security.api.UserInfo;
@@ -75,6 +76,22 @@ public class WebSocketJettyRegistrar extends JettyWebSocketServlet implements Fi
 
     @interface Config {
         boolean allow_anonymous() default false;
+
+        /**
+         * Maximum number of notifications waiting to be sent to a client
+         */
+        int notification_queue_size() default 1000;
+
+        /**
+         * Maximum number of notifications sent in a single frame. When greater
+         * than 1, frames contain a JSON array of notifications
+         */
+        int notification_batch_size() default 1;
+
+        /**
+         * What to do when the notification queue of a client is full
+         */
+        OverflowPolicy notification_overflow_policy() default OverflowPolicy.DROP_OLDEST;
     }
 
     @Reference
@@ -83,6 +100,9 @@ public class WebSocketJettyRegistrar extends JettyWebSocketServlet implements Fi
     @Reference
     IQueryHandler queryHandler;
 
+    @Reference
+    IMetricsManager metrics;
+
     @Reference(policy = DYNAMIC)
     private final Set<Authenticator> authenticators = new CopyOnWriteArraySet<>();
 
@@ -106,7 +126,9 @@ public class WebSocketJettyRegistrar extends JettyWebSocketServlet implements Fi
     @Activate
     void activate(final Config config) {
         this.config = config;
-        sessionPool = new WebSocketCreator(sessionManager, queryHandler);
+        sessionPool = new WebSocketCreator(sessionManager, queryHandler,
+                new NotificationWriter.Settings(config.notification_queue_size(), config.notification_batch_size(),
+                        config.notification_overflow_policy(), metrics));
     }
 
     @Deactivate
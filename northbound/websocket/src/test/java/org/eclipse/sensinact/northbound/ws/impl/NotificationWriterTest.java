@@ -0,0 +1,286 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.northbound.ws.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.sensinact.core.metrics.IMetricCounter;
+import org.eclipse.sensinact.core.metrics.IMetricsHistogram;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
+import org.eclipse.sensinact.northbound.query.dto.notification.ResourceDataNotificationDTO;
+import org.eclipse.sensinact.northbound.ws.impl.NotificationWriter.Settings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests the queuing of the notifications of a WebSocket connection
+ */
+@ExtendWith(MockitoExtension.class)
+public class NotificationWriterTest {
+
+    private static final String SUBSCRIPTION = "sub";
+
+    final ObjectMapper mapper = new ObjectMapper();
+
+    @Mock
+    Session ws;
+
+    @Mock
+    RemoteEndpoint remote;
+
+    @Mock
+    IMetricsManager metrics;
+
+    @Mock
+    IMetricsHistogram depth;
+
+    @Mock
+    IMetricCounter dropped;
+
+    @Mock
+    IMetricCounter conflated;
+
+    @Mock
+    IMetricCounter disconnected;
+
+    /**
+     * Payloads of the frames sent to the client
+     */
+    final List<String> frames = new ArrayList<>();
+
+    /**
+     * Callbacks of the frames which are still being written
+     */
+    final Deque<WriteCallback> inFlight = new ArrayDeque<>();
+
+    /**
+     * When true, frames are written immediately
+     */
+    boolean fast = true;
+
+    final AtomicInteger failures = new AtomicInteger();
+
+    @BeforeEach
+    void setup() {
+        lenient().when(ws.getRemote()).thenReturn(remote);
+        lenient().when(metrics.getHistogram(NotificationWriter.METRIC_QUEUE_DEPTH)).thenReturn(depth);
+        lenient().when(metrics.getCounter(NotificationWriter.METRIC_DROPPED)).thenReturn(dropped);
+        lenient().when(metrics.getCounter(NotificationWriter.METRIC_CONFLATED)).thenReturn(conflated);
+        lenient().when(metrics.getCounter(NotificationWriter.METRIC_DISCONNECTED)).thenReturn(disconnected);
+        lenient().doAnswer(i -> {
+            frames.add(i.getArgument(0));
+            WriteCallback callback = i.getArgument(1);
+            if (fast) {
+                callback.writeSuccess();
+            } else {
+                inFlight.add(callback);
+            }
+            return null;
+        }).when(remote).sendString(anyString(), any());
+    }
+
+    NotificationWriter writer(int queueSize, int batchSize, OverflowPolicy policy) {
+        return new NotificationWriter(ws, mapper, new Settings(queueSize, batchSize, policy, metrics),
+                failures::incrementAndGet);
+    }
+
+    static ResourceDataNotificationDTO data(String resource, Object value) {
+        ResourceDataNotificationDTO dto = new ResourceDataNotificationDTO();
+        dto.provider = "provider";
+        dto.service = "service";
+        dto.resource = resource;
+        dto.newValue = value;
+        return dto;
+    }
+
+    /**
+     * Completes the frame being written
+     */
+    void complete() {
+        inFlight.poll().writeSuccess();
+    }
+
+    /**
+     * Lists the resource and value of the notifications of a frame
+     */
+    List<String> values(int frame) throws IOException {
+        JsonNode node = mapper.readTree(frames.get(frame));
+        List<String> values = new ArrayList<>();
+        for (JsonNode result : node.isArray() ? node : List.of(node)) {
+            assertEquals(SUBSCRIPTION, result.get("subscriptionId").asText());
+            JsonNode notification = result.get("notification");
+            values.add(notification.get("resource").asText() + "=" + notification.get("newValue").asText());
+        }
+        return values;
+    }
+
+    @Nested
+    class BatchTests {
+
+        @Test
+        void singleNotification() throws Exception {
+            NotificationWriter writer = writer(10, 1, OverflowPolicy.DROP_OLDEST);
+            writer.send(SUBSCRIPTION, data("a", 1));
+            writer.send(SUBSCRIPTION, data("a", 2));
+
+            // One object per frame
+            assertEquals(2, frames.size());
+            JsonNode node = mapper.readTree(frames.get(0));
+            assertTrue(node.isObject());
+            assertEquals("/provider/service/a", node.get("uri").asText());
+            assertEquals(200, node.get("statusCode").asInt());
+            assertEquals(List.of("a=2"), values(1));
+        }
+
+        @Test
+        void batchWhileWriting() throws Exception {
+            fast = false;
+            NotificationWriter writer = writer(10, 2, OverflowPolicy.DROP_OLDEST);
+            writer.send(SUBSCRIPTION, data("a", 1));
+            for (int i = 2; i <= 4; i++) {
+                writer.send(SUBSCRIPTION, data("a", i));
+            }
+
+            // The notifications sent while a frame is written wait for it
+            assertEquals(1, frames.size());
+            assertEquals(List.of("a=1"), values(0));
+            complete();
+            assertEquals(2, frames.size());
+            assertEquals(List.of("a=2", "a=3"), values(1));
+            complete();
+            assertEquals(List.of("a=4"), values(2));
+            complete();
+            assertEquals(3, frames.size());
+            assertTrue(inFlight.isEmpty());
+        }
+
+        @Test
+        void failedSend() throws Exception {
+            NotificationWriter writer = writer(10, 1, OverflowPolicy.DROP_OLDEST);
+            doAnswer(i -> {
+                throw new IllegalStateException("Connection lost");
+            }).when(remote).sendString(anyString(), any());
+
+            writer.send(SUBSCRIPTION, data("a", 1));
+            assertEquals(1, failures.get());
+
+            // The writer is closed
+            writer.send(SUBSCRIPTION, data("a", 2));
+            verify(remote).sendString(anyString(), any());
+            assertEquals(1, failures.get());
+        }
+
+        @Test
+        void failedSlowSend() throws Exception {
+            fast = false;
+            NotificationWriter writer = writer(10, 1, OverflowPolicy.DROP_OLDEST);
+            writer.send(SUBSCRIPTION, data("a", 1));
+            writer.send(SUBSCRIPTION, data("a", 2));
+            assertEquals(0, failures.get());
+
+            inFlight.poll().writeFailed(new IOException("Timeout"));
+            assertEquals(1, failures.get());
+
+            // The pending notifications are dropped
+            writer.send(SUBSCRIPTION, data("a", 3));
+            assertEquals(1, frames.size());
+            assertTrue(inFlight.isEmpty());
+        }
+    }
+
+    @Nested
+    class OverflowTests {
+
+        @Test
+        void dropOldest() throws Exception {
+            fast = false;
+            NotificationWriter writer = writer(2, 10, OverflowPolicy.DROP_OLDEST);
+            for (int i = 1; i <= 4; i++) {
+                writer.send(SUBSCRIPTION, data("a", i));
+            }
+            verify(dropped).inc();
+
+            complete();
+            assertEquals(List.of("a=3", "a=4"), values(1));
+            assertEquals(0, failures.get());
+        }
+
+        @Test
+        void conflate() throws Exception {
+            fast = false;
+            NotificationWriter writer = writer(2, 10, OverflowPolicy.CONFLATE);
+            writer.send(SUBSCRIPTION, data("a", 1));
+            writer.send(SUBSCRIPTION, data("a", 2));
+            writer.send(SUBSCRIPTION, data("b", 1));
+            writer.send(SUBSCRIPTION, data("a", 3));
+            verify(conflated).inc();
+            verify(dropped, never()).inc();
+
+            // The latest value of a keeps the position of the first one
+            complete();
+            assertEquals(List.of("a=3", "b=1"), values(1));
+
+            // Beyond the queue size, the oldest resource is dropped
+            writer.send(SUBSCRIPTION, data("a", 4));
+            writer.send(SUBSCRIPTION, data("b", 2));
+            writer.send(SUBSCRIPTION, data("c", 1));
+            verify(dropped).inc();
+            complete();
+            assertEquals(List.of("b=2", "c=1"), values(2));
+        }
+
+        @Test
+        void disconnect() throws Exception {
+            fast = false;
+            NotificationWriter writer = writer(2, 10, OverflowPolicy.DISCONNECT);
+            for (int i = 1; i <= 3; i++) {
+                writer.send(SUBSCRIPTION, data("a", i));
+            }
+            assertEquals(0, failures.get());
+
+            writer.send(SUBSCRIPTION, data("a", 4));
+            assertEquals(1, failures.get());
+            verify(disconnected).inc();
+
+            // Nothing more is written
+            writer.send(SUBSCRIPTION, data("a", 5));
+            complete();
+            assertEquals(1, frames.size());
+            assertEquals(1, failures.get());
+        }
+    }
+}
@@ -13,7 +13,9 @@
 package org.eclipse.sensinact.gateway.southbound.device.factory;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
 
 /**
  *
@@ -48,4 +50,23 @@ public class EncodingUtils {
 
         return new ByteArrayInputStream(toCheck, offset, size);
     }
+
+    /**
+     * Removes the UTF-8 Byte Order Mark from the given input stream if present.
+     * Make sure the expected encoding is UTF-8 before calling this method
+     *
+     * @param input Stream of an UTF-8 content
+     * @return A stream of the content without the BOM prefix
+     * @throws IOException Error reading the input stream
+     */
+    public static InputStream removeBOM(final InputStream input) throws IOException {
+        final PushbackInputStream pushback = new PushbackInputStream(input, 3);
+        final byte[] bom = new byte[3];
+        final int read = pushback.readNBytes(bom, 0, 3);
+        if (read != 3 || (bom[0] & 0xFF) != 0xEF || (bom[1] & 0xFF) != 0xBB || (bom[2] & 0xFF) != 0xBF) {
+            // No BOM marker: keep the content as is
+            pushback.unread(bom, 0, read);
+        }
+        return pushback;
+    }
 }
@@ -12,9 +12,11 @@
 **********************************************************************/
 package org.eclipse.sensinact.gateway.southbound.device.factory;
 
+import java.io.InputStream;
 import java.util.Map;
 
 import org.eclipse.sensinact.gateway.southbound.device.factory.dto.DeviceMappingConfigurationDTO;
+import org.osgi.util.promise.Promise;
 
 /**
  * Definition of the device mapping handler
@@ -26,9 +28,29 @@ public interface IDeviceMappingHandler {
      *
      * @param configuration Mapping configuration (must contain the parser ID)
      * @param payload       Raw content to parse
+     * @return the promise of the update of the resources. It fails with a
+     *         {@link org.eclipse.sensinact.core.command.GatewayOverloadedException}
+     *         if the gateway is overloaded: the caller should then pause reading
+     *         from its source.
      * @throws DeviceFactoryException Error handling records
      */
-    void handle(DeviceMappingConfigurationDTO configuration, Map<String, String> context, byte[] payload)
+    Promise<?> handle(DeviceMappingConfigurationDTO configuration, Map<String, String> context, byte[] payload)
             throws MissingParserException, InvalidResourcePathException, ParserException, DeviceFactoryException;
 
+    /**
+     * Handles the content of the given input stream and updates resources
+     * accordingly. Records are read one at a time and their updates are pushed in
+     * bulks of at most {@code bulk.size} updates, so that the memory usage doesn't
+     * depend on the payload size.
+     *
+     * @param configuration Mapping configuration (must contain the parser ID)
+     * @param payload       Raw content to parse, to be closed by the caller
+     * @return the promise of the update of the resources. It fails with a
+     *         {@link org.eclipse.sensinact.core.command.GatewayOverloadedException}
+     *         if the gateway is overloaded: the caller should then pause reading
+     *         from its source.
+     * @throws DeviceFactoryException Error handling records
+     */
+    Promise<?> handle(DeviceMappingConfigurationDTO configuration, Map<String, String> context, InputStream payload)
+            throws MissingParserException, InvalidResourcePathException, ParserException, DeviceFactoryException;
 }
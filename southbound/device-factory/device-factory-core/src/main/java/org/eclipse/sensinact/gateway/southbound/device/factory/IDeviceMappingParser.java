@@ -12,6 +12,9 @@
 **********************************************************************/
 package org.eclipse.sensinact.gateway.southbound.device.factory;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -41,4 +44,46 @@ public interface IDeviceMappingParser {
      */
     List<? extends IDeviceMappingRecord> parseRecords(byte[] rawInput, Map<String, Object> parserConfiguration,
             Map<String, String> context) throws ParserException;
+
+    /**
+     * Reads the records found in the given input, one at a time, to avoid holding
+     * the whole payload in memory. Use
+     * {@link java.nio.channels.Channels#newInputStream(java.nio.channels.ReadableByteChannel)}
+     * to read from a channel.
+     * <p>
+     * The default implementation reads the whole input and calls
+     * {@link #parseRecords(byte[], Map, Map)}.
+     *
+     * @param input               Payload input stream, to be closed by the caller
+     * @param parserConfiguration Parser configuration
+     * @param context             Payload context (MQTT topic, ...)
+     * @return The reader of the parsed records (can be null), to be closed by the
+     *         caller
+     * @throws ParserException Error parsing payload
+     */
+    default IDeviceMappingRecordReader readRecords(InputStream input, Map<String, Object> parserConfiguration,
+            Map<String, String> context) throws ParserException {
+        final List<? extends IDeviceMappingRecord> records;
+        try {
+            records = parseRecords(input.readAllBytes(), parserConfiguration, context);
+        } catch (IOException e) {
+            throw new ParserException("Error reading payload", e);
+        }
+
+        if (records == null) {
+            return null;
+        }
+
+        final Iterator<? extends IDeviceMappingRecord> iterator = records.iterator();
+        return new IDeviceMappingRecordReader() {
+            @Override
+            public IDeviceMappingRecord next() {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
 }
@@ -0,0 +1,29 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.device.factory;
+
+import java.io.Closeable;
+
+/**
+ * Reads the records of a payload one at a time
+ */
+public interface IDeviceMappingRecordReader extends Closeable {
+
+    /**
+     * Reads the next record of the payload
+     *
+     * @return The next record, or null if there is no more record
+     * @throws ParserException Error parsing payload
+     */
+    IDeviceMappingRecord next() throws ParserException;
+}
@@ -50,4 +50,19 @@ public class DeviceMappingOptionsDTO {
 
     @JsonProperty("log.errors")
     public boolean logErrors = false;
+
+    /**
+     * Maximum number of updates pushed at once, 0 or less for no limit. The
+     * updates of a record are never split between bulks.
+     */
+    @JsonProperty("bulk.size")
+    public int bulkSize = 10000;
+
+    /**
+     * Maximum number of bulks pushed and not yet applied by the gateway while
+     * reading a payload, 0 or less for no limit. Once reached, the reading waits
+     * for the oldest bulk to be applied.
+     */
+    @JsonProperty("bulk.max.pending")
+    public int bulkMaxPending = 2;
 }
@@ -14,7 +14,9 @@ package org.eclipse.sensinact.gateway.southbound.device.factory.impl;
 
 import static java.util.stream.Collectors.toMap;
 
-import java.time.DateTimeException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
@@ -22,16 +24,15 @@ import java.time.OffsetTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.chrono.ChronoZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.FormatStyle;
 import java.time.temporal.ChronoField;
 import java.time.temporal.TemporalAccessor;
 import java.time.temporal.UnsupportedTemporalTypeException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -42,6 +43,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.eclipse.sensinact.core.annotation.dto.NullAction;
+import org.eclipse.sensinact.core.command.GatewayOverloadedException;
 import org.eclipse.sensinact.core.metrics.IMetricTimer;
 import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.push.DataUpdate;
@@ -57,10 +59,10 @@ import org.eclipse.sensinact.gateway.southbound.device.factory.DeviceFactoryExce
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingHandler;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingParser;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingRecord;
+import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingRecordReader;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IPlaceHolderKeys;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IResourceMapping;
 import org.eclipse.sensinact.gateway.southbound.device.factory.InvalidResourcePathException;
-import org.eclipse.sensinact.gateway.southbound.device.factory.LocaleUtils;
 import org.eclipse.sensinact.gateway.southbound.device.factory.MissingParserException;
 import org.eclipse.sensinact.gateway.southbound.device.factory.ParserException;
 import org.eclipse.sensinact.gateway.southbound.device.factory.RecordPath;
@@ -74,6 +76,7 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.Promises;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -95,6 +98,11 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
      * Keeps track of the state of the current record
      */
     private static class RecordState {
+        /**
+         * Compiled mapping configuration
+         */
+        MappingPlan plan;
+
         /**
          * Place holder -&gt; record path
          */
@@ -121,6 +129,16 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         List<ResourceLiteralMapping> rcLiterals;
     }
 
+    /**
+     * Maximum number of compiled mapping configurations kept in cache
+     */
+    private static final int MAX_MAPPING_PLANS = 256;
+
+    /**
+     * Compiled mapping configurations
+     */
+    private final MappingPlan.Cache mappingPlans = new MappingPlan.Cache(MAX_MAPPING_PLANS);
+
     /**
      * Available parsers
      */
@@ -179,8 +197,14 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
     }
 
     @Override
-    public void handle(final DeviceMappingConfigurationDTO configuration, final Map<String, String> context,
+    public Promise<?> handle(final DeviceMappingConfigurationDTO configuration, final Map<String, String> context,
             final byte[] payload) throws DeviceFactoryException {
+        return handle(configuration, context, new ByteArrayInputStream(payload));
+    }
+
+    @Override
+    public Promise<?> handle(final DeviceMappingConfigurationDTO configuration, final Map<String, String> context,
+            final InputStream payload) throws DeviceFactoryException {
 
         // Check parser ID
         final String parserId = configuration.parser;
@@ -200,54 +224,85 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         }
 
         final boolean logErrors = configuration.mappingOptions.logErrors;
+        final int bulkSize = configuration.mappingOptions.bulkSize;
+        final int bulkMaxPending = configuration.mappingOptions.bulkMaxPending;
+        final String parseTimerName = "device.factory.parse." + parserId + ".time";
 
         // Find it
         final ComponentServiceObjects<IDeviceMappingParser> cso = findParser(parserId);
         final IDeviceMappingParser parser = cso.getService();
         try {
             // Use it
-            final List<? extends IDeviceMappingRecord> records;
-            try (IMetricTimer timer = metrics.withTimer("device.factory.parse." + parserId + ".time")) {
-                records = parser.parseRecords(payload, configuration.parserOptions, context);
+            final IDeviceMappingRecordReader reader;
+            try (IMetricTimer timer = metrics.withTimer(parseTimerName)) {
+                reader = parser.readRecords(payload, configuration.parserOptions, context);
             }
 
-            if (records != null) {
-                final BulkGenericDto bulk = new BulkGenericDto();
-                bulk.dtos = new ArrayList<>();
+            if (reader != null) {
+                final List<Promise<?>> pushes = new ArrayList<>();
+                final Deque<Promise<?>> pending = new ArrayDeque<>();
+                List<GenericDto> dtos = new ArrayList<>();
+                boolean overloaded = false;
+
+                try (reader) {
+                    while (true) {
+                        final IDeviceMappingRecord record;
+                        try (IMetricTimer timer = metrics.withTimer(parseTimerName)) {
+                            record = reader.next();
+                        }
+                        if (record == null) {
+                            break;
+                        }
 
-                for (final IDeviceMappingRecord record : records) {
-                    try {
-                        try (IMetricTimer timer = metrics.withTimer("device.factory.record.mapping.time")) {
-                            bulk.dtos.addAll(handleRecord(configuration, globalState, record));
+                        try {
+                            try (IMetricTimer timer = metrics.withTimer("device.factory.record.mapping.time")) {
+                                dtos.addAll(handleRecord(configuration, globalState, record));
+                            }
+                        } catch (InvalidResourcePathException | ParserException | VariableNotFoundException e) {
+                            if (logErrors) {
+                                logger.error("Error parsing record with parser {}: {}", parserId, e.getMessage(), e);
+                            }
                         }
-                    } catch (InvalidResourcePathException | ParserException | VariableNotFoundException e) {
-                        if (logErrors) {
-                            logger.error("Error parsing record with parser {}: {}", parserId, e.getMessage(), e);
+
+                        if (bulkSize > 0 && dtos.size() >= bulkSize) {
+                            // Send the updates read so far, to bound memory usage
+                            final Promise<?> push = pushBulk(dtos, parserId, logErrors);
+                            pushes.add(push);
+                            pending.add(push);
+                            dtos = new ArrayList<>();
+                            if (awaitPendingBulks(pending, bulkMaxPending)) {
+                                // Don't read the rest of a payload the gateway can't apply
+                                logger.warn("Gateway overloaded, stopped reading payload with parser {}", parserId);
+                                overloaded = true;
+                                break;
+                            }
                         }
                     }
+                } catch (IOException e) {
+                    throw new ParserException("Error closing payload", e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ParserException("Interrupted while waiting for the updates to be applied", e);
                 }
 
-                if (!bulk.dtos.isEmpty()) {
-                    // Send all updates to the gateway thread at once
-                    Promise<?> pushUpdate = dataUpdate.pushUpdate(bulk);
-                    if (logErrors) {
-                        pushUpdate = pushUpdate.onFailure((t) -> {
-                            if (t instanceof FailedUpdatesException) {
-                                for (DataUpdateException ex : ((FailedUpdatesException) t).getFailedUpdates()) {
-                                    logger.error("Error updating digital twin of {}/{}/{} with parser {}: {}",
-                                            ex.getProvider(), ex.getService(), ex.getResource(), parserId,
-                                            ex.getMessage(), ex);
-                                }
-                            } else {
-                                logger.error("Error updating digital twin with parser {}: {}", parserId, t.getMessage(),
-                                        t);
-                            }
-                        });
+                if (!overloaded && !dtos.isEmpty()) {
+                    pushes.add(pushBulk(dtos, parserId, logErrors));
+                }
+
+                if (pushes.size() == 1) {
+                    return pushes.get(0);
+                } else if (!pushes.isEmpty()) {
+                    // Fail with the first failure, keeping its cause
+                    Promise<Object> result = Promises.resolved(null);
+                    for (Promise<?> push : pushes) {
+                        result = result.then(p -> push.map(v -> (Object) v));
                     }
+                    return result;
                 }
             } else if (logErrors) {
                 logger.error("No record found by parser {}", parserId);
             }
+            return Promises.resolved(null);
         } catch (Exception e) {
             if (logErrors) {
                 logger.error("Error parsing payload with parser {}", parserId, e);
@@ -258,6 +313,65 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         }
     }
 
+    /**
+     * Waits for the oldest pushed bulks to be applied until at most the given
+     * number of them are pending. Must not be called from the gateway thread.
+     *
+     * @param pending    Pushed bulks, oldest first. The applied ones are removed.
+     * @param maxPending Maximum number of pending bulks, 0 or less for no limit
+     * @return true if a bulk was rejected because the gateway is overloaded
+     * @throws InterruptedException Interrupted while waiting
+     */
+    private boolean awaitPendingBulks(final Deque<Promise<?>> pending, final int maxPending)
+            throws InterruptedException {
+        final Promise<?> latest = pending.peekLast();
+        if (latest != null && latest.isDone() && latest.getFailure() instanceof GatewayOverloadedException) {
+            // Rejected on admission
+            return true;
+        }
+
+        while (!pending.isEmpty()) {
+            final Promise<?> oldest = pending.peekFirst();
+            if (!oldest.isDone() && (maxPending <= 0 || pending.size() <= maxPending)) {
+                break;
+            }
+            // Blocks until the oldest bulk is applied
+            if (oldest.getFailure() instanceof GatewayOverloadedException) {
+                return true;
+            }
+            pending.removeFirst();
+        }
+        return false;
+    }
+
+    /**
+     * Sends the given updates to the gateway thread at once
+     *
+     * @param dtos      Updates to push
+     * @param parserId  ID of the parser, for logs
+     * @param logErrors Flag to log update errors
+     * @return The promise of the update
+     */
+    private Promise<?> pushBulk(final List<GenericDto> dtos, final String parserId, final boolean logErrors) {
+        final BulkGenericDto bulk = new BulkGenericDto();
+        bulk.dtos = dtos;
+
+        Promise<?> pushUpdate = dataUpdate.pushUpdate(bulk);
+        if (logErrors) {
+            pushUpdate = pushUpdate.onFailure((t) -> {
+                if (t instanceof FailedUpdatesException) {
+                    for (DataUpdateException ex : ((FailedUpdatesException) t).getFailedUpdates()) {
+                        logger.error("Error updating digital twin of {}/{}/{} with parser {}: {}", ex.getProvider(),
+                                ex.getService(), ex.getResource(), parserId, ex.getMessage(), ex);
+                    }
+                } else {
+                    logger.error("Error updating digital twin with parser {}: {}", parserId, t.getMessage(), t);
+                }
+            });
+        }
+        return pushUpdate;
+    }
+
     /**
      * Returns the resource value as a string
      *
@@ -339,7 +453,8 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         final List<GenericDto> bulk = new ArrayList<>();
 
         // Compute the timestamp
-        final Instant timestamp = computeTimestamp(provider, record, recordState.placeholders, configuration);
+        final Instant timestamp = computeTimestamp(provider, record, recordState.placeholders, globalState.plan,
+                options);
 
         // Get the friendly name
         final IResourceMapping nameKey = recordState.placeholders.get(KEY_NAME);
@@ -477,7 +592,7 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
     }
 
     /**
-     * Computes the list of place holders, variables and resource mapping
+     * Gets the compiled mapping and prepares the context variables
      *
      * @param configuration Device mapping configuration
      * @param context
@@ -486,41 +601,14 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
      */
     private RecordState computeInitialState(DeviceMappingConfigurationDTO configuration, Map<String, String> context)
             throws InvalidResourcePathException {
-        final Map<String, IResourceMapping> placeholders = new HashMap<>();
-        final Map<String, IResourceMapping> variablesMappings = new HashMap<>();
-        final List<ResourceRecordMapping> rcMappings = new ArrayList<>();
-        final List<ResourceLiteralMapping> rcLiterals = new ArrayList<>();
-
-        final ResourceMappingHandler handler = new ResourceMappingHandler();
-
-        for (Entry<String, Object> entry : configuration.mapping.entrySet()) {
-            final String key = entry.getKey();
-            final IResourceMapping mapping = handler.parseMapping(key, entry.getValue());
-            if (key.startsWith("@")) {
-                // Placeholder
-                placeholders.put(key, mapping);
-            } else if (key.startsWith("$") && !key.startsWith("${")) {
-                // Variable definition
-                if (VariableSolver.isValidKey(key)) {
-                    variablesMappings.put(key, mapping);
-                } else {
-                    throw new InvalidResourcePathException(String.format("Invalid variable format: '%s'", key));
-                }
-            } else {
-                // Mapping
-                if (mapping.isLiteral()) {
-                    rcLiterals.add((ResourceLiteralMapping) mapping);
-                } else {
-                    rcMappings.add((ResourceRecordMapping) mapping);
-                }
-            }
-        }
+        final MappingPlan plan = mappingPlans.get(configuration);
 
         final RecordState state = new RecordState();
-        state.placeholders = Map.copyOf(placeholders);
-        state.rawVariables = Map.copyOf(variablesMappings);
-        state.rcMappings = List.copyOf(rcMappings);
-        state.rcLiterals = List.copyOf(rcLiterals);
+        state.plan = plan;
+        state.placeholders = plan.placeholders;
+        state.rawVariables = plan.rawVariables;
+        state.rcMappings = plan.rcMappings;
+        state.rcLiterals = plan.rcLiterals;
         state.variables = Map.copyOf(
                 context.entrySet().stream().collect(toMap(e -> "$context.".concat(e.getKey()), Entry::getValue)));
         return state;
@@ -541,6 +629,7 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
             throws InvalidResourcePathException, ParserException, VariableNotFoundException {
 
         final RecordState state = new RecordState();
+        state.plan = initialState.plan;
 
         // Resolve variables
         state.variables = resolveVariables(configuration, record, initialState.variables, initialState.rawVariables);
@@ -814,38 +903,19 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         return location;
     }
 
-    /**
-     * Parse the configured timezone, UTC by default
-     *
-     * @param dateTimezone Timezone from mapping configuration
-     * @return Parsed timezone or UTC
-     */
-    private ZoneId getTimezone(final String dateTimezone) {
-        if (dateTimezone == null || dateTimezone.isBlank()) {
-            return ZoneOffset.UTC;
-        } else {
-            try {
-                return ZoneId.of(dateTimezone);
-            } catch (DateTimeException e) {
-                logger.warn("Can't parse configured timezone '{}': {}", dateTimezone, e.getMessage());
-                return ZoneOffset.UTC;
-            }
-        }
-    }
-
     /**
      * Looks for a time value in the given record
      *
      * @param provider      Parsed provider
      * @param record        Record to read
      * @param placeholders  Defined mapping placeholders
-     * @param configuration Mapping configuration
+     * @param plan          Compiled mapping configuration
+     * @param options       Mapping options
      * @return The parsed timestamp or the current time
      */
     private Instant computeTimestamp(final String provider, final IDeviceMappingRecord record,
-            final Map<String, IResourceMapping> placeholders, final DeviceMappingConfigurationDTO configuration) {
-
-        final DeviceMappingOptionsDTO options = configuration.mappingOptions;
+            final Map<String, IResourceMapping> placeholders, final MappingPlan plan,
+            final DeviceMappingOptionsDTO options) {
 
         final IResourceMapping timestampPath = placeholders.get(KEY_TIMESTAMP);
         if (timestampPath != null) {
@@ -855,15 +925,13 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
             }
         }
 
-        final ZoneId timezone = getTimezone(configuration.mappingOptions.dateTimezone);
-        final Locale locale = LocaleUtils.fromString(configuration.mappingOptions.formatDateTimeLocale);
+        final ZoneId timezone = plan.timezone;
 
         final IResourceMapping dateTimePath = placeholders.get(KEY_DATETIME);
         if (dateTimePath != null) {
             final String strDateTime = getFieldString(record, dateTimePath, options);
             if (strDateTime != null && !strDateTime.isBlank()) {
-                final TemporalAccessor parsedDateTime = parseDateTime(strDateTime, configuration.mappingOptions,
-                        locale);
+                final TemporalAccessor parsedDateTime = plan.getDateTimeFormatter().parse(strDateTime);
                 return extractDateTime(parsedDateTime, timezone);
             }
         }
@@ -873,7 +941,7 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         if (datePath != null) {
             final String strDate = getFieldString(record, datePath, options);
             if (strDate != null && !strDate.isBlank()) {
-                date = parseDate(strDate, configuration.mappingOptions, locale);
+                date = extractDate(plan.getDateFormatter().parse(strDate));
             }
         }
 
@@ -882,7 +950,7 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         if (timePath != null) {
             final String strTime = getFieldString(record, timePath, options);
             if (strTime != null && !strTime.isBlank()) {
-                time = parseTime(strTime, date, timezone, configuration.mappingOptions, locale);
+                time = extractTime(plan.getTimeFormatter().parse(strTime), date, timezone);
             }
         }
 
@@ -959,93 +1027,6 @@ public class FactoryParserHandler implements IDeviceMappingHandler, IPlaceHolder
         return OffsetTime.of(hour, minute, second, nanoOfSecond, offset);
     }
 
-    /**
-     * Parses a date string
-     *
-     * @param strDate Date string
-     * @param options Device mapping options
-     * @param locale  Configured locale
-     * @return The parsed date
-     */
-    private LocalDate parseDate(final String strDate, final DeviceMappingOptionsDTO options, final Locale locale) {
-        DateTimeFormatter format = DateTimeFormatter.ISO_LOCAL_DATE;
-        if (options.formatDate != null && !options.formatDate.isBlank()) {
-            format = DateTimeFormatter.ofPattern(options.formatDate);
-        } else if (options.formatDateStyle != null && !options.formatDateStyle.isBlank()) {
-            format = DateTimeFormatter.ofLocalizedDate(FormatStyle.valueOf(options.formatDateStyle.toUpperCase()));
-        }
-
-        if (locale != null) {
-            format = format.withLocale(locale);
-        }
-
-        return extractDate(format.parse(strDate));
-    }
-
-    /**
-     * Parses a time string
-     *
-     * @param strTime      Time string
-     * @param expectedDate Expected date of the time (today if null)
-     * @param timezone     Fallback timezone
-     * @param options      Device mapping options
-     * @param locale       Configured locale
-     * @return The parsed time at the expected date or today
-     */
-    private OffsetTime parseTime(final String strTime, final LocalDate expectedDate, final ZoneId timezone,
-            final DeviceMappingOptionsDTO options, final Locale locale) {
-        DateTimeFormatter format = DateTimeFormatter.ISO_OFFSET_TIME;
-        if (options.formatTime != null && !options.formatTime.isBlank()) {
-            format = DateTimeFormatter.ofPattern(options.formatTime);
-        } else if (options.formatTimeStyle != null && !options.formatTimeStyle.isBlank()) {
-            format = DateTimeFormatter.ofLocalizedDate(FormatStyle.valueOf(options.formatTimeStyle.toUpperCase()));
-        }
-
-        if (locale != null) {
-            format = format.withLocale(locale);
-        }
-
-        return extractTime(format.parse(strTime), expectedDate, timezone);
-    }
-
-    /**
-     * Parses a date time according to mapping options
-     *
-     * @param strDateTime String value of the date time
-     * @param options     Mapping options
-     * @param locale      Configured locale
-     * @return The parsed date time
-     */
-    private TemporalAccessor parseDateTime(final String strDateTime, final DeviceMappingOptionsDTO options,
-            final Locale locale) {
-        DateTimeFormatter format = DateTimeFormatter.ISO_DATE_TIME;
-
-        final String formatDateTime = options.formatDateTime;
-        if (formatDateTime != null && !formatDateTime.isBlank()) {
-            format = DateTimeFormatter.ofPattern(formatDateTime);
-        } else {
-            String formatDateStyle = options.formatDateStyle;
-            String formatTimeStyle = options.formatTimeStyle;
-
-            if (formatTimeStyle == null || formatTimeStyle.isBlank()) {
-                formatTimeStyle = formatDateStyle;
-            } else if (formatDateStyle == null || formatDateStyle.isBlank()) {
-                formatDateStyle = formatTimeStyle;
-            }
-
-            if (formatTimeStyle != null && !formatTimeStyle.isBlank()) {
-                format = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.valueOf(formatDateStyle.toUpperCase()),
-                        FormatStyle.valueOf(formatTimeStyle.toUpperCase()));
-            }
-        }
-
-        if (locale != null) {
-            format = format.withLocale(locale);
-        }
-
-        return format.parse(strDateTime);
-    }
-
     /**
      * Extract date and time from a parsed temporal accessor
      *
@@ -0,0 +1,293 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.device.factory.impl;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.sensinact.gateway.southbound.device.factory.IResourceMapping;
+import org.eclipse.sensinact.gateway.southbound.device.factory.InvalidResourcePathException;
+import org.eclipse.sensinact.gateway.southbound.device.factory.LocaleUtils;
+import org.eclipse.sensinact.gateway.southbound.device.factory.dto.DeviceMappingConfigurationDTO;
+import org.eclipse.sensinact.gateway.southbound.device.factory.dto.DeviceMappingOptionsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The compiled form of a device mapping configuration: its parsed mappings,
+ * timezone, locale and date/time formatters. A plan doesn't depend on the
+ * parsed payload and can be shared between threads.
+ */
+final class MappingPlan {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappingPlan.class);
+
+    /**
+     * Content of a configuration a plan is compiled from
+     */
+    record Key(Map<String, Object> mapping, String formatDate, String formatTime, String formatDateTime,
+            String formatDateTimeLocale, String formatDateStyle, String formatTimeStyle, String dateTimezone) {
+
+        static Key of(final DeviceMappingConfigurationDTO configuration) {
+            final DeviceMappingOptionsDTO options = configuration.mappingOptions;
+            // Mapping values can be null, which excludes Map.copyOf()
+            return new Key(Collections.unmodifiableMap(new HashMap<>(configuration.mapping)), options.formatDate,
+                    options.formatTime, options.formatDateTime, options.formatDateTimeLocale, options.formatDateStyle,
+                    options.formatTimeStyle, options.dateTimezone);
+        }
+    }
+
+    /**
+     * A bounded cache of plans, by configuration content
+     */
+    static final class Cache {
+
+        private final Map<Key, MappingPlan> plans;
+
+        Cache(final int maxSize) {
+            plans = new LinkedHashMap<>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Entry<Key, MappingPlan> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        /**
+         * Returns the plan of the given configuration, compiling it if needed
+         *
+         * @param configuration Device mapping configuration
+         * @return The mapping plan
+         * @throws InvalidResourcePathException Error parsing resource path
+         */
+        MappingPlan get(final DeviceMappingConfigurationDTO configuration) throws InvalidResourcePathException {
+            final Key key = Key.of(configuration);
+            MappingPlan plan;
+            synchronized (plans) {
+                plan = plans.get(key);
+            }
+
+            if (plan == null) {
+                // Compile outside the lock: concurrent compilations give equivalent plans
+                plan = new MappingPlan(key);
+                synchronized (plans) {
+                    plans.put(key, plan);
+                }
+            }
+            return plan;
+        }
+
+        /**
+         * @return the number of cached plans
+         */
+        int size() {
+            synchronized (plans) {
+                return plans.size();
+            }
+        }
+    }
+
+    /**
+     * Configuration content
+     */
+    private final Key key;
+
+    /**
+     * Place holder -&gt; record path
+     */
+    final Map<String, IResourceMapping> placeholders;
+
+    /**
+     * Variable name -&gt; unresolved record path
+     */
+    final Map<String, IResourceMapping> rawVariables;
+
+    /**
+     * SensiNact resource path -&gt; record path
+     */
+    final List<ResourceRecordMapping> rcMappings;
+
+    /**
+     * SensiNact resource path -&gt; literal record path
+     */
+    final List<ResourceLiteralMapping> rcLiterals;
+
+    /**
+     * Configured timezone, UTC by default
+     */
+    final ZoneId timezone;
+
+    /**
+     * Configured date time locale, can be null
+     */
+    final Locale locale;
+
+    /**
+     * Formatters, created on first use as invalid styles must only fail the
+     * records that need them
+     */
+    private volatile DateTimeFormatter dateFormatter;
+    private volatile DateTimeFormatter timeFormatter;
+    private volatile DateTimeFormatter dateTimeFormatter;
+
+    /**
+     * Computes the list of place holders, variables and resource mapping
+     *
+     * @param key Configuration content
+     * @throws InvalidResourcePathException Error parsing resource path
+     */
+    private MappingPlan(final Key key) throws InvalidResourcePathException {
+        this.key = key;
+
+        final Map<String, IResourceMapping> placeholders = new HashMap<>();
+        final Map<String, IResourceMapping> variablesMappings = new HashMap<>();
+        final List<ResourceRecordMapping> rcMappings = new ArrayList<>();
+        final List<ResourceLiteralMapping> rcLiterals = new ArrayList<>();
+
+        final ResourceMappingHandler handler = new ResourceMappingHandler();
+
+        for (Entry<String, Object> entry : key.mapping().entrySet()) {
+            final String mappingKey = entry.getKey();
+            final IResourceMapping mapping = handler.parseMapping(mappingKey, entry.getValue());
+            if (mappingKey.startsWith("@")) {
+                // Placeholder
+                placeholders.put(mappingKey, mapping);
+            } else if (mappingKey.startsWith("$") && !mappingKey.startsWith("${")) {
+                // Variable definition
+                if (VariableSolver.isValidKey(mappingKey)) {
+                    variablesMappings.put(mappingKey, mapping);
+                } else {
+                    throw new InvalidResourcePathException(String.format("Invalid variable format: '%s'", mappingKey));
+                }
+            } else {
+                // Mapping
+                if (mapping.isLiteral()) {
+                    rcLiterals.add((ResourceLiteralMapping) mapping);
+                } else {
+                    rcMappings.add((ResourceRecordMapping) mapping);
+                }
+            }
+        }
+
+        this.placeholders = Map.copyOf(placeholders);
+        this.rawVariables = Map.copyOf(variablesMappings);
+        this.rcMappings = List.copyOf(rcMappings);
+        this.rcLiterals = List.copyOf(rcLiterals);
+        this.timezone = parseTimezone(key.dateTimezone());
+        this.locale = LocaleUtils.fromString(key.formatDateTimeLocale());
+    }
+
+    /**
+     * Parse the configured timezone, UTC by default
+     *
+     * @param dateTimezone Timezone from mapping configuration
+     * @return Parsed timezone or UTC
+     */
+    private static ZoneId parseTimezone(final String dateTimezone) {
+        if (dateTimezone == null || dateTimezone.isBlank()) {
+            return ZoneOffset.UTC;
+        } else {
+            try {
+                return ZoneId.of(dateTimezone);
+            } catch (DateTimeException e) {
+                logger.warn("Can't parse configured timezone '{}': {}", dateTimezone, e.getMessage());
+                return ZoneOffset.UTC;
+            }
+        }
+    }
+
+    private DateTimeFormatter withLocale(final DateTimeFormatter format) {
+        return locale != null ? format.withLocale(locale) : format;
+    }
+
+    /**
+     * @return The formatter to parse dates
+     */
+    DateTimeFormatter getDateFormatter() {
+        DateTimeFormatter format = dateFormatter;
+        if (format == null) {
+            format = DateTimeFormatter.ISO_LOCAL_DATE;
+            if (key.formatDate() != null && !key.formatDate().isBlank()) {
+                format = DateTimeFormatter.ofPattern(key.formatDate());
+            } else if (key.formatDateStyle() != null && !key.formatDateStyle().isBlank()) {
+                format = DateTimeFormatter.ofLocalizedDate(FormatStyle.valueOf(key.formatDateStyle().toUpperCase()));
+            }
+            format = withLocale(format);
+            dateFormatter = format;
+        }
+        return format;
+    }
+
+    /**
+     * @return The formatter to parse times
+     */
+    DateTimeFormatter getTimeFormatter() {
+        DateTimeFormatter format = timeFormatter;
+        if (format == null) {
+            format = DateTimeFormatter.ISO_OFFSET_TIME;
+            if (key.formatTime() != null && !key.formatTime().isBlank()) {
+                format = DateTimeFormatter.ofPattern(key.formatTime());
+            } else if (key.formatTimeStyle() != null && !key.formatTimeStyle().isBlank()) {
+                format = DateTimeFormatter.ofLocalizedDate(FormatStyle.valueOf(key.formatTimeStyle().toUpperCase()));
+            }
+            format = withLocale(format);
+            timeFormatter = format;
+        }
+        return format;
+    }
+
+    /**
+     * @return The formatter to parse date times
+     */
+    DateTimeFormatter getDateTimeFormatter() {
+        DateTimeFormatter format = dateTimeFormatter;
+        if (format == null) {
+            format = DateTimeFormatter.ISO_DATE_TIME;
+
+            final String formatDateTime = key.formatDateTime();
+            if (formatDateTime != null && !formatDateTime.isBlank()) {
+                format = DateTimeFormatter.ofPattern(formatDateTime);
+            } else {
+                String formatDateStyle = key.formatDateStyle();
+                String formatTimeStyle = key.formatTimeStyle();
+
+                if (formatTimeStyle == null || formatTimeStyle.isBlank()) {
+                    formatTimeStyle = formatDateStyle;
+                } else if (formatDateStyle == null || formatDateStyle.isBlank()) {
+                    formatDateStyle = formatTimeStyle;
+                }
+
+                if (formatTimeStyle != null && !formatTimeStyle.isBlank()) {
+                    format = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.valueOf(formatDateStyle.toUpperCase()),
+                            FormatStyle.valueOf(formatTimeStyle.toUpperCase()));
+                }
+            }
+            format = withLocale(format);
+            dateTimeFormatter = format;
+        }
+        return format;
+    }
+}
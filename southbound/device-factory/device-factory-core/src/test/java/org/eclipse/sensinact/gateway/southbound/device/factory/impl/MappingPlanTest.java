@@ -0,0 +1,96 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.device.factory.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+
+import org.eclipse.sensinact.gateway.southbound.device.factory.dto.DeviceMappingConfigurationDTO;
+import org.eclipse.sensinact.gateway.southbound.device.factory.dto.DeviceMappingOptionsDTO;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the compilation and caching of mapping configurations
+ */
+public class MappingPlanTest {
+
+    DeviceMappingConfigurationDTO prepareConfig() {
+        DeviceMappingConfigurationDTO config = new DeviceMappingConfigurationDTO();
+        config.parser = "test";
+        config.parserOptions = new HashMap<>();
+        config.mappingOptions = new DeviceMappingOptionsDTO();
+        config.mapping = new HashMap<>();
+        config.mapping.put("@provider", "p");
+        config.mapping.put("$service", "s");
+        config.mapping.put("data/value", "val");
+        config.mapping.put("data/literal", null);
+        return config;
+    }
+
+    @Test
+    void testCompile() throws Exception {
+        final DeviceMappingConfigurationDTO config = prepareConfig();
+        config.mappingOptions.dateTimezone = "Europe/Paris";
+        final MappingPlan plan = new MappingPlan.Cache(4).get(config);
+
+        assertEquals(1, plan.placeholders.size());
+        assertEquals(1, plan.rawVariables.size());
+        assertEquals(1, plan.rcMappings.size());
+        assertEquals(1, plan.rcLiterals.size());
+        assertEquals(ZoneId.of("Europe/Paris"), plan.timezone);
+        assertSame(plan.getDateTimeFormatter(), plan.getDateTimeFormatter());
+    }
+
+    @Test
+    void testCacheByContent() throws Exception {
+        final MappingPlan.Cache cache = new MappingPlan.Cache(4);
+        final DeviceMappingConfigurationDTO config = prepareConfig();
+
+        final MappingPlan plan = cache.get(config);
+        assertSame(plan, cache.get(config));
+        // Another configuration with the same content
+        assertSame(plan, cache.get(prepareConfig()));
+
+        // Changing the mapping or the options gives a new plan
+        config.mapping.put("data/other", "other");
+        final MappingPlan other = cache.get(config);
+        assertNotSame(plan, other);
+
+        config.mappingOptions.dateTimezone = "+01";
+        final MappingPlan withZone = cache.get(config);
+        assertNotSame(other, withZone);
+        assertEquals(ZoneOffset.UTC, other.timezone);
+        assertEquals(ZoneId.of("+01"), withZone.timezone);
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void testCacheEviction() throws Exception {
+        final MappingPlan.Cache cache = new MappingPlan.Cache(2);
+        final DeviceMappingConfigurationDTO config = prepareConfig();
+
+        final MappingPlan first = cache.get(config);
+        for (int i = 0; i < 3; i++) {
+            final DeviceMappingConfigurationDTO otherConfig = prepareConfig();
+            otherConfig.mapping.put("data/other", "other" + i);
+            cache.get(otherConfig);
+        }
+        assertEquals(2, cache.size());
+        assertNotSame(first, cache.get(config));
+    }
+}
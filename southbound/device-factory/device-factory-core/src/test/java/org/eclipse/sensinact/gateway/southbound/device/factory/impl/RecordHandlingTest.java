@@ -13,7 +13,9 @@
 package org.eclipse.sensinact.gateway.southbound.device.factory.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.time.Instant;
@@ -27,9 +29,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.sensinact.core.annotation.dto.NullAction;
+import org.eclipse.sensinact.core.command.GatewayOverloadedException;
 import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.push.DataUpdate;
 import org.eclipse.sensinact.core.push.dto.BulkGenericDto;
@@ -44,6 +52,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.component.ComponentServiceObjects;
+import org.osgi.util.promise.Deferred;
+import org.osgi.util.promise.Promise;
 import org.osgi.util.promise.Promises;
 
 /**
@@ -474,4 +484,83 @@ public class RecordHandlingTest {
             assertEquals(now.truncatedTo(ChronoUnit.SECONDS), dto.timestamp);
         }
     }
+
+    /**
+     * Prepares one single-update record per provider, each one pushed in its own
+     * bulk
+     */
+    DeviceMappingConfigurationDTO prepareBulks(int records) {
+        final DeviceMappingConfigurationDTO config = prepareConfig();
+        config.mapping.put("@provider", "p");
+        config.mapping.put("data/value", "val");
+        config.mappingOptions.bulkSize = 1;
+
+        final List<MapRecord> content = new ArrayList<>();
+        for (int i = 0; i < records; i++) {
+            content.add(new MapRecord(Map.of("p", "provider" + i, "val", i)));
+        }
+        parser.setRecords(content);
+        return config;
+    }
+
+    @Test
+    void testPendingBulks() throws Exception {
+        final DeviceMappingConfigurationDTO config = prepareBulks(5);
+        config.mappingOptions.bulkMaxPending = 2;
+
+        final BlockingQueue<Deferred<Object>> pushed = new LinkedBlockingQueue<>();
+        Mockito.doAnswer(i -> {
+            final Deferred<Object> d = new Deferred<>();
+            pushed.add(d);
+            return d.getPromise();
+        }).when(deviceMapper.dataUpdate).pushUpdate(Mockito.any());
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Promise<?>> handled = executor
+                    .submit(() -> deviceMapper.handle(config, Map.of(), new byte[0]));
+
+            // The third bulk waits for the first one
+            final List<Deferred<Object>> deferreds = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                deferreds.add(pushed.poll(1, TimeUnit.SECONDS));
+            }
+            assertNull(pushed.poll(200, TimeUnit.MILLISECONDS));
+            assertFalse(handled.isDone());
+
+            deferreds.get(0).resolve(null);
+            deferreds.add(pushed.poll(1, TimeUnit.SECONDS));
+            assertNull(pushed.poll(200, TimeUnit.MILLISECONDS));
+
+            deferreds.get(1).resolve(null);
+            deferreds.add(pushed.poll(1, TimeUnit.SECONDS));
+            assertNull(pushed.poll(200, TimeUnit.MILLISECONDS));
+            assertFalse(handled.isDone());
+
+            // Returns once at most 2 bulks are pending
+            deferreds.get(2).resolve(null);
+            final Promise<?> result = handled.get(1, TimeUnit.SECONDS);
+            assertFalse(result.isDone());
+
+            deferreds.get(3).resolve(null);
+            deferreds.get(4).resolve(null);
+            assertNull(result.getFailure());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testOverloadStopsReading() throws Exception {
+        final DeviceMappingConfigurationDTO config = prepareBulks(5);
+
+        Mockito.doAnswer(i -> {
+            bulks.add(i.getArgument(0, BulkGenericDto.class));
+            return Promises.failed(new GatewayOverloadedException("Full"));
+        }).when(deviceMapper.dataUpdate).pushUpdate(Mockito.any());
+
+        final Promise<?> result = deviceMapper.handle(config, Map.of(), new byte[0]);
+        assertTrue(result.getFailure() instanceof GatewayOverloadedException);
+        assertEquals(1, bulks.size());
+    }
 }
@@ -16,9 +16,11 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +30,7 @@ import org.apache.commons.csv.CSVRecord;
 import org.eclipse.sensinact.gateway.southbound.device.factory.EncodingUtils;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingParser;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingRecord;
+import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingRecordReader;
 import org.eclipse.sensinact.gateway.southbound.device.factory.ParserException;
 import org.osgi.service.component.annotations.Component;
 
@@ -42,6 +45,23 @@ public class CsvParser implements IDeviceMappingParser {
     public List<? extends IDeviceMappingRecord> parseRecords(byte[] rawInput, Map<String, Object> parserConfiguration,
             Map<String, String> context) throws ParserException {
 
+        final List<IDeviceMappingRecord> records = new ArrayList<>();
+        try (IDeviceMappingRecordReader reader = readRecords(new ByteArrayInputStream(rawInput), parserConfiguration,
+                context)) {
+            IDeviceMappingRecord record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        } catch (IOException e) {
+            throw new ParserException("Error reading CSV content", e);
+        }
+        return records;
+    }
+
+    @Override
+    public IDeviceMappingRecordReader readRecords(InputStream rawInput, Map<String, Object> parserConfiguration,
+            Map<String, String> context) throws ParserException {
+
         // Read CSV file
         final Charset charset;
         final String strEncoding = (String) parserConfiguration.get("encoding");
@@ -51,13 +71,6 @@ public class CsvParser implements IDeviceMappingParser {
             charset = StandardCharsets.UTF_8;
         }
 
-        final InputStream input;
-        if (StandardCharsets.UTF_8.equals(charset) && rawInput.length > 3) {
-            input = EncodingUtils.removeBOM(rawInput);
-        } else {
-            input = new ByteArrayInputStream(rawInput);
-        }
-
         // Prepare parser
         CSVFormat.Builder format = CSVFormat.DEFAULT.builder();
         final String delimiter = (String) parserConfiguration.get("delimiter");
@@ -74,14 +87,35 @@ public class CsvParser implements IDeviceMappingParser {
             format = format.setHeader().setSkipHeaderRecord(true);
         }
 
-        final List<CsvRecord> records = new ArrayList<>();
-        try (CSVParser parser = format.build().parse(new InputStreamReader(input, charset))) {
-            for (CSVRecord record : parser) {
-                records.add(new CsvRecord(record, withHeader != null && !withHeader));
+        final CSVParser parser;
+        try {
+            final InputStream input;
+            if (StandardCharsets.UTF_8.equals(charset)) {
+                input = EncodingUtils.removeBOM(rawInput);
+            } else {
+                input = rawInput;
             }
+            parser = format.build().parse(new InputStreamReader(input, charset));
         } catch (IllegalStateException | IOException e) {
             throw new ParserException("Error reading CSV content", e);
         }
-        return records;
+
+        final Iterator<CSVRecord> iterator = parser.iterator();
+        return new IDeviceMappingRecordReader() {
+            @Override
+            public IDeviceMappingRecord next() throws ParserException {
+                try {
+                    return iterator.hasNext() ? new CsvRecord(iterator.next(), withHeader != null && !withHeader)
+                            : null;
+                } catch (IllegalStateException | UncheckedIOException e) {
+                    throw new ParserException("Error reading CSV content", e);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                parser.close();
+            }
+        };
     }
 }
@@ -25,9 +25,11 @@ import java.util.Map;
 import org.eclipse.sensinact.gateway.southbound.device.factory.EncodingUtils;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingParser;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingRecord;
+import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingRecordReader;
 import org.eclipse.sensinact.gateway.southbound.device.factory.ParserException;
 import org.osgi.service.component.annotations.Component;
 
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -47,83 +49,173 @@ public class JsonParser implements IDeviceMappingParser {
     public List<? extends IDeviceMappingRecord> parseRecords(byte[] rawInput, Map<String, Object> parserConfiguration,
             final Map<String, String> context) throws ParserException {
 
+        final List<IDeviceMappingRecord> records = new ArrayList<>();
+        try (IDeviceMappingRecordReader reader = readRecords(new ByteArrayInputStream(rawInput), parserConfiguration,
+                context)) {
+            IDeviceMappingRecord record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        } catch (IOException e) {
+            throw new ParserException("Error parsing JSON input", e);
+        }
+        return records;
+    }
+
+    @Override
+    public IDeviceMappingRecordReader readRecords(InputStream rawInput, Map<String, Object> parserConfiguration,
+            Map<String, String> context) throws ParserException {
+
         // Configured base entry
         String base = (String) parserConfiguration.get("base");
         if (base == null || base.isBlank()) {
             base = null;
         }
 
+        com.fasterxml.jackson.core.JsonParser parser = null;
         try {
             // Use the configured encoding
             final String strEncoding = (String) parserConfiguration.get("encoding");
-            final JsonNode root;
             if (strEncoding != null && !strEncoding.isBlank()) {
                 final Charset charset = Charset.forName(strEncoding);
                 final InputStream is;
-                if (StandardCharsets.UTF_8.equals(charset) && rawInput.length > 3) {
+                if (StandardCharsets.UTF_8.equals(charset)) {
                     is = EncodingUtils.removeBOM(rawInput);
                 } else {
-                    is = new ByteArrayInputStream(rawInput);
+                    is = rawInput;
                 }
-                root = objectMapper.readValue(new InputStreamReader(is, charset), JsonNode.class);
+                parser = objectMapper.getFactory().createParser(new InputStreamReader(is, charset));
             } else {
-                root = objectMapper.readValue(rawInput, JsonNode.class);
+                parser = objectMapper.getFactory().createParser(rawInput);
             }
 
-            return parseRecords(root, base);
+            // Walk to the base
+            parser.nextToken();
+            if (base != null) {
+                for (String part : base.split("/")) {
+                    if (!part.isBlank() && !moveTo(parser, part)) {
+                        throw new ParserException("Base path not found in JSON input: " + base);
+                    }
+                }
+            }
+
+            final IDeviceMappingRecordReader reader = createReader(parser);
+            parser = null;
+            return reader;
         } catch (IllegalArgumentException e) {
             throw new ParserException("Invalid JSON input", e);
         } catch (IOException e) {
             throw new ParserException("Error parsing JSON input", e);
+        } finally {
+            if (parser != null) {
+                try {
+                    parser.close();
+                } catch (IOException e) {
+                    // Ignore: we're already failing
+                }
+            }
         }
     }
 
-    private JsonNode getPath(JsonNode node, String pathPart) {
-
-        if (node.isArray()) {
-            return node.get(Integer.valueOf(pathPart));
+    /**
+     * Moves the parser to the value of the given path part in the current object
+     * or array, skipping the values before it
+     *
+     * @param parser   JSON parser, on the start of an object or array
+     * @param pathPart Field name or array index
+     * @return True if the value was found
+     * @throws IOException Error reading input
+     */
+    private boolean moveTo(final com.fasterxml.jackson.core.JsonParser parser, final String pathPart)
+            throws IOException {
+        final JsonToken current = parser.currentToken();
+        if (current == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.currentName();
+                parser.nextToken();
+                if (pathPart.equals(name)) {
+                    return true;
+                }
+                parser.skipChildren();
+            }
+        } else if (current == JsonToken.START_ARRAY) {
+            final int index = Integer.valueOf(pathPart);
+            for (int i = 0; parser.nextToken() != JsonToken.END_ARRAY; i++) {
+                if (i == index) {
+                    return true;
+                }
+                parser.skipChildren();
+            }
         }
-
-        return node.get(pathPart);
+        return false;
     }
 
     /**
-     * Creates records based on the parsed JSON node
+     * Creates the reader of the records found at the current position of the
+     * parser
      *
-     * @param root JSON root object/array
-     * @param base Base path to access the record(s)
-     * @return The list of parsed records
-     * @throws ParserException Error reading input
+     * @param parser JSON parser, on the base object/array
+     * @return The reader of the records
+     * @throws ParserException Unsupported content
+     * @throws IOException     Error reading input
      */
-    private List<JsonRecord> parseRecords(final JsonNode root, final String base) throws ParserException {
-
-        final JsonNode subRoot;
-        if (base == null) {
-            subRoot = root;
-        } else {
-            // Walk to the base
-            final String[] parts = base.split("/");
-
-            JsonNode current = root;
-            for (String part : parts) {
-                if (!part.isBlank()) {
-                    current = getPath(current, part);
+    private IDeviceMappingRecordReader createReader(final com.fasterxml.jackson.core.JsonParser parser)
+            throws ParserException, IOException {
+
+        final JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            // Single record
+            final JsonRecord record = new JsonRecord(objectMapper, objectMapper.readTree(parser));
+            return new IDeviceMappingRecordReader() {
+                private boolean read;
+
+                @Override
+                public IDeviceMappingRecord next() {
+                    if (read) {
+                        return null;
+                    }
+                    read = true;
+                    return record;
                 }
-            }
 
-            subRoot = current;
-        }
+                @Override
+                public void close() throws IOException {
+                    parser.close();
+                }
+            };
+        } else if (token == JsonToken.START_ARRAY) {
+            // One record per entry, read one at a time
+            return new IDeviceMappingRecordReader() {
+                private boolean done;
+
+                @Override
+                public IDeviceMappingRecord next() throws ParserException {
+                    if (done) {
+                        return null;
+                    }
+
+                    try {
+                        final JsonToken next = parser.nextToken();
+                        if (next == null || next == JsonToken.END_ARRAY) {
+                            done = true;
+                            return null;
+                        }
+                        final JsonNode child = objectMapper.readTree(parser);
+                        return new JsonRecord(objectMapper, child);
+                    } catch (IllegalArgumentException e) {
+                        throw new ParserException("Invalid JSON input", e);
+                    } catch (IOException e) {
+                        throw new ParserException("Error parsing JSON input", e);
+                    }
+                }
 
-        if (subRoot.isObject()) {
-            return List.of(new JsonRecord(objectMapper, subRoot));
-        } else if (subRoot.isArray()) {
-            final List<JsonRecord> result = new ArrayList<>(subRoot.size());
-            for (JsonNode child : subRoot) {
-                result.add(new JsonRecord(objectMapper, child));
-            }
-            return result;
+                @Override
+                public void close() throws IOException {
+                    parser.close();
+                }
+            };
         } else {
-            throw new ParserException("Unsupported JSON content: " + subRoot.getNodeType());
+            throw new ParserException("Unsupported JSON content: " + token);
         }
     }
 }
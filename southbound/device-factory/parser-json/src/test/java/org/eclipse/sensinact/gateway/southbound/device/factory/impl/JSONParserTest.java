@@ -228,6 +228,26 @@ public class JSONParserTest {
         assertEquals(1.5, geoPoint.coordinates.elevation, 0.001);
     }
 
+    /**
+     * Streaming a JSON file with an array of objects, in bulks of limited size
+     */
+    @Test
+    void testStreamedBulks() throws Exception {
+        // Read the configuration, with one record per bulk
+        DeviceMappingConfigurationDTO config = readConfiguration("json/multiple-mapping.json");
+        config.mappingOptions.bulkSize = 1;
+
+        // Apply mapping on the file stream
+        try (InputStream inStream = getClass().getClassLoader().getResourceAsStream("json/multiple.json")) {
+            deviceMapper.handle(config, Map.of(), inStream).getValue();
+        }
+
+        // Each record has its own bulk
+        assertEquals(2, bulks.size());
+        assertEquals(94, getResourceValue("JsonMultiple1", "data", "value", Integer.class));
+        assertEquals(28, getResourceValue("JsonMultiple2", "data", "value", Integer.class));
+    }
+
     /**
      * Mapping a JSON file with an array of objects
      */
@@ -0,0 +1,106 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
+import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
+import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
+
+/**
+ * A file history store in a temporary directory, storing all the data events
+ * it is notified of
+ */
+class FileHistoryFixture {
+
+    static final String MODEL_PKG = "https://eclipse.org/sensinact/benchmark";
+
+    static final String MODEL = "benchmark";
+
+    static final String PROVIDER = "provider";
+
+    static final String SERVICE = "service";
+
+    private static final ICriterion ALL = new ICriterion() {
+
+        @Override
+        public Predicate<GeoJsonObject> getLocationFilter() {
+            return null;
+        }
+
+        @Override
+        public Predicate<ProviderSnapshot> getProviderFilter() {
+            return null;
+        }
+
+        @Override
+        public Predicate<ServiceSnapshot> getServiceFilter() {
+            return null;
+        }
+
+        @Override
+        public Predicate<ResourceSnapshot> getResourceFilter() {
+            return null;
+        }
+
+        @Override
+        public ResourceValueFilter getResourceValueFilter() {
+            return null;
+        }
+
+        @Override
+        public Predicate<ResourceDataNotification> dataEventFilter() {
+            return e -> true;
+        }
+    };
+
+    final Path directory;
+
+    final SeriesStore store;
+
+    final FileHistoryWorker worker;
+
+    FileHistoryFixture(int segmentSize) throws IOException {
+        directory = Files.createTempDirectory("file-history");
+        store = new SeriesStore(directory, segmentSize);
+        worker = new FileHistoryWorker(store, ALL, null, selector -> List.of());
+    }
+
+    void push(String resource, Object value, Instant timestamp) {
+        worker.notify("DATA/" + MODEL + "/" + PROVIDER + "/" + SERVICE + "/" + resource,
+                new ResourceDataNotification(MODEL_PKG, MODEL, PROVIDER, SERVICE, resource, null, value, timestamp,
+                        value == null ? Object.class : value.getClass(), Map.of()));
+    }
+
+    void close() throws IOException {
+        store.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.file;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the number of data events the file history store can write, from
+ * the notification to the memory-mapped segment.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileHistoryIngestBenchmark {
+
+    /**
+     * The number of values per segment file
+     */
+    @Param({ "4096", "65536" })
+    public int segmentSize;
+
+    /**
+     * The number of resources the values are spread across
+     */
+    @Param({ "1", "100" })
+    public int resources;
+
+    private FileHistoryFixture fixture;
+
+    private String[] names;
+
+    private Instant timestamp;
+
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        fixture = new FileHistoryFixture(segmentSize);
+        names = new String[resources];
+        for (int i = 0; i < resources; i++) {
+            names[i] = "resource" + i;
+        }
+        timestamp = Instant.parse("2020-01-01T00:00:00Z");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    /**
+     * A number value, in time order
+     */
+    @Benchmark
+    public void appendNumber() {
+        long i = counter++;
+        fixture.push(names[(int) (i % resources)], i, timestamp.plusMillis(i));
+    }
+
+    /**
+     * A text value, in time order
+     */
+    @Benchmark
+    public void appendText() {
+        long i = counter++;
+        fixture.push(names[(int) (i % resources)], "value " + i, timestamp.plusMillis(i));
+    }
+
+    /**
+     * A number value, received late one time out of 16
+     */
+    @Benchmark
+    public void appendOutOfOrder() {
+        long i = counter++;
+        long offset = (i & 15) == 0 ? i - 1000 : i;
+        fixture.push(names[(int) (i % resources)], i, timestamp.plusMillis(offset));
+    }
+}
@@ -0,0 +1,131 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.file;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.sensinact.core.twin.TimedValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the history queries of the file history store on a resource with
+ * one value per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileHistoryScanBenchmark {
+
+    private static final String RESOURCE = "resource";
+
+    private static final Instant START = Instant.parse("2020-01-01T00:00:00Z");
+
+    /**
+     * The number of stored values
+     */
+    @Param({ "1000000" })
+    public int values;
+
+    @Param({ "4096" })
+    public int segmentSize;
+
+    private FileHistoryFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        fixture = new FileHistoryFixture(segmentSize);
+        for (int i = 0; i < values; i++) {
+            fixture.push(RESOURCE, i, START.plusSeconds(i));
+        }
+        fixture.store.sync();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    private static ZonedDateTime utc(Instant instant) {
+        return instant.atZone(ZoneOffset.UTC);
+    }
+
+    private ZonedDateTime randomTime() {
+        return utc(START.plusSeconds(ThreadLocalRandom.current().nextInt(values)));
+    }
+
+    /**
+     * The latest value before a random time
+     */
+    @Benchmark
+    public TimedValue<?> single() {
+        return fixture.worker.getSingleValue(FileHistoryFixture.PROVIDER, FileHistoryFixture.SERVICE, RESOURCE,
+                randomTime());
+    }
+
+    /**
+     * A range of values from a random time
+     */
+    @Benchmark
+    public List<TimedValue<?>> range() {
+        return fixture.worker.getValueRange(FileHistoryFixture.PROVIDER, FileHistoryFixture.SERVICE, RESOURCE,
+                randomTime(), null, null);
+    }
+
+    /**
+     * A page of values before a random time
+     */
+    @Benchmark
+    public List<TimedValue<?>> pageDescending() {
+        return fixture.worker.getValuePage(FileHistoryFixture.PROVIDER, FileHistoryFixture.SERVICE, RESOURCE,
+                randomTime(), false, 500);
+    }
+
+    /**
+     * The number of values of the whole history
+     */
+    @Benchmark
+    public Long count() {
+        return fixture.worker.getStoredValueCount(FileHistoryFixture.PROVIDER, FileHistoryFixture.SERVICE, RESOURCE,
+                utc(START), null);
+    }
+
+    /**
+     * Hourly averages of the whole history, reading every value
+     */
+    @Benchmark
+    public List<TimedValue<?>> aggregateAll() {
+        return fixture.worker.getAggregatedValues(FileHistoryFixture.PROVIDER, FileHistoryFixture.SERVICE, RESOURCE,
+                utc(START), utc(START.plusSeconds(values)), 3_600_000L, "avg");
+    }
+}
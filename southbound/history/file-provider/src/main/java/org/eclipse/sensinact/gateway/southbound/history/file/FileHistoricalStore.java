@@ -0,0 +1,256 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.file;
+
+import static org.osgi.service.typedevent.TypedEventConstants.TYPED_EVENT_TOPICS;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.sensinact.core.command.AbstractTwinCommand;
+import org.eclipse.sensinact.core.command.GatewayThread;
+import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.SnapshotProjection;
+import org.eclipse.sensinact.core.twin.SensinactDigitalTwin;
+import org.eclipse.sensinact.filters.api.FilterCommandHelper;
+import org.eclipse.sensinact.filters.api.FilterException;
+import org.eclipse.sensinact.filters.resource.selector.api.ResourceSelector;
+import org.eclipse.sensinact.filters.resource.selector.api.ResourceSelectorFilterFactory;
+import org.eclipse.sensinact.gateway.southbound.history.api.ResourcePath;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.typedevent.TypedEventHandler;
+import org.osgi.service.typedevent.annotations.RequireTypedEvent;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Stores the history of resources in local files, for gateways which can't
+ * rely on a database server.
+ */
+@Component(service = {}, immediate = true, configurationPid = "sensinact.history.file", configurationPolicy = ConfigurationPolicy.REQUIRE)
+@RequireTypedEvent
+public class FileHistoricalStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileHistoricalStore.class);
+
+    public @interface Config {
+
+        /**
+         * @return The directory where the history is stored. Defaults to the
+         *         data area of the bundle
+         */
+        String directory() default "";
+
+        String provider() default "file-history";
+
+        /**
+         * @return A list of JSON encoded {@link ResourceSelector} instances
+         *         used to select the resources for which history should be
+         *         stored
+         */
+        String[] include_resources() default "{}";
+
+        /**
+         * @return A list of JSON encoded {@link ResourceSelector} instances
+         *         used to exclude resources from history storage. Applies
+         *         after the <code>include.resources</code> selection.
+         */
+        String[] exclude_resources() default {};
+
+        /**
+         * @return The number of values stored in each segment file
+         */
+        int segment_size() default 4096;
+
+        /**
+         * @return The number of days values are kept. Values are kept forever
+         *         if zero or negative.
+         */
+        int retention_days() default 0;
+
+        /**
+         * @return The time in milliseconds between two compactions, which
+         *         remove expired values and sort values received out of order
+         */
+        long compaction_interval() default 3600000;
+
+        /**
+         * @return The time in milliseconds between two writes of the stored
+         *         values to the storage device
+         */
+        long sync_interval() default 1000;
+    }
+
+    @Reference
+    GatewayThread gatewayThread;
+
+    @Reference
+    ResourceSelectorFilterFactory filterFactory;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private SeriesStore store;
+
+    private ScheduledExecutorService maintenance;
+
+    private ServiceRegistration<?> reg;
+
+    @Activate
+    void start(BundleContext ctx, Config config) throws IOException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Starting the file history store");
+        }
+
+        String[] resources = config.include_resources();
+        if (resources.length == 0) {
+            throw new IllegalArgumentException("At least one include resource selector must be set");
+        }
+
+        ICriterion include = filterFactory.parseResourceSelector(Arrays.stream(resources).map(this::fromString));
+
+        ICriterion exclude;
+        resources = config.exclude_resources();
+        if (resources.length == 0) {
+            exclude = null;
+        } else {
+            exclude = filterFactory.parseResourceSelector(Arrays.stream(resources).map(this::fromString));
+        }
+
+        store = new SeriesStore(getDirectory(ctx, config), config.segment_size());
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sensiNact file history maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long syncInterval = Math.max(1, config.sync_interval());
+        maintenance.scheduleWithFixedDelay(store::sync, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+        long compactionInterval = Math.max(1, config.compaction_interval());
+        maintenance.scheduleWithFixedDelay(() -> compact(config), compactionInterval, compactionInterval,
+                TimeUnit.MILLISECONDS);
+
+        reg = ctx.registerService(TypedEventHandler.class,
+                new FileHistoryWorker(store, include, exclude, this::selectResources),
+                new Hashtable<>(Map.of(TYPED_EVENT_TOPICS, include.dataTopics(), "sensiNact.whiteboard.resource", true,
+                        "sensiNact.provider.name", config.provider())));
+
+        gatewayThread.execute(new AbstractTwinCommand<Void>() {
+            @Override
+            protected Promise<Void> call(SensinactDigitalTwin twin, PromiseFactory pf) {
+                if (twin.getProvider(config.provider()) == null) {
+                    twin.createProvider("https://eclipse.org/sensinact/sensiNactHistory", "sensiNactHistory", config.provider());
+                }
+                return pf.resolved(null);
+            }
+        });
+    }
+
+    private ResourceSelector fromString(String s) {
+        try {
+            return mapper.readValue(s, ResourceSelector.class);
+        } catch (JsonProcessingException j) {
+            throw new IllegalArgumentException("Unable to read Resource Selector " + s);
+        }
+    }
+
+    /**
+     * Lists the current resources matching the selector of a batch query
+     */
+    private List<ResourcePath> selectResources(String selector) {
+        ICriterion criterion = filterFactory.parseResourceSelector(Stream.of(fromString(selector)));
+        try {
+            return FilterCommandHelper.executeFilter(gatewayThread, criterion, SnapshotProjection.STRUCTURE).stream()
+                    .flatMap(p -> p.getServices().stream()).flatMap(s -> s.getResources().stream())
+                    .map(r -> new ResourcePath(r.getService().getProvider().getName(), r.getService().getName(),
+                            r.getName()))
+                    .collect(Collectors.toList());
+        } catch (FilterException e) {
+            throw new IllegalArgumentException("Unable to select the resources of " + selector, e);
+        }
+    }
+
+    private Path getDirectory(BundleContext ctx, Config config) {
+        if (!config.directory().isBlank()) {
+            return Path.of(config.directory());
+        }
+
+        File dataFile = ctx.getDataFile("history");
+        if (dataFile == null) {
+            throw new IllegalArgumentException(
+                    "The framework has no file system support: a history directory must be configured");
+        }
+        return dataFile.toPath();
+    }
+
+    private void compact(Config config) {
+        Instant cutoff = config.retention_days() > 0 ? Instant.now().minus(Duration.ofDays(config.retention_days()))
+                : null;
+        if (logger.isDebugEnabled()) {
+            logger.debug("Compacting the file history, removing values before {}", cutoff);
+        }
+        store.compact(cutoff);
+    }
+
+    @Deactivate
+    void stop() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Stopping the file history store");
+        }
+
+        if (reg != null) {
+            try {
+                reg.unregister();
+            } catch (IllegalStateException ise) {
+            }
+            reg = null;
+        }
+
+        if (maintenance != null) {
+            maintenance.shutdown();
+            try {
+                maintenance.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            maintenance = null;
+        }
+
+        if (store != null) {
+            store.close();
+            store = null;
+        }
+    }
+}
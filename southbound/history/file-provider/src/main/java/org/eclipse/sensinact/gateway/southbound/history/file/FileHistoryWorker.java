@@ -0,0 +1,601 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.file;
+
+import static org.eclipse.sensinact.gateway.southbound.history.file.SeriesStore.fromMicros;
+import static org.eclipse.sensinact.gateway.southbound.history.file.SeriesStore.toMicros;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.twin.DefaultTimedValue;
+import org.eclipse.sensinact.core.twin.TimedValue;
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
+import org.eclipse.sensinact.gateway.southbound.history.api.HistoricalQueries;
+import org.eclipse.sensinact.gateway.southbound.history.api.ResourcePath;
+import org.osgi.service.typedevent.TypedEventHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class FileHistoryWorker implements TypedEventHandler<ResourceDataNotification>, HistoricalQueries {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileHistoryWorker.class);
+
+    private static final int RANGE_SIZE = 500;
+
+    private static final int DEFAULT_PAGE_SIZE = 500;
+
+    /**
+     * Maximum number of buckets of an aggregation query
+     */
+    private static final long MAX_BUCKETS = 10000;
+
+    /**
+     * Maximum number of resources of a batch query
+     */
+    private static final int MAX_BATCH_RESOURCES = 1000;
+
+    private static final Set<Class<?>> primitiveNumbers = Set.of(byte.class, short.class, int.class, long.class,
+            float.class, double.class);
+
+    private final JsonFactory factory = JsonFactory.builder()
+            .enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS)
+            .build();
+    private final ObjectMapper mapper = new ObjectMapper(factory);
+
+    private final SeriesStore store;
+
+    private final Predicate<ResourceDataNotification> include;
+
+    private final Predicate<ResourceDataNotification> exclude;
+
+    private final Function<String, Collection<ResourcePath>> selection;
+
+    public FileHistoryWorker(SeriesStore store, ICriterion include, ICriterion exclude,
+            Function<String, Collection<ResourcePath>> selection) {
+        this.store = store;
+        this.include = include.dataEventFilter();
+        this.exclude = exclude == null ? x -> Boolean.FALSE : exclude.dataEventFilter();
+        this.selection = selection;
+    }
+
+    @Override
+    public void notify(String topic, ResourceDataNotification event) {
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Update received for topic {}", topic);
+        }
+
+        if (include.test(event)) {
+            if (exclude.test(event)) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Excluded data update received on topic {}", topic);
+                }
+                return;
+            }
+        } else {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Ignoring data update on topic {}", topic);
+            }
+            return;
+        }
+
+        try {
+            store(event);
+        } catch (JsonProcessingException e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Unable to serialize geographic data for {}", topic, e);
+            }
+        } catch (IOException | ArithmeticException e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Unable to store data for {}/{}/{}", event.provider(), event.service(), event.resource(),
+                        e);
+            }
+        }
+    }
+
+    private void store(ResourceDataNotification event) throws IOException {
+        String provider = event.provider();
+        String service = event.service();
+        String resource = event.resource();
+        Instant time = event.timestamp();
+        Object value = event.newValue();
+
+        if (value == null) {
+            store.append(provider, service, resource, time, Segment.NULL, 0);
+        } else if (GeoJsonObject.class.isAssignableFrom(event.type())) {
+            String json = value instanceof GeoJsonObject ? mapper.writeValueAsString(value) : value.toString();
+            store.append(provider, service, resource, time, Segment.GEO, json);
+        } else if (isNumber(event.type()) && value instanceof Number) {
+            Number number = (Number) value;
+            if (isIntegral(number)) {
+                store.append(provider, service, resource, time, Segment.LONG, number.longValue());
+            } else {
+                store.append(provider, service, resource, time, Segment.DOUBLE,
+                        Double.doubleToLongBits(number.doubleValue()));
+            }
+        } else {
+            store.append(provider, service, resource, time, Segment.TEXT, value.toString());
+        }
+    }
+
+    private boolean isNumber(Class<?> type) {
+        return primitiveNumbers.contains(type) || Number.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Checks if a number is stored as a long, like integral values are read from
+     * the TimescaleDB provider
+     */
+    private boolean isIntegral(Number number) {
+        if (number instanceof Long || number instanceof Integer || number instanceof Short
+                || number instanceof Byte) {
+            return true;
+        } else if (number instanceof BigInteger) {
+            return ((BigInteger) number).bitLength() < Long.SIZE;
+        } else if (number instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) number;
+            return decimal.scale() <= 0 && decimal.toBigInteger().bitLength() < Long.SIZE;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the value under the cursor
+     */
+    private TimedValue<?> toTimedValue(SeriesCursor cursor) {
+        return new DefaultTimedValue<>(value(cursor), fromMicros(cursor.time()));
+    }
+
+    private Object value(SeriesCursor cursor) {
+        byte type = cursor.type();
+        try {
+            return value(type, cursor.longValue(), type == Segment.TEXT || type == Segment.GEO ? cursor.text() : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Object value(byte type, long payload, String text) throws IOException {
+        switch (type) {
+        case Segment.LONG:
+            return payload;
+        case Segment.DOUBLE:
+            return Double.longBitsToDouble(payload);
+        case Segment.TEXT:
+            return text;
+        case Segment.GEO:
+            return mapper.readValue(text, GeoJsonObject.class);
+        default:
+            return null;
+        }
+    }
+
+    @Override
+    public TimedValue<?> getSingleValue(String provider, String service, String resource, ZonedDateTime time) {
+        // Without a time, the earliest value is returned
+        long to = time == null ? Long.MAX_VALUE : toMicros(time.toInstant());
+        return store.read(provider, service, resource, Long.MIN_VALUE, to, time == null,
+                cursor -> cursor.next() ? toTimedValue(cursor) : new DefaultTimedValue<>());
+    }
+
+    @Override
+    public List<TimedValue<?>> getValueRange(String provider, String service, String resource, ZonedDateTime fromTime,
+            ZonedDateTime toTime, Integer skip) {
+        int toSkip = skip == null ? 0 : skip.intValue();
+        long to = toTime == null ? Long.MAX_VALUE : toMicros(toTime.toInstant());
+
+        if (fromTime == null) {
+            // The latest values, skipped from the end
+            return store.read(provider, service, resource, Long.MIN_VALUE, to, false, cursor -> {
+                List<TimedValue<?>> list = new ArrayList<>(RANGE_SIZE);
+                if (cursor.skip(toSkip)) {
+                    while (list.size() < RANGE_SIZE && cursor.next()) {
+                        list.add(toTimedValue(cursor));
+                    }
+                }
+                Collections.reverse(list);
+                return list;
+            });
+        } else {
+            return store.read(provider, service, resource, toMicros(fromTime.toInstant()), to, true, cursor -> {
+                List<TimedValue<?>> list = new ArrayList<>(RANGE_SIZE + 1);
+                if (cursor.skip(toSkip)) {
+                    while (list.size() < RANGE_SIZE && cursor.next()) {
+                        list.add(toTimedValue(cursor));
+                    }
+                    if (list.size() == RANGE_SIZE && cursor.next()) {
+                        list.add(DefaultTimedValue.EMPTY);
+                    }
+                }
+                return list;
+            });
+        }
+    }
+
+    @Override
+    public List<TimedValue<?>> getValuePage(String provider, String service, String resource, ZonedDateTime cursor,
+            Boolean ascending, Integer limit) {
+        boolean asc = ascending == null || ascending.booleanValue();
+        int size = limit == null ? DEFAULT_PAGE_SIZE : limit.intValue();
+        if (size <= 0) {
+            return List.of();
+        }
+
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        if (cursor != null) {
+            // The cursor is exclusive
+            long time = toMicros(cursor.toInstant());
+            if (asc) {
+                from = time + 1;
+            } else {
+                to = time - 1;
+            }
+        }
+
+        return store.read(provider, service, resource, from, to, asc, c -> {
+            List<TimedValue<?>> list = new ArrayList<>(Math.min(size, DEFAULT_PAGE_SIZE));
+            while (list.size() < size && c.next()) {
+                list.add(toTimedValue(c));
+            }
+            return list;
+        });
+    }
+
+    @Override
+    public List<TimedValue<?>> getAggregatedValues(String provider, String service, String resource,
+            ZonedDateTime fromTime, ZonedDateTime toTime, Long interval, String function) {
+        if (fromTime == null) {
+            throw new IllegalArgumentException("The start of the aggregation is mandatory");
+        } else if (interval == null || interval.longValue() <= 0) {
+            throw new IllegalArgumentException("The aggregation interval must be a positive number of milliseconds");
+        } else if (function == null) {
+            throw new IllegalArgumentException("The aggregation function is mandatory");
+        }
+
+        final Instant start = fromTime.toInstant();
+        final Instant end = toTime == null ? Instant.now() : toTime.toInstant();
+        if (end.isBefore(start)) {
+            return List.of();
+        }
+
+        final long nbBuckets = (end.toEpochMilli() - start.toEpochMilli()) / interval + 1;
+        if (nbBuckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException(
+                    "Too many aggregation buckets: " + nbBuckets + " (maximum " + MAX_BUCKETS + ")");
+        }
+
+        final Aggregation aggregation;
+        switch (function.toLowerCase()) {
+        case "min":
+            aggregation = new Extremum(false);
+            break;
+        case "max":
+            aggregation = new Extremum(true);
+            break;
+        case "avg":
+            aggregation = new Average();
+            break;
+        case "count":
+            aggregation = new Count();
+            break;
+        case "last":
+            aggregation = new Last();
+            break;
+        default:
+            throw new IllegalArgumentException("Unsupported aggregation function: " + function);
+        }
+
+        final long origin = toMicros(start);
+        final long width = Math.multiplyExact(interval.longValue(), 1000L);
+        return store.read(provider, service, resource, origin, toMicros(end), true, cursor -> {
+            List<TimedValue<?>> list = new ArrayList<>();
+            long bucket = -1;
+            while (cursor.next()) {
+                long current = (cursor.time() - origin) / width;
+                if (current != bucket) {
+                    addBucket(list, aggregation, origin, width, bucket);
+                    bucket = current;
+                }
+                aggregation.add(cursor);
+            }
+            addBucket(list, aggregation, origin, width, bucket);
+            return list;
+        });
+    }
+
+    private void addBucket(List<TimedValue<?>> list, Aggregation aggregation, long origin, long width, long bucket) {
+        if (bucket >= 0 && aggregation.hasValue()) {
+            list.add(new DefaultTimedValue<>(aggregation.value(), fromMicros(origin + bucket * width)));
+        }
+        aggregation.reset();
+    }
+
+    /**
+     * Aggregates the values of a bucket
+     */
+    private interface Aggregation {
+
+        void add(SeriesCursor cursor);
+
+        boolean hasValue();
+
+        Object value();
+
+        void reset();
+    }
+
+    private static boolean isNumeric(byte type) {
+        return type == Segment.LONG || type == Segment.DOUBLE;
+    }
+
+    private static double doubleValue(SeriesCursor cursor) {
+        return cursor.type() == Segment.LONG ? cursor.longValue() : cursor.doubleValue();
+    }
+
+    /**
+     * Minimum or maximum of the numeric values, keeping the type of the selected
+     * value
+     */
+    private static class Extremum implements Aggregation {
+
+        private final boolean max;
+
+        private byte type = Segment.NULL;
+
+        private long longValue;
+
+        private double doubleValue;
+
+        Extremum(boolean max) {
+            this.max = max;
+        }
+
+        @Override
+        public void add(SeriesCursor cursor) {
+            byte t = cursor.type();
+            if (!isNumeric(t)) {
+                return;
+            }
+
+            boolean better;
+            if (type == Segment.NULL) {
+                better = true;
+            } else if (t == Segment.LONG && type == Segment.LONG) {
+                better = max ? cursor.longValue() > longValue : cursor.longValue() < longValue;
+            } else {
+                double current = type == Segment.LONG ? longValue : doubleValue;
+                better = max ? doubleValue(cursor) > current : doubleValue(cursor) < current;
+            }
+
+            if (better) {
+                type = t;
+                longValue = cursor.longValue();
+                doubleValue = cursor.doubleValue();
+            }
+        }
+
+        @Override
+        public boolean hasValue() {
+            return type != Segment.NULL;
+        }
+
+        @Override
+        public Object value() {
+            return type == Segment.LONG ? (Object) longValue : (Object) doubleValue;
+        }
+
+        @Override
+        public void reset() {
+            type = Segment.NULL;
+        }
+    }
+
+    private static class Average implements Aggregation {
+
+        private double sum;
+
+        private long count;
+
+        @Override
+        public void add(SeriesCursor cursor) {
+            if (isNumeric(cursor.type())) {
+                sum += doubleValue(cursor);
+                count++;
+            }
+        }
+
+        @Override
+        public boolean hasValue() {
+            return count > 0;
+        }
+
+        @Override
+        public Object value() {
+            return sum / count;
+        }
+
+        @Override
+        public void reset() {
+            sum = 0;
+            count = 0;
+        }
+    }
+
+    private static class Count implements Aggregation {
+
+        private long count;
+
+        @Override
+        public void add(SeriesCursor cursor) {
+            count++;
+        }
+
+        @Override
+        public boolean hasValue() {
+            return count > 0;
+        }
+
+        @Override
+        public Object value() {
+            return count;
+        }
+
+        @Override
+        public void reset() {
+            count = 0;
+        }
+    }
+
+    /**
+     * Latest value, only decoded once the bucket is complete
+     */
+    private class Last implements Aggregation {
+
+        private boolean hasValue;
+
+        private byte type;
+
+        private long payload;
+
+        private String text;
+
+        @Override
+        public void add(SeriesCursor cursor) {
+            hasValue = true;
+            type = cursor.type();
+            payload = cursor.longValue();
+            try {
+                text = type == Segment.TEXT || type == Segment.GEO ? cursor.text() : null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasValue() {
+            return hasValue;
+        }
+
+        @Override
+        public Object value() {
+            try {
+                return FileHistoryWorker.this.value(type, payload, text);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void reset() {
+            hasValue = false;
+            text = null;
+        }
+    }
+
+    @Override
+    public Long getStoredValueCount(String provider, String service, String resource, ZonedDateTime fromTime,
+            ZonedDateTime toTime) {
+        long from = fromTime == null ? Long.MIN_VALUE : toMicros(fromTime.toInstant());
+        long to = toTime == null ? Long.MAX_VALUE : toMicros(toTime.toInstant());
+        return store.count(provider, service, resource, from, to);
+    }
+
+    /**
+     * Lists the resources of a batch query, in request order and without
+     * duplicates
+     */
+    private Collection<ResourcePath> resolve(List<String> resources, String selector) {
+        if ((resources == null || resources.isEmpty()) && (selector == null || selector.isBlank())) {
+            throw new IllegalArgumentException("The resources or a selector must be given");
+        }
+
+        Set<ResourcePath> paths = new LinkedHashSet<>();
+        if (resources != null) {
+            // Request parameters are not checked against the generic type
+            for (Object path : resources) {
+                paths.add(ResourcePath.parse(String.valueOf(path)));
+            }
+        }
+        if (selector != null && !selector.isBlank()) {
+            paths.addAll(selection.apply(selector));
+        }
+
+        if (paths.size() > MAX_BATCH_RESOURCES) {
+            throw new IllegalArgumentException(
+                    "Too many resources: " + paths.size() + " (maximum " + MAX_BATCH_RESOURCES + ")");
+        }
+        return paths;
+    }
+
+    /**
+     * Runs a single resource query for each resource of a batch: reads are
+     * local, there is nothing to gain from merging them
+     */
+    private <T> Map<String, T> batch(List<String> resources, String selector, Function<ResourcePath, T> query) {
+        Map<String, T> results = new LinkedHashMap<>();
+        for (ResourcePath path : resolve(resources, selector)) {
+            results.put(path.toString(), query.apply(path));
+        }
+        return results;
+    }
+
+    @Override
+    public Map<String, TimedValue<?>> getSingleValues(List<String> resources, String selector, ZonedDateTime time) {
+        return batch(resources, selector, p -> getSingleValue(p.provider(), p.service(), p.resource(), time));
+    }
+
+    @Override
+    public Map<String, List<TimedValue<?>>> getValueRanges(List<String> resources, String selector,
+            ZonedDateTime fromTime, ZonedDateTime toTime, Integer skip) {
+        return batch(resources, selector,
+                p -> getValueRange(p.provider(), p.service(), p.resource(), fromTime, toTime, skip));
+    }
+
+    @Override
+    public Map<String, List<TimedValue<?>>> getAggregatedValueRanges(List<String> resources, String selector,
+            ZonedDateTime fromTime, ZonedDateTime toTime, Long interval, String function) {
+        return batch(resources, selector, p -> getAggregatedValues(p.provider(), p.service(), p.resource(), fromTime,
+                toTime, interval, function));
+    }
+
+    @Override
+    public Map<String, Long> getStoredValueCounts(List<String> resources, String selector, ZonedDateTime fromTime,
+            ZonedDateTime toTime) {
+        return batch(resources, selector,
+                p -> getStoredValueCount(p.provider(), p.service(), p.resource(), fromTime, toTime));
+    }
+}
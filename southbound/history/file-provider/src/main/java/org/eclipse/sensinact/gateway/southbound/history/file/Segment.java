@@ -0,0 +1,437 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.file;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A segment of the history of a resource, stored in a memory-mapped file.
+ * <p>
+ * The file holds a header followed by three fixed-size columns: the value
+ * timestamps, in microseconds since the epoch, the value types and the value
+ * payloads. Numbers are stored in the payload column. Text and GeoJSON values
+ * are appended to a heap file, and their payload is their offset in the heap.
+ * <p>
+ * A segment is written in place until it is full, then it is sealed and never
+ * modified again. Its timestamps are sorted, which makes the timestamp column
+ * its time index, unless values were received out of order. The segment is
+ * then flagged as unsorted until it is compacted.
+ * <p>
+ * Appends, seals and resets are not thread safe: the {@link Series} owning
+ * the segment serializes them. Readers can read the values committed before
+ * they looked at the segment count while values are appended. The heap of a
+ * writable segment is guarded by the segment monitor, as sealing the segment
+ * replaces it by a memory mapping.
+ */
+class Segment {
+
+    static final byte NULL = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte TEXT = 3;
+    static final byte GEO = 4;
+
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final String HEAP_SUFFIX = ".heap";
+
+    private static final int MAGIC = 0x534e4853;
+    private static final int VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int FLAGS_OFFSET = 16;
+    private static final int HEADER_SIZE = 32;
+
+    private static final int FLAG_SEALED = 1;
+    private static final int FLAG_UNSORTED = 2;
+
+    /**
+     * The heap of a sealed segment is mapped, which limits its size
+     */
+    private static final long MAX_HEAP_SIZE = Integer.MAX_VALUE;
+
+    final long id;
+
+    private final Path file;
+
+    private final Path heapFile;
+
+    private final int capacity;
+
+    private final MappedByteBuffer buffer;
+
+    private final int typesOffset;
+
+    private final int payloadsOffset;
+
+    private int count;
+
+    private volatile int flags;
+
+    private long minTime = Long.MAX_VALUE;
+
+    private long maxTime = Long.MIN_VALUE;
+
+    /**
+     * Heap of a writable segment, opened on first use
+     */
+    private FileChannel heapChannel;
+
+    /**
+     * Heap of a sealed segment
+     */
+    private volatile MappedByteBuffer heap;
+
+    private long heapSize;
+
+    private Segment(long id, Path file, Path heapFile, int capacity, MappedByteBuffer buffer) {
+        this.id = id;
+        this.file = file;
+        this.heapFile = heapFile;
+        this.capacity = capacity;
+        this.buffer = buffer;
+        this.typesOffset = HEADER_SIZE + capacity * Long.BYTES;
+        this.payloadsOffset = typesOffset + capacity;
+    }
+
+    static String fileName(long id) {
+        return String.format("%016x", id);
+    }
+
+    private static long fileSize(int capacity) {
+        return HEADER_SIZE + (long) capacity * (2 * Long.BYTES + 1);
+    }
+
+    /**
+     * Creates an empty writable segment
+     *
+     * @param id       Segment ID
+     * @param file     Segment file, must not exist
+     * @param heapFile Heap file, created when needed
+     * @param capacity Maximum number of values of the segment
+     */
+    static Segment create(long id, Path file, Path heapFile, int capacity) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            buffer = channel.map(MapMode.READ_WRITE, 0, fileSize(capacity));
+        }
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(COUNT_OFFSET, 0);
+        buffer.putInt(FLAGS_OFFSET, 0);
+        return new Segment(id, file, heapFile, capacity, buffer);
+    }
+
+    /**
+     * Opens an existing segment
+     *
+     * @param id       Segment ID
+     * @param file     Segment file
+     * @param heapFile Heap file, which may not exist
+     */
+    static Segment open(long id, Path file, Path heapFile) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Truncated history segment " + file);
+            }
+            MappedByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("Unsupported history segment " + file);
+            }
+            int capacity = header.getInt(CAPACITY_OFFSET);
+            if (capacity <= 0 || channel.size() < fileSize(capacity)) {
+                throw new IOException("Truncated history segment " + file);
+            }
+            boolean sealed = (header.getInt(FLAGS_OFFSET) & FLAG_SEALED) != 0;
+            buffer = channel.map(sealed ? MapMode.READ_ONLY : MapMode.READ_WRITE, 0, fileSize(capacity));
+        }
+
+        Segment segment = new Segment(id, file, heapFile, buffer.getInt(CAPACITY_OFFSET), buffer);
+        segment.count = Math.min(Math.max(0, buffer.getInt(COUNT_OFFSET)), segment.capacity);
+        segment.flags = buffer.getInt(FLAGS_OFFSET);
+        segment.heapSize = Files.exists(heapFile) ? Files.size(heapFile) : 0;
+        if (segment.count > 0 && segment.isSorted()) {
+            segment.minTime = segment.time(0);
+            segment.maxTime = segment.time(segment.count - 1);
+        } else {
+            for (int i = 0; i < segment.count; i++) {
+                long time = segment.time(i);
+                segment.minTime = Math.min(segment.minTime, time);
+                segment.maxTime = Math.max(segment.maxTime, time);
+            }
+        }
+        if (segment.isSealed()) {
+            segment.mapHeap();
+        }
+        return segment;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int count() {
+        return count;
+    }
+
+    boolean isFull() {
+        return count >= capacity;
+    }
+
+    boolean isSealed() {
+        return (flags & FLAG_SEALED) != 0;
+    }
+
+    boolean isSorted() {
+        return (flags & FLAG_UNSORTED) == 0;
+    }
+
+    long minTime() {
+        return minTime;
+    }
+
+    long maxTime() {
+        return maxTime;
+    }
+
+    /**
+     * Checks if a value with the given heap data can be appended
+     */
+    boolean canAppend(int heapBytes) {
+        return !isSealed() && !isFull() && heapSize + Integer.BYTES + heapBytes <= MAX_HEAP_SIZE;
+    }
+
+    /**
+     * Appends a number or a null value
+     */
+    void append(long time, byte type, long payload) {
+        buffer.putLong(HEADER_SIZE + count * Long.BYTES, time);
+        buffer.put(typesOffset + count, type);
+        buffer.putLong(payloadsOffset + count * Long.BYTES, payload);
+        commit(time);
+    }
+
+    /**
+     * Appends a value stored in the heap
+     */
+    void append(long time, byte type, byte[] data) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate(Integer.BYTES + data.length);
+        bb.putInt(data.length).put(data).flip();
+        long offset = heapSize;
+        synchronized (this) {
+            openHeap();
+            while (bb.hasRemaining()) {
+                heapSize += heapChannel.write(bb, heapSize);
+            }
+        }
+        append(time, type, offset);
+    }
+
+    /**
+     * Opens the heap of a writable segment. Must be called with the segment
+     * monitor.
+     */
+    private void openHeap() throws IOException {
+        if (heapChannel == null) {
+            heapChannel = FileChannel.open(heapFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+    }
+
+    private void commit(long time) {
+        if (count > 0 && time < maxTime) {
+            flags |= FLAG_UNSORTED;
+            buffer.putInt(FLAGS_OFFSET, flags);
+        }
+        minTime = Math.min(minTime, time);
+        maxTime = Math.max(maxTime, time);
+        // The count is written last: it commits the value
+        buffer.putInt(COUNT_OFFSET, ++count);
+    }
+
+    long time(int index) {
+        return buffer.getLong(HEADER_SIZE + index * Long.BYTES);
+    }
+
+    byte type(int index) {
+        return buffer.get(typesOffset + index);
+    }
+
+    long payload(int index) {
+        return buffer.getLong(payloadsOffset + index * Long.BYTES);
+    }
+
+    /**
+     * Reads a value stored in the heap
+     */
+    String text(int index) throws IOException {
+        long offset = payload(index);
+        MappedByteBuffer mapped = heap;
+        if (mapped == null) {
+            synchronized (this) {
+                mapped = heap;
+                if (mapped == null) {
+                    openHeap();
+                    ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+                    readFully(length, offset);
+                    ByteBuffer bb = ByteBuffer.allocate(length.getInt(0));
+                    readFully(bb, offset + Integer.BYTES);
+                    return new String(bb.array(), UTF_8);
+                }
+            }
+        }
+        // Absolute reads don't move the shared buffer position
+        int position = (int) offset;
+        byte[] data = new byte[mapped.getInt(position)];
+        mapped.get(position + Integer.BYTES, data);
+        return new String(data, UTF_8);
+    }
+
+    private void readFully(ByteBuffer bb, long position) throws IOException {
+        while (bb.hasRemaining()) {
+            if (heapChannel.read(bb, position + bb.position()) < 0) {
+                throw new IOException("Truncated history heap " + heapFile);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the first value at or after the given time. Only valid
+     * for sorted segments.
+     */
+    int lowerBound(long time, int limit) {
+        int low = 0;
+        int high = limit;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (time(mid) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index of the first value after the given time. Only valid for
+     * sorted segments.
+     */
+    int upperBound(long time, int limit) {
+        int low = 0;
+        int high = limit;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (time(mid) <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Seals the segment: no value can be appended anymore
+     */
+    void seal() throws IOException {
+        if (isSealed()) {
+            return;
+        }
+        flags |= FLAG_SEALED;
+        buffer.putInt(FLAGS_OFFSET, flags);
+        force();
+        synchronized (this) {
+            // Map the heap before closing its channel, for concurrent readers
+            mapHeap();
+            if (heapChannel != null) {
+                heapChannel.close();
+                heapChannel = null;
+            }
+        }
+    }
+
+    private void mapHeap() throws IOException {
+        if (heapSize > 0) {
+            try (FileChannel channel = FileChannel.open(heapFile, StandardOpenOption.READ)) {
+                heap = channel.map(MapMode.READ_ONLY, 0, heapSize);
+            }
+        }
+    }
+
+    /**
+     * Removes all the values of a writable segment
+     */
+    void reset() throws IOException {
+        count = 0;
+        flags = 0;
+        minTime = Long.MAX_VALUE;
+        maxTime = Long.MIN_VALUE;
+        buffer.putInt(COUNT_OFFSET, 0);
+        buffer.putInt(FLAGS_OFFSET, 0);
+        heapSize = 0;
+        synchronized (this) {
+            if (heapChannel != null) {
+                heapChannel.truncate(0);
+            } else {
+                Files.deleteIfExists(heapFile);
+            }
+        }
+    }
+
+    /**
+     * Writes the segment content to the storage device
+     */
+    void force() throws IOException {
+        synchronized (this) {
+            if (heapChannel != null) {
+                heapChannel.force(false);
+            }
+        }
+        buffer.force();
+    }
+
+    /**
+     * Releases the open files of the segment. The memory mappings are released
+     * by the garbage collector.
+     */
+    synchronized void close() throws IOException {
+        if (heapChannel != null) {
+            heapChannel.close();
+            heapChannel = null;
+        }
+    }
+
+    /**
+     * Closes the segment and deletes its files
+     */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(heapFile);
+        Files.deleteIfExists(file);
+    }
+}
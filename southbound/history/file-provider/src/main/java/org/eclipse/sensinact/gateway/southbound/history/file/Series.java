@@ -0,0 +1,439 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.file;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The history of a resource: a directory of segments, the last one being
+ * written.
+ * <p>
+ * Values are appended under the series monitor. Queries hold the read lock and
+ * see the values committed when they started. Compaction holds the write lock,
+ * as it replaces segments.
+ */
+class Series {
+
+    private static final Logger logger = LoggerFactory.getLogger(Series.class);
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Lists the segments replaced by a compaction, until they are deleted
+     */
+    private static final String COMPACTION_FILE = "compaction";
+
+    private final Path directory;
+
+    private final int capacity;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The segments of the series. The last one is the active segment if it is
+     * not sealed.
+     */
+    private final List<Segment> segments = new ArrayList<>();
+
+    private long nextId;
+
+    /**
+     * @param directory Directory of the series, created on the first value
+     * @param capacity  Number of values of new segments
+     */
+    Series(Path directory, int capacity) {
+        this.directory = directory;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Opens the segments of an existing series
+     */
+    void open() throws IOException {
+        recover();
+
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + Segment.SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                try {
+                    ids.add(Long.parseLong(name.substring(0, name.length() - Segment.SEGMENT_SUFFIX.length()), 16));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring unexpected history file {}", file);
+                }
+            }
+        }
+        ids.sort(Comparator.naturalOrder());
+
+        for (long id : ids) {
+            try {
+                segments.add(Segment.open(id, segmentFile(id, false), heapFile(id, false)));
+            } catch (IOException e) {
+                logger.error("Ignoring unreadable history segment {}", segmentFile(id, false), e);
+            }
+            nextId = id + 1;
+        }
+
+        // Only the last segment can still be written
+        for (int i = 0; i < segments.size() - 1; i++) {
+            segments.get(i).seal();
+        }
+    }
+
+    /**
+     * Completes or rolls back an interrupted compaction
+     */
+    private void recover() throws IOException {
+        Path marker = directory.resolve(COMPACTION_FILE);
+        boolean complete = Files.exists(marker);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + TEMP_SUFFIX)) {
+            for (Path file : stream) {
+                if (complete) {
+                    String name = file.getFileName().toString();
+                    Files.move(file, file.resolveSibling(name.substring(0, name.length() - TEMP_SUFFIX.length())),
+                            StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    Files.delete(file);
+                }
+            }
+        }
+
+        if (complete) {
+            for (String line : Files.readAllLines(marker, UTF_8)) {
+                if (!line.isBlank()) {
+                    long id = Long.parseLong(line.trim(), 16);
+                    Files.deleteIfExists(segmentFile(id, false));
+                    Files.deleteIfExists(heapFile(id, false));
+                }
+            }
+            Files.delete(marker);
+        }
+    }
+
+    private Path segmentFile(long id, boolean temp) {
+        return directory.resolve(Segment.fileName(id) + Segment.SEGMENT_SUFFIX + (temp ? TEMP_SUFFIX : ""));
+    }
+
+    private Path heapFile(long id, boolean temp) {
+        return directory.resolve(Segment.fileName(id) + Segment.HEAP_SUFFIX + (temp ? TEMP_SUFFIX : ""));
+    }
+
+    /**
+     * Appends a number or a null value
+     *
+     * @param time    Timestamp in microseconds
+     * @param type    Value type
+     * @param payload Value
+     */
+    void append(long time, byte type, long payload) throws IOException {
+        lock.readLock().lock();
+        try {
+            synchronized (this) {
+                writableSegment(0).append(time, type, payload);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a text or a GeoJSON value
+     *
+     * @param time Timestamp in microseconds
+     * @param type Value type
+     * @param text Value
+     */
+    void append(long time, byte type, String text) throws IOException {
+        byte[] data = text.getBytes(UTF_8);
+        lock.readLock().lock();
+        try {
+            synchronized (this) {
+                writableSegment(data.length).append(time, type, data);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Segment writableSegment(int heapBytes) throws IOException {
+        Segment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (active == null || !active.canAppend(heapBytes)) {
+            if (active != null) {
+                active.seal();
+            } else {
+                Files.createDirectories(directory);
+            }
+            long id = nextId++;
+            active = Segment.create(id, segmentFile(id, false), heapFile(id, false), capacity);
+            segments.add(active);
+        }
+        return active;
+    }
+
+    /**
+     * Reads the values of the series within a time window
+     *
+     * @param from      Inclusive start of the window, in microseconds
+     * @param to        Inclusive end of the window, in microseconds
+     * @param ascending Iteration order
+     * @param reader    Function reading the values
+     * @return The reader result
+     */
+    <T> T read(long from, long to, boolean ascending, Function<SeriesCursor, T> reader) {
+        lock.readLock().lock();
+        try {
+            List<Segment> snapshot = new ArrayList<>();
+            int[] counts;
+            synchronized (this) {
+                counts = new int[segments.size()];
+                for (Segment segment : segments) {
+                    int count = segment.count();
+                    if (count > 0 && segment.maxTime() >= from && segment.minTime() <= to) {
+                        counts[snapshot.size()] = count;
+                        snapshot.add(segment);
+                    }
+                }
+            }
+            return reader.apply(SeriesCursor.create(snapshot, counts, from, to, ascending));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the values of the series within a time window
+     *
+     * @param from Inclusive start of the window, in microseconds
+     * @param to   Inclusive end of the window, in microseconds
+     */
+    long count(long from, long to) {
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            synchronized (this) {
+                for (Segment segment : segments) {
+                    int count = segment.count();
+                    if (count == 0 || segment.maxTime() < from || segment.minTime() > to) {
+                        continue;
+                    } else if (segment.minTime() >= from && segment.maxTime() <= to) {
+                        total += count;
+                    } else if (segment.isSorted()) {
+                        total += segment.upperBound(to, count) - segment.lowerBound(from, count);
+                    } else {
+                        for (int i = 0; i < count; i++) {
+                            long time = segment.time(i);
+                            if (time >= from && time <= to) {
+                                total++;
+                            }
+                        }
+                    }
+                }
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the active segment to the storage device
+     */
+    void sync() throws IOException {
+        lock.readLock().lock();
+        try {
+            synchronized (this) {
+                if (!segments.isEmpty()) {
+                    segments.get(segments.size() - 1).force();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the segments whose values are all older than the given time, then
+     * merges the sealed segments which are unsorted or overlap other ones.
+     * <p>
+     * Expired values are removed segment by segment: a segment is only deleted
+     * once its latest value has expired.
+     *
+     * @param cutoff Time of the oldest value to keep, in microseconds
+     */
+    void compact(long cutoff) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (segments.isEmpty()) {
+                return;
+            }
+
+            Segment last = segments.get(segments.size() - 1);
+            Segment active = last.isSealed() ? null : last;
+            if (active != null && active.count() > 0 && active.maxTime() < cutoff) {
+                active.reset();
+            }
+
+            List<Segment> kept = new ArrayList<>();
+            for (Segment segment : List.copyOf(segments)) {
+                if (segment == active) {
+                    continue;
+                } else if (segment.count() == 0 || segment.maxTime() < cutoff) {
+                    segment.delete();
+                    segments.remove(segment);
+                } else {
+                    kept.add(segment);
+                }
+            }
+
+            List<Segment> unordered = unorderedSegments(kept);
+            if (!unordered.isEmpty()) {
+                rewrite(unordered, active, cutoff);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lists the segments which are unsorted or overlap another one
+     */
+    private List<Segment> unorderedSegments(List<Segment> sealed) {
+        List<Segment> byTime = new ArrayList<>(sealed);
+        byTime.sort(Comparator.comparingLong(Segment::minTime));
+
+        Set<Segment> unordered = new LinkedHashSet<>();
+        Segment latest = null;
+        for (Segment segment : byTime) {
+            if (!segment.isSorted()) {
+                unordered.add(segment);
+            }
+            if (latest != null && segment.minTime() < latest.maxTime()) {
+                unordered.add(latest);
+                unordered.add(segment);
+            }
+            if (latest == null || segment.maxTime() > latest.maxTime()) {
+                latest = segment;
+            }
+        }
+        return new ArrayList<>(unordered);
+    }
+
+    /**
+     * Replaces the given sealed segments by sorted and full segments
+     */
+    private void rewrite(List<Segment> sealed, Segment active, long cutoff) throws IOException {
+        // Write the new segments in temporary files
+        List<Long> created = new ArrayList<>();
+        int[] counts = sealed.stream().mapToInt(Segment::count).toArray();
+        SeriesCursor cursor = SeriesCursor.create(sealed, counts, cutoff, Long.MAX_VALUE, true);
+        Segment target = null;
+        try {
+            while (cursor.next()) {
+                byte type = cursor.type();
+                String text = type == Segment.TEXT || type == Segment.GEO ? cursor.text() : null;
+                byte[] data = text == null ? null : text.getBytes(UTF_8);
+                if (target == null || !target.canAppend(data == null ? 0 : data.length)) {
+                    if (target != null) {
+                        target.seal();
+                        target.close();
+                    }
+                    long id = nextId++;
+                    created.add(id);
+                    target = Segment.create(id, segmentFile(id, true), heapFile(id, true), capacity);
+                }
+                if (data == null) {
+                    target.append(cursor.time(), type, cursor.longValue());
+                } else {
+                    target.append(cursor.time(), type, data);
+                }
+            }
+            if (target != null) {
+                target.seal();
+                target.close();
+            }
+        } catch (IOException e) {
+            for (long id : created) {
+                Files.deleteIfExists(segmentFile(id, true));
+                Files.deleteIfExists(heapFile(id, true));
+            }
+            throw e;
+        }
+
+        // From now on, the compaction will be completed even after a crash
+        Path marker = directory.resolve(COMPACTION_FILE);
+        Path tempMarker = directory.resolve(COMPACTION_FILE + TEMP_SUFFIX);
+        StringBuilder replaced = new StringBuilder();
+        for (Segment segment : sealed) {
+            replaced.append(Segment.fileName(segment.id)).append('\n');
+        }
+        Files.writeString(tempMarker, replaced, UTF_8);
+        Files.move(tempMarker, marker, StandardCopyOption.ATOMIC_MOVE);
+
+        for (long id : created) {
+            Files.move(segmentFile(id, true), segmentFile(id, false), StandardCopyOption.REPLACE_EXISTING);
+            if (Files.exists(heapFile(id, true))) {
+                Files.move(heapFile(id, true), heapFile(id, false), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        for (Segment segment : sealed) {
+            segment.delete();
+        }
+        Files.delete(marker);
+
+        List<Segment> replacement = new ArrayList<>();
+        for (long id : created) {
+            replacement.add(Segment.open(id, segmentFile(id, false), heapFile(id, false)));
+        }
+
+        segments.removeAll(sealed);
+        // Keep the active segment last
+        segments.addAll(active == null ? segments.size() : segments.size() - 1, replacement);
+    }
+
+    /**
+     * Releases the files of the series
+     */
+    void close() {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments) {
+                try {
+                    segment.force();
+                    segment.close();
+                } catch (IOException e) {
+                    logger.warn("Error closing history segment {} of {}", segment.id, directory, e);
+                }
+            }
+            segments.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
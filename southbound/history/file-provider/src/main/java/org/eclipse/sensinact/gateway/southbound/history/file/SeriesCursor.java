@@ -0,0 +1,197 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.file;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Iterates over the values of a series within a time window, in chronological
+ * or reverse chronological order.
+ * <p>
+ * Each segment overlapping the window is read from its time index, then the
+ * segments are merged on the value timestamps. Values with the same timestamp
+ * are returned in append order, or in the reverse order when iterating
+ * backwards.
+ */
+class SeriesCursor {
+
+    static final SeriesCursor EMPTY = new SeriesCursor(List.of(), true);
+
+    /**
+     * Values of a segment within the time window
+     */
+    private static class SegmentCursor {
+
+        final Segment segment;
+
+        /**
+         * Indexes of the values sorted by time, null if they are the range
+         * between first and last
+         */
+        private final int[] indexes;
+
+        private final int first;
+
+        private final int last;
+
+        private final boolean ascending;
+
+        private int position;
+
+        private int index;
+
+        SegmentCursor(Segment segment, int count, long from, long to, boolean ascending) {
+            this.segment = segment;
+            this.ascending = ascending;
+            if (segment.isSorted()) {
+                indexes = null;
+                first = segment.lowerBound(from, count);
+                last = segment.upperBound(to, count) - 1;
+            } else {
+                indexes = sortedIndexes(segment, count, from, to);
+                first = 0;
+                last = indexes.length - 1;
+            }
+            position = ascending ? first - 1 : last + 1;
+        }
+
+        private static int[] sortedIndexes(Segment segment, int count, long from, long to) {
+            Integer[] matching = new Integer[count];
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                long time = segment.time(i);
+                if (time >= from && time <= to) {
+                    matching[size++] = i;
+                }
+            }
+            // Stable sort: values with the same time stay in their append order
+            Arrays.sort(matching, 0, size, (a, b) -> Long.compare(segment.time(a), segment.time(b)));
+            int[] indexes = new int[size];
+            for (int i = 0; i < size; i++) {
+                indexes[i] = matching[i];
+            }
+            return indexes;
+        }
+
+        boolean advance() {
+            position += ascending ? 1 : -1;
+            if (position < first || position > last) {
+                return false;
+            }
+            index = indexes == null ? position : indexes[position];
+            return true;
+        }
+
+        long time() {
+            return segment.time(index);
+        }
+    }
+
+    private final List<SegmentCursor> cursors;
+
+    private final boolean ascending;
+
+    private SegmentCursor current;
+
+    private SeriesCursor(List<SegmentCursor> cursors, boolean ascending) {
+        this.cursors = cursors;
+        this.ascending = ascending;
+    }
+
+    /**
+     * @param segments  Segments of the series overlapping the window
+     * @param counts    Number of committed values of each segment
+     * @param from      Inclusive start of the window, in microseconds
+     * @param to        Inclusive end of the window, in microseconds
+     * @param ascending Iteration order
+     */
+    static SeriesCursor create(List<Segment> segments, int[] counts, long from, long to, boolean ascending) {
+        List<SegmentCursor> cursors = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            SegmentCursor cursor = new SegmentCursor(segments.get(i), counts[i], from, to, ascending);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return cursors.isEmpty() ? EMPTY : new SeriesCursor(cursors, ascending);
+    }
+
+    /**
+     * Moves to the next value
+     *
+     * @return false if there is no more value
+     */
+    boolean next() {
+        // Only the segment of the consumed value moves forward
+        if (current != null && !current.advance()) {
+            cursors.remove(current);
+        }
+
+        current = null;
+        long best = 0;
+        for (SegmentCursor cursor : cursors) {
+            long time = cursor.time();
+            if (current == null || (ascending ? time < best : time >= best)) {
+                current = cursor;
+                best = time;
+            }
+        }
+        return current != null;
+    }
+
+    /**
+     * Skips values
+     *
+     * @return false if the end was reached
+     */
+    boolean skip(int count) {
+        for (int i = 0; i < count; i++) {
+            if (!next()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Timestamp of the current value, in microseconds since the epoch
+     */
+    long time() {
+        return current.time();
+    }
+
+    /**
+     * Type of the current value, one of the {@link Segment} type constants
+     */
+    byte type() {
+        return current.segment.type(current.index);
+    }
+
+    long longValue() {
+        return current.segment.payload(current.index);
+    }
+
+    double doubleValue() {
+        return Double.longBitsToDouble(current.segment.payload(current.index));
+    }
+
+    /**
+     * Text or GeoJSON of the current value
+     */
+    String text() throws IOException {
+        return current.segment.text(current.index);
+    }
+}
@@ -0,0 +1,192 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.file;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the history of resources in a directory, with one sub-directory of
+ * segments per resource.
+ * <p>
+ * Timestamps are stored in microseconds since the epoch, like the TimescaleDB
+ * history provider.
+ */
+class SeriesStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeriesStore.class);
+
+    /**
+     * Keeps the column offsets of a segment within an int
+     */
+    static final int MAX_SEGMENT_SIZE = 1 << 24;
+
+    private final Path root;
+
+    private final int segmentSize;
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    /**
+     * Opens the store, creating its directory if necessary
+     *
+     * @param root        Store directory
+     * @param segmentSize Number of values of each segment file
+     */
+    SeriesStore(Path root, int segmentSize) throws IOException {
+        if (segmentSize <= 0 || segmentSize > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException(
+                    "The segment size must be between 1 and " + MAX_SEGMENT_SIZE + ": " + segmentSize);
+        }
+        this.root = root;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(root);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path directory : stream) {
+                Series s = new Series(directory, segmentSize);
+                try {
+                    s.open();
+                    series.put(directory.getFileName().toString(), s);
+                } catch (IOException e) {
+                    logger.error("Unable to open the history stored in {}", directory, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts an instant to microseconds since the epoch
+     */
+    static long toMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    /**
+     * Converts microseconds since the epoch to an instant
+     */
+    static Instant fromMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000);
+    }
+
+    /**
+     * Name of the directory of a resource history. Each part is URL encoded so
+     * that the separator can't appear in them.
+     */
+    private static String directoryName(String provider, String service, String resource) {
+        return encode(provider) + "~" + encode(service) + "~" + encode(resource);
+    }
+
+    private static String encode(String part) {
+        // '*' isn't a valid file name character on all systems
+        return URLEncoder.encode(part, UTF_8).replace("*", "%2A");
+    }
+
+    private Series series(String provider, String service, String resource) {
+        return series.computeIfAbsent(directoryName(provider, service, resource),
+                name -> new Series(root.resolve(name), segmentSize));
+    }
+
+    /**
+     * Appends a number or a null value
+     */
+    void append(String provider, String service, String resource, Instant time, byte type, long payload)
+            throws IOException {
+        series(provider, service, resource).append(toMicros(time), type, payload);
+    }
+
+    /**
+     * Appends a text or GeoJSON value
+     */
+    void append(String provider, String service, String resource, Instant time, byte type, String text)
+            throws IOException {
+        series(provider, service, resource).append(toMicros(time), type, text);
+    }
+
+    /**
+     * Reads the history of a resource within a time window
+     *
+     * @param from      Inclusive start of the window, in microseconds
+     * @param to        Inclusive end of the window, in microseconds
+     * @param ascending Iteration order
+     * @param reader    Function reading the values
+     * @return The reader result
+     */
+    <T> T read(String provider, String service, String resource, long from, long to, boolean ascending,
+            Function<SeriesCursor, T> reader) {
+        Series s = series.get(directoryName(provider, service, resource));
+        return s == null ? reader.apply(SeriesCursor.EMPTY) : s.read(from, to, ascending, reader);
+    }
+
+    /**
+     * Counts the values of a resource within a time window
+     *
+     * @param from Inclusive start of the window, in microseconds
+     * @param to   Inclusive end of the window, in microseconds
+     */
+    long count(String provider, String service, String resource, long from, long to) {
+        Series s = series.get(directoryName(provider, service, resource));
+        return s == null ? 0 : s.count(from, to);
+    }
+
+    /**
+     * Writes the values appended so far to the storage device
+     */
+    void sync() {
+        for (Series s : series.values()) {
+            try {
+                s.sync();
+            } catch (IOException e) {
+                logger.warn("Unable to write history segments to disk", e);
+            }
+        }
+    }
+
+    /**
+     * Removes the expired values and merges unordered segments
+     *
+     * @param cutoff The oldest time to keep
+     */
+    void compact(Instant cutoff) {
+        long micros = cutoff == null ? Long.MIN_VALUE : toMicros(cutoff);
+        for (Series s : series.values()) {
+            try {
+                s.compact(micros);
+            } catch (IOException e) {
+                logger.warn("Unable to compact history segments", e);
+            }
+        }
+    }
+
+    /**
+     * Writes and releases all the history files
+     */
+    void close() {
+        for (Series s : series.values()) {
+            s.close();
+        }
+        series.clear();
+    }
+}
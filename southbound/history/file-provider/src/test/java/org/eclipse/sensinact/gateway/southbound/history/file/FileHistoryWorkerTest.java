@@ -0,0 +1,412 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.file;
+
+import static java.time.Duration.ofDays;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
+import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
+import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
+import org.eclipse.sensinact.core.twin.TimedValue;
+import org.eclipse.sensinact.gateway.geojson.Coordinates;
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
+import org.eclipse.sensinact.gateway.geojson.Point;
+import org.eclipse.sensinact.gateway.southbound.history.api.ResourcePath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the file history store through its history actions
+ */
+public class FileHistoryWorkerTest {
+
+    private static final Instant TS_2012 = Instant.parse("2012-01-01T00:00:00.00Z");
+    private static final Instant TS_2013 = Instant.parse("2013-01-01T00:00:00.00Z");
+    private static final Instant TS_2014 = Instant.parse("2014-01-01T00:00:00.00Z");
+
+    /**
+     * Accepts all the data events
+     */
+    private static final ICriterion ALL = new ICriterion() {
+
+        @Override
+        public Predicate<GeoJsonObject> getLocationFilter() {
+            return null;
+        }
+
+        @Override
+        public Predicate<ProviderSnapshot> getProviderFilter() {
+            return null;
+        }
+
+        @Override
+        public Predicate<ServiceSnapshot> getServiceFilter() {
+            return null;
+        }
+
+        @Override
+        public Predicate<ResourceSnapshot> getResourceFilter() {
+            return null;
+        }
+
+        @Override
+        public ResourceValueFilter getResourceValueFilter() {
+            return null;
+        }
+
+        @Override
+        public Predicate<ResourceDataNotification> dataEventFilter() {
+            return e -> true;
+        }
+    };
+
+    @TempDir
+    Path directory;
+
+    SeriesStore store;
+
+    FileHistoryWorker worker;
+
+    @BeforeEach
+    void start() throws IOException {
+        open(16);
+    }
+
+    @AfterEach
+    void stop() {
+        store.close();
+    }
+
+    private void open(int segmentSize) throws IOException {
+        store = new SeriesStore(directory, segmentSize);
+        worker = new FileHistoryWorker(store, ALL, null,
+                selector -> List.of(new ResourcePath("provider", "service", selector)));
+    }
+
+    private void reopen() throws IOException {
+        store.close();
+        open(16);
+    }
+
+    private void push(String resource, Object value, Class<?> type, Instant timestamp) {
+        worker.notify("DATA/model/provider/service/" + resource, new ResourceDataNotification(
+                "https://eclipse.org/sensinact/test", "model", "provider", "service", resource, null, value,
+                timestamp, type, Map.of()));
+    }
+
+    private static ZonedDateTime utc(Instant instant) {
+        return instant.atZone(ZoneOffset.UTC);
+    }
+
+    @Nested
+    class StorageTests {
+
+        @Test
+        void basicTypes() throws Exception {
+            push("text", "fizz", String.class, TS_2012);
+            push("int", 42, Integer.class, TS_2012);
+            push("double", 1.5d, Double.class, TS_2012);
+            push("null", null, Integer.class, TS_2012);
+            Point point = new Point();
+            point.coordinates = new Coordinates();
+            point.coordinates.longitude = 1.5;
+            point.coordinates.latitude = 2.5;
+            push("location", point, GeoJsonObject.class, TS_2012);
+
+            assertEquals("fizz", worker.getSingleValue("provider", "service", "text", null).getValue());
+            assertEquals(42L, worker.getSingleValue("provider", "service", "int", null).getValue());
+            assertEquals(1.5d, worker.getSingleValue("provider", "service", "double", null).getValue());
+            TimedValue<?> value = worker.getSingleValue("provider", "service", "null", null);
+            assertNull(value.getValue());
+            assertEquals(TS_2012, value.getTimestamp());
+            assertEquals(point, worker.getSingleValue("provider", "service", "location", null).getValue());
+
+            // Unknown resource
+            value = worker.getSingleValue("provider", "service", "unknown", null);
+            assertNull(value.getTimestamp());
+            assertNull(value.getValue());
+        }
+
+        @Test
+        void reopen() throws Exception {
+            for (int i = 0; i < 40; i++) {
+                push("text", "value" + i, String.class, TS_2012.plus(ofDays(i)));
+            }
+            FileHistoryWorkerTest.this.reopen();
+
+            assertEquals(40L, worker.getStoredValueCount("provider", "service", "text", null, null));
+            for (int i = 40; i < 50; i++) {
+                push("text", "value" + i, String.class, TS_2012.plus(ofDays(i)));
+            }
+
+            List<TimedValue<?>> result = worker.getValueRange("provider", "service", "text", utc(TS_2012), null, 0);
+            assertEquals(50, result.size());
+            for (int i = 0; i < 50; i++) {
+                assertEquals("value" + i, result.get(i).getValue());
+                assertEquals(TS_2012.plus(ofDays(i)), result.get(i).getTimestamp());
+            }
+        }
+
+        @Test
+        void outOfOrder() throws Exception {
+            for (int i = 0; i < 40; i++) {
+                // Even days, then odd days
+                int day = i < 20 ? 2 * i : 2 * (i - 20) + 1;
+                push("int", day, Integer.class, TS_2012.plus(ofDays(day)));
+            }
+
+            checkSorted(40);
+            assertEquals(11L, worker.getStoredValueCount("provider", "service", "int", utc(TS_2012.plus(ofDays(5))),
+                    utc(TS_2012.plus(ofDays(15)))));
+
+            store.compact(null);
+            checkSorted(40);
+
+            FileHistoryWorkerTest.this.reopen();
+            checkSorted(40);
+        }
+
+        private void checkSorted(int count) {
+            List<TimedValue<?>> result = worker.getValueRange("provider", "service", "int", utc(TS_2012), null, 0);
+            assertEquals(count, result.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals((long) i, result.get(i).getValue());
+            }
+        }
+
+        @Test
+        void retention() throws Exception {
+            for (int i = 0; i < 40; i++) {
+                push("int", i, Integer.class, TS_2012.plus(ofDays(i)));
+            }
+
+            // Whole expired segments are removed
+            store.compact(TS_2012.plus(ofDays(20)));
+            assertEquals(24L, worker.getStoredValueCount("provider", "service", "int", null, null));
+            assertEquals(16L, worker.getSingleValue("provider", "service", "int", null).getValue());
+
+            // The active segment is emptied once all its values have expired
+            store.compact(TS_2012.plus(ofDays(50)));
+            assertEquals(0L, worker.getStoredValueCount("provider", "service", "int", null, null));
+            push("int", 50, Integer.class, TS_2012.plus(ofDays(50)));
+            assertEquals(50L, worker.getSingleValue("provider", "service", "int", null).getValue());
+        }
+
+        @Test
+        void interruptedCompaction() throws Exception {
+            for (int i = 0; i < 40; i++) {
+                push("int", i, Integer.class, TS_2012.plus(ofDays(i)));
+            }
+            store.close();
+
+            // A compaction which stopped before writing its marker is rolled back
+            Path series;
+            try (Stream<Path> stream = Files.list(directory)) {
+                series = stream.findFirst().get();
+            }
+            Files.write(series.resolve(Segment.fileName(99) + Segment.SEGMENT_SUFFIX + ".tmp"), new byte[32]);
+            open(16);
+            assertEquals(40L, worker.getStoredValueCount("provider", "service", "int", null, null));
+            try (Stream<Path> stream = Files.list(series)) {
+                assertTrue(stream.noneMatch(p -> p.toString().endsWith(".tmp")));
+            }
+        }
+    }
+
+    @Nested
+    class QueryTests {
+
+        @BeforeEach
+        void setup() {
+            for (int i = 0; i < 1000; i++) {
+                push("int", i, Integer.class, TS_2012.plus(ofDays(i)));
+            }
+        }
+
+        @Test
+        void single() {
+            TimedValue<?> value = worker.getSingleValue("provider", "service", "int", utc(TS_2013));
+            assertEquals(366L, value.getValue());
+            assertEquals(TS_2013, value.getTimestamp());
+
+            value = worker.getSingleValue("provider", "service", "int", utc(TS_2013.minusSeconds(1)));
+            assertEquals(365L, value.getValue());
+
+            value = worker.getSingleValue("provider", "service", "int", utc(TS_2012.minusSeconds(1)));
+            assertNull(value.getTimestamp());
+        }
+
+        @Test
+        void range() {
+            List<TimedValue<?>> result = worker.getValueRange("provider", "service", "int", utc(TS_2012),
+                    utc(TS_2013), null);
+            assertEquals(367, result.size());
+            assertEquals(0L, result.get(0).getValue());
+            assertEquals(366L, result.get(366).getValue());
+
+            // More than 500 values: the 501st is empty
+            result = worker.getValueRange("provider", "service", "int", utc(TS_2012), null, 10);
+            assertEquals(501, result.size());
+            assertEquals(10L, result.get(0).getValue());
+            assertEquals(509L, result.get(499).getValue());
+            assertNull(result.get(500).getTimestamp());
+
+            // No start: the latest values, skipped from the end
+            result = worker.getValueRange("provider", "service", "int", null, utc(TS_2014), 1);
+            assertEquals(500, result.size());
+            assertEquals(231L, result.get(0).getValue());
+            assertEquals(730L, result.get(499).getValue());
+        }
+
+        @Test
+        void page() {
+            List<TimedValue<?>> result = worker.getValuePage("provider", "service", "int", null, null, null);
+            assertEquals(500, result.size());
+            assertEquals(499L, result.get(499).getValue());
+
+            result = worker.getValuePage("provider", "service", "int", utc(result.get(499).getTimestamp()), true,
+                    600);
+            assertEquals(500, result.size());
+            assertEquals(500L, result.get(0).getValue());
+            assertEquals(999L, result.get(499).getValue());
+
+            result = worker.getValuePage("provider", "service", "int", utc(TS_2012.plus(ofDays(3))), false, 10);
+            assertEquals(3, result.size());
+            assertEquals(2L, result.get(0).getValue());
+            assertEquals(0L, result.get(2).getValue());
+        }
+
+        @Test
+        void count() {
+            assertEquals(1000L, worker.getStoredValueCount("provider", "service", "int", null, null));
+            assertEquals(367L, worker.getStoredValueCount("provider", "service", "int", utc(TS_2012), utc(TS_2013)));
+            assertEquals(999L, worker.getStoredValueCount("provider", "service", "int", utc(TS_2012.plusSeconds(1)),
+                    null));
+            assertEquals(0L, worker.getStoredValueCount("provider", "service", "unknown", null, null));
+        }
+
+        @Test
+        void aggregate() {
+            long interval = ofDays(10).toMillis();
+            ZonedDateTime to = utc(TS_2012.plus(ofDays(19)));
+            List<TimedValue<?>> result = worker.getAggregatedValues("provider", "service", "int", utc(TS_2012), to,
+                    interval, "avg");
+            assertEquals(2, result.size());
+            assertEquals(4.5d, result.get(0).getValue());
+            assertEquals(TS_2012, result.get(0).getTimestamp());
+            assertEquals(14.5d, result.get(1).getValue());
+            assertEquals(TS_2012.plus(ofDays(10)), result.get(1).getTimestamp());
+
+            result = worker.getAggregatedValues("provider", "service", "int", utc(TS_2012), to, interval, "MAX");
+            assertEquals(9L, result.get(0).getValue());
+            assertEquals(19L, result.get(1).getValue());
+
+            result = worker.getAggregatedValues("provider", "service", "int", utc(TS_2012), to, interval, "min");
+            assertEquals(0L, result.get(0).getValue());
+            assertEquals(10L, result.get(1).getValue());
+
+            result = worker.getAggregatedValues("provider", "service", "int", utc(TS_2012), to, interval, "last");
+            assertEquals(9L, result.get(0).getValue());
+            assertEquals(19L, result.get(1).getValue());
+
+            // Buckets are aligned on the start time, empty ones are omitted
+            result = worker.getAggregatedValues("provider", "service", "int", utc(TS_2012.minus(ofDays(25))),
+                    utc(TS_2012.plus(ofDays(2))), interval, "count");
+            assertEquals(1, result.size());
+            assertEquals(TS_2012.minus(ofDays(5)), result.get(0).getTimestamp());
+            assertEquals(3L, result.get(0).getValue());
+
+            assertThrows(IllegalArgumentException.class, () -> worker.getAggregatedValues("provider", "service",
+                    "int", utc(TS_2012), to, interval, "median"));
+            assertThrows(IllegalArgumentException.class, () -> worker.getAggregatedValues("provider", "service",
+                    "int", utc(TS_2012), to, 1L, "avg"));
+        }
+    }
+
+    @Nested
+    class BatchTests {
+
+        @BeforeEach
+        void setup() {
+            for (int i = 0; i < 10; i++) {
+                push("a", i, Integer.class, TS_2012.plus(ofDays(i)));
+                push("b", "b" + i, String.class, TS_2012.plus(ofDays(i)));
+            }
+        }
+
+        @Test
+        void single() {
+            Map<String, TimedValue<?>> result = worker.getSingleValues(
+                    List.of("provider/service/a", "provider/service/unknown"), "b", utc(TS_2012.plus(ofDays(5))));
+            assertEquals(List.of("provider/service/a", "provider/service/unknown", "provider/service/b"),
+                    List.copyOf(result.keySet()));
+            assertEquals(5L, result.get("provider/service/a").getValue());
+            assertNull(result.get("provider/service/unknown").getTimestamp());
+            assertEquals("b5", result.get("provider/service/b").getValue());
+        }
+
+        @Test
+        void range() {
+            Map<String, List<TimedValue<?>>> result = worker.getValueRanges(
+                    List.of("provider/service/a", "provider/service/b"), null, utc(TS_2012.plus(ofDays(8))), null,
+                    null);
+            assertEquals(2, result.get("provider/service/a").size());
+            assertEquals(9L, result.get("provider/service/a").get(1).getValue());
+            assertEquals("b8", result.get("provider/service/b").get(0).getValue());
+        }
+
+        @Test
+        void aggregate() {
+            Map<String, List<TimedValue<?>>> result = worker.getAggregatedValueRanges(
+                    List.of("provider/service/a", "provider/service/b"), null, utc(TS_2012),
+                    utc(TS_2012.plus(ofDays(9))), ofDays(5).toMillis(), "count");
+            assertEquals(5L, result.get("provider/service/a").get(0).getValue());
+            assertEquals(5L, result.get("provider/service/b").get(1).getValue());
+        }
+
+        @Test
+        void count() {
+            Map<String, Long> result = worker.getStoredValueCounts(List.of("provider/service/a", "provider/service/a"),
+                    "b", utc(TS_2012.plus(ofDays(3))), null);
+            assertEquals(Map.of("provider/service/a", 7L, "provider/service/b", 7L), result);
+        }
+
+        @Test
+        void invalid() {
+            assertThrows(IllegalArgumentException.class, () -> worker.getStoredValueCounts(null, null, null, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> worker.getStoredValueCounts(List.of("provider/service"), null, null, null));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the access to a series from concurrent threads
+ */
+public class SeriesTest {
+
+    private static final int VALUES = 20_000;
+
+    @TempDir
+    Path dir;
+
+    Series series;
+
+    ExecutorService executor;
+
+    @BeforeEach
+    void start() {
+        // Small segments, so that the active segment is often sealed
+        series = new Series(dir, 16);
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        series.close();
+    }
+
+    /**
+     * Reads all the values, checking they are the ones which were appended
+     *
+     * @return the number of values
+     */
+    private int readAll() {
+        return series.read(0, Long.MAX_VALUE, true, cursor -> {
+            int count = 0;
+            try {
+                while (cursor.next()) {
+                    assertEquals(count, cursor.time());
+                    assertEquals(Segment.TEXT, cursor.type());
+                    assertEquals("value " + count, cursor.text());
+                    count++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+    }
+
+    @Test
+    void testConcurrentReadAndAppend() throws Exception {
+        AtomicBoolean done = new AtomicBoolean();
+        Future<?> writer = executor.submit(() -> {
+            try {
+                for (int i = 0; i < VALUES; i++) {
+                    series.append(i, Segment.TEXT, "value " + i);
+                }
+            } finally {
+                done.set(true);
+            }
+            return null;
+        });
+
+        List<Future<Integer>> readers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            readers.add(executor.submit(() -> {
+                int reads = 0;
+                int last = 0;
+                while (!done.get()) {
+                    int count = readAll();
+                    // Reads see more and more values
+                    assertTrue(count >= last);
+                    last = count;
+                    reads++;
+                }
+                return reads;
+            }));
+        }
+
+        writer.get(30, TimeUnit.SECONDS);
+        for (Future<Integer> reader : readers) {
+            assertTrue(reader.get(30, TimeUnit.SECONDS) > 0);
+        }
+        assertEquals(VALUES, readAll());
+    }
+}
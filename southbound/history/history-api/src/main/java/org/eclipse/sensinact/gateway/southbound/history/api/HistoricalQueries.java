@@ -14,6 +14,7 @@ package org.eclipse.sensinact.gateway.southbound.history.api;
 
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.sensinact.core.annotation.verb.ACT;
 import org.eclipse.sensinact.core.annotation.verb.ActParam;
@@ -72,6 +73,65 @@ public interface HistoricalQueries {
             @ActParam("resource") String resource, @ActParam("fromTime") ZonedDateTime fromTime,
             @ActParam("toTime") ZonedDateTime toTime, @ActParam("skip") Integer skip);
 
+    /**
+     * Return a page of the values of a resource, starting after the given cursor.
+     *
+     * Pages are selected by time rather than by an offset, so that each page is
+     * read from the time index of the store, however deep it is in the history.
+     * The next page is obtained by passing the timestamp of the last value of a
+     * page as <code>cursor</code>.
+     *
+     * @param provider
+     * @param service
+     * @param resource
+     * @param cursor    the exclusive time to start from. If <code>null</code>
+     *                  then the page starts from the earliest value, or from the
+     *                  latest one if <code>ascending</code> is <code>false</code>
+     * @param ascending <code>true</code> to return the values after the cursor
+     *                  in chronological order, <code>false</code> to return the
+     *                  values before the cursor, the latest first. Defaults to
+     *                  <code>true</code>
+     * @param limit     the maximum number of values to return. Defaults to 500
+     * @return A {@link List&lt;TimedValue&gt;} of at most <code>limit</code>
+     *         results, in the requested order. Fewer values are only returned
+     *         when the end of the data is reached.
+     */
+    @ACT(model = "sensiNactHistory", service = "history", resource = "page")
+    List<TimedValue<?>> getValuePage(@ActParam("provider") String provider, @ActParam("service") String service,
+            @ActParam("resource") String resource, @ActParam("cursor") ZonedDateTime cursor,
+            @ActParam("ascending") Boolean ascending, @ActParam("limit") Integer limit);
+
+    /**
+     * Return the values of a resource aggregated over consecutive time buckets.
+     *
+     * Buckets start at <code>fromTime</code> and last <code>interval</code>
+     * milliseconds. Buckets without any value are not returned. The supported
+     * functions are:
+     * <ul>
+     * <li><code>min</code>, <code>max</code> and <code>avg</code>: computed on
+     * numeric values only</li>
+     * <li><code>last</code>: the latest value of the bucket</li>
+     * <li><code>count</code>: the number of values in the bucket</li>
+     * </ul>
+     *
+     * @param provider
+     * @param service
+     * @param resource
+     * @param fromTime the start of the first bucket (mandatory)
+     * @param toTime   the time to finish at. If <code>null</code> then buckets are
+     *                 returned up to the present.
+     * @param interval the duration of a bucket, in milliseconds (mandatory)
+     * @param function the aggregation function name (mandatory)
+     * @return A {@link List&lt;TimedValue&gt;} with the aggregated value of each
+     *         bucket, in chronological order. The timestamp of a value is the
+     *         start of its bucket.
+     */
+    @ACT(model = "sensiNactHistory", service = "history", resource = "aggregate")
+    List<TimedValue<?>> getAggregatedValues(@ActParam("provider") String provider,
+            @ActParam("service") String service, @ActParam("resource") String resource,
+            @ActParam("fromTime") ZonedDateTime fromTime, @ActParam("toTime") ZonedDateTime toTime,
+            @ActParam("interval") Long interval, @ActParam("function") String function);
+
     /**
      * Get the number of stored values for a given resource
      *
@@ -88,4 +148,88 @@ public interface HistoricalQueries {
     Long getStoredValueCount(@ActParam("provider") String provider, @ActParam("service") String service,
             @ActParam("resource") String resource, @ActParam("fromTime") ZonedDateTime fromTime,
             @ActParam("toTime") ZonedDateTime toTime);
+
+    /**
+     * Return the values that several resources had at the given time, as
+     * {@link #getSingleValue(String, String, String, ZonedDateTime)} does for a
+     * single resource.
+     *
+     * The resources are given by their path, by a selector, or both. The
+     * selector is a JSON encoded resource selector, as used to configure the
+     * resources stored by the history provider, and is matched against the
+     * current resources of the gateway.
+     *
+     * @param resources the paths of the resources, written
+     *                  <code>provider/service/resource</code>
+     * @param selector  a JSON encoded resource selector, can be <code>null</code>
+     * @param time      the time to check. If null then the earliest possible
+     *                  result will be returned
+     * @return The result of each resource, keyed by resource path. The timestamp
+     *         and value of a result will be null if no value exists prior to the
+     *         supplied time
+     */
+    @ACT(model = "sensiNactHistory", service = "history", resource = "batchSingle")
+    Map<String, TimedValue<?>> getSingleValues(@ActParam("resources") List<String> resources,
+            @ActParam("selector") String selector, @ActParam("time") ZonedDateTime time);
+
+    /**
+     * Return the values that several resources had between the given times, as
+     * {@link #getValueRange(String, String, String, ZonedDateTime, ZonedDateTime, Integer)}
+     * does for a single resource.
+     *
+     * @param resources the paths of the resources, written
+     *                  <code>provider/service/resource</code>
+     * @param selector  a JSON encoded resource selector, can be <code>null</code>
+     * @param fromTime  the time to start from. If <code>null</code> then the
+     *                  latest values before <code>toTime</code> will be returned
+     * @param toTime    the time to finish at. If <code>null</code> then there is
+     *                  no finishing time limit.
+     * @param skip      the number of values to skip in the result set of each
+     *                  resource
+     * @return The values of each resource, keyed by resource path, following
+     *         the rules of a single range query
+     */
+    @ACT(model = "sensiNactHistory", service = "history", resource = "batchRange")
+    Map<String, List<TimedValue<?>>> getValueRanges(@ActParam("resources") List<String> resources,
+            @ActParam("selector") String selector, @ActParam("fromTime") ZonedDateTime fromTime,
+            @ActParam("toTime") ZonedDateTime toTime, @ActParam("skip") Integer skip);
+
+    /**
+     * Return the values of several resources aggregated over consecutive time
+     * buckets, as
+     * {@link #getAggregatedValues(String, String, String, ZonedDateTime, ZonedDateTime, Long, String)}
+     * does for a single resource.
+     *
+     * @param resources the paths of the resources, written
+     *                  <code>provider/service/resource</code>
+     * @param selector  a JSON encoded resource selector, can be <code>null</code>
+     * @param fromTime  the start of the first bucket (mandatory)
+     * @param toTime    the time to finish at. If <code>null</code> then buckets
+     *                  are returned up to the present.
+     * @param interval  the duration of a bucket, in milliseconds (mandatory)
+     * @param function  the aggregation function name (mandatory)
+     * @return The aggregated values of each resource, keyed by resource path
+     */
+    @ACT(model = "sensiNactHistory", service = "history", resource = "batchAggregate")
+    Map<String, List<TimedValue<?>>> getAggregatedValueRanges(@ActParam("resources") List<String> resources,
+            @ActParam("selector") String selector, @ActParam("fromTime") ZonedDateTime fromTime,
+            @ActParam("toTime") ZonedDateTime toTime, @ActParam("interval") Long interval,
+            @ActParam("function") String function);
+
+    /**
+     * Get the number of stored values of several resources
+     *
+     * @param resources the paths of the resources, written
+     *                  <code>provider/service/resource</code>
+     * @param selector  a JSON encoded resource selector, can be <code>null</code>
+     * @param fromTime  the time to start from. If <code>null</code> then all
+     *                  values before <code>toTime</code> will be counted
+     * @param toTime    the time to finish at. If <code>null</code> then there is
+     *                  no finishing time limit.
+     * @return The number of values of each resource, keyed by resource path
+     */
+    @ACT(model = "sensiNactHistory", service = "history", resource = "batchCount")
+    Map<String, Long> getStoredValueCounts(@ActParam("resources") List<String> resources,
+            @ActParam("selector") String selector, @ActParam("fromTime") ZonedDateTime fromTime,
+            @ActParam("toTime") ZonedDateTime toTime);
 }
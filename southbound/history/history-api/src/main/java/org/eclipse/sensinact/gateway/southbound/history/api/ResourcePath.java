@@ -0,0 +1,43 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.api;
+
+/**
+ * The path of a resource in a batch history query, written
+ * <code>provider/service/resource</code>
+ */
+public record ResourcePath(String provider, String service, String resource) {
+
+    /**
+     * Parses a resource path
+     *
+     * @param path a path of the form <code>provider/service/resource</code>
+     * @return The parsed path
+     * @throws IllegalArgumentException if the path doesn't have exactly three
+     *                                  non-empty segments
+     */
+    public static ResourcePath parse(String path) {
+        if (path != null) {
+            String[] parts = path.split("/", -1);
+            if (parts.length == 3 && !parts[0].isEmpty() && !parts[1].isEmpty() && !parts[2].isEmpty()) {
+                return new ResourcePath(parts[0], parts[1], parts[2]);
+            }
+        }
+        throw new IllegalArgumentException("Invalid resource path, expected provider/service/resource: " + path);
+    }
+
+    @Override
+    public String toString() {
+        return provider + "/" + service + "/" + resource;
+    }
+}
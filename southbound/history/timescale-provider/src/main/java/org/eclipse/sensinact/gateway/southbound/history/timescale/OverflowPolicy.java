@@ -0,0 +1,35 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.timescale;
+
+/**
+ * What to do when the queue of values waiting to be written is full
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Wait for room in the queue, up to the overflow timeout, then drop the new
+     * value
+     */
+    BLOCK,
+
+    /**
+     * Drop the new value
+     */
+    DROP_NEWEST,
+
+    /**
+     * Drop the oldest value waiting to be written
+     */
+    DROP_OLDEST;
+}
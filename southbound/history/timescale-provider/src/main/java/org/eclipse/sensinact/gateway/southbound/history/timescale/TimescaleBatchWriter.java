@@ -0,0 +1,339 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.timescale;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.eclipse.sensinact.core.metrics.IMetricMeter;
+import org.eclipse.sensinact.core.metrics.IMetricTimer;
+import org.eclipse.sensinact.core.metrics.IMetricsHistogram;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
+import org.osgi.service.transaction.control.TransactionControl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the historical values from a bounded queue, in background threads.
+ * <p>
+ * Each thread waits for a first value then collects the next ones until the
+ * batch is full or the flush interval is elapsed. The values of a batch are
+ * inserted in a single transaction, with a JDBC batch per table.
+ */
+class TimescaleBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimescaleBatchWriter.class);
+
+    private static final String INSERT_TEMPLATE = "INSERT INTO %s ( time, modelpackageuri, model, provider, service, resource, data ) values ( ?, ?, ?, ?, ?, ?, %s );";
+
+    /**
+     * Maximum time to wait for the pending values to be written on close
+     */
+    private static final long CLOSE_TIMEOUT = 10000;
+
+    /**
+     * Depth of the queue, sampled when a value is queued
+     */
+    static final String METRIC_QUEUE_DEPTH = "sensinact.history.timescale.queue.depth";
+
+    /**
+     * Number of values per batch
+     */
+    static final String METRIC_BATCH_SIZE = "sensinact.history.timescale.batch.size";
+
+    /**
+     * Duration of the batch writes
+     */
+    static final String METRIC_WRITE = "sensinact.history.timescale.write";
+
+    /**
+     * Number of values dropped because the queue was full
+     */
+    static final String METRIC_DROPPED = "sensinact.history.timescale.values.dropped";
+
+    /**
+     * Number of values which couldn't be stored
+     */
+    static final String METRIC_FAILED = "sensinact.history.timescale.values.failed";
+
+    /**
+     * Tables of the historical values
+     */
+    enum Table {
+        NUMERIC("sensinact.numeric_data", "?"), TEXT("sensinact.text_data", "?"),
+        GEO("sensinact.geo_data", "(SELECT ST_GeomFromGeoJSON( ? )::geography)");
+
+        final String insert;
+
+        Table(String name, String valueExpression) {
+            this.insert = String.format(INSERT_TEMPLATE, name, valueExpression);
+        }
+    }
+
+    /**
+     * A value to store
+     */
+    record Row(Table table, Timestamp time, String modelPackageUri, String model, String provider, String service,
+            String resource, Object value) {
+    }
+
+    /**
+     * Settings of the writer
+     *
+     * @param queueSize       maximum number of values waiting to be written
+     * @param batchSize       maximum number of values per batch
+     * @param flushInterval   maximum time in milliseconds to wait for a batch to
+     *                        be full
+     * @param threads         number of writing threads
+     * @param overflowPolicy  what to do when the queue is full
+     * @param overflowTimeout maximum time in milliseconds to wait for room in the
+     *                        queue with the {@link OverflowPolicy#BLOCK} policy
+     * @param metrics         the metrics manager
+     */
+    record Settings(int queueSize, int batchSize, long flushInterval, int threads, OverflowPolicy overflowPolicy,
+            long overflowTimeout, IMetricsManager metrics) {
+    }
+
+    private final TransactionControl txControl;
+
+    private final Supplier<Connection> connectionSupplier;
+
+    private final Settings settings;
+
+    private final BlockingQueue<Row> queue;
+
+    private final List<Thread> threads;
+
+    private final IMetricsManager metrics;
+
+    private final IMetricsHistogram depth;
+
+    private final IMetricsHistogram batchSizes;
+
+    private final IMetricMeter dropped;
+
+    private final IMetricMeter failed;
+
+    private volatile boolean running = true;
+
+    TimescaleBatchWriter(TransactionControl txControl, Supplier<Connection> connectionSupplier, Settings settings) {
+        this.txControl = txControl;
+        this.connectionSupplier = connectionSupplier;
+        this.settings = settings;
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, settings.queueSize()));
+
+        metrics = settings.metrics();
+        depth = metrics.getHistogram(METRIC_QUEUE_DEPTH);
+        batchSizes = metrics.getHistogram(METRIC_BATCH_SIZE);
+        dropped = metrics.getMeter(METRIC_DROPPED);
+        failed = metrics.getMeter(METRIC_FAILED);
+
+        int nbThreads = Math.max(1, settings.threads());
+        threads = new ArrayList<>(nbThreads);
+        for (int i = 0; i < nbThreads; i++) {
+            Thread thread = new Thread(this::run, "sensiNact Timescale history writer " + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Queues a value to write
+     *
+     * @param row Value to store
+     * @return true if the value was queued, false if it was dropped
+     */
+    boolean add(Row row) {
+        boolean added;
+        if (!running) {
+            added = false;
+        } else {
+            switch (settings.overflowPolicy()) {
+            case DROP_NEWEST:
+                added = queue.offer(row);
+                break;
+
+            case DROP_OLDEST:
+                while (!queue.offer(row)) {
+                    if (queue.poll() != null) {
+                        dropped.mark();
+                    }
+                }
+                added = true;
+                break;
+
+            case BLOCK:
+            default:
+                try {
+                    added = queue.offer(row, settings.overflowTimeout(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    added = false;
+                }
+                break;
+            }
+        }
+
+        if (added) {
+            depth.update(queue.size());
+        } else {
+            dropped.mark();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Dropping the value of {}/{}/{} as the write queue is full", row.provider(),
+                        row.service(), row.resource());
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Stops accepting values and waits for the queued ones to be written
+     */
+    void close() {
+        running = false;
+        final long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT;
+        for (Thread thread : threads) {
+            try {
+                thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        for (Thread thread : threads) {
+            if (thread.isAlive()) {
+                thread.interrupt();
+            }
+        }
+
+        if (!queue.isEmpty()) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Dropping {} historical values which couldn't be written in time", queue.size());
+            }
+            dropped.mark(queue.size());
+            queue.clear();
+        }
+    }
+
+    private void run() {
+        final int batchSize = Math.max(1, settings.batchSize());
+        final long flushInterval = TimeUnit.MILLISECONDS.toNanos(Math.max(1, settings.flushInterval()));
+        final List<Row> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Row first = queue.poll(flushInterval, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                final long deadline = System.nanoTime() + flushInterval;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+
+                    Row next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Write what we have and stop
+                Thread.currentThread().interrupt();
+                write(batch);
+                return;
+            }
+
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Row> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        batchSizes.update(batch.size());
+        if (!execute(batch) && batch.size() > 1) {
+            // Store the valid values of the batch, one by one
+            for (Row row : batch) {
+                execute(List.of(row));
+            }
+        }
+    }
+
+    /**
+     * Inserts the given values in a single transaction
+     *
+     * @return true on success
+     */
+    private boolean execute(List<Row> rows) {
+        final Map<Table, List<Row>> byTable = new EnumMap<>(Table.class);
+        for (Row row : rows) {
+            byTable.computeIfAbsent(row.table(), t -> new ArrayList<>()).add(row);
+        }
+
+        Connection conn = connectionSupplier.get();
+        try (IMetricTimer timer = metrics.withTimer(METRIC_WRITE)) {
+            txControl.required(() -> {
+                for (Entry<Table, List<Row>> entry : byTable.entrySet()) {
+                    try (PreparedStatement ps = conn.prepareStatement(entry.getKey().insert)) {
+                        for (Row row : entry.getValue()) {
+                            ps.setTimestamp(1, row.time());
+                            ps.setString(2, row.modelPackageUri());
+                            ps.setString(3, row.model());
+                            ps.setString(4, row.provider());
+                            ps.setString(5, row.service());
+                            ps.setString(6, row.resource());
+                            ps.setObject(7, row.value());
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+                return null;
+            });
+            return true;
+        } catch (Exception e) {
+            if (rows.size() == 1) {
+                failed.mark();
+                if (logger.isWarnEnabled()) {
+                    Row row = rows.get(0);
+                    logger.warn("Unable to store data for {}/{}/{}", row.provider(), row.service(), row.resource(),
+                            e);
+                }
+            } else if (logger.isWarnEnabled()) {
+                logger.warn("Unable to store a batch of {} values, retrying them one by one", rows.size(), e);
+            }
+            return false;
+        }
+    }
+}
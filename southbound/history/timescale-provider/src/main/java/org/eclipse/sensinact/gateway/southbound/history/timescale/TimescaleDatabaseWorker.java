@@ -21,8 +21,13 @@ import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -32,6 +37,9 @@ import org.eclipse.sensinact.core.twin.DefaultTimedValue;
 import org.eclipse.sensinact.core.twin.TimedValue;
 import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
 import org.eclipse.sensinact.gateway.southbound.history.api.HistoricalQueries;
+import org.eclipse.sensinact.gateway.southbound.history.api.ResourcePath;
+import org.eclipse.sensinact.gateway.southbound.history.timescale.TimescaleBatchWriter.Row;
+import org.eclipse.sensinact.gateway.southbound.history.timescale.TimescaleBatchWriter.Table;
 import org.osgi.service.transaction.control.TransactionControl;
 import org.osgi.service.typedevent.TypedEventHandler;
 import org.slf4j.Logger;
@@ -44,8 +52,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNotification>, HistoricalQueries {
 
-    private static final String INSERT_TEMPLATE = "INSERT INTO %s ( time, modelpackageuri, model, provider, service, resource, data ) values ( ?, ?, ?, ?, ?, ?, %s );";
-
     private static final String SINGLE_TEMPLATE = "SELECT time, num, text, geo FROM ( "
             + "( SELECT time, data AS num, NULL AS text, NULL AS geo FROM sensinact.numeric_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? ORDER BY time DESC LIMIT 1 ) "
             + "UNION ALL "
@@ -90,6 +96,13 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
             + "( SELECT time, NULL AS num, NULL AS text, ST_AsGeoJSON(data) AS geo FROM sensinact.geo_data WHERE provider = ? AND service = ? AND resource = ? ORDER BY time DESC ) "
             + ") results ORDER BY time DESC OFFSET ? LIMIT 500 ) reverse ORDER BY time ASC;";
 
+    private static final String PAGE_TEMPLATE_ASCENDING = pageTemplate(true, true);
+    private static final String PAGE_TEMPLATE_ASCENDING_WITHOUT_CURSOR = pageTemplate(true, false);
+    private static final String PAGE_TEMPLATE_DESCENDING = pageTemplate(false, true);
+    private static final String PAGE_TEMPLATE_DESCENDING_WITHOUT_CURSOR = pageTemplate(false, false);
+
+    private static final int DEFAULT_PAGE_SIZE = 500;
+
     private static final String COUNT_TEMPLATE = "SELECT SUM(c) FROM ( "
             + "( SELECT COUNT(time) as c FROM sensinact.numeric_data WHERE provider = ? AND service = ? AND resource = ? AND time <= ? AND time >= ? ) "
             + "UNION ALL "
@@ -119,8 +132,94 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
             + "( SELECT COUNT(time) as c FROM sensinact.geo_data WHERE provider = ? AND service = ? AND resource = ? ) "
             + ") results;";
 
+    /**
+     * Maximum number of buckets of an aggregation query
+     */
+    private static final long MAX_BUCKETS = 10000;
+
+    private static final String BUCKET_FILTER = "WHERE provider = ? AND service = ? AND resource = ? AND time >= ? AND time <= ? GROUP BY bucket ) ";
+
+    private static final String BUCKET = "time_bucket(?::interval, time, ?::timestamptz) AS bucket";
+
+    private static final String NUMERIC_AGGREGATE_TEMPLATE = "SELECT " + BUCKET
+            + ", %s(data) AS num FROM sensinact.numeric_data WHERE provider = ? AND service = ? AND resource = ? AND time >= ? AND time <= ? GROUP BY bucket ORDER BY bucket ASC;";
+
+    private static final String COUNT_AGGREGATE_TEMPLATE = "SELECT bucket, SUM(c) AS num FROM ( "
+            + "( SELECT " + BUCKET + ", COUNT(time) AS c FROM sensinact.numeric_data " + BUCKET_FILTER
+            + "UNION ALL "
+            + "( SELECT " + BUCKET + ", COUNT(time) AS c FROM sensinact.text_data " + BUCKET_FILTER
+            + "UNION ALL "
+            + "( SELECT " + BUCKET + ", COUNT(time) AS c FROM sensinact.geo_data " + BUCKET_FILTER
+            + ") results GROUP BY bucket ORDER BY bucket ASC;";
+
+    private static final String LAST_AGGREGATE_TEMPLATE = "SELECT DISTINCT ON (bucket) bucket, num, text, geo FROM ( "
+            + "( SELECT " + BUCKET + ", MAX(time) AS time, last(data, time) AS num, NULL AS text, NULL AS geo FROM sensinact.numeric_data " + BUCKET_FILTER
+            + "UNION ALL "
+            + "( SELECT " + BUCKET + ", MAX(time) AS time, NULL AS num, last(data, time) AS text, NULL AS geo FROM sensinact.text_data " + BUCKET_FILTER
+            + "UNION ALL "
+            + "( SELECT " + BUCKET + ", MAX(time) AS time, NULL AS num, NULL AS text, ST_AsGeoJSON(last(data, time)) AS geo FROM sensinact.geo_data " + BUCKET_FILTER
+            + ") results ORDER BY bucket ASC, time DESC;";
+
+    /**
+     * Maximum number of resources of a batch query
+     */
+    private static final int MAX_BATCH_RESOURCES = 1000;
+
+    private static final String RESOURCE_FILTER = "provider = ? AND service = ? AND resource = ?";
+
+    private static final String BATCH_SINGLE_TEMPLATE = batchTemplate(SINGLE_TEMPLATE, null);
+    private static final String BATCH_SINGLE_TEMPLATE_WITHOUT_TIME = batchTemplate(SINGLE_TEMPLATE_WITHOUT_TIME, null);
+
+    private static final String BATCH_RANGE_TEMPLATE = batchTemplate(RANGE_TEMPLATE, "q.time");
+    private static final String BATCH_RANGE_TEMPLATE_WITHOUT_LIMIT = batchTemplate(RANGE_TEMPLATE_WITHOUT_LIMIT, "q.time");
+    private static final String BATCH_RANGE_TEMPLATE_WITHOUT_START = batchTemplate(RANGE_TEMPLATE_WITHOUT_START, "q.time");
+    private static final String BATCH_RANGE_TEMPLATE_WITHOUT_START_OR_LIMIT = batchTemplate(
+            RANGE_TEMPLATE_WITHOUT_START_OR_LIMIT, "q.time");
+
+    private static final String BATCH_COUNT_TEMPLATE = batchTemplate(COUNT_TEMPLATE, null);
+    private static final String BATCH_COUNT_TEMPLATE_WITHOUT_LIMIT = batchTemplate(COUNT_TEMPLATE_WITHOUT_LIMIT, null);
+    private static final String BATCH_COUNT_TEMPLATE_WITHOUT_START = batchTemplate(COUNT_TEMPLATE_WITHOUT_START, null);
+    private static final String BATCH_COUNT_TEMPLATE_WITHOUT_START_OR_LIMIT = batchTemplate(
+            COUNT_TEMPLATE_WITHOUT_START_OR_LIMIT, null);
+
     private static final Logger logger = LoggerFactory.getLogger(TimescaleDatabaseWorker.class);
 
+    /**
+     * Runs a single resource query for each resource of a batch, in one
+     * statement: the resources are given as three arrays of provider, service
+     * and resource names, bound before the variables of the single resource
+     * query.
+     *
+     * @param template the single resource query
+     * @param order    the order of the results of each resource, can be null
+     */
+    private static String batchTemplate(String template, String order) {
+        String query = template.replace(RESOURCE_FILTER,
+                "provider = t.provider AND service = t.service AND resource = t.resource");
+        query = query.substring(0, query.lastIndexOf(';'));
+        return "SELECT t.provider, t.service, t.resource, q.* "
+                + "FROM unnest(?::text[], ?::text[], ?::text[]) AS t(provider, service, resource) "
+                + "CROSS JOIN LATERAL ( " + query + " ) q" + (order == null ? "" : " ORDER BY " + order) + ";";
+    }
+
+    /**
+     * Each table is limited on its own so that its time index does the work:
+     * there is no offset to scan, whatever the position of the cursor
+     */
+    private static String pageTemplate(boolean ascending, boolean withCursor) {
+        String cursor = withCursor ? (ascending ? " AND time > ?" : " AND time < ?") : "";
+        String order = ascending ? "ASC" : "DESC";
+        String filter = "WHERE provider = ? AND service = ? AND resource = ?" + cursor + " ORDER BY time " + order
+                + " LIMIT ? ) ";
+        return "SELECT time, num, text, geo FROM ( "
+                + "( SELECT time, data AS num, NULL AS text, NULL AS geo FROM sensinact.numeric_data " + filter
+                + "UNION ALL "
+                + "( SELECT time, NULL AS num, data AS text, NULL AS geo FROM sensinact.text_data " + filter
+                + "UNION ALL "
+                + "( SELECT time, NULL AS num, NULL AS text, ST_AsGeoJSON(data) AS geo FROM sensinact.geo_data "
+                + filter + ") results ORDER BY time " + order + " LIMIT ?;";
+    }
+
     private final TransactionControl txControl;
 
     private final Supplier<Connection> connectionSupplier;
@@ -130,16 +229,24 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
             .build();
     private final ObjectMapper mapper = new ObjectMapper(factory);
 
+    private final TimescaleBatchWriter writer;
+
     private final Predicate<ResourceDataNotification> include;
 
     private final Predicate<ResourceDataNotification> exclude;
 
-    public TimescaleDatabaseWorker(TransactionControl txControl, Supplier<Connection> connectionSupplier, ICriterion include, ICriterion exclude) {
+    private final Function<String, Collection<ResourcePath>> selection;
+
+    public TimescaleDatabaseWorker(TransactionControl txControl, Supplier<Connection> connectionSupplier,
+            TimescaleBatchWriter writer, ICriterion include, ICriterion exclude,
+            Function<String, Collection<ResourcePath>> selection) {
         super();
         this.txControl = txControl;
         this.connectionSupplier = connectionSupplier;
+        this.writer = writer;
         this.include = include.dataEventFilter();
         this.exclude = exclude == null ? x -> Boolean.FALSE : exclude.dataEventFilter();
+        this.selection = selection;
     }
 
     @Override
@@ -163,15 +270,14 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
             return;
         }
 
-        String command;
+        Table table;
         Object value;
 
         if (isGeographic(event)) {
             if (logger.isDebugEnabled()) {
                 logger.debug("Event is geographic");
             }
-            command = String.format(INSERT_TEMPLATE, "sensinact.geo_data",
-                    "(SELECT ST_GeomFromGeoJSON( ? )::geography)");
+            table = Table.GEO;
             String tmpValue;
             if (event.newValue() == null) {
                 tmpValue = "{\"type\":\"Point\", \"coordinates\":[NaN, NaN]}";
@@ -192,37 +298,19 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
             if (logger.isDebugEnabled()) {
                 logger.debug("Event is numeric");
             }
-            command = String.format(INSERT_TEMPLATE, "sensinact.numeric_data", "?");
+            table = Table.NUMERIC;
             value = event.newValue();
         } else {
             if (logger.isDebugEnabled()) {
                 logger.debug("Event is being treated as text");
             }
-            command = String.format(INSERT_TEMPLATE, "sensinact.text_data", "?");
+            table = Table.TEXT;
             value = event.newValue() == null ? null : event.newValue().toString();
         }
-        Connection conn = connectionSupplier.get();
-
-        try {
-            txControl.required(() -> {
-
-                PreparedStatement ps = conn.prepareStatement(command);
-                ps.setTimestamp(1, Timestamp.from(event.timestamp()));
-                ps.setString(2, event.modelPackageUri());
-                ps.setString(3, event.model());
-                ps.setString(4, event.provider());
-                ps.setString(5, event.service());
-                ps.setString(6, event.resource());
-                ps.setObject(7, value);
-
-                return ps.execute();
-            });
-        } catch (Exception e) {
-            if (logger.isWarnEnabled()) {
-                logger.warn("Unable to store data for {}", topic, e);
-            }
-        }
 
+        // Written asynchronously to avoid slowing down the event delivery
+        writer.add(new Row(table, Timestamp.from(event.timestamp()), event.modelPackageUri(), event.model(),
+                event.provider(), event.service(), event.resource(), value));
     }
 
     private boolean isGeographic(ResourceDataNotification event) {
@@ -364,6 +452,166 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
         }
     }
 
+    @Override
+    public List<TimedValue<?>> getValuePage(String provider, String service, String resource, ZonedDateTime cursor,
+            Boolean ascending, Integer limit) {
+        boolean asc = ascending == null || ascending.booleanValue();
+        int size = limit == null ? DEFAULT_PAGE_SIZE : limit.intValue();
+        if (size <= 0) {
+            return List.of();
+        }
+        Connection conn = connectionSupplier.get();
+
+        try {
+            return txControl.required(() -> {
+
+                PreparedStatement ps;
+                int idx;
+                if (cursor == null) {
+                    ps = conn.prepareStatement(
+                            asc ? PAGE_TEMPLATE_ASCENDING_WITHOUT_CURSOR : PAGE_TEMPLATE_DESCENDING_WITHOUT_CURSOR);
+                    setVariables(ps, provider, service, resource, size);
+                    idx = 13;
+                } else {
+                    ps = conn.prepareStatement(asc ? PAGE_TEMPLATE_ASCENDING : PAGE_TEMPLATE_DESCENDING);
+                    setVariables(ps, provider, service, resource, Timestamp.from(cursor.toInstant()), size);
+                    idx = 16;
+                }
+                ps.setInt(idx, size);
+
+                ResultSet rs = ps.executeQuery();
+
+                List<TimedValue<?>> list = new ArrayList<>(Math.min(size, DEFAULT_PAGE_SIZE));
+                while (rs.next()) {
+                    list.add(toTimedValue(rs));
+                }
+                return list;
+            });
+        } catch (Exception e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Unable to locate data for {} {} {}", provider, service, resource, e);
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public List<TimedValue<?>> getAggregatedValues(String provider, String service, String resource,
+            ZonedDateTime fromTime, ZonedDateTime toTime, Long interval, String function) {
+        if (fromTime == null) {
+            throw new IllegalArgumentException("The start of the aggregation is mandatory");
+        } else if (interval == null || interval.longValue() <= 0) {
+            throw new IllegalArgumentException("The aggregation interval must be a positive number of milliseconds");
+        } else if (function == null) {
+            throw new IllegalArgumentException("The aggregation function is mandatory");
+        }
+
+        final Instant start = fromTime.toInstant();
+        final Instant end = toTime == null ? Instant.now() : toTime.toInstant();
+        if (end.isBefore(start)) {
+            return List.of();
+        }
+
+        checkBuckets(start, end, interval);
+        final String command = aggregateTemplate(function);
+        final int nbTables = aggregateTables(function);
+
+        final String bucketWidth = interval + " milliseconds";
+        final Timestamp origin = Timestamp.from(start);
+        final Timestamp limit = Timestamp.from(end);
+        Connection conn = connectionSupplier.get();
+
+        try {
+            return txControl.required(() -> {
+                PreparedStatement ps = conn.prepareStatement(command);
+                int idx = 1;
+                for (int i = 0; i < nbTables; i++) {
+                    for (Object o : new Object[] { bucketWidth, origin, provider, service, resource, origin, limit }) {
+                        ps.setObject(idx++, o);
+                    }
+                }
+
+                ResultSet rs = ps.executeQuery();
+                List<TimedValue<?>> list = new ArrayList<>();
+                while (rs.next()) {
+                    list.add(toAggregatedValue(rs, nbTables > 1));
+                }
+                return list;
+            });
+        } catch (Exception e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Unable to aggregate data for {} {} {}", provider, service, resource, e);
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void checkBuckets(Instant start, Instant end, long interval) {
+        final long nbBuckets = (end.toEpochMilli() - start.toEpochMilli()) / interval + 1;
+        if (nbBuckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException(
+                    "Too many aggregation buckets: " + nbBuckets + " (maximum " + MAX_BUCKETS + ")");
+        }
+    }
+
+    private static String aggregateTemplate(String function) {
+        switch (function.toLowerCase()) {
+        case "min":
+        case "max":
+        case "avg":
+            return String.format(NUMERIC_AGGREGATE_TEMPLATE, function.toLowerCase());
+        case "count":
+            return COUNT_AGGREGATE_TEMPLATE;
+        case "last":
+            return LAST_AGGREGATE_TEMPLATE;
+        default:
+            throw new IllegalArgumentException("Unsupported aggregation function: " + function);
+        }
+    }
+
+    /**
+     * The number of data tables read by an aggregation: numeric functions only
+     * read the numeric table
+     */
+    private static int aggregateTables(String function) {
+        switch (function.toLowerCase()) {
+        case "count":
+        case "last":
+            return 3;
+        default:
+            return 1;
+        }
+    }
+
+    /**
+     * Converts an aggregation result row, timestamped by the start of its bucket
+     *
+     * @param withText true if the row has the text and geographic columns
+     */
+    private TimedValue<?> toAggregatedValue(ResultSet rs, boolean withText) throws Exception {
+        Instant bucket = rs.getTimestamp("bucket").toInstant();
+        Object value = null;
+        BigDecimal num = rs.getBigDecimal("num");
+        if (num != null) {
+            if (num.scale() <= 0) {
+                value = num.longValueExact();
+            } else {
+                value = num.doubleValue();
+            }
+        } else if (withText) {
+            String text = rs.getString("text");
+            if (text != null) {
+                value = text;
+            } else {
+                String geo = rs.getString("geo");
+                if (geo != null) {
+                    value = mapper.readValue(geo, GeoJsonObject.class);
+                }
+            }
+        }
+        return new DefaultTimedValue<>(value, bucket);
+    }
+
     @Override
     public Long getStoredValueCount(String provider, String service, String resource, ZonedDateTime fromTime,
             ZonedDateTime toTime) {
@@ -404,4 +652,269 @@ public class TimescaleDatabaseWorker implements TypedEventHandler<ResourceDataNo
         }
     }
 
+    /**
+     * Lists the resources of a batch query, in request order and without
+     * duplicates
+     */
+    private Collection<ResourcePath> resolve(List<String> resources, String selector) {
+        if ((resources == null || resources.isEmpty()) && (selector == null || selector.isBlank())) {
+            throw new IllegalArgumentException("The resources or a selector must be given");
+        }
+
+        Set<ResourcePath> paths = new LinkedHashSet<>();
+        if (resources != null) {
+            // Request parameters are not checked against the generic type
+            for (Object path : resources) {
+                paths.add(ResourcePath.parse(String.valueOf(path)));
+            }
+        }
+        if (selector != null && !selector.isBlank()) {
+            paths.addAll(selection.apply(selector));
+        }
+
+        if (paths.size() > MAX_BATCH_RESOURCES) {
+            throw new IllegalArgumentException(
+                    "Too many resources: " + paths.size() + " (maximum " + MAX_BATCH_RESOURCES + ")");
+        }
+        return paths;
+    }
+
+    /**
+     * Binds the resources of a batch query, then the variables of each data
+     * table
+     *
+     * @return the index of the next variable
+     */
+    private int setBatchVariables(Connection conn, PreparedStatement ps, Collection<ResourcePath> paths,
+            int nbTables, Object... variables) throws SQLException {
+        String[] providers = new String[paths.size()];
+        String[] services = new String[paths.size()];
+        String[] resources = new String[paths.size()];
+        int i = 0;
+        for (ResourcePath path : paths) {
+            providers[i] = path.provider();
+            services[i] = path.service();
+            resources[i] = path.resource();
+            i++;
+        }
+        ps.setArray(1, conn.createArrayOf("text", providers));
+        ps.setArray(2, conn.createArrayOf("text", services));
+        ps.setArray(3, conn.createArrayOf("text", resources));
+
+        int idx = 4;
+        for (int t = 0; t < nbTables; t++) {
+            for (Object o : variables) {
+                ps.setObject(idx++, o);
+            }
+        }
+        return idx;
+    }
+
+    private static String toPath(ResultSet rs) throws SQLException {
+        return new ResourcePath(rs.getString("provider"), rs.getString("service"), rs.getString("resource"))
+                .toString();
+    }
+
+    @Override
+    public Map<String, TimedValue<?>> getSingleValues(List<String> resources, String selector, ZonedDateTime time) {
+        Collection<ResourcePath> paths = resolve(resources, selector);
+        Map<String, TimedValue<?>> results = new LinkedHashMap<>();
+        for (ResourcePath path : paths) {
+            results.put(path.toString(), new DefaultTimedValue<>());
+        }
+        if (paths.isEmpty()) {
+            return results;
+        }
+
+        Connection conn = connectionSupplier.get();
+
+        try {
+            return txControl.required(() -> {
+
+                PreparedStatement ps;
+                if (time == null) {
+                    ps = conn.prepareStatement(BATCH_SINGLE_TEMPLATE_WITHOUT_TIME);
+                    setBatchVariables(conn, ps, paths, 3);
+                } else {
+                    ps = conn.prepareStatement(BATCH_SINGLE_TEMPLATE);
+                    setBatchVariables(conn, ps, paths, 3, Timestamp.from(time.toInstant()));
+                }
+
+                ResultSet rs = ps.executeQuery();
+                while (rs.next()) {
+                    results.put(toPath(rs), toTimedValue(rs));
+                }
+                return results;
+            });
+        } catch (Exception e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Unable to locate data for {}", paths, e);
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Map<String, List<TimedValue<?>>> getValueRanges(List<String> resources, String selector,
+            ZonedDateTime fromTime, ZonedDateTime toTime, Integer skip) {
+        Integer toSkip = skip == null ? Integer.valueOf(0) : skip;
+        Collection<ResourcePath> paths = resolve(resources, selector);
+        Map<String, List<TimedValue<?>>> results = new LinkedHashMap<>();
+        for (ResourcePath path : paths) {
+            results.put(path.toString(), new ArrayList<>());
+        }
+        if (paths.isEmpty()) {
+            return results;
+        }
+
+        Connection conn = connectionSupplier.get();
+
+        try {
+            return txControl.required(() -> {
+
+                PreparedStatement ps;
+                int idx;
+                if (toTime == null) {
+                    if (fromTime == null) {
+                        ps = conn.prepareStatement(BATCH_RANGE_TEMPLATE_WITHOUT_START_OR_LIMIT);
+                        idx = setBatchVariables(conn, ps, paths, 3);
+                    } else {
+                        ps = conn.prepareStatement(BATCH_RANGE_TEMPLATE_WITHOUT_LIMIT);
+                        idx = setBatchVariables(conn, ps, paths, 3, Timestamp.from(fromTime.toInstant()));
+                    }
+                } else {
+                    if (fromTime == null) {
+                        ps = conn.prepareStatement(BATCH_RANGE_TEMPLATE_WITHOUT_START);
+                        idx = setBatchVariables(conn, ps, paths, 3, Timestamp.from(toTime.toInstant()));
+                    } else {
+                        ps = conn.prepareStatement(BATCH_RANGE_TEMPLATE);
+                        idx = setBatchVariables(conn, ps, paths, 3, Timestamp.from(toTime.toInstant()),
+                                Timestamp.from(fromTime.toInstant()));
+                    }
+                }
+                ps.setInt(idx, toSkip);
+
+                ResultSet rs = ps.executeQuery();
+                while (rs.next()) {
+                    results.get(toPath(rs)).add(toTimedValue(rs));
+                }
+
+                // The 501st value of a resource marks that its data continues
+                for (List<TimedValue<?>> list : results.values()) {
+                    if (list.size() > 500) {
+                        list.set(500, DefaultTimedValue.EMPTY);
+                    }
+                }
+                return results;
+            });
+        } catch (Exception e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Unable to locate data for {}", paths, e);
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Map<String, List<TimedValue<?>>> getAggregatedValueRanges(List<String> resources, String selector,
+            ZonedDateTime fromTime, ZonedDateTime toTime, Long interval, String function) {
+        if (fromTime == null) {
+            throw new IllegalArgumentException("The start of the aggregation is mandatory");
+        } else if (interval == null || interval.longValue() <= 0) {
+            throw new IllegalArgumentException("The aggregation interval must be a positive number of milliseconds");
+        } else if (function == null) {
+            throw new IllegalArgumentException("The aggregation function is mandatory");
+        }
+
+        Collection<ResourcePath> paths = resolve(resources, selector);
+        Map<String, List<TimedValue<?>>> results = new LinkedHashMap<>();
+        for (ResourcePath path : paths) {
+            results.put(path.toString(), new ArrayList<>());
+        }
+
+        final Instant start = fromTime.toInstant();
+        final Instant end = toTime == null ? Instant.now() : toTime.toInstant();
+        if (paths.isEmpty() || end.isBefore(start)) {
+            return results;
+        }
+
+        checkBuckets(start, end, interval);
+        final String command = batchTemplate(aggregateTemplate(function), "q.bucket");
+        final int nbTables = aggregateTables(function);
+
+        final String bucketWidth = interval + " milliseconds";
+        final Timestamp origin = Timestamp.from(start);
+        final Timestamp limit = Timestamp.from(end);
+        Connection conn = connectionSupplier.get();
+
+        try {
+            return txControl.required(() -> {
+                PreparedStatement ps = conn.prepareStatement(command);
+                setBatchVariables(conn, ps, paths, nbTables, bucketWidth, origin, origin, limit);
+
+                ResultSet rs = ps.executeQuery();
+                while (rs.next()) {
+                    results.get(toPath(rs)).add(toAggregatedValue(rs, nbTables > 1));
+                }
+                return results;
+            });
+        } catch (Exception e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Unable to aggregate data for {}", paths, e);
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getStoredValueCounts(List<String> resources, String selector, ZonedDateTime fromTime,
+            ZonedDateTime toTime) {
+        Collection<ResourcePath> paths = resolve(resources, selector);
+        Map<String, Long> results = new LinkedHashMap<>();
+        for (ResourcePath path : paths) {
+            results.put(path.toString(), 0L);
+        }
+        if (paths.isEmpty()) {
+            return results;
+        }
+
+        Connection conn = connectionSupplier.get();
+
+        try {
+            return txControl.required(() -> {
+
+                PreparedStatement ps;
+                if (toTime == null) {
+                    if (fromTime == null) {
+                        ps = conn.prepareStatement(BATCH_COUNT_TEMPLATE_WITHOUT_START_OR_LIMIT);
+                        setBatchVariables(conn, ps, paths, 3);
+                    } else {
+                        ps = conn.prepareStatement(BATCH_COUNT_TEMPLATE_WITHOUT_LIMIT);
+                        setBatchVariables(conn, ps, paths, 3, Timestamp.from(fromTime.toInstant()));
+                    }
+                } else {
+                    if (fromTime == null) {
+                        ps = conn.prepareStatement(BATCH_COUNT_TEMPLATE_WITHOUT_START);
+                        setBatchVariables(conn, ps, paths, 3, Timestamp.from(toTime.toInstant()));
+                    } else {
+                        ps = conn.prepareStatement(BATCH_COUNT_TEMPLATE);
+                        setBatchVariables(conn, ps, paths, 3, Timestamp.from(toTime.toInstant()),
+                                Timestamp.from(fromTime.toInstant()));
+                    }
+                }
+
+                ResultSet rs = ps.executeQuery();
+                while (rs.next()) {
+                    // The count is the first column of the single resource query
+                    results.put(toPath(rs), rs.getLong(4));
+                }
+                return results;
+            });
+        } catch (Exception e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Unable to count data for {}", paths, e);
+            }
+            throw new RuntimeException(e);
+        }
+    }
 }
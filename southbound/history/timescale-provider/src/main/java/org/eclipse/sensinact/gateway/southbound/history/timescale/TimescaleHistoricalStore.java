@@ -18,16 +18,24 @@ import java.sql.Connection;
 import java.sql.Statement;
 import java.util.Arrays;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.eclipse.sensinact.core.command.AbstractTwinCommand;
 import org.eclipse.sensinact.core.command.GatewayThread;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.SnapshotProjection;
 import org.eclipse.sensinact.core.twin.SensinactDigitalTwin;
+import org.eclipse.sensinact.filters.api.FilterCommandHelper;
+import org.eclipse.sensinact.filters.api.FilterException;
 import org.eclipse.sensinact.filters.resource.selector.api.ResourceSelector;
 import org.eclipse.sensinact.filters.resource.selector.api.ResourceSelectorFilterFactory;
+import org.eclipse.sensinact.gateway.southbound.history.api.ResourcePath;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.annotations.Activate;
@@ -82,6 +90,42 @@ public class TimescaleHistoricalStore {
          *         after the <code>include.resources</code> selection.
          */
         String[] exclude_resources() default {};
+
+        /**
+         * @return The maximum number of values waiting to be written
+         */
+        int write_queue_size() default 10000;
+
+        /**
+         * @return The maximum number of values written in a single batch
+         */
+        int write_batch_size() default 500;
+
+        /**
+         * @return The maximum time in milliseconds a value waits for its batch
+         *         to be full before being written
+         */
+        long write_flush_interval() default 200;
+
+        /**
+         * @return The number of threads writing values to the database
+         */
+        int write_threads() default 1;
+
+        /**
+         * @return What to do when the write queue is full. Values are queued
+         *         from the typed event delivery thread, which is shared with
+         *         all the other event handlers: the default drops the new
+         *         values rather than stalling the delivery while the database
+         *         is slow or unreachable.
+         */
+        OverflowPolicy write_overflow_policy() default OverflowPolicy.DROP_NEWEST;
+
+        /**
+         * @return The maximum time in milliseconds the {@link OverflowPolicy#BLOCK}
+         *         policy waits for room in the write queue
+         */
+        long write_overflow_timeout() default 1000;
     }
 
     @Reference
@@ -96,6 +140,9 @@ public class TimescaleHistoricalStore {
     @Reference
     ResourceSelectorFilterFactory filterFactory;
 
+    @Reference
+    IMetricsManager metrics;
+
     private final ObjectMapper mapper = new ObjectMapper();
 
     private Config config;
@@ -110,6 +157,8 @@ public class TimescaleHistoricalStore {
 
     private ServiceRegistration<?> reg;
 
+    private TimescaleBatchWriter writer;
+
     @Activate
     void start(BundleContext ctx, Config config) {
         if (logger.isDebugEnabled()) {
@@ -148,6 +197,22 @@ public class TimescaleHistoricalStore {
         }
     }
 
+    /**
+     * Lists the current resources matching the selector of a batch query
+     */
+    private List<ResourcePath> selectResources(String selector) {
+        ICriterion criterion = filterFactory.parseResourceSelector(Stream.of(fromString(selector)));
+        try {
+            return FilterCommandHelper.executeFilter(gatewayThread, criterion, SnapshotProjection.STRUCTURE).stream()
+                    .flatMap(p -> p.getServices().stream()).flatMap(s -> s.getResources().stream())
+                    .map(r -> new ResourcePath(r.getService().getProvider().getName(), r.getService().getName(),
+                            r.getName()))
+                    .collect(Collectors.toList());
+        } catch (FilterException e) {
+            throw new IllegalArgumentException("Unable to select the resources of " + selector, e);
+        }
+    }
+
     void doStart(BundleContext ctx) {
         try {
             setProvider(createProvider(config));
@@ -197,6 +262,11 @@ public class TimescaleHistoricalStore {
             this.config = config;
         }
 
+        if (!sameWriteSettings(oldConfig, config)) {
+            // Restart the writer with its new settings
+            safeUnregister();
+        }
+
         if (Objects.equals(oldConfig.url(), config.url()) && Objects.equals(oldConfig.user(), config.user())
                 && Objects.equals(oldConfig._password(), config._password())) {
             if (logger.isDebugEnabled()) {
@@ -217,17 +287,31 @@ public class TimescaleHistoricalStore {
         if (logger.isDebugEnabled()) {
             logger.debug("Stopping the TimescaleDB history store");
         }
-        setProvider(null);
+        // Flush the pending values before releasing the connection
         safeUnregister();
+        setProvider(null);
+    }
+
+    private boolean sameWriteSettings(Config a, Config b) {
+        return a.write_queue_size() == b.write_queue_size() && a.write_batch_size() == b.write_batch_size()
+                && a.write_flush_interval() == b.write_flush_interval() && a.write_threads() == b.write_threads()
+                && a.write_overflow_policy() == b.write_overflow_policy()
+                && a.write_overflow_timeout() == b.write_overflow_timeout();
     }
 
     private void safeUnregister() {
         ServiceRegistration<?> reg;
+        TimescaleBatchWriter writer;
         synchronized (this) {
             reg = this.reg;
             this.reg = null;
+            writer = this.writer;
+            this.writer = null;
         }
         safeUnregister(reg);
+        if (writer != null) {
+            writer.close();
+        }
     }
 
     private void safeUnregister(ServiceRegistration<?> reg) {
@@ -283,16 +367,27 @@ public class TimescaleHistoricalStore {
             if (logger.isDebugEnabled()) {
                 logger.debug("Registering listener for data update events");
             }
-            reg = ctx.registerService(TypedEventHandler.class, new TimescaleDatabaseWorker(txControl, connection::get, include, exclude),
+            TimescaleBatchWriter writer = new TimescaleBatchWriter(txControl, connection::get,
+                    new TimescaleBatchWriter.Settings(config.write_queue_size(), config.write_batch_size(),
+                            config.write_flush_interval(), config.write_threads(), config.write_overflow_policy(),
+                            config.write_overflow_timeout(), metrics));
+            reg = ctx.registerService(TypedEventHandler.class,
+                    new TimescaleDatabaseWorker(txControl, connection::get, writer, include, exclude,
+                            this::selectResources),
                     new Hashtable<>(Map.of(TYPED_EVENT_TOPICS, include.dataTopics(), "sensiNact.whiteboard.resource", true,
                             "sensiNact.provider.name", config.provider())));
             synchronized (this) {
                 if (this.reg == null) {
                     this.reg = reg;
+                    this.writer = writer;
                     reg = null;
+                    writer = null;
                 }
             }
             safeUnregister(reg);
+            if (writer != null) {
+                writer.close();
+            }
 
             gatewayThread.execute(new AbstractTwinCommand<Void>() {
                 @Override
@@ -0,0 +1,315 @@
+/*********************************************************************
+* Copyright (c) 2025 Contributors to the Eclipse Foundation.
+*
+* This program and the accompanying materials are made
+* available under the terms of the Eclipse Public License 2.0
+* which is available at https://www.eclipse.org/legal/epl-2.0/
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*   Kentyou - initial implementation
+**********************************************************************/
+package org.eclipse.sensinact.gateway.southbound.history.timescale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.sensinact.core.metrics.IMetricMeter;
+import org.eclipse.sensinact.core.metrics.IMetricTimer;
+import org.eclipse.sensinact.core.metrics.IMetricsHistogram;
+import org.eclipse.sensinact.core.metrics.IMetricsManager;
+import org.eclipse.sensinact.gateway.southbound.history.timescale.TimescaleBatchWriter.Row;
+import org.eclipse.sensinact.gateway.southbound.history.timescale.TimescaleBatchWriter.Settings;
+import org.eclipse.sensinact.gateway.southbound.history.timescale.TimescaleBatchWriter.Table;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.osgi.service.transaction.control.TransactionControl;
+
+/**
+ * Tests the batching of the Timescale history writes, with a mocked database
+ */
+@ExtendWith(MockitoExtension.class)
+public class TimescaleBatchWriterTest {
+
+    /**
+     * Provider of the values which can't be stored
+     */
+    private static final String INVALID = "invalid";
+
+    @Mock
+    TransactionControl txControl;
+
+    @Mock
+    Connection connection;
+
+    @Mock
+    IMetricsManager metrics;
+
+    @Mock
+    IMetricsHistogram depth;
+
+    @Mock
+    IMetricsHistogram batchSizes;
+
+    @Mock
+    IMetricMeter dropped;
+
+    @Mock
+    IMetricMeter failed;
+
+    @Mock
+    IMetricTimer timer;
+
+    /**
+     * Providers of the values of each committed transaction
+     */
+    final BlockingQueue<List<String>> written = new LinkedBlockingQueue<>();
+
+    /**
+     * Providers of the values of the current transaction
+     */
+    final ThreadLocal<List<String>> transaction = new ThreadLocal<>();
+
+    /**
+     * When set, transactions wait for it to be opened
+     */
+    volatile CountDownLatch gate;
+
+    /**
+     * Counted down when a transaction waits for the gate
+     */
+    final CountDownLatch waiting = new CountDownLatch(1);
+
+    TimescaleBatchWriter writer;
+
+    @BeforeEach
+    void setup() throws Exception {
+        lenient().when(metrics.getHistogram(TimescaleBatchWriter.METRIC_QUEUE_DEPTH)).thenReturn(depth);
+        lenient().when(metrics.getHistogram(TimescaleBatchWriter.METRIC_BATCH_SIZE)).thenReturn(batchSizes);
+        lenient().when(metrics.getMeter(TimescaleBatchWriter.METRIC_DROPPED)).thenReturn(dropped);
+        lenient().when(metrics.getMeter(TimescaleBatchWriter.METRIC_FAILED)).thenReturn(failed);
+        lenient().when(metrics.withTimer(anyString())).thenReturn(timer);
+
+        lenient().when(txControl.required(any())).thenAnswer(i -> {
+            CountDownLatch g = gate;
+            if (g != null) {
+                waiting.countDown();
+                g.await();
+            }
+            List<String> providers = new ArrayList<>();
+            transaction.set(providers);
+            try {
+                Object result = i.<Callable<?>>getArgument(0).call();
+                written.add(providers);
+                return result;
+            } finally {
+                transaction.remove();
+            }
+        });
+        lenient().when(connection.prepareStatement(anyString())).thenAnswer(i -> statement());
+    }
+
+    @AfterEach
+    void stop() {
+        if (gate != null) {
+            gate.countDown();
+        }
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private PreparedStatement statement() throws SQLException {
+        PreparedStatement ps = mock(PreparedStatement.class);
+        List<String> batch = new ArrayList<>();
+        doAnswer(i -> batch.add(i.getArgument(1))).when(ps).setString(eq(4), anyString());
+        when(ps.executeBatch()).thenAnswer(i -> {
+            if (batch.contains(INVALID)) {
+                throw new SQLException("Invalid value");
+            }
+            transaction.get().addAll(batch);
+            return new int[batch.size()];
+        });
+        return ps;
+    }
+
+    private TimescaleBatchWriter start(int queueSize, int batchSize, long flushInterval, OverflowPolicy policy,
+            long overflowTimeout) {
+        writer = new TimescaleBatchWriter(txControl, () -> connection,
+                new Settings(queueSize, batchSize, flushInterval, 1, policy, overflowTimeout, metrics));
+        return writer;
+    }
+
+    private static Row row(String provider) {
+        return new Row(Table.NUMERIC, new Timestamp(0), "pkg", "model", provider, "svc", "res", 42);
+    }
+
+    private List<String> nextWrite() throws InterruptedException {
+        return written.poll(5, TimeUnit.SECONDS);
+    }
+
+    @Nested
+    class BatchTests {
+
+        @Test
+        void flushBySize() throws Exception {
+            start(100, 3, 1000, OverflowPolicy.DROP_NEWEST, 0);
+            long start = System.nanoTime();
+            for (String provider : List.of("a", "b", "c", "d")) {
+                assertTrue(writer.add(row(provider)));
+            }
+
+            // The full batch doesn't wait for the flush interval
+            assertEquals(List.of("a", "b", "c"), nextWrite());
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1000));
+            verify(batchSizes).update(3);
+            assertEquals(List.of("d"), nextWrite());
+        }
+
+        @Test
+        void flushByTime() throws Exception {
+            start(100, 100, 300, OverflowPolicy.DROP_NEWEST, 0);
+            long start = System.nanoTime();
+            writer.add(row("a"));
+            writer.add(row("b"));
+
+            assertEquals(List.of("a", "b"), nextWrite());
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(300));
+        }
+
+        @Test
+        void retryOneByOne() throws Exception {
+            start(100, 3, 1000, OverflowPolicy.DROP_NEWEST, 0);
+            writer.add(row("a"));
+            writer.add(row(INVALID));
+            writer.add(row("b"));
+
+            // The batch fails, then the valid values are stored alone
+            assertEquals(List.of("a"), nextWrite());
+            assertEquals(List.of("b"), nextWrite());
+            assertNull(written.poll(200, TimeUnit.MILLISECONDS));
+            verify(txControl, times(4)).required(any());
+            verify(failed).mark();
+        }
+
+        @Test
+        void flushOnClose() throws Exception {
+            start(100, 2, 200, OverflowPolicy.DROP_NEWEST, 0);
+            for (String provider : List.of("a", "b", "c", "d", "e")) {
+                writer.add(row(provider));
+            }
+            writer.close();
+
+            // All the queued values are written before close returns
+            List<String> providers = new ArrayList<>();
+            for (List<String> batch : written) {
+                assertTrue(batch.size() <= 2);
+                providers.addAll(batch);
+            }
+            assertEquals(List.of("a", "b", "c", "d", "e"), providers);
+            assertFalse(writer.add(row("f")));
+            verify(dropped, never()).mark(anyInt());
+        }
+    }
+
+    @Nested
+    class OverflowTests {
+
+        /**
+         * Fills the queue of 2 values while the writer is stuck on a first one
+         */
+        private void fill(OverflowPolicy policy, long overflowTimeout) throws InterruptedException {
+            gate = new CountDownLatch(1);
+            start(2, 1, 10, policy, overflowTimeout);
+            assertTrue(writer.add(row("a")));
+            assertTrue(waiting.await(5, TimeUnit.SECONDS));
+            assertTrue(writer.add(row("b")));
+            assertTrue(writer.add(row("c")));
+        }
+
+        private List<String> release(int count) throws InterruptedException {
+            gate.countDown();
+            List<String> providers = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                providers.addAll(nextWrite());
+            }
+            assertNull(written.poll(200, TimeUnit.MILLISECONDS));
+            return providers;
+        }
+
+        @Test
+        void dropNewest() throws Exception {
+            fill(OverflowPolicy.DROP_NEWEST, 0);
+            assertFalse(writer.add(row("d")));
+            verify(dropped).mark();
+            assertEquals(List.of("a", "b", "c"), release(3));
+        }
+
+        @Test
+        void dropOldest() throws Exception {
+            fill(OverflowPolicy.DROP_OLDEST, 0);
+            assertTrue(writer.add(row("d")));
+            verify(dropped).mark();
+            assertEquals(List.of("a", "c", "d"), release(3));
+        }
+
+        @Test
+        void blockTimeout() throws Exception {
+            fill(OverflowPolicy.BLOCK, 200);
+            long start = System.nanoTime();
+            assertFalse(writer.add(row("d")));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+            verify(dropped).mark();
+            assertEquals(List.of("a", "b", "c"), release(3));
+        }
+
+        @Test
+        void blockUntilRoom() throws Exception {
+            fill(OverflowPolicy.BLOCK, 10_000);
+            new Thread(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                gate.countDown();
+            }).start();
+
+            // Waits for the writer to take a value from the queue
+            assertTrue(writer.add(row("d")));
+            verify(dropped, never()).mark();
+            assertEquals(List.of("a", "b", "c", "d"), release(4));
+        }
+    }
+}
@@ -739,6 +739,62 @@ public class TimescaleHistoryTest {
             }).getValue();
         }
 
+        @Test
+        void manyStringPages() throws Exception {
+            for (int i = 0; i < 1000; i++) {
+                push.pushUpdate(getDto(String.valueOf(i), TS_2012.plus(ofDays(i)))).getValue();
+            }
+
+            waitForRowCount("sensinact.text_data", 1006);
+
+            thread.execute(new ResourceCommand<Void>("https://eclipse.org/sensinact/" + "sensiNactHistory",
+                    "sensiNactHistory", "timescale-history", "history", "page") {
+
+                @SuppressWarnings("unchecked")
+                @Override
+                protected Promise<Void> call(SensinactResource resource, PromiseFactory pf) {
+                    // Default - the first 500 values
+                    List<TimedValue<?>> result = safeGet(
+                            resource.act(Map.of("provider", "bar", "service", "foobar", "resource", "foofoobarbar"))
+                                    .map(List.class::cast));
+                    assertEquals(500, result.size());
+                    for (int i = 0; i < 500; i++) {
+                        assertEquals(String.valueOf(i), result.get(i).getValue());
+                        assertEquals(TS_2012.plus(ofDays(i)), result.get(i).getTimestamp());
+                    }
+
+                    // Next page from the cursor, up to the end of the data
+                    result = safeGet(resource.act(Map.of("provider", "bar", "service", "foobar", "resource",
+                            "foofoobarbar", "cursor", TS_2012.plus(ofDays(899)).atOffset(ZoneOffset.UTC), "limit",
+                            200)).map(List.class::cast));
+                    assertEquals(100, result.size());
+                    for (int i = 0; i < 100; i++) {
+                        assertEquals(String.valueOf(i + 900), result.get(i).getValue());
+                    }
+
+                    // Latest values first
+                    result = safeGet(resource.act(Map.of("provider", "bar", "service", "foobar", "resource",
+                            "foofoobarbar", "ascending", false, "limit", 10)).map(List.class::cast));
+                    assertEquals(10, result.size());
+                    for (int i = 0; i < 10; i++) {
+                        assertEquals(String.valueOf(999 - i), result.get(i).getValue());
+                        assertEquals(TS_2012.plus(ofDays(999 - i)), result.get(i).getTimestamp());
+                    }
+
+                    // Values before the cursor, latest first
+                    result = safeGet(resource.act(Map.of("provider", "bar", "service", "foobar", "resource",
+                            "foofoobarbar", "cursor", TS_2012.plus(ofDays(3)).atOffset(ZoneOffset.UTC), "ascending",
+                            false, "limit", 10)).map(List.class::cast));
+                    assertEquals(3, result.size());
+                    for (int i = 0; i < 3; i++) {
+                        assertEquals(String.valueOf(2 - i), result.get(i).getValue());
+                    }
+
+                    return pf.resolved(null);
+                }
+            }).getValue();
+        }
+
         @Test
         void manyNumberData() throws Exception {
             for (int i = 0; i < 1000; i++) {
@@ -966,4 +1022,155 @@ public class TimescaleHistoryTest {
             }).getValue();
         }
     }
+
+    @Nested
+    class getAggregatedValuesTests {
+        @Test
+        void numberBuckets() throws Exception {
+            for (int i = 0; i < 10; i++) {
+                push.pushUpdate(getDto(i + 1, TS_2012.plus(ofDays(i)))).getValue();
+            }
+
+            waitForRowCount("sensinact.numeric_data", 10);
+
+            thread.execute(new ResourceCommand<Void>("https://eclipse.org/sensinact/" + "sensiNactHistory",
+                    "sensiNactHistory", "timescale-history", "history", "aggregate") {
+
+                @SuppressWarnings("unchecked")
+                @Override
+                protected Promise<Void> call(SensinactResource resource, PromiseFactory pf) {
+                    // Two buckets of 5 days, starting at the first value
+                    long interval = ofDays(5).toMillis();
+                    List<TimedValue<?>> result = safeGet(resource.act(Map.of("provider", "buzz", "service",
+                            "fizzbuzz", "resource", "fizzfizzbuzzbuzz", "fromTime", TS_2012.atOffset(ZoneOffset.UTC),
+                            "toTime", TS_2012.plus(ofDays(9)).atOffset(ZoneOffset.UTC), "interval", interval,
+                            "function", "avg")).map(List.class::cast));
+                    assertEquals(2, result.size());
+                    assertEquals(3d, result.get(0).getValue());
+                    assertEquals(TS_2012, result.get(0).getTimestamp());
+                    assertEquals(8d, result.get(1).getValue());
+                    assertEquals(TS_2012.plus(ofDays(5)), result.get(1).getTimestamp());
+
+                    result = safeGet(resource.act(Map.of("provider", "buzz", "service", "fizzbuzz", "resource",
+                            "fizzfizzbuzzbuzz", "fromTime", TS_2012.atOffset(ZoneOffset.UTC), "toTime",
+                            TS_2012.plus(ofDays(9)).atOffset(ZoneOffset.UTC), "interval", interval, "function",
+                            "max")).map(List.class::cast));
+                    assertEquals(2, result.size());
+                    assertEquals(5L, result.get(0).getValue());
+                    assertEquals(10L, result.get(1).getValue());
+
+                    // Buckets are aligned on the start time, empty ones are omitted
+                    result = safeGet(resource.act(Map.of("provider", "buzz", "service", "fizzbuzz", "resource",
+                            "fizzfizzbuzzbuzz", "fromTime", TS_2012.minus(ofDays(10)).atOffset(ZoneOffset.UTC),
+                            "toTime", TS_2012.plus(ofDays(2)).atOffset(ZoneOffset.UTC), "interval", interval,
+                            "function", "count")).map(List.class::cast));
+                    assertEquals(1, result.size());
+                    assertEquals(3L, result.get(0).getValue());
+                    assertEquals(TS_2012, result.get(0).getTimestamp());
+
+                    result = safeGet(resource.act(Map.of("provider", "buzz", "service", "fizzbuzz", "resource",
+                            "fizzfizzbuzzbuzz", "fromTime", TS_2012.atOffset(ZoneOffset.UTC), "toTime",
+                            TS_2012.plus(ofDays(9)).atOffset(ZoneOffset.UTC), "interval", interval, "function",
+                            "last")).map(List.class::cast));
+                    assertEquals(2, result.size());
+                    assertEquals(5L, result.get(0).getValue());
+                    assertEquals(10L, result.get(1).getValue());
+
+                    return pf.resolved(null);
+                }
+            }).getValue();
+        }
+
+        private <T> T safeGet(Promise<T> p) {
+            try {
+                return p.getValue();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    @Nested
+    class getBatchValuesTests {
+
+        private static final String NUMBER_PATH = "buzz/fizzbuzz/fizzfizzbuzzbuzz";
+
+        private static final String TEXT_PATH = "bar/foobar/foofoobarbar";
+
+        private static final String TEXT_SELECTOR = "{\"provider\":{\"value\":\"bar\",\"type\":\"EXACT\"},"
+                + "\"service\":{\"value\":\"foobar\",\"type\":\"EXACT\"},"
+                + "\"resource\":{\"value\":\"foofoobarbar\",\"type\":\"EXACT\"}}";
+
+        @BeforeEach
+        void setup() throws Exception {
+            for (int i = 0; i < 10; i++) {
+                push.pushUpdate(getDto(i, TS_2012.plus(ofDays(i)))).getValue();
+                push.pushUpdate(getDto("v" + i, TS_2012.plus(ofDays(i)))).getValue();
+            }
+
+            waitForRowCount("sensinact.numeric_data", 10);
+            waitForRowCount("sensinact.text_data", 10);
+        }
+
+        private <T> T act(String action, Map<String, Object> parameters) throws Exception {
+            return thread.execute(new ResourceCommand<T>("https://eclipse.org/sensinact/" + "sensiNactHistory",
+                    "sensiNactHistory", "timescale-history", "history", action) {
+
+                @SuppressWarnings("unchecked")
+                @Override
+                protected Promise<T> call(SensinactResource resource, PromiseFactory pf) {
+                    return resource.act(parameters).map(o -> (T) o);
+                }
+            }).getValue();
+        }
+
+        @Test
+        void single() throws Exception {
+            Map<String, TimedValue<?>> result = act("batchSingle", Map.of("resources",
+                    List.of(NUMBER_PATH, "buzz/fizzbuzz/unknown"), "selector", TEXT_SELECTOR, "time",
+                    TS_2012.plus(ofDays(5)).atOffset(ZoneOffset.UTC)));
+            assertEquals(List.of(NUMBER_PATH, "buzz/fizzbuzz/unknown", TEXT_PATH), List.copyOf(result.keySet()));
+            assertEquals(5L, result.get(NUMBER_PATH).getValue());
+            assertNull(result.get("buzz/fizzbuzz/unknown").getTimestamp());
+            assertEquals("v5", result.get(TEXT_PATH).getValue());
+            assertEquals(TS_2012.plus(ofDays(5)), result.get(TEXT_PATH).getTimestamp());
+        }
+
+        @Test
+        void range() throws Exception {
+            Map<String, List<TimedValue<?>>> result = act("batchRange", Map.of("resources",
+                    List.of(NUMBER_PATH, TEXT_PATH), "fromTime", TS_2012.plus(ofDays(7)).atOffset(ZoneOffset.UTC)));
+            assertEquals(3, result.get(NUMBER_PATH).size());
+            assertEquals(7L, result.get(NUMBER_PATH).get(0).getValue());
+            assertEquals(9L, result.get(NUMBER_PATH).get(2).getValue());
+            assertEquals(3, result.get(TEXT_PATH).size());
+            assertEquals("v7", result.get(TEXT_PATH).get(0).getValue());
+
+            // No start: the latest values, skipped from the end
+            result = act("batchRange", Map.of("resources", List.of(NUMBER_PATH, TEXT_PATH), "skip", 8));
+            assertEquals(2, result.get(NUMBER_PATH).size());
+            assertEquals(0L, result.get(NUMBER_PATH).get(0).getValue());
+            assertEquals("v1", result.get(TEXT_PATH).get(1).getValue());
+        }
+
+        @Test
+        void aggregate() throws Exception {
+            Map<String, List<TimedValue<?>>> result = act("batchAggregate", Map.of("resources",
+                    List.of(NUMBER_PATH, TEXT_PATH), "fromTime", TS_2012.atOffset(ZoneOffset.UTC), "toTime",
+                    TS_2012.plus(ofDays(9)).atOffset(ZoneOffset.UTC), "interval", ofDays(5).toMillis(), "function",
+                    "last"));
+            assertEquals(2, result.get(NUMBER_PATH).size());
+            assertEquals(4L, result.get(NUMBER_PATH).get(0).getValue());
+            assertEquals(9L, result.get(NUMBER_PATH).get(1).getValue());
+            assertEquals("v4", result.get(TEXT_PATH).get(0).getValue());
+            assertEquals(TS_2012.plus(ofDays(5)), result.get(TEXT_PATH).get(1).getTimestamp());
+        }
+
+        @Test
+        void count() throws Exception {
+            Map<String, Long> result = act("batchCount", Map.of("resources", List.of(NUMBER_PATH), "selector",
+                    TEXT_SELECTOR, "fromTime", TS_2012.plus(ofDays(3)).atOffset(ZoneOffset.UTC)));
+            assertEquals(Map.of(NUMBER_PATH, 7L, TEXT_PATH, 7L), result);
+        }
+    }
 }
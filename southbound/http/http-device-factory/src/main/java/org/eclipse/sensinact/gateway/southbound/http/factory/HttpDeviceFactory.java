@@ -30,6 +30,7 @@ import org.eclipse.jetty.client.util.BasicAuthentication;
 import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.eclipse.jetty.client.util.StringRequestContent;
 import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.sensinact.core.command.GatewayOverloadedException;
 import org.eclipse.sensinact.gateway.southbound.device.factory.DeviceFactoryException;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingHandler;
 import org.eclipse.sensinact.gateway.southbound.http.factory.ParsedHttpTask.KeyValue;
@@ -41,6 +42,7 @@ import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.util.promise.Promise;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -196,7 +198,13 @@ public class HttpDeviceFactory {
                     final int status = response.getStatus();
                     if (status >= 200 && status < 300) {
                         try {
-                            mappingHandler.handle(task.mapping, headers.get(), getContent());
+                            task.pendingUpdate = mappingHandler.handle(task.mapping, headers.get(), getContent())
+                                    .onFailure(e -> {
+                                        if (e instanceof GatewayOverloadedException) {
+                                            logger.warn("Gateway overloaded, updates from {} were not applied",
+                                                    task.url);
+                                        }
+                                    });
                         } catch (DeviceFactoryException e) {
                             logger.error("Error parsing input from {}: {}", task.url, e.getMessage(), e);
                         }
@@ -222,7 +230,13 @@ public class HttpDeviceFactory {
      * @param task Task to run
      */
     private void runScheduledTask(final ParsedHttpPeriodicTask periodicTask) {
-        runTask(periodicTask);
+        final Promise<?> pendingUpdate = periodicTask.pendingUpdate;
+        if (pendingUpdate != null && !pendingUpdate.isDone()) {
+            // Don't add more work while the gateway is still handling the previous poll
+            logger.warn("Skipping poll of {}: previous update is still pending", periodicTask.url);
+        } else {
+            runTask(periodicTask);
+        }
         if (scheduledExecutor != null) {
             scheduledExecutor.schedule(() -> runScheduledTask(periodicTask), periodicTask.period, TimeUnit.SECONDS);
         }
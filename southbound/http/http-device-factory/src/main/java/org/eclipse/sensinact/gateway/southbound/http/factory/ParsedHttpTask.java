@@ -19,6 +19,7 @@ import java.util.Map.Entry;
 
 import org.eclipse.sensinact.gateway.southbound.device.factory.dto.DeviceMappingConfigurationDTO;
 import org.eclipse.sensinact.gateway.southbound.http.factory.config.HttpDeviceFactoryConfigurationTaskDTO;
+import org.osgi.util.promise.Promise;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
@@ -111,6 +112,11 @@ public class ParsedHttpTask {
      */
     public final DeviceMappingConfigurationDTO mapping;
 
+    /**
+     * Promise of the updates pushed from the last response, if any
+     */
+    volatile Promise<?> pendingUpdate;
+
     public ParsedHttpTask(final HttpDeviceFactoryConfigurationTaskDTO task)
             throws JsonMappingException, JsonProcessingException {
         this.method = task.method != null && !task.method.isBlank() ? task.method : "GET";
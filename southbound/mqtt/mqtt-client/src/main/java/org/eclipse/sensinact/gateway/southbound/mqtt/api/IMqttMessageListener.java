@@ -23,7 +23,9 @@ public interface IMqttMessageListener {
     String MQTT_TOPICS_FILTERS = "sensinact.mqtt.topics.filters";
 
     /**
-     * Notification of a new message
+     * Notification of a new message. The listener is called from the MQTT client
+     * thread: blocking it pauses the reading of incoming messages, which can be
+     * used to apply back-pressure.
      *
      * @param handlerId ID of the MQTT handler that received the message
      * @param topic     Message topic
@@ -38,4 +38,18 @@ public @interface MqttDeviceFactoryConfiguration {
      * Name for the {@link IMqttMessageListener} service
      */
     String name() default "Unnamed";
+
+    /**
+     * Maximum number of messages whose updates are still being applied by the
+     * gateway. Once reached, the MQTT client thread is blocked, which pauses the
+     * reading of new messages. Zero or negative to disable the limit.
+     */
+    int max_pending_updates() default 256;
+
+    /**
+     * Maximum time, in milliseconds, the MQTT client thread waits for a pending
+     * update to complete once {@link #max_pending_updates()} is reached. The
+     * message is dropped after this delay.
+     */
+    long max_pending_timeout() default 10000;
 }
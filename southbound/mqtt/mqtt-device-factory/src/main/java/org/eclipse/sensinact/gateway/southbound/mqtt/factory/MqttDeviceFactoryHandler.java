@@ -16,8 +16,11 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
+import org.eclipse.sensinact.core.command.GatewayOverloadedException;
 import org.eclipse.sensinact.gateway.southbound.device.factory.DeviceFactoryException;
 import org.eclipse.sensinact.gateway.southbound.device.factory.IDeviceMappingHandler;
 import org.eclipse.sensinact.gateway.southbound.device.factory.dto.DeviceMappingConfigurationDTO;
@@ -31,6 +34,7 @@ import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.util.promise.Promise;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,6 +73,17 @@ public class MqttDeviceFactoryHandler implements IMqttMessageListener {
      */
     private ServiceRegistration<IMqttMessageListener> svcReg;
 
+    /**
+     * Limits the number of messages being applied by the gateway (null if
+     * unlimited or deactivated)
+     */
+    private volatile Semaphore pendingUpdates;
+
+    /**
+     * Maximum time to wait for a pending update to complete, in milliseconds
+     */
+    private long pendingTimeout;
+
     /**
      * Component activated
      */
@@ -85,6 +100,10 @@ public class MqttDeviceFactoryHandler implements IMqttMessageListener {
 
         allowedHandlerId = handlerId;
 
+        final int maxPendingUpdates = configuration.max_pending_updates();
+        pendingUpdates = maxPendingUpdates > 0 ? new Semaphore(maxPendingUpdates) : null;
+        pendingTimeout = Math.max(0, configuration.max_pending_timeout());
+
         if (topics == null || topics.length == 0) {
             topics = new String[] { "#" };
         } else if (topics.length == 1 && topics[0].contains(",")) {
@@ -124,6 +143,14 @@ public class MqttDeviceFactoryHandler implements IMqttMessageListener {
             svcReg.unregister();
             svcReg = null;
         }
+
+        final Semaphore limit = pendingUpdates;
+        pendingUpdates = null;
+        if (limit != null) {
+            // Wake up the threads waiting for a permit: each one gives its
+            // permit back to the next as the component is deactivated
+            limit.release();
+        }
     }
 
     @Override
@@ -137,11 +164,50 @@ public class MqttDeviceFactoryHandler implements IMqttMessageListener {
         context.put("handlerId", handlerId);
         fillTopicSegments(topic, context);
 
+        final Semaphore limit = pendingUpdates;
+        if (limit != null) {
+            try {
+                // Blocking the MQTT client thread stops reading from the broker
+                if (!limit.tryAcquire(pendingTimeout, TimeUnit.MILLISECONDS)) {
+                    logger.warn("Too many pending updates, message from handler '{}' on topic '{}' was dropped",
+                            handlerId, topic);
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (pendingUpdates != limit) {
+                // Deactivated while waiting
+                limit.release();
+                return;
+            }
+        }
+
+        Promise<?> update = null;
         try {
-            mappingHandler.handle(mappingConfiguration, context, message.getPayload());
+            update = mappingHandler.handle(mappingConfiguration, context, message.getPayload());
         } catch (DeviceFactoryException e) {
             logger.error("Error handling MQTT payload from handler '{}' on topic '{}': {}", handlerId, topic,
                     e.getMessage(), e);
+        } finally {
+            if (limit != null) {
+                if (update == null) {
+                    limit.release();
+                } else {
+                    update.onResolve(limit::release);
+                }
+            }
+        }
+
+        if (update != null) {
+            update.onFailure(e -> {
+                if (e instanceof GatewayOverloadedException) {
+                    logger.warn("Gateway overloaded, update from handler '{}' on topic '{}' was not applied",
+                            handlerId, topic);
+                }
+            });
         }
     }
 
@@ -0,0 +1,250 @@
+/*********************************************************************
+ * Copyright (c) 2025 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors: Kentyou - initial implementation
+ **********************************************************************/
+package org.eclipse.sensinact.southbound.rules.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.sensinact.core.model.ResourceType;
+import org.eclipse.sensinact.core.model.ValueType;
+import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
+import org.eclipse.sensinact.core.snapshot.ServiceSnapshot;
+import org.eclipse.sensinact.core.twin.DefaultTimedValue;
+import org.eclipse.sensinact.core.twin.TimedValue;
+
+/**
+ * Copies of provider snapshots with the value of a resource replaced by the
+ * one of a data event.
+ * <p>
+ * The whole provider is copied, so that navigating from any resource back to
+ * its provider gives the patched provider, and so that successive patches
+ * don't stack up wrappers.
+ */
+final class PatchedSnapshots {
+
+    private PatchedSnapshots() {
+    }
+
+    /**
+     * Copies a provider snapshot with the new value of a resource
+     *
+     * @param base  the current snapshot of the provider
+     * @param event the data event, on a resource of the snapshot
+     * @return A new snapshot of the provider
+     */
+    static ProviderSnapshot patch(ProviderSnapshot base, ResourceDataNotification event) {
+        Instant now = Instant.now();
+        PatchedProviderSnapshot provider = new PatchedProviderSnapshot(base, now);
+        for (ServiceSnapshot s : base.getServices()) {
+            PatchedServiceSnapshot service = new PatchedServiceSnapshot(provider, s.getName(), now);
+            boolean patchedService = Objects.equals(s.getName(), event.service());
+            for (ResourceSnapshot r : s.getResources()) {
+                if (patchedService && Objects.equals(r.getName(), event.resource())) {
+                    service.resources.add(new PatchedResourceSnapshot(service, r, now,
+                            new DefaultTimedValue<>(event.newValue(), event.timestamp()), event.metadata()));
+                } else {
+                    service.resources.add(new PatchedResourceSnapshot(service, r, r.getSnapshotTime(),
+                            r.getValue(), r.getMetadata()));
+                }
+            }
+            provider.services.add(service);
+        }
+        return provider;
+    }
+}
+
+class PatchedProviderSnapshot implements ProviderSnapshot {
+
+    private final String name;
+    private final String modelPackageUri;
+    private final String modelName;
+    private final Instant snapshotTime;
+
+    final List<PatchedServiceSnapshot> services = new ArrayList<>();
+
+    PatchedProviderSnapshot(ProviderSnapshot base, Instant snapshotTime) {
+        this.name = base.getName();
+        this.modelPackageUri = base.getModelPackageUri();
+        this.modelName = base.getModelName();
+        this.snapshotTime = snapshotTime;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Instant getSnapshotTime() {
+        return snapshotTime;
+    }
+
+    @Override
+    public String getModelPackageUri() {
+        return modelPackageUri;
+    }
+
+    @Override
+    public String getModelName() {
+        return modelName;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T extends ServiceSnapshot> List<T> getServices() {
+        return (List<T>) Collections.unmodifiableList(services);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T extends ServiceSnapshot> T getService(String name) {
+        for (PatchedServiceSnapshot s : services) {
+            if (s.getName().equals(name)) {
+                return (T) s;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public <T extends ResourceSnapshot> T getResource(String service, String resource) {
+        PatchedServiceSnapshot s = getService(service);
+        return s == null ? null : s.getResource(resource);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ProviderSnapshot(%s/%s, %s)", modelName, name, snapshotTime);
+    }
+}
+
+class PatchedServiceSnapshot implements ServiceSnapshot {
+
+    private final PatchedProviderSnapshot provider;
+    private final String name;
+    private final Instant snapshotTime;
+
+    final List<PatchedResourceSnapshot> resources = new ArrayList<>();
+
+    PatchedServiceSnapshot(PatchedProviderSnapshot provider, String name, Instant snapshotTime) {
+        this.provider = provider;
+        this.name = name;
+        this.snapshotTime = snapshotTime;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Instant getSnapshotTime() {
+        return snapshotTime;
+    }
+
+    @Override
+    public ProviderSnapshot getProvider() {
+        return provider;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T extends ResourceSnapshot> List<T> getResources() {
+        return (List<T>) Collections.unmodifiableList(resources);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T extends ResourceSnapshot> T getResource(String name) {
+        for (PatchedResourceSnapshot r : resources) {
+            if (r.getName().equals(name)) {
+                return (T) r;
+            }
+        }
+        return null;
+    }
+}
+
+class PatchedResourceSnapshot implements ResourceSnapshot {
+
+    private final PatchedServiceSnapshot service;
+    private final String name;
+    private final Instant snapshotTime;
+    private final Class<?> type;
+    private final ResourceType resourceType;
+    private final ValueType valueType;
+    private final TimedValue<?> value;
+    private final Map<String, Object> metadata;
+
+    PatchedResourceSnapshot(PatchedServiceSnapshot service, ResourceSnapshot base, Instant snapshotTime,
+            TimedValue<?> value, Map<String, Object> metadata) {
+        this.service = service;
+        this.name = base.getName();
+        this.snapshotTime = snapshotTime;
+        this.type = base.getType();
+        this.resourceType = base.getResourceType();
+        this.valueType = base.getValueType();
+        this.value = value;
+        this.metadata = metadata;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Instant getSnapshotTime() {
+        return snapshotTime;
+    }
+
+    @Override
+    public ServiceSnapshot getService() {
+        return service;
+    }
+
+    @Override
+    public boolean isSet() {
+        return value != null && value.getTimestamp() != null;
+    }
+
+    @Override
+    public Class<?> getType() {
+        return type;
+    }
+
+    @Override
+    public TimedValue<?> getValue() {
+        return value;
+    }
+
+    @Override
+    public Map<String, Object> getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public ResourceType getResourceType() {
+        return resourceType;
+    }
+
+    @Override
+    public ValueType getValueType() {
+        return valueType;
+    }
+}
@@ -12,19 +12,19 @@
 package org.eclipse.sensinact.southbound.rules.impl;
 
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toMap;
 import static org.eclipse.sensinact.southbound.rules.api.RuleDefinition.RULE_NAME_PROPERTY;
 
 import java.time.Instant;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -34,13 +34,18 @@ import org.eclipse.sensinact.core.metrics.IMetricMeter;
 import org.eclipse.sensinact.core.metrics.IMetricTimer;
 import org.eclipse.sensinact.core.metrics.IMetricsManager;
 import org.eclipse.sensinact.core.model.SensinactModelManager;
+import org.eclipse.sensinact.core.notification.LifecycleNotification;
+import org.eclipse.sensinact.core.notification.LifecycleNotification.Status;
 import org.eclipse.sensinact.core.notification.ResourceDataNotification;
+import org.eclipse.sensinact.core.notification.ResourceNotification;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
+import org.eclipse.sensinact.core.snapshot.ProviderScope;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.core.snapshot.ResourceValueFilter;
 import org.eclipse.sensinact.core.twin.SensinactDigitalTwin;
 import org.eclipse.sensinact.core.twin.TimedValue;
+import org.eclipse.sensinact.gateway.geojson.GeoJsonObject;
 import org.eclipse.sensinact.southbound.rules.api.ResourceUpdater;
 import org.eclipse.sensinact.southbound.rules.api.RuleDefinition;
 import org.osgi.framework.BundleContext;
@@ -52,10 +57,25 @@ import org.osgi.util.promise.PromiseFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Feeds a rule with the snapshots of the providers matching its input filter.
+ * <p>
+ * The snapshots are taken once from the gateway, then kept up to date by
+ * patching them with the data events received. A new snapshot is only taken
+ * when the structure of the providers changes, when a provider may enter the
+ * rule inputs, or when an event shows that an update was missed.
+ */
 public class RuleProcessor implements TypedEventHandler<ResourceDataNotification> {
 
     private static Logger LOG = LoggerFactory.getLogger(RuleProcessor.class);
 
+    /**
+     * What to do after checking an event against the snapshots
+     */
+    private enum Action {
+        IGNORE, EVALUATE, RESYNC
+    }
+
     private final GatewayThread gateway;
     private final IMetricsManager metrics;
     private final ResourceUpdater updater;
@@ -63,6 +83,7 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
 
     private final ICriterion criterion;
     private final Predicate<ResourceDataNotification> filter;
+    private final Predicate<ProviderSnapshot> providerFilter;
     private final String ruleName;
 
     private final IMetricMeter eventDelivery;
@@ -70,12 +91,19 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
     private final String timerName;
 
     private final ServiceRegistration<?> reg;
+    private final ServiceRegistration<?> lifecycleReg;
 
     private final Object lock = new Object();
 
     private boolean pending;
     private boolean closed;
-    private Deque<ResourceDataNotification> unchecked = new ArrayDeque<>(128);
+    private boolean evaluating;
+    private long version;
+    private long evaluated;
+    private Deque<ResourceNotification> unchecked = new ArrayDeque<>(128);
+    /**
+     * The current snapshots, replaced rather than modified when patched
+     */
     private Map<String, ProviderSnapshot> map = Map.of();
 
     public RuleProcessor(BundleContext context, GatewayThread gateway,
@@ -88,6 +116,7 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
 
         this.criterion = rd.getInputFilter();
         this.filter = criterion.dataEventFilter();
+        this.providerFilter = ProviderScope.providerFilter(criterion);
         this.ruleName = String.valueOf(properties.getOrDefault(RULE_NAME_PROPERTY, "unnamed_rule"));
 
         String sanitizedMetricPrefix = "sensinact.rules." + ruleName.replaceAll("\\s", "_");
@@ -97,77 +126,196 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
 
         reg = context.registerService(TypedEventHandler.class, this,
                 new Hashtable<>(Map.of(TypedEventConstants.TYPED_EVENT_TOPICS, criterion.dataTopics())));
+        lifecycleReg = context.registerService(TypedEventHandler.class, new LifecycleListener(),
+                new Hashtable<>(Map.of(TypedEventConstants.TYPED_EVENT_TOPICS, "LIFECYCLE/*")));
 
         updateSnapshot(1);
     }
 
+    /**
+     * Lifecycle events tell when the structure of the snapshots changes
+     */
+    private class LifecycleListener implements TypedEventHandler<LifecycleNotification> {
+        @Override
+        public void notify(String topic, LifecycleNotification event) {
+            try {
+                apply(checkLifecycleAgainstSnapshot(event));
+            } catch (Exception e) {
+                LOG.error("An error occurred processing a lifecycle event on topic {}", topic, e);
+            }
+        }
+    }
+
     @Override
     public void notify(String topic, ResourceDataNotification event) {
         try {
             eventDelivery.mark();
-            if(filter.test(event)) {
+            boolean accepted = filter.test(event);
+            if(accepted) {
                 if(LOG.isDebugEnabled()) {
                     LOG.debug("Rule {} received data event on topic {}", ruleName, topic);
                 }
-                if(checkEventAgainstSnapshot(event)) {
-                    if(LOG.isDebugEnabled()) {
-                        LOG.debug("Updating snapshot data for rule", ruleName);
-                    }
-                    updateSnapshot(1);
-                }
             } else {
                 eventRejection.mark();
             }
+            apply(checkEventAgainstSnapshot(event, accepted));
         } catch (Exception e) {
             LOG.error("An error occurred processing an event on topic {}", topic, e);
         }
     }
 
-    private boolean checkEventAgainstSnapshot(ResourceDataNotification event) {
-        boolean update = true;
+    private void apply(Action action) {
+        switch (action) {
+        case RESYNC:
+            if(LOG.isDebugEnabled()) {
+                LOG.debug("Updating snapshot data for rule {}", ruleName);
+            }
+            updateSnapshot(1);
+            break;
+        case EVALUATE:
+            evaluate();
+            break;
+        default:
+            break;
+        }
+    }
+
+    private Action check(ResourceNotification event) {
+        if(event instanceof ResourceDataNotification) {
+            ResourceDataNotification rdn = (ResourceDataNotification) event;
+            return checkEventAgainstSnapshot(rdn, filter.test(rdn));
+        } else {
+            return checkLifecycleAgainstSnapshot((LifecycleNotification) event);
+        }
+    }
+
+    /**
+     * Patches the snapshots with a data event
+     *
+     * @param event    the data event
+     * @param accepted if the event passes the input filter of the rule. Rejected
+     *                 events can still make a provider leave the rule inputs.
+     * @return the action to take
+     */
+    private Action checkEventAgainstSnapshot(ResourceDataNotification event, boolean accepted) {
         synchronized (lock) {
 
             if(closed) {
-                return false;
+                return Action.IGNORE;
             }
 
             if(pending) {
                 unchecked.add(event);
-                return false;
+                return Action.IGNORE;
             }
 
             ProviderSnapshot p = map.get(event.provider());
-            if(p != null) {
-                ResourceSnapshot r = p.getResource(event.service(), event.resource());
-                if(r != null && r.isSet()) {
-                    TimedValue<?> tv = r.getValue();
-                    Instant snapshot = tv.getTimestamp();
-                    if(snapshot.isAfter(event.timestamp())) {
+            ResourceSnapshot r = p == null ? null : p.getResource(event.service(), event.resource());
+            if(r == null) {
+                // A provider or a resource which may enter the rule inputs
+                return accepted ? resync() : Action.IGNORE;
+            }
+
+            TimedValue<?> tv = r.getValue();
+            if(r.isSet()) {
+                Instant snapshot = tv.getTimestamp();
+                if(snapshot.isAfter(event.timestamp())) {
+                    if(LOG.isDebugEnabled()) {
+                        LOG.debug("Existing snapshot for data {}/{}/{} is newer than event {}",
+                                event.provider(), event.service(), event.resource(), event.timestamp());
+                    }
+                    return Action.IGNORE;
+                } else if (snapshot.equals(event.timestamp()) && Objects.equals(tv.getValue(), event.newValue())) {
+                    // Check the metadata
+                    Map<String, Object> snapshotMeta = cleanMetadataMap(r.getMetadata());
+                    Map<String, Object> eventMeta = cleanMetadataMap(event.metadata());
+                    if(snapshotMeta.equals(eventMeta)) {
                         if(LOG.isDebugEnabled()) {
-                            LOG.debug("Existing snapshot for data {}/{}/{} is newer than event {}",
-                                    event.provider(), event.service(), event.resource(), event.timestamp());
-                        }
-                        update = false;
-                    } else if (snapshot.equals(event.timestamp()) && Objects.equals(tv.getValue(), event.newValue())) {
-                        // Check the metadata
-                        Map<String, Object> snapshotMeta = cleanMetadataMap(r.getMetadata());
-                        Map<String, Object> eventMeta = cleanMetadataMap(event.metadata());
-                        if(snapshotMeta.equals(eventMeta)) {
-                            if(LOG.isDebugEnabled()) {
-                                LOG.debug("Existing snapshot for data {}/{}/{} is up to date",
-                                        event.provider(), event.service(), event.resource());
-                            }
-                            update = false;
+                            LOG.debug("Existing snapshot for data {}/{}/{} is up to date",
+                                    event.provider(), event.service(), event.resource());
                         }
+                        return Action.IGNORE;
                     }
                 }
             }
-            if(update) {
-                pending = true;
-                unchecked.clear();
+
+            if(!Objects.equals(tv == null ? null : tv.getValue(), event.oldValue())) {
+                if(LOG.isDebugEnabled()) {
+                    LOG.debug("Missed an update of data {}/{}/{} before event {}",
+                            event.provider(), event.service(), event.resource(), event.timestamp());
+                }
+                return resync();
+            }
+
+            ProviderSnapshot patched = PatchedSnapshots.patch(p, event);
+            Map<String, ProviderSnapshot> updated = new LinkedHashMap<>(map);
+            if(stillMatches(patched, event)) {
+                updated.put(patched.getName(), patched);
+            } else {
+                updated.remove(patched.getName());
+            }
+            map = updated;
+            version++;
+            return Action.EVALUATE;
+        }
+    }
+
+    /**
+     * Checks if a patched provider is still part of the rule inputs. The
+     * service and resource filters don't depend on values and are left out.
+     */
+    private boolean stillMatches(ProviderSnapshot patched, ResourceDataNotification event) {
+        Predicate<GeoJsonObject> locationFilter = criterion.getLocationFilter();
+        if(locationFilter != null && Objects.equals("admin", event.service())
+                && Objects.equals("location", event.resource())
+                && !locationFilter.test((GeoJsonObject) event.newValue())) {
+            return false;
+        }
+        if(providerFilter != null && !providerFilter.test(patched)) {
+            return false;
+        }
+        ResourceValueFilter rvf = criterion.getResourceValueFilter();
+        return rvf == null || rvf.test(patched, patched.getServices().stream()
+                .flatMap(s -> s.getResources().stream())
+                .collect(toList()));
+    }
+
+    private Action checkLifecycleAgainstSnapshot(LifecycleNotification event) {
+        synchronized (lock) {
+            if(closed) {
+                return Action.IGNORE;
+            }
+
+            if(pending) {
+                unchecked.add(event);
+                return Action.IGNORE;
+            }
+
+            if(!map.containsKey(event.provider())) {
+                // New providers are checked with their first data event
+                return Action.IGNORE;
+            }
+
+            if(event.status() == Status.PROVIDER_DELETED) {
+                Map<String, ProviderSnapshot> updated = new LinkedHashMap<>(map);
+                updated.remove(event.provider());
+                map = updated;
+                version++;
+                return Action.EVALUATE;
             }
+
+            // The services or resources of the provider changed
+            return resync();
         }
-        return update;
+    }
+
+    /**
+     * Marks that a new snapshot must be taken. Must be called with the lock held.
+     */
+    private Action resync() {
+        pending = true;
+        unchecked.clear();
+        return Action.RESYNC;
     }
 
     private Map<String, Object> cleanMetadataMap(Map<String, Object> map) {
@@ -182,8 +330,8 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
             @Override
             protected Promise<List<ProviderSnapshot>> call(SensinactDigitalTwin twin, SensinactModelManager modelMgr,
                     PromiseFactory promiseFactory) {
-                return promiseFactory.resolved(twin.filteredSnapshot(criterion.getLocationFilter(), criterion.getProviderFilter(),
-                        criterion.getServiceFilter(), criterion.getResourceFilter()));
+                return promiseFactory.resolved(twin.filteredSnapshot(ProviderScope.locationFilter(criterion),
+                        providerFilter, criterion.getServiceFilter(), criterion.getResourceFilter()));
             }
         }).thenAccept(this::snapshotUpdate)
         .onFailure(t -> snapshotUpdateFailed(t, attempt));
@@ -191,34 +339,69 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
 
     private void snapshotUpdate(List<ProviderSnapshot> fromGateway) {
         ResourceValueFilter rvf = criterion.getResourceValueFilter();
-        List<ProviderSnapshot> list = fromGateway.stream()
-                .filter(p -> rvf == null || rvf.test(p, p.getServices().stream()
+        Map<String, ProviderSnapshot> map = new LinkedHashMap<>();
+        for (ProviderSnapshot p : fromGateway) {
+            if(rvf == null || rvf.test(p, p.getServices().stream()
                     .flatMap(s -> s.getResources().stream())
-                    .collect(toList())))
-                .collect(toList());
-        Map<String, ProviderSnapshot> map = list.stream()
-                .collect(toMap(ProviderSnapshot::getName, Function.identity()));
+                    .collect(toList()))) {
+                map.put(p.getName(), p);
+            }
+        }
 
+        boolean update = false;
         synchronized (lock) {
             if(closed) {
                 return;
             }
             this.map = map;
+            version++;
             pending = false;
+
+            // Catch up with the events received while taking the snapshot
+            while(!unchecked.isEmpty() && !update) {
+                update = check(unchecked.pollFirst()) == Action.RESYNC;
+            }
         }
 
-        try(IMetricTimer timer = metrics.withTimer(timerName)) {
-            rd.evaluate(list, updater);
+        evaluate();
+
+        if(update) {
+            updateSnapshot(1);
         }
+    }
 
-        boolean update = false;
+    /**
+     * Evaluates the rule with the current snapshots, unless they were already
+     * evaluated. Evaluations never overlap: changes made during an evaluation
+     * are picked up by the thread running it once it completes.
+     */
+    private void evaluate() {
         synchronized (lock) {
-            while(!unchecked.isEmpty() && !update) {
-                update = checkEventAgainstSnapshot(unchecked.pollLast());
+            if(evaluating) {
+                return;
             }
+            evaluating = true;
         }
-        if(update) {
-            updateSnapshot(1);
+        try {
+            for (;;) {
+                List<ProviderSnapshot> list;
+                synchronized (lock) {
+                    if(closed || evaluated == version) {
+                        evaluating = false;
+                        return;
+                    }
+                    evaluated = version;
+                    list = new ArrayList<>(map.values());
+                }
+                try(IMetricTimer timer = metrics.withTimer(timerName)) {
+                    rd.evaluate(list, updater);
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                evaluating = false;
+            }
+            throw e;
         }
     }
 
@@ -245,10 +428,12 @@ public class RuleProcessor implements TypedEventHandler<ResourceDataNotification
             unchecked.clear();
             map = Map.of();
         }
-        try {
-            reg.unregister();
-        } catch (Exception e) {
-            // Swallow it
+        for (ServiceRegistration<?> r : List.of(reg, lifecycleReg)) {
+            try {
+                r.unregister();
+            } catch (Exception e) {
+                // Swallow it
+            }
         }
     }
 }
@@ -27,6 +27,7 @@ import org.eclipse.sensinact.core.push.dto.BulkGenericDto;
 import org.eclipse.sensinact.core.push.dto.GenericDto;
 import org.eclipse.sensinact.core.snapshot.ICriterion;
 import org.eclipse.sensinact.core.snapshot.ProviderSnapshot;
+import org.eclipse.sensinact.core.snapshot.ResourceSnapshot;
 import org.eclipse.sensinact.southbound.rules.api.RuleDefinition;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -156,6 +157,65 @@ public class RulesWhiteboardIntegrationTest {
         Mockito.verify(rule, Mockito.after(100)).evaluate(Mockito.anyList(), Mockito.any());
     }
 
+    @Test
+    void testWhiteboardPatchedSnapshot(@InjectBundleContext BundleContext bc) throws Exception {
+
+        RuleDefinition rule = Mockito.mock(RuleDefinition.class);
+
+        ICriterion criterion = Mockito.mock(ICriterion.class, Mockito.CALLS_REAL_METHODS);
+
+        Mockito.when(rule.getInputFilter()).thenReturn(criterion);
+
+        Mockito.when(criterion.getProviderFilter()).thenReturn(p -> "Temp1".equals(p.getName()));
+        Mockito.when(criterion.getResourceValueFilter()).thenReturn((p, rs) -> rs.stream()
+                .filter(r -> "temperature".equals(r.getName()))
+                .allMatch(r -> ((Number) r.getValue().getValue()).intValue() < 30));
+
+        bc.registerService(RuleDefinition.class, rule, new Hashtable<>(Map.of(Constants.SERVICE_ID, 5,
+                RuleDefinition.RULE_NAME_PROPERTY, "test")));
+
+        Mockito.verify(rule, Mockito.timeout(1000)).evaluate(Mockito.argThat(hasValue("Temp1", "temperature", 10)),
+                Mockito.notNull());
+
+        // Value updates are applied to the existing snapshot
+        push.pushUpdate(makeRc("temperature", "Temp1", "sensor", "temperature", 12)).getValue();
+        Mockito.verify(rule, Mockito.timeout(1000)).evaluate(Mockito.argThat(hasValue("Temp1", "temperature", 12)),
+                Mockito.notNull());
+
+        // The provider leaves the rule inputs when its values no longer match
+        push.pushUpdate(makeRc("temperature", "Temp1", "sensor", "temperature", 35)).getValue();
+        Mockito.verify(rule, Mockito.timeout(1000)).evaluate(Mockito.eq(List.of()), Mockito.notNull());
+
+        // And enters them again when they do
+        push.pushUpdate(makeRc("temperature", "Temp1", "sensor", "temperature", 15)).getValue();
+        Mockito.verify(rule, Mockito.timeout(1000)).evaluate(Mockito.argThat(hasValue("Temp1", "temperature", 15)),
+                Mockito.notNull());
+
+        // New resources are picked up
+        push.pushUpdate(makeRc("temperature", "Temp1", "sensor", "humidity", 50)).getValue();
+        Mockito.verify(rule, Mockito.timeout(1000)).evaluate(Mockito.argThat(hasValue("Temp1", "humidity", 50)),
+                Mockito.notNull());
+    }
+
+    private ArgumentMatcher<List<ProviderSnapshot>> hasValue(String provider, String resource, Object value) {
+        return new ArgumentMatcher<List<ProviderSnapshot>>() {
+
+            @Override
+            public boolean matches(List<ProviderSnapshot> argument) {
+                if(argument.size() != 1 || !provider.equals(argument.get(0).getName())) {
+                    return false;
+                }
+                ResourceSnapshot rs = argument.get(0).getResource("sensor", resource);
+                return rs != null && rs.isSet() && value.equals(rs.getValue().getValue());
+            }
+
+            @Override
+            public String toString() {
+                return "<Provider " + provider + " with " + resource + "=" + value + ">";
+            }
+        };
+    }
+
     private ArgumentMatcher<List<ProviderSnapshot>> hasProviders(String... names) {
         return new ArgumentMatcher<List<ProviderSnapshot>>() {
 